@@ -0,0 +1,120 @@
+package com.example.cmpuzz_events;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.cmpuzz_events.models.event.EventCodec;
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.google.firebase.Timestamp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures what decoding one event document costs on a device, for events with empty,
+ * typical and very large entrant arrays. The data is shaped the way Firestore hands it
+ * over (Timestamps, Longs, lists of maps), and each iteration builds one entity, indexed
+ * lists and change-tracking baseline included; the reported time is per document.
+ * <p>
+ * Run with {@code ./gradlew connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.example.cmpuzz_events.EventCodecBenchmark}.
+ * Debug builds are slower than release, so compare results with each other, not with
+ * production timings.
+ */
+@RunWith(AndroidJUnit4.class)
+public class EventCodecBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    /**
+     * An event document as Firestore returns it, with the given number of waitlisted
+     * users and a tenth as many each of invitations, attendees and declines
+     */
+    private static Map<String, Object> storedEvent(int waitlisted) {
+        int decided = waitlisted / 10;
+        Timestamp now = Timestamp.now();
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", "bench_event");
+        data.put("title", "Swim Lessons");
+        data.put("description", "Beginner class");
+        data.put("organizerId", "org1");
+        data.put("organizerName", "Pool Staff");
+        data.put("capacity", (long) Math.max(decided, 1));
+        data.put("maxEntrants", 0L);
+        data.put("geolocationRequired", true);
+        data.put("registrationStart", now);
+        data.put("registrationEnd", now);
+        data.put("createdAt", now);
+        data.put("updatedAt", now);
+        data.put("drawStatus", "PENDING");
+        data.put("waitlist", userIds("w", waitlisted));
+        data.put("attendees", userIds("a", decided));
+        data.put("declined", userIds("d", decided));
+
+        List<Map<String, Object>> invitations = new ArrayList<>(decided);
+        Map<String, Object> locations = new HashMap<>();
+        for (int i = 0; i < decided; i++) {
+            Map<String, Object> invitation = new HashMap<>();
+            invitation.put("userId", "i" + i);
+            invitation.put("username", "User " + i);
+            invitation.put("status", "PENDING");
+            invitation.put("invitedAt", now);
+            invitations.add(invitation);
+            locations.put("i" + i, Arrays.asList(53.5, -113.5));
+        }
+        data.put("invitations", invitations);
+        data.put("entrantLocations", locations);
+        return data;
+    }
+
+    private static List<String> userIds(String prefix, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(prefix + i);
+        }
+        return ids;
+    }
+
+    private void benchmarkDecode(int waitlisted) {
+        Map<String, Object> data = storedEvent(waitlisted);
+        EventEntity decoded = EventCodec.decode(data);
+        assertEquals(waitlisted, decoded.getWaitlistCount());
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            EventCodec.decode(data);
+        }
+    }
+
+    @Test
+    public void decodeEmptyEvent() {
+        benchmarkDecode(0);
+    }
+
+    @Test
+    public void decodeEventWith100Entrants() {
+        benchmarkDecode(100);
+    }
+
+    @Test
+    public void decodeEventWith10kEntrants() {
+        benchmarkDecode(10_000);
+    }
+
+    @Test
+    public void decodeEventWith50kEntrants() {
+        benchmarkDecode(50_000);
+    }
+}
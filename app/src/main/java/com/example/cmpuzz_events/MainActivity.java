@@ -8,6 +8,11 @@ import android.util.Log;
 import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.auth.LoginActivity;
 import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.service.INotificationService;
+import com.example.cmpuzz_events.service.InboxCounts;
+import com.example.cmpuzz_events.service.LocalStore;
+import com.example.cmpuzz_events.service.NotificationService;
+import com.example.cmpuzz_events.service.OfflineSync;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -24,6 +29,7 @@ public class MainActivity extends AppCompatActivity {
     private NavController navController;
     private static final String TAG = "MainActivity";
     private AuthManager.AuthStateListener authStateListener;
+    private NavController.OnDestinationChangedListener badgeRefresher;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -34,6 +40,7 @@ public class MainActivity extends AppCompatActivity {
 
         setSupportActionBar(binding.toolbar);
 
+        LocalStore.init(getApplicationContext());
         setupNavigationForUserRole();
 
         // Handle deep links from QR codes
@@ -145,6 +152,48 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Brings the local event catalogue and the user's notifications up to date in the background
+     */
+    private void startOfflineSync(User user) {
+        OfflineSync sync = OfflineSync.getInstance();
+        sync.syncEvents(null);
+        sync.syncNotifications(user.getUid(), null);
+    }
+
+    /**
+     * Shows the user's unread count on the notifications tab, if the menu has one, and
+     * refreshes it on every navigation. Each refresh is one read of the inbox counter.
+     */
+    private void showUnreadBadge(BottomNavigationView navView, User user) {
+        if (badgeRefresher != null) {
+            navController.removeOnDestinationChangedListener(badgeRefresher);
+            badgeRefresher = null;
+        }
+        if (navView.getMenu().findItem(R.id.navigation_notifications) == null) {
+            return;
+        }
+        badgeRefresher = (controller, destination, arguments) ->
+            NotificationService.getInstance().getInboxCounts(user.getUid(),
+                new INotificationService.InboxCountsCallback() {
+                    @Override
+                    public void onSuccess(InboxCounts counts) {
+                        if (counts.getUnread() > 0) {
+                            navView.getOrCreateBadge(R.id.navigation_notifications)
+                                    .setNumber((int) counts.getUnread());
+                        } else {
+                            navView.removeBadge(R.id.navigation_notifications);
+                        }
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "Error loading inbox counts: " + error);
+                    }
+                });
+        navController.addOnDestinationChangedListener(badgeRefresher);
+    }
+
     /**
      * Redirects to LoginActivity and finishes this activity.
      */
@@ -168,6 +217,8 @@ public class MainActivity extends AppCompatActivity {
               ", role: " + currentUser.getRole() +
               ", canManageEvents: " + currentUser.canManageEvents());
 
+        startOfflineSync(currentUser);
+
         BottomNavigationView navView = binding.navView;
 
         try {
@@ -257,6 +308,7 @@ public class MainActivity extends AppCompatActivity {
 
             NavigationUI.setupActionBarWithNavController(this, navController, appBarConfiguration);
             NavigationUI.setupWithNavController(navView, navController);
+            showUnreadBadge(navView, currentUser);
             
             Log.d(TAG, "Navigation UI setup complete, attempting to navigate to home");
 
@@ -295,6 +347,7 @@ public class MainActivity extends AppCompatActivity {
             
             NavigationUI.setupActionBarWithNavController(this, navController, appBarConfiguration);
             NavigationUI.setupWithNavController(navView, navController);
+            showUnreadBadge(navView, currentUser);
         }
     }
 
@@ -23,6 +23,7 @@ public class AuthManager {
     private final FirebaseFirestore db;
     private User currentUser;
     private final List<AuthStateListener> listeners;
+    private final UserDirectory userDirectory;
 
     /**
      * Interface definition for a callback to be invoked when authentication state changes.
@@ -38,6 +39,7 @@ public class AuthManager {
     private AuthManager() {
         auth = FirebaseAuth.getInstance();
         db = FirebaseFirestore.getInstance();
+        userDirectory = new UserDirectory(db);
         listeners = new ArrayList<>();
         
         // Listen to Firebase auth state changes
@@ -184,6 +186,7 @@ public class AuthManager {
                 .get()
                 .addOnSuccessListener(documentSnapshot -> {
                     User user = documentSnapshotToUser(documentSnapshot);
+                    userDirectory.put(user);
                     currentUser = user;
                     notifyListeners(user);
                     if (callback != null) {
@@ -204,7 +207,7 @@ public class AuthManager {
      * @param doc The Firestore document snapshot.
      * @return The corresponding {@link User} object.
      */
-    private User documentSnapshotToUser(DocumentSnapshot doc) {
+    static User documentSnapshotToUser(DocumentSnapshot doc) {
         User user = new User();
         user.setUid(doc.getString("uid"));
         user.setEmail(doc.getString("email"));
@@ -301,7 +304,8 @@ public class AuthManager {
     }
 
     /**
-     * Gets multiple users from their UIDs.
+     * Gets multiple users from their UIDs, in the order given.
+     * Lookups are batched and cached by {@link UserDirectory}.
      *
      * @param userIds  List of user IDs to fetch.
      * @param callback Callback invoked with the resulting list or an error.
@@ -311,31 +315,16 @@ public class AuthManager {
             callback.onSuccess(new ArrayList<>());
             return;
         }
+        userDirectory.getUsers(userIds, callback);
+    }
 
-        List<User> users = new ArrayList<>();
-        final int[] remaining = {userIds.size()};
-
-        for (String userId : userIds) {
-            db.collection("users").document(userId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        User user = documentSnapshotToUser(documentSnapshot);
-                        users.add(user);
-                    }
-                    remaining[0]--;
-                    if (remaining[0] == 0) {
-                        callback.onSuccess(users);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error loading user: " + userId, e);
-                    remaining[0]--;
-                    if (remaining[0] == 0) {
-                        callback.onSuccess(users);
-                    }
-                });
-        }
+    /**
+     * Returns the cached, batched user lookup behind {@link #getUsersByIds}.
+     *
+     * @return The shared {@link UserDirectory}.
+     */
+    public UserDirectory getUserDirectory() {
+        return userDirectory;
     }
 
     /**
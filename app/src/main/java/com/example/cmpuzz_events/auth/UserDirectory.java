@@ -0,0 +1,128 @@
+package com.example.cmpuzz_events.auth;
+
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.utils.SingleFlight;
+import com.example.cmpuzz_events.utils.TtlLruCache;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up user profiles by UID for entrant lists and logs.
+ * <p>
+ * Recently seen users come from a bounded LRU cache whose entries expire after
+ * {@link #CACHE_TTL_MILLIS}. The rest are fetched with {@code whereIn(documentId)} queries
+ * of up to {@link #MAX_IDS_PER_QUERY} IDs (Firestore's limit for "in" filters), so a list
+ * of 1,000 users takes 34 round trips instead of 1,000. Screens opening together that ask
+ * for the same chunk share one query. Users are returned in the order they were asked for.
+ */
+public class UserDirectory {
+
+    private static final String TAG = "UserDirectory";
+    static final int MAX_IDS_PER_QUERY = 30;
+    static final int CACHE_SIZE = 2000;
+    static final long CACHE_TTL_MILLIS = 5 * 60 * 1000;
+
+    private final FirebaseFirestore db;
+    private final TtlLruCache<String, User> cache = new TtlLruCache<>(CACHE_SIZE, CACHE_TTL_MILLIS);
+    private final SingleFlight<QuerySnapshot> chunkReads = new SingleFlight<>();
+
+    UserDirectory(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Gets the users with these IDs. Duplicate IDs are returned once; users that don't
+     * exist or whose chunk failed to load are left out.
+     *
+     * @param userIds  IDs to look up
+     * @param callback Called once with the users in request order
+     */
+    public void getUsers(List<String> userIds, AuthManager.UsersCallback callback) {
+        List<String> ordered = new ArrayList<>(new LinkedHashSet<>(userIds));
+        ordered.remove(null);
+
+        Map<String, User> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String userId : ordered) {
+            User cached = cache.get(userId);
+            if (cached != null) {
+                found.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            callback.onSuccess(inOrder(ordered, found));
+            return;
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i += MAX_IDS_PER_QUERY) {
+            chunks.add(missing.subList(i, Math.min(i + MAX_IDS_PER_QUERY, missing.size())));
+        }
+        Log.d(TAG, "Loading " + missing.size() + " of " + ordered.size() + " users in "
+                + chunks.size() + " queries (cache: " + cache + ")");
+
+        final int[] remaining = {chunks.size()};
+        for (List<String> chunk : chunks) {
+            List<String> ids = new ArrayList<>(chunk);
+            chunkReads.run("users:" + String.join(",", ids),
+                    () -> db.collection("users").whereIn(FieldPath.documentId(), ids).get())
+                .addOnSuccessListener(snapshot -> {
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        User user = AuthManager.documentSnapshotToUser(doc);
+                        cache.put(doc.getId(), user);
+                        found.put(doc.getId(), user);
+                    }
+                    remaining[0]--;
+                    if (remaining[0] == 0) {
+                        callback.onSuccess(inOrder(ordered, found));
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading " + ids.size() + " users", e);
+                    remaining[0]--;
+                    if (remaining[0] == 0) {
+                        callback.onSuccess(inOrder(ordered, found));
+                    }
+                });
+        }
+    }
+
+    /**
+     * Caches a user loaded elsewhere, e.g. the signed-in user
+     */
+    public void put(User user) {
+        if (user != null && user.getUid() != null) {
+            cache.put(user.getUid(), user);
+        }
+    }
+
+    /**
+     * Drops a user whose profile has changed
+     */
+    public void invalidate(String userId) {
+        cache.remove(userId);
+    }
+
+    private static List<User> inOrder(List<String> ordered, Map<String, User> found) {
+        List<User> users = new ArrayList<>(ordered.size());
+        for (String userId : ordered) {
+            User user = found.get(userId);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+}
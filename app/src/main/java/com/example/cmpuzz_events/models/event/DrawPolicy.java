@@ -0,0 +1,180 @@
+package com.example.cmpuzz_events.models.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes how a lottery draw picks attendees from the waitlist.
+ * The default policy is a uniform draw. Weights favour some entrants
+ * (e.g. people who lost earlier lotteries) and strata reserve seats for
+ * entrants whose joining location falls inside a region.
+ */
+public class DrawPolicy {
+    private Integer sampleSize;                      // null = use capacity (same as drawAttendees)
+    private Long seed;                               // null = unseeded draw
+    private double defaultWeight = 1.0;
+    private final Map<String, Double> weights = new HashMap<>();
+    private final List<Stratum> strata = new ArrayList<>();
+
+    /**
+     * Circular region on the map, used to match entrantLocations
+     */
+    public static class Region {
+        private static final double EARTH_RADIUS_KM = 6371.0;
+
+        private final double latitude;
+        private final double longitude;
+        private final double radiusKm;
+
+        public Region(double latitude, double longitude, double radiusKm) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusKm = radiusKm;
+        }
+
+        /**
+         * Whether a point lies within the region (haversine distance)
+         */
+        public boolean contains(double lat, double lon) {
+            double dLat = Math.toRadians(lat - latitude);
+            double dLon = Math.toRadians(lon - longitude);
+            double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                    + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(lat))
+                    * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+            double distance = 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+            return distance <= radiusKm;
+        }
+
+        /**
+         * Whether a stored {lat, lon} pair lies within the region
+         */
+        public boolean contains(List<Double> location) {
+            return location != null && location.size() >= 2
+                    && contains(location.get(0), location.get(1));
+        }
+    }
+
+    /**
+     * A block of seats reserved for entrants inside a region
+     */
+    public static class Stratum {
+        private final String name;
+        private final int seats;
+        private final Region region;
+
+        public Stratum(String name, int seats, Region region) {
+            this.name = name;
+            this.seats = seats;
+            this.region = region;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getSeats() {
+            return seats;
+        }
+
+        public Region getRegion() {
+            return region;
+        }
+    }
+
+    /**
+     * Create a uniform draw policy
+     */
+    public DrawPolicy() {
+    }
+
+    /**
+     * Gets the number of attendees to draw
+     *
+     * @return sample size, or null to use the event capacity
+     */
+    public Integer getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Sets the number of attendees to draw
+     *
+     * @param sampleSize sample size, or null to use the event capacity
+     */
+    public void setSampleSize(Integer sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Weight for entrants without an explicit weight
+     */
+    public double getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public void setDefaultWeight(double defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * Sets one entrant's weight; 2.0 makes them twice as likely as a default entrant
+     *
+     * @param userId entrant
+     * @param weight relative weight
+     */
+    public void setWeight(String userId, double weight) {
+        weights.put(userId, weight);
+    }
+
+    /**
+     * Gives the same weight to several entrants, e.g. everyone who lost a previous lottery
+     *
+     * @param userIds entrants to prioritise
+     * @param weight  relative weight
+     */
+    public void prioritize(Collection<String> userIds, double weight) {
+        for (String userId : userIds) {
+            weights.put(userId, weight);
+        }
+    }
+
+    /**
+     * Gets the weight used for an entrant
+     */
+    public double getWeight(String userId) {
+        Double weight = weights.get(userId);
+        return weight != null ? weight : defaultWeight;
+    }
+
+    /**
+     * Whether any entrant has a non-default weight
+     */
+    public boolean isWeighted() {
+        return !weights.isEmpty();
+    }
+
+    /**
+     * Reserves seats for entrants inside a region. Strata are filled in the order added,
+     * before the remaining seats are drawn from everyone left.
+     *
+     * @param stratum seats and region
+     */
+    public void addStratum(Stratum stratum) {
+        strata.add(stratum);
+    }
+
+    public List<Stratum> getStrata() {
+        return strata;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.cmpuzz_events.models.event;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes event documents into {@link EventEntity} objects.
+ * Works on the document's field map in one pass, with no reflection (unlike
+ * {@code toObject}) and no setters, so hydration neither marks fields dirty nor
+ * stamps a fresh updatedAt. Stored arrays are handed to the entity as they are, and
+ * the entity copies each one once into its own mutable indexed list, so every entity
+ * owns its lists, empty ones included.
+ */
+public final class EventCodec {
+
+    private EventCodec() {
+    }
+
+    /**
+     * Decode an event document
+     *
+     * @param doc event document
+     * @return tracked entity in sync with the document
+     */
+    public static EventEntity decode(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        if (data == null) {
+            data = new HashMap<>();
+        }
+        if (!(data.get("eventId") instanceof String)) {
+            data.put("eventId", doc.getId()); // older documents only carry it as their ID
+        }
+        return decode(data);
+    }
+
+    /**
+     * Decode an event from its stored field map
+     *
+     * @param data field values as Firestore returns them
+     * @return tracked entity in sync with the data
+     */
+    public static EventEntity decode(Map<String, Object> data) {
+        return new EventEntity(data);
+    }
+
+    /**
+     * Decode an event summary. The entity's counts are the summary's, and its entrant
+     * lists start empty for the caller to fill with the entrants it knows about (such
+     * as the current user), so a history row costs no entrant reads.
+     *
+     * @param summary field values of an event_summaries document
+     * @return read-only entity with the summary's fields and counts
+     */
+    public static EventEntity decodeSummary(Map<String, Object> summary) {
+        EventEntity entity = new EventEntity(summary);
+        entity.useSummaryCounts(summary);
+        return entity;
+    }
+
+    /**
+     * Makes an entity report the given counts instead of the sizes of its entrant lists,
+     * for entities whose lists were only partly loaded, and marks it clean.
+     *
+     * @param entity entity whose lists hold only some of its entrants
+     * @param counts waitlistCount, invitedCount and attendeeCount
+     * @return the entity
+     */
+    public static EventEntity withCounts(EventEntity entity, Map<String, Object> counts) {
+        entity.useSummaryCounts(counts);
+        return entity;
+    }
+
+    static String string(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    static int integer(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    static Date date(Map<String, Object> data, String field) {
+        return toDate(data.get(field));
+    }
+
+    /**
+     * @return the stored ID array itself, not a copy, or an empty list if it is missing;
+     *         callers copy it before changing it
+     */
+    @SuppressWarnings("unchecked")
+    static List<String> ids(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+            return Collections.emptyList();
+        }
+        return (List<String>) value;
+    }
+
+    /**
+     * @return invitations built straight from their stored maps, or an empty list if
+     *         there are none; callers copy it before changing it
+     */
+    static List<Invitation> invitations(Object value) {
+        if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<?> maps = (List<?>) value;
+        List<Invitation> invitations = new ArrayList<>(maps.size());
+        for (Object entry : maps) {
+            if (!(entry instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> map = (Map<?, ?>) entry;
+            Object status = map.get("status");
+            invitations.add(new Invitation(
+                    (String) map.get("userId"),
+                    (String) map.get("username"),
+                    Invitation.InvitationStatus.fromString(status instanceof String ? (String) status : null),
+                    toDate(map.get("invitedAt")),
+                    toDate(map.get("respondedAt"))));
+        }
+        return invitations;
+    }
+
+    /**
+     * @return entrant coordinates keyed by user ID; always a fresh map, since joins add to it
+     */
+    static Map<String, List<Double>> locations(Object value) {
+        if (!(value instanceof Map) || ((Map<?, ?>) value).isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<?, ?> stored = (Map<?, ?>) value;
+        Map<String, List<Double>> locations = new HashMap<>(stored.size() * 4 / 3 + 1);
+        for (Map.Entry<?, ?> entry : stored.entrySet()) {
+            if (entry.getValue() instanceof List) {
+                List<?> coords = (List<?>) entry.getValue();
+                if (coords.size() >= 2) {
+                    double lat = ((Number) coords.get(0)).doubleValue();
+                    double lon = ((Number) coords.get(1)).doubleValue();
+                    locations.put((String) entry.getKey(), Arrays.asList(lat, lon));
+                }
+            }
+        }
+        return locations;
+    }
+
+    private static Date toDate(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate();
+        }
+        return value instanceof Date ? (Date) value : null;
+    }
+}
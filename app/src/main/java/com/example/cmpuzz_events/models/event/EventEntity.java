@@ -2,6 +2,8 @@ package com.example.cmpuzz_events.models.event;
 
 import android.content.Context;
 
+import com.example.cmpuzz_events.utils.IndexedList;
+
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
@@ -11,8 +13,12 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Backend Firebase model for Events.
@@ -32,10 +38,11 @@ public class EventEntity {
     private int maxEntrants = 0;                 // Max people who can ENROLL into the event
 
     // Backend-specific fields
-    private List<String> waitlist;           // Array of device IDs on waitlist (ALL entrants)
-    private List<Invitation> invitations;    // Array of Invitation objects (invited entrants)
-    private List<String> attendees;          // Array of device IDs who are confirmed attendees
-    private List<String> declined;           // Array of device IDs who declined invitations
+    // Entrant lists are hash-indexed so membership checks and removals are O(1)
+    private IndexedList<String, String> waitlist;           // Array of device IDs on waitlist (ALL entrants)
+    private IndexedList<String, Invitation> invitations;    // Array of Invitation objects (invited entrants)
+    private IndexedList<String, String> attendees;          // Array of device IDs who are confirmed attendees
+    private IndexedList<String, String> declined;           // Array of device IDs who declined invitations
     private String qrCodeUrl;                // Unique URL for QR code
     private Date createdAt;
     private Date updatedAt;
@@ -44,15 +51,66 @@ public class EventEntity {
     private boolean selectionsFinalized = false;
     private String posterUrl;
     private Double price;                          // Event price (null if free)
+    private EntrantStorage entrantStorage = EntrantStorage.INLINE;
+    private DrawStatus drawStatus = DrawStatus.PENDING;
+
+    /**
+     * Where an event keeps its entrant lists.
+     * INLINE stores them as arrays on the event document,
+     * SUBCOLLECTION stores one document per entrant under events/{id}/entrants.
+     */
+    public enum EntrantStorage {
+        INLINE,
+        SUBCOLLECTION;
+
+        public static EntrantStorage fromString(String storage) {
+            if (storage == null) {
+                return INLINE;
+            }
+            try {
+                return EntrantStorage.valueOf(storage.toUpperCase());
+            } catch (Exception e) {
+                return INLINE;
+            }
+        }
+    }
+
+    /**
+     * Whether the lottery has run for an event.
+     * PENDING events are picked up by the auto-draw scheduler once registration ends,
+     * DRAWN events have had their lottery, SKIPPED events had nobody to draw.
+     */
+    public enum DrawStatus {
+        PENDING,
+        DRAWN,
+        SKIPPED;
+
+        public static DrawStatus fromString(String status) {
+            if (status == null) {
+                return PENDING;
+            }
+            try {
+                return DrawStatus.valueOf(status.toUpperCase());
+            } catch (Exception e) {
+                return PENDING;
+            }
+        }
+    }
+
+    // Change tracking (not persisted)
+    private final Set<String> dirtyFields = new HashSet<>();   // Fields touched through setters
+    private Map<String, Object> baseline;                      // Collection snapshot taken at hydration
+    private Map<String, Object> summaryCounts;                 // Counts of a summary-backed entity, see EventCodec
+    private Object loadedUpdatedAt;                            // updatedAt exactly as stored at hydration
 
     /**
      * Default constructor required for Firebase deserialization
      */
     public EventEntity() {
-        this.waitlist = new ArrayList<>();
-        this.invitations = new ArrayList<>();
-        this.attendees = new ArrayList<>();
-        this.declined = new ArrayList<>();
+        this.waitlist = IndexedList.ofIds(null);
+        this.invitations = newInvitationList(null);
+        this.attendees = IndexedList.ofIds(null);
+        this.declined = IndexedList.ofIds(null);
         this.createdAt = new Date();
         this.updatedAt = new Date();
         this.entrantLocations = new HashMap<>();
@@ -75,16 +133,65 @@ public class EventEntity {
         this.organizerName = organizerName;
         this.geolocationRequired = geolocationRequired;
         this.maxEntrants = maxEntrants;
-        this.waitlist = new ArrayList<>();
-        this.invitations = new ArrayList<>();
-        this.attendees = new ArrayList<>();
-        this.declined = new ArrayList<>();
+        this.waitlist = IndexedList.ofIds(null);
+        this.invitations = newInvitationList(null);
+        this.attendees = IndexedList.ofIds(null);
+        this.declined = IndexedList.ofIds(null);
         this.qrCodeUrl = generateQRCodeUrl(eventId);
         this.createdAt = new Date();
         this.updatedAt = new Date();
         this.selectionsFinalized = false;
     }
 
+    /**
+     * Hydrating constructor used by {@link EventCodec}.
+     * Assigns stored values directly, so no setter side effects (dirty marks,
+     * updatedAt stamps) run, then starts change tracking from this state.
+     */
+    EventEntity(Map<String, Object> data) {
+        this.eventId = EventCodec.string(data, "eventId");
+        this.title = EventCodec.string(data, "title");
+        this.description = EventCodec.string(data, "description");
+        this.capacity = EventCodec.integer(data, "capacity");
+        this.registrationStart = EventCodec.date(data, "registrationStart");
+        this.registrationEnd = EventCodec.date(data, "registrationEnd");
+        this.organizerId = EventCodec.string(data, "organizerId");
+        this.organizerName = EventCodec.string(data, "organizerName");
+        this.geolocationRequired = Boolean.TRUE.equals(data.get("geolocationRequired"));
+        this.maxEntrants = EventCodec.integer(data, "maxEntrants");
+        this.waitlist = IndexedList.ofIds(EventCodec.ids(data, "waitlist"));
+        this.invitations = newInvitationList(EventCodec.invitations(data.get("invitations")));
+        this.attendees = IndexedList.ofIds(EventCodec.ids(data, "attendees"));
+        this.declined = IndexedList.ofIds(EventCodec.ids(data, "declined"));
+        this.entrants = new ArrayList<>(EventCodec.ids(data, "entrants"));
+        this.qrCodeUrl = EventCodec.string(data, "qrCodeUrl");
+        this.createdAt = EventCodec.date(data, "createdAt");
+        Date stored = EventCodec.date(data, "updatedAt");
+        this.updatedAt = stored != null ? stored : createdAt;
+        this.loadedUpdatedAt = data.get("updatedAt");
+        this.posterUrl = EventCodec.string(data, "posterUrl");
+        Object price = data.get("price");
+        this.price = price instanceof Number ? ((Number) price).doubleValue() : null;
+        this.selectionsFinalized = Boolean.TRUE.equals(data.get("selectionsFinalized"));
+        this.entrantStorage = EntrantStorage.fromString(EventCodec.string(data, "entrantStorage"));
+        this.drawStatus = DrawStatus.fromString(EventCodec.string(data, "drawStatus"));
+        this.entrantLocations = EventCodec.locations(data.get("entrantLocations"));
+        markClean();
+    }
+
+    /**
+     * Takes the counts from a summary instead of the entrant lists, which then only hold
+     * the entrants the caller filled in. Used by {@link EventCodec#decodeSummary} and
+     * {@link EventCodec#withCounts}.
+     */
+    void useSummaryCounts(Map<String, Object> summary) {
+        summaryCounts = new HashMap<>();
+        for (String field : new String[]{"waitlistCount", "invitedCount", "attendeeCount"}) {
+            summaryCounts.put(field, summary.get(field));
+        }
+        markClean();
+    }
+
     /**
      * Generate unique URL for QR code
      */
@@ -111,15 +218,13 @@ public class EventEntity {
         map.put("waitlist", waitlist);
         map.put("attendees", attendees);
         map.put("declined", declined);
+        map.put("participants", getParticipants());
+        map.putAll(getAvailability());
 
         map.put("posterUrl", posterUrl);
 
         // Convert invitations to list of maps
-        List<Map<String, Object>> invitationMaps = new ArrayList<>();
-        for (Invitation inv : invitations) {
-            invitationMaps.add(inv.toMap());
-        }
-        map.put("invitations", invitationMaps);
+        map.put("invitations", invitationMaps());
 
         map.put("qrCodeUrl", qrCodeUrl);
         map.put("createdAt", createdAt);
@@ -128,6 +233,8 @@ public class EventEntity {
         map.put("entrantLocations", entrantLocations);
         map.put("selectionsFinalized", selectionsFinalized);
         map.put("price", price);
+        map.put("entrantStorage", entrantStorage.name());
+        map.put("drawStatus", drawStatus.name());
 
         return map;
     }
@@ -136,7 +243,7 @@ public class EventEntity {
      * Add a user to the waitlist
      */
     public boolean addToWaitlist(String userId) {
-        if (waitlist.contains(userId)) {
+        if (waitlist.containsKey(userId)) {
             return false; // Already on waitlist
         }
 //        if (maxEntrants == 0) {
@@ -161,11 +268,27 @@ public class EventEntity {
         return removed;
     }
 
+    /**
+     * Remove several users from the waitlist in a single pass
+     *
+     * @param userIds users to remove
+     * @return number of users removed
+     */
+    public int removeAllFromWaitlist(Set<String> userIds) {
+        int before = waitlist.size();
+        waitlist.removeIf(userIds::contains);
+        int removed = before - waitlist.size();
+        if (removed > 0) {
+            this.updatedAt = new Date();
+        }
+        return removed;
+    }
+
     /**
      * Remove a user from the invitation list
      */
     public boolean removeFromInvitationsList(String userId) {
-        boolean removed = invitations.removeIf(inv -> inv.getUserId().equals(userId));
+        boolean removed = invitations.removeByKey(userId) != null;
         if (removed) {
             this.updatedAt = new Date();
         }
@@ -173,7 +296,7 @@ public class EventEntity {
     }
 
     /**
-     * Add an invitation
+     * Add an invitation. A user holds at most one invitation; adding a second one is ignored.
      */
     public void addInvitation(Invitation invitation) {
         invitations.add(invitation);
@@ -184,27 +307,126 @@ public class EventEntity {
      * Get invitation by user ID
      */
     public Invitation getInvitationByUserId(String userId) {
-        for (Invitation inv : invitations) {
-            if (inv.getUserId().equals(userId)) {
-                return inv;
-            }
-        }
-        return null;
+        return invitations.getByKey(userId);
     }
 
     /**
      * Remove an invitation by user ID
      */
     public boolean removeInvitation(String userId) {
-        Invitation toRemove = getInvitationByUserId(userId);
-        if (toRemove != null) {
-            boolean removed = invitations.remove(toRemove);
-            if (removed) {
-                this.updatedAt = new Date();
+        boolean removed = invitations.removeByKey(userId) != null;
+        if (removed) {
+            this.updatedAt = new Date();
+        }
+        return removed;
+    }
+
+    /**
+     * Whether a user holds an invitation to this event
+     */
+    public boolean hasInvitation(String userId) {
+        return invitations != null && invitations.containsKey(userId);
+    }
+
+    /**
+     * Gets every user involved in this event: waitlisted, invited, attending or declined.
+     * Stored as the "participants" array so a user's events can be found with one
+     * array-contains query instead of scanning every event.
+     *
+     * @return user IDs in the order waitlist, invitations, attendees, declined
+     */
+    public List<String> getParticipants() {
+        Set<String> participants = new LinkedHashSet<>();
+        if (waitlist != null) participants.addAll(waitlist);
+        if (invitations != null) {
+            for (Invitation inv : invitations) {
+                if (inv.getUserId() != null) participants.add(inv.getUserId());
+            }
+        }
+        if (attendees != null) participants.addAll(attendees);
+        if (declined != null) participants.addAll(declined);
+        return new ArrayList<>(participants);
+    }
+
+    /**
+     * Gets the number of users on the waitlist
+     */
+    public int getWaitlistCount() {
+        if (summaryCounts != null) {
+            return EventCodec.integer(summaryCounts, "waitlistCount");
+        }
+        return waitlist != null ? waitlist.size() : 0;
+    }
+
+    /**
+     * Gets the number of invitations still awaiting a response
+     */
+    public int getInvitedCount() {
+        if (summaryCounts != null) {
+            return EventCodec.integer(summaryCounts, "invitedCount");
+        }
+        int count = 0;
+        if (invitations != null) {
+            for (Invitation inv : invitations) {
+                if (inv.isPending()) count++;
             }
-            return removed;
         }
-        return false;
+        return count;
+    }
+
+    /**
+     * Gets the number of confirmed attendees
+     */
+    public int getAttendeeCount() {
+        if (summaryCounts != null) {
+            return EventCodec.integer(summaryCounts, "attendeeCount");
+        }
+        return attendees != null ? attendees.size() : 0;
+    }
+
+    /**
+     * Gets the number of users still in the running: waitlisted, invited or attending
+     */
+    public int getEntrantCount() {
+        return getWaitlistCount() + getInvitedCount() + getAttendeeCount();
+    }
+
+    /**
+     * Whether the event has as many entrants as it has capacity (never full without a capacity)
+     */
+    public boolean isFull() {
+        return capacity > 0 && getEntrantCount() >= capacity;
+    }
+
+    /**
+     * Gets the denormalised availability fields stored on the event document so that
+     * lists can filter on fullness and show counts without downloading the entrant arrays
+     *
+     * @return waitlistCount, invitedCount, attendeeCount, entrantCount and isFull
+     */
+    public Map<String, Object> getAvailability() {
+        return availability(getWaitlistCount(), getInvitedCount(), getAttendeeCount(), capacity);
+    }
+
+    /**
+     * Builds the availability fields for the given counts
+     *
+     * @param waitlistCount users on the waitlist
+     * @param invitedCount  pending invitations
+     * @param attendeeCount confirmed attendees
+     * @param capacity      event capacity (0 = unlimited)
+     * @return availability fields keyed by their Firestore names
+     */
+    public static Map<String, Object> availability(long waitlistCount, long invitedCount,
+                                                   long attendeeCount, long capacity) {
+        long entrantCount = waitlistCount + invitedCount + attendeeCount;
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("waitlistCount", waitlistCount);
+        fields.put("invitedCount", invitedCount);
+        fields.put("attendeeCount", attendeeCount);
+        fields.put("entrantCount", entrantCount);
+        fields.put("isFull", capacity > 0 && entrantCount >= capacity);
+        return fields;
     }
 
     /**
@@ -217,6 +439,242 @@ public class EventEntity {
         entrantLocations.put(userId, java.util.Arrays.asList(lat, lon));
     }
 
+    // Change tracking
+
+    /**
+     * Records that a field was changed through a setter
+     */
+    private void markDirty(String field) {
+        dirtyFields.add(field);
+    }
+
+    /**
+     * Marks the entity as in sync with Firestore.
+     * Clears the dirty set and snapshots the collection fields so later
+     * changes made through getters (e.g. getAttendees().add()) can be diffed.
+     * Call after hydrating from a document and after every successful write.
+     */
+    public void markClean() {
+        dirtyFields.clear();
+        baseline = new HashMap<>();
+        baseline.put("waitlist", copyOf(waitlist));
+        baseline.put("attendees", copyOf(attendees));
+        baseline.put("declined", copyOf(declined));
+        baseline.put("participants", getParticipants());
+        baseline.put("availability", getAvailability());
+        baseline.put("invitations", invitationMaps());
+        baseline.put("entrantLocations",
+                entrantLocations != null ? new HashMap<>(entrantLocations) : new HashMap<>());
+    }
+
+    /**
+     * Gets how much one of the availability counts moved since the last clean state
+     *
+     * @param field waitlistCount, invitedCount, attendeeCount or entrantCount
+     * @return current count minus the clean count (0 if the entity is not tracked)
+     */
+    public long getCountChange(String field) {
+        if (baseline == null) {
+            return 0;
+        }
+        Object before = ((Map<?, ?>) baseline.get("availability")).get(field);
+        Object now = getAvailability().get(field);
+        if (!(before instanceof Number) || !(now instanceof Number)) {
+            return 0;
+        }
+        return ((Number) now).longValue() - ((Number) before).longValue();
+    }
+
+    /**
+     * Gets updatedAt exactly as it was stored when this entity was hydrated, so a writer
+     * can tell whether the event changed after it was read
+     *
+     * @return the stored value (a Timestamp), or null for an entity built locally
+     */
+    public Object getLoadedUpdatedAt() {
+        return loadedUpdatedAt;
+    }
+
+    /**
+     * Whether this entity was hydrated from Firestore (or written) and can produce a partial update
+     */
+    public boolean isTracked() {
+        return baseline != null;
+    }
+
+    /**
+     * Gets the names of all fields that differ from the last clean state.
+     * Includes fields set through setters and collection fields whose
+     * contents changed. Returns every field if the entity is not tracked.
+     *
+     * @return set of changed field names (keys of {@link #toMap()})
+     */
+    public Set<String> getDirtyFields() {
+        if (baseline == null) {
+            return toMap().keySet();
+        }
+        Set<String> changed = new LinkedHashSet<>(dirtyFields);
+        if (!baseline.get("waitlist").equals(copyOf(waitlist))) changed.add("waitlist");
+        if (!baseline.get("attendees").equals(copyOf(attendees))) changed.add("attendees");
+        if (!baseline.get("declined").equals(copyOf(declined))) changed.add("declined");
+        // Participants is an index, so only membership matters, not order
+        if (!new HashSet<>((List<?>) baseline.get("participants")).equals(new HashSet<>(getParticipants()))) {
+            changed.add("participants");
+        }
+        if (!baseline.get("invitations").equals(invitationMaps())) changed.add("invitations");
+        Map<?, ?> availabilityBefore = (Map<?, ?>) baseline.get("availability");
+        for (Map.Entry<String, Object> entry : getAvailability().entrySet()) {
+            if (!entry.getValue().equals(availabilityBefore.get(entry.getKey()))) changed.add(entry.getKey());
+        }
+        if (!baseline.get("entrantLocations").equals(
+                entrantLocations != null ? entrantLocations : new HashMap<>())) {
+            changed.add("entrantLocations");
+        }
+        return changed;
+    }
+
+    /**
+     * Gets ids added to a string list field (waitlist, attendees, declined, participants) since the last clean state
+     *
+     * @param field list field name
+     * @return ids present now but not in the baseline, in list order
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getAddedIds(String field) {
+        List<String> before = baseline != null ? (List<String>) baseline.get(field) : null;
+        List<String> added = new ArrayList<>();
+        if (before == null) {
+            return added;
+        }
+        Set<String> beforeSet = new HashSet<>(before);
+        for (String id : copyOf(getStringList(field))) {
+            if (!beforeSet.contains(id)) added.add(id);
+        }
+        return added;
+    }
+
+    /**
+     * Gets ids removed from a string list field (waitlist, attendees, declined, participants) since the last clean state
+     *
+     * @param field list field name
+     * @return ids present in the baseline but not now
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getRemovedIds(String field) {
+        List<String> before = baseline != null ? (List<String>) baseline.get(field) : null;
+        List<String> removed = new ArrayList<>();
+        if (before == null) {
+            return removed;
+        }
+        Set<String> nowSet = new HashSet<>(copyOf(getStringList(field)));
+        for (String id : before) {
+            if (!nowSet.contains(id)) removed.add(id);
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the ids a string list field (waitlist, attendees, declined) held at the last clean state
+     *
+     * @param field list field name
+     * @return the clean ids, or an empty list if the entity is not tracked
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getCleanIds(String field) {
+        List<String> before = baseline != null ? (List<String>) baseline.get(field) : null;
+        return before != null ? new ArrayList<>(before) : new ArrayList<>();
+    }
+
+    /**
+     * Gets the user IDs that had an invitation, in any state, at the last clean state
+     *
+     * @return user IDs invited at the last clean state
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getCleanInvitationUserIds() {
+        Set<String> userIds = new HashSet<>();
+        if (baseline != null) {
+            for (Map<String, Object> inv : (List<Map<String, Object>>) baseline.get("invitations")) {
+                userIds.add((String) inv.get("userId"));
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Gets entrant location keys that were added, changed or removed since the last clean state
+     *
+     * @return user IDs whose location entry differs from the baseline
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getChangedLocationKeys() {
+        Map<String, List<Double>> before = baseline != null
+                ? (Map<String, List<Double>>) baseline.get("entrantLocations") : new HashMap<>();
+        Map<String, List<Double>> now = entrantLocations != null ? entrantLocations : new HashMap<>();
+        Set<String> keys = new HashSet<>();
+        for (Map.Entry<String, List<Double>> entry : now.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) keys.add(entry.getKey());
+        }
+        for (String key : before.keySet()) {
+            if (!now.containsKey(key)) keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * Gets user IDs whose invitation was added, removed or modified since the last clean state
+     *
+     * @return user IDs with a changed invitation
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getChangedInvitationUserIds() {
+        List<Map<String, Object>> before = baseline != null
+                ? (List<Map<String, Object>>) baseline.get("invitations") : new ArrayList<>();
+        Map<Object, Map<String, Object>> beforeByUser = new HashMap<>();
+        for (Map<String, Object> inv : before) {
+            beforeByUser.put(inv.get("userId"), inv);
+        }
+        Set<String> changed = new HashSet<>();
+        Set<Object> seen = new HashSet<>();
+        for (Map<String, Object> inv : invitationMaps()) {
+            Object userId = inv.get("userId");
+            seen.add(userId);
+            if (!inv.equals(beforeByUser.get(userId))) changed.add((String) userId);
+        }
+        for (Object userId : beforeByUser.keySet()) {
+            if (!seen.contains(userId)) changed.add((String) userId);
+        }
+        return changed;
+    }
+
+    private static IndexedList<String, Invitation> newInvitationList(List<Invitation> invitations) {
+        return new IndexedList<>(Invitation::getUserId, invitations);
+    }
+
+    private List<String> getStringList(String field) {
+        switch (field) {
+            case "waitlist": return waitlist;
+            case "attendees": return attendees;
+            case "declined": return declined;
+            case "participants": return getParticipants();
+            default: throw new IllegalArgumentException("Not a string list field: " + field);
+        }
+    }
+
+    private static List<String> copyOf(List<String> list) {
+        return list != null ? new ArrayList<>(list) : new ArrayList<>();
+    }
+
+    private List<Map<String, Object>> invitationMaps() {
+        List<Map<String, Object>> maps = new ArrayList<>();
+        if (invitations != null) {
+            for (Invitation inv : invitations) {
+                maps.add(inv.toMap());
+            }
+        }
+        return maps;
+    }
+
     // Getters and Setters
 
     /**
@@ -235,6 +693,7 @@ public class EventEntity {
      */
     public void setEventId(String eventId) {
         this.eventId = eventId;
+        markDirty("eventId");
     }
 
     /**
@@ -253,6 +712,7 @@ public class EventEntity {
      */
     public void setTitle(String title) {
         this.title = title;
+        markDirty("title");
         this.updatedAt = new Date();
     }
 
@@ -272,6 +732,7 @@ public class EventEntity {
      */
     public void setDescription(String description) {
         this.description = description;
+        markDirty("description");
         this.updatedAt = new Date();
     }
 
@@ -281,6 +742,7 @@ public class EventEntity {
 
     public void setEntrantLocations(Map<String, List<Double>> entrantLocations) {
         this.entrantLocations = entrantLocations;
+        markDirty("entrantLocations");
     }
 
     /**
@@ -299,6 +761,7 @@ public class EventEntity {
      */
     public void setCapacity(int capacity) {
         this.capacity = capacity;
+        markDirty("capacity");
         this.updatedAt = new Date();
     }
 
@@ -318,6 +781,7 @@ public class EventEntity {
      */
     public void setRegistrationStart(Date registrationStart) {
         this.registrationStart = registrationStart;
+        markDirty("registrationStart");
         this.updatedAt = new Date();
     }
 
@@ -337,6 +801,7 @@ public class EventEntity {
      */
     public void setRegistrationEnd(Date registrationEnd) {
         this.registrationEnd = registrationEnd;
+        markDirty("registrationEnd");
         this.updatedAt = new Date();
     }
 
@@ -356,6 +821,7 @@ public class EventEntity {
      */
     public void setOrganizerId(String organizerId) {
         this.organizerId = organizerId;
+        markDirty("organizerId");
     }
 
     /**
@@ -374,6 +840,7 @@ public class EventEntity {
      */
     public void setOrganizerName(String organizerName) {
         this.organizerName = organizerName;
+        markDirty("organizerName");
     }
 
     /**
@@ -392,6 +859,7 @@ public class EventEntity {
      */
     public void setGeolocationRequired(boolean geolocationRequired) {
         this.geolocationRequired = geolocationRequired;
+        markDirty("geolocationRequired");
         this.updatedAt = new Date();
     }
 
@@ -411,6 +879,7 @@ public class EventEntity {
      */
     public void setMaxEntrants(int maxEntrants) {
         this.maxEntrants = maxEntrants;
+        markDirty("maxEntrants");
         this.updatedAt = new Date();
     }
 
@@ -429,7 +898,8 @@ public class EventEntity {
      * @param waitlist to set waitlist
      */
     public void setWaitlist(List<String> waitlist) {
-        this.waitlist = waitlist;
+        this.waitlist = waitlist != null ? IndexedList.ofIds(waitlist) : null;
+        markDirty("waitlist");
         this.updatedAt = new Date();
     }
 
@@ -448,7 +918,8 @@ public class EventEntity {
      * @param invitations to set invitation list
      */
     public void setInvitations(List<Invitation> invitations) {
-        this.invitations = invitations;
+        this.invitations = invitations != null ? newInvitationList(invitations) : null;
+        markDirty("invitations");
         this.updatedAt = new Date();
     }
 
@@ -467,7 +938,8 @@ public class EventEntity {
      * @param attendees to set attendee list
      */
     public void setAttendees(List<String> attendees) {
-        this.attendees = attendees;
+        this.attendees = attendees != null ? IndexedList.ofIds(attendees) : null;
+        markDirty("attendees");
         this.updatedAt = new Date();
     }
 
@@ -486,7 +958,8 @@ public class EventEntity {
      * @param declined to set declined entrant list
      */
     public void setDeclined(List<String> declined) {
-        this.declined = declined;
+        this.declined = declined != null ? IndexedList.ofIds(declined) : null;
+        markDirty("declined");
         this.updatedAt = new Date();
     }
 
@@ -506,6 +979,7 @@ public class EventEntity {
      */
     public void setCreatedAt(Date createdAt) {
         this.createdAt = createdAt;
+        markDirty("createdAt");
     }
 
     /**
@@ -542,6 +1016,7 @@ public class EventEntity {
      */
     public void setQrCodeUrl(String qrCodeUrl) {
         this.qrCodeUrl = qrCodeUrl;
+        markDirty("qrCodeUrl");
     }
     public String getPosterUrl() {
         return posterUrl;
@@ -549,6 +1024,7 @@ public class EventEntity {
 
     public void setPosterUrl(String posterUrl) {
         this.posterUrl = posterUrl;
+        markDirty("posterUrl");
         this.updatedAt = new Date();
     }
 
@@ -574,6 +1050,7 @@ public class EventEntity {
      */
     public void setEntrants(List<String> entrants) {
         this.entrants = entrants;
+        markDirty("entrants");
     }
 
     /**
@@ -595,6 +1072,7 @@ public class EventEntity {
      */
     public void setSelectionsFinalized(boolean selectionsFinalized) {
         this.selectionsFinalized = selectionsFinalized;
+        markDirty("selectionsFinalized");
         this.updatedAt = new Date();
     }
 
@@ -614,7 +1092,55 @@ public class EventEntity {
      */
     public void setPrice(Double price) {
         this.price = price;
+        markDirty("price");
         this.updatedAt = new Date();
     }
 
-}
\ No newline at end of file
+    /**
+     * Gets where this event stores its entrants
+     *
+     * @return entrant storage mode
+     */
+    public EntrantStorage getEntrantStorage() {
+        return entrantStorage;
+    }
+
+    /**
+     * Sets where this event stores its entrants
+     *
+     * @param entrantStorage storage mode (null means INLINE)
+     */
+    public void setEntrantStorage(EntrantStorage entrantStorage) {
+        this.entrantStorage = entrantStorage != null ? entrantStorage : EntrantStorage.INLINE;
+        markDirty("entrantStorage");
+    }
+
+    /**
+     * Whether entrants live in the events/{id}/entrants subcollection
+     *
+     * @return true for SUBCOLLECTION storage
+     */
+    public boolean usesEntrantSubcollection() {
+        return entrantStorage == EntrantStorage.SUBCOLLECTION;
+    }
+
+    /**
+     * Gets whether the lottery has run for this event
+     *
+     * @return draw status
+     */
+    public DrawStatus getDrawStatus() {
+        return drawStatus;
+    }
+
+    /**
+     * Sets whether the lottery has run for this event
+     *
+     * @param drawStatus draw status (null means PENDING)
+     */
+    public void setDrawStatus(DrawStatus drawStatus) {
+        this.drawStatus = drawStatus != null ? drawStatus : DrawStatus.PENDING;
+        markDirty("drawStatus");
+    }
+
+}
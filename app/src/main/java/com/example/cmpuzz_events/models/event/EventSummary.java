@@ -0,0 +1,218 @@
+package com.example.cmpuzz_events.models.event;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact, read-only view of an event for list rows.
+ * Holds what a row shows (title, organizer, dates, capacity, poster, price) and the
+ * entrant counts instead of the entrant lists, so a row costs the same no matter how
+ * many people joined. Stored in the event_summaries collection next to each event
+ * and kept in step with it by EventService.
+ */
+public class EventSummary {
+
+    /**
+     * Event document fields copied into the summary; anything else in an event write is ignored
+     */
+    public static final Set<String> FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "eventId", "title", "description", "organizerId", "organizerName",
+            "registrationStart", "registrationEnd", "capacity", "maxEntrants",
+            "posterUrl", "price", "selectionsFinalized", "createdAt", "updatedAt",
+            "waitlistCount", "invitedCount", "attendeeCount", "entrantCount", "isFull")));
+
+    private final String eventId;
+    private final String title;
+    private final String description;
+    private final String organizerId;
+    private final String organizerName;
+    private final Date registrationStart;
+    private final Date registrationEnd;
+    private final int capacity;
+    private final int maxEntrants;
+    private final String posterUrl;
+    private final Double price;
+    private final boolean selectionsFinalized;
+    private final Date createdAt;
+    private final int waitlistCount;
+    private final int invitedCount;
+    private final int attendeeCount;
+    private final int entrantCount;
+    private final boolean full;
+
+    private EventSummary(Map<String, Object> data) {
+        this.eventId = EventCodec.string(data, "eventId");
+        this.title = EventCodec.string(data, "title");
+        this.description = EventCodec.string(data, "description");
+        this.organizerId = EventCodec.string(data, "organizerId");
+        this.organizerName = EventCodec.string(data, "organizerName");
+        this.registrationStart = EventCodec.date(data, "registrationStart");
+        this.registrationEnd = EventCodec.date(data, "registrationEnd");
+        this.capacity = EventCodec.integer(data, "capacity");
+        this.maxEntrants = EventCodec.integer(data, "maxEntrants");
+        this.posterUrl = EventCodec.string(data, "posterUrl");
+        Object storedPrice = data.get("price");
+        this.price = storedPrice instanceof Number ? ((Number) storedPrice).doubleValue() : null;
+        this.selectionsFinalized = Boolean.TRUE.equals(data.get("selectionsFinalized"));
+        this.createdAt = EventCodec.date(data, "createdAt");
+        this.waitlistCount = EventCodec.integer(data, "waitlistCount");
+        this.invitedCount = EventCodec.integer(data, "invitedCount");
+        this.attendeeCount = EventCodec.integer(data, "attendeeCount");
+        this.entrantCount = EventCodec.integer(data, "entrantCount");
+        this.full = Boolean.TRUE.equals(data.get("isFull"));
+    }
+
+    /**
+     * Build a summary from a stored summary (or event) field map
+     *
+     * @param data field values as Firestore returns them
+     * @return the summary
+     */
+    public static EventSummary fromMap(Map<String, Object> data) {
+        return new EventSummary(data);
+    }
+
+    /**
+     * Summarise a hydrated event
+     *
+     * @param event the event
+     * @return summary with the event's current counts
+     */
+    public static EventSummary of(EventEntity event) {
+        return new EventSummary(project(event.toMap()));
+    }
+
+    /**
+     * Picks the summary fields out of an event write (a full document or a partial update)
+     *
+     * @param eventFields event document fields being written
+     * @return the fields to merge into the event's summary
+     */
+    public static Map<String, Object> project(Map<String, Object> eventFields) {
+        Map<String, Object> summary = new HashMap<>();
+        for (Map.Entry<String, Object> entry : eventFields.entrySet()) {
+            if (FIELDS.contains(entry.getKey())) {
+                summary.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Convert to Map for Firebase
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("eventId", eventId);
+        map.put("title", title);
+        map.put("description", description);
+        map.put("organizerId", organizerId);
+        map.put("organizerName", organizerName);
+        map.put("registrationStart", registrationStart);
+        map.put("registrationEnd", registrationEnd);
+        map.put("capacity", capacity);
+        map.put("maxEntrants", maxEntrants);
+        map.put("posterUrl", posterUrl);
+        map.put("price", price);
+        map.put("selectionsFinalized", selectionsFinalized);
+        map.put("createdAt", createdAt);
+        map.put("waitlistCount", waitlistCount);
+        map.put("invitedCount", invitedCount);
+        map.put("attendeeCount", attendeeCount);
+        map.put("entrantCount", entrantCount);
+        map.put("isFull", full);
+        return map;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getOrganizerId() {
+        return organizerId;
+    }
+
+    public String getOrganizerName() {
+        return organizerName;
+    }
+
+    public Date getRegistrationStart() {
+        return registrationStart;
+    }
+
+    public Date getRegistrationEnd() {
+        return registrationEnd;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getMaxEntrants() {
+        return maxEntrants;
+    }
+
+    public String getPosterUrl() {
+        return posterUrl;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public boolean isSelectionsFinalized() {
+        return selectionsFinalized;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return entrants on the waitlist
+     */
+    public int getWaitlistCount() {
+        return waitlistCount;
+    }
+
+    /**
+     * @return invitations still awaiting a response
+     */
+    public int getInvitedCount() {
+        return invitedCount;
+    }
+
+    /**
+     * @return confirmed attendees
+     */
+    public int getAttendeeCount() {
+        return attendeeCount;
+    }
+
+    /**
+     * @return waitlisted + invited + attending
+     */
+    public int getEntrantCount() {
+        return entrantCount;
+    }
+
+    /**
+     * @return true once the entrant count has reached capacity
+     */
+    public boolean isFull() {
+        return full;
+    }
+}
@@ -22,6 +22,9 @@ public class Invitation {
         CANCELLED;  // Organizer cancelled the invitation
 
         public static InvitationStatus fromString(String status) {
+            if (status == null) {
+                return PENDING;
+            }
             try {
                 return InvitationStatus.valueOf(status.toUpperCase());
             } catch (Exception e) {
@@ -48,6 +51,17 @@ public class Invitation {
         this.invitedAt = new Date();
     }
 
+    /**
+     * Constructor for rebuilding a stored invitation as-is
+     */
+    Invitation(String userId, String username, InvitationStatus status, Date invitedAt, Date respondedAt) {
+        this.userId = userId;
+        this.username = username;
+        this.status = status;
+        this.invitedAt = invitedAt;
+        this.respondedAt = respondedAt;
+    }
+
     /**
      * Accept the invitation
      */
@@ -0,0 +1,445 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.event.EventSummary;
+import com.example.cmpuzz_events.models.event.Invitation;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Removes a user's footprint from the events when their account is deleted.
+ * <p>
+ * Runs in three steps, each reporting progress:
+ * <ol>
+ *   <li>{@link Step#ORGANIZED_EVENTS}: events the user organized are deleted with
+ *       {@link EventDeleter} (only when asked to).</li>
+ *   <li>{@link Step#EVENT_LISTS}: inline events are found with array-contains queries on
+ *       waitlist, attendees, declined and participants, and the user is taken out of every
+ *       list with arrayRemove.</li>
+ *   <li>{@link Step#ENTRANT_RECORDS}: the user's entrant documents on subcollection events
+ *       are found with a collection-group query and deleted.</li>
+ * </ol>
+ * Event counts and summaries are updated in the same write batches, which hold at most
+ * {@link #MAX_BATCH_WRITES} writes. The counts are lowered by increments, since events may
+ * change between the reads and the commit, and isFull is recomputed once each batch lands.
+ * Reads grow with the events the user is part of, not with the number of events on the
+ * platform. A failed purge can simply be run again.
+ */
+public class AccountPurge {
+
+    private static final String TAG = "AccountPurge";
+    private static final String COLLECTION_EVENTS = "events";
+    private static final String COLLECTION_SUMMARIES = "event_summaries";
+    private static final String[] MEMBERSHIP_FIELDS = {"waitlist", "attendees", "declined", "participants"};
+    static final int MAX_BATCH_WRITES = 500;
+
+    private final FirebaseFirestore db;
+    private final EventDeleter eventDeleter;
+    private final EntrantStore entrantStore;
+
+    /**
+     * Steps of a purge, in the order they run
+     */
+    public enum Step {
+        ORGANIZED_EVENTS,
+        EVENT_LISTS,
+        ENTRANT_RECORDS
+    }
+
+    /**
+     * Counts for a purge, reported after each step and batch
+     */
+    public static class Progress {
+        private Step step = Step.ORGANIZED_EVENTS;
+        private int eventsDeleted;
+        private int eventsUpdated;
+        private int entrantsRemoved;
+
+        public Step getStep() {
+            return step;
+        }
+
+        public int getEventsDeleted() {
+            return eventsDeleted;
+        }
+
+        public int getEventsUpdated() {
+            return eventsUpdated;
+        }
+
+        public int getEntrantsRemoved() {
+            return entrantsRemoved;
+        }
+
+        @Override
+        public String toString() {
+            return "step=" + step + ", eventsDeleted=" + eventsDeleted
+                    + ", eventsUpdated=" + eventsUpdated + ", entrantsRemoved=" + entrantsRemoved;
+        }
+    }
+
+    /**
+     * Callback for a purge
+     */
+    public interface PurgeCallback {
+        void onProgress(Progress progress);
+        void onComplete(Progress progress);
+        void onError(String error);
+    }
+
+    AccountPurge(FirebaseFirestore db) {
+        this.db = db;
+        this.eventDeleter = new EventDeleter(db);
+        this.entrantStore = new EntrantStore(db);
+    }
+
+    /**
+     * Removes the user from every event they are part of.
+     *
+     * @param uid                   The user being removed
+     * @param deleteOrganizedEvents Also delete the events the user organized
+     * @param callback              Progress after each step and batch, then completion
+     */
+    public void purge(String uid, boolean deleteOrganizedEvents, PurgeCallback callback) {
+        Log.d(TAG, "Purging user " + uid);
+        Progress progress = new Progress();
+        if (deleteOrganizedEvents) {
+            deleteOrganizedEvents(uid, progress, callback);
+        } else {
+            removeFromEventLists(uid, progress, callback);
+        }
+    }
+
+    /**
+     * Task version of {@link #purge(String, boolean, PurgeCallback)} that logs its progress
+     */
+    public Task<Void> purge(String uid, boolean deleteOrganizedEvents) {
+        TaskCompletionSource<Void> done = new TaskCompletionSource<>();
+        purge(uid, deleteOrganizedEvents, new PurgeCallback() {
+            @Override
+            public void onProgress(Progress progress) {
+                Log.d(TAG, "Purge of " + uid + ": " + progress);
+            }
+
+            @Override
+            public void onComplete(Progress progress) {
+                done.setResult(null);
+            }
+
+            @Override
+            public void onError(String error) {
+                done.setException(new Exception(error));
+            }
+        });
+        return done.getTask();
+    }
+
+    private void deleteOrganizedEvents(String uid, Progress progress, PurgeCallback callback) {
+        db.collection(COLLECTION_EVENTS)
+            .whereEqualTo("organizerId", uid)
+            .get()
+            .addOnSuccessListener(snapshot -> {
+                List<String> eventIds = new ArrayList<>();
+                for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                    eventIds.add(doc.getId());
+                }
+                if (eventIds.isEmpty()) {
+                    removeFromEventLists(uid, progress, callback);
+                    return;
+                }
+                eventDeleter.delete(eventIds, new EventDeleter.DeleteCallback() {
+                    @Override
+                    public void onProgress(EventDeleter.Progress deleteProgress) {
+                        progress.eventsDeleted = deleteProgress.getEventsDeleted();
+                        callback.onProgress(progress);
+                    }
+
+                    @Override
+                    public void onComplete(EventDeleter.Progress deleteProgress) {
+                        progress.eventsDeleted = deleteProgress.getEventsDeleted();
+                        callback.onProgress(progress);
+                        removeFromEventLists(uid, progress, callback);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callback.onError(error);
+                    }
+                });
+            })
+            .addOnFailureListener(e -> fail("Error finding events organized by " + uid, e, callback));
+    }
+
+    private void removeFromEventLists(String uid, Progress progress, PurgeCallback callback) {
+        progress.step = Step.EVENT_LISTS;
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+        for (String field : MEMBERSHIP_FIELDS) {
+            queries.add(db.collection(COLLECTION_EVENTS).whereArrayContains(field, uid).get());
+        }
+
+        Tasks.whenAllSuccess(queries)
+            .onSuccessTask(results -> {
+                // The same event usually matches several fields
+                Map<String, DocumentSnapshot> events = new LinkedHashMap<>();
+                for (Object result : results) {
+                    for (DocumentSnapshot doc : ((QuerySnapshot) result).getDocuments()) {
+                        if (!Boolean.TRUE.equals(doc.getBoolean(EventDeleter.FIELD_DELETING))) {
+                            events.put(doc.getId(), doc);
+                        }
+                    }
+                }
+
+                List<WriteBatch> batches = new ArrayList<>();
+                List<Integer> batchSizes = new ArrayList<>();
+                List<List<DocumentReference>> batchEvents = new ArrayList<>();
+                WriteBatch batch = db.batch();
+                List<DocumentReference> eventsInBatch = new ArrayList<>();
+                int writes = 0;
+                for (DocumentSnapshot doc : events.values()) {
+                    Map<String, Object> updates = listRemoval(doc.getData(), uid);
+                    if (updates == null) {
+                        continue;
+                    }
+                    stageWithSummary(batch, doc.getReference(), updates);
+                    writes += 2;
+                    eventsInBatch.add(doc.getReference());
+                    if (writes + 2 > MAX_BATCH_WRITES) {
+                        batches.add(batch);
+                        batchSizes.add(eventsInBatch.size());
+                        batchEvents.add(eventsInBatch);
+                        batch = db.batch();
+                        eventsInBatch = new ArrayList<>();
+                        writes = 0;
+                    }
+                }
+                if (!eventsInBatch.isEmpty()) {
+                    batches.add(batch);
+                    batchSizes.add(eventsInBatch.size());
+                    batchEvents.add(eventsInBatch);
+                }
+                Log.d(TAG, "Removing " + uid + " from " + events.size() + " event(s) in "
+                        + batches.size() + " batch(es)");
+                return commitAll(batches, batchSizes, batchEvents, progress, callback, false);
+            })
+            .addOnSuccessListener(v -> removeEntrantRecords(uid, progress, callback))
+            .addOnFailureListener(e -> fail("Error removing " + uid + " from event lists", e, callback));
+    }
+
+    private void removeEntrantRecords(String uid, Progress progress, PurgeCallback callback) {
+        progress.step = Step.ENTRANT_RECORDS;
+        callback.onProgress(progress);
+
+        db.collectionGroup(EntrantStore.SUBCOLLECTION_ENTRANTS)
+            .whereEqualTo("userId", uid)
+            .get()
+            .onSuccessTask(snapshot -> {
+                List<DocumentSnapshot> entrants = snapshot.getDocuments();
+                List<Task<DocumentSnapshot>> eventReads = new ArrayList<>(entrants.size());
+                for (DocumentSnapshot entrant : entrants) {
+                    eventReads.add(entrant.getReference().getParent().getParent().get());
+                }
+                return Tasks.whenAllSuccess(eventReads).onSuccessTask(events -> {
+                    List<WriteBatch> batches = new ArrayList<>();
+                    List<Integer> batchSizes = new ArrayList<>();
+                    List<List<DocumentReference>> batchEvents = new ArrayList<>();
+                    WriteBatch batch = db.batch();
+                    List<DocumentReference> eventsInBatch = new ArrayList<>();
+                    int writes = 0;
+                    int entrantsInBatch = 0;
+                    for (int i = 0; i < entrants.size(); i++) {
+                        DocumentSnapshot entrant = entrants.get(i);
+                        DocumentSnapshot event = (DocumentSnapshot) events.get(i);
+                        writes += entrantStore.removeInBatch(batch, entrant);
+                        if (event.exists() && !Boolean.TRUE.equals(event.getBoolean(EventDeleter.FIELD_DELETING))) {
+                            stageWithSummary(batch, event.getReference(), entrantRemoval(entrant.getData()));
+                            writes += 2;
+                            eventsInBatch.add(event.getReference());
+                        }
+                        entrantsInBatch++;
+                        if (writes + 4 > MAX_BATCH_WRITES) {
+                            batches.add(batch);
+                            batchSizes.add(entrantsInBatch);
+                            batchEvents.add(eventsInBatch);
+                            batch = db.batch();
+                            eventsInBatch = new ArrayList<>();
+                            writes = 0;
+                            entrantsInBatch = 0;
+                        }
+                    }
+                    if (entrantsInBatch > 0) {
+                        batches.add(batch);
+                        batchSizes.add(entrantsInBatch);
+                        batchEvents.add(eventsInBatch);
+                    }
+                    return commitAll(batches, batchSizes, batchEvents, progress, callback, true);
+                });
+            })
+            .addOnSuccessListener(v -> {
+                Log.d(TAG, "Purge complete: " + progress);
+                callback.onComplete(progress);
+            })
+            .addOnFailureListener(e -> fail("Error removing entrant records of " + uid, e, callback));
+    }
+
+    private void stageWithSummary(WriteBatch batch, DocumentReference eventRef, Map<String, Object> updates) {
+        FieldUpdates.update(batch, eventRef, updates);
+        batch.set(db.collection(COLLECTION_SUMMARIES).document(eventRef.getId()),
+                EventSummary.project(updates), SetOptions.merge());
+    }
+
+    /**
+     * Commits the batches, counting each one's events or entrants as it lands.
+     * The batches moved the counts by increments, so each batch's events get their
+     * isFull recomputed once it has committed.
+     */
+    private Task<Void> commitAll(List<WriteBatch> batches, List<Integer> batchSizes,
+                                 List<List<DocumentReference>> batchEvents, Progress progress,
+                                 PurgeCallback callback, boolean entrants) {
+        List<Task<Void>> commits = new ArrayList<>(batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            int size = batchSizes.get(i);
+            List<DocumentReference> eventRefs = batchEvents.get(i);
+            commits.add(batches.get(i).commit().addOnSuccessListener(v -> {
+                for (DocumentReference eventRef : eventRefs) {
+                    EventService.getInstance().refreshAvailability(eventRef, 1)
+                        .addOnFailureListener(e -> Log.e(TAG, "Error refreshing counts of "
+                                + eventRef.getId(), e));
+                }
+                if (entrants) {
+                    progress.entrantsRemoved += size;
+                } else {
+                    progress.eventsUpdated += size;
+                }
+                callback.onProgress(progress);
+            }));
+        }
+        return Tasks.whenAll(commits);
+    }
+
+    /**
+     * Builds the update that takes a user out of an inline event's lists.
+     *
+     * @param data The event document's fields
+     * @param uid  The user being removed
+     * @return the field updates, including count decrements, or null if the user isn't in any list
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> listRemoval(Map<String, Object> data, String uid) {
+        if (data == null) {
+            return null;
+        }
+        Map<String, Object> updates = new HashMap<>();
+        for (String field : MEMBERSHIP_FIELDS) {
+            Object value = data.get(field);
+            if (value instanceof List && ((List<?>) value).contains(uid)) {
+                updates.put(field, FieldValue.arrayRemove(uid));
+            }
+        }
+
+        long pending = 0;
+        Object invitations = data.get("invitations");
+        if (invitations instanceof List) {
+            List<Object> removed = new ArrayList<>();
+            for (Object entry : (List<Object>) invitations) {
+                if (!(entry instanceof Map)) {
+                    continue;
+                }
+                Map<String, Object> inv = (Map<String, Object>) entry;
+                if (uid.equals(inv.get("userId"))) {
+                    removed.add(inv);
+                    if (Invitation.InvitationStatus.PENDING.name().equals(inv.get("status"))) {
+                        pending++;
+                    }
+                }
+            }
+            if (!removed.isEmpty()) {
+                updates.put("invitations", FieldValue.arrayRemove(removed.toArray()));
+            }
+        }
+
+        Object locations = data.get("entrantLocations");
+        if (locations instanceof Map && ((Map<?, ?>) locations).containsKey(uid)) {
+            FieldUpdates.Entries entries = new FieldUpdates.Entries();
+            entries.put(uid, FieldValue.delete());
+            updates.put("entrantLocations", entries);
+        }
+
+        if (updates.isEmpty()) {
+            return null;
+        }
+        updates.putAll(countDecrements(updates.containsKey("waitlist") ? 1 : 0, pending,
+                updates.containsKey("attendees") ? 1 : 0));
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        return updates;
+    }
+
+    /**
+     * Builds the count update for a subcollection event losing one entrant.
+     *
+     * @param entrantData The entrant document's fields
+     * @return the field updates for the event document
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> entrantRemoval(Map<String, Object> entrantData) {
+        long waitlist = 0;
+        long invited = 0;
+        long attending = 0;
+        Object status = entrantData != null ? entrantData.get("status") : null;
+        if (EntrantStore.STATUS_WAITLIST.equals(status)) {
+            waitlist = 1;
+        } else if (EntrantStore.STATUS_ATTENDING.equals(status)) {
+            attending = 1;
+        } else if (EntrantStore.STATUS_INVITED.equals(status)) {
+            Object invitation = entrantData.get("invitation");
+            Object invitationStatus = invitation instanceof Map ? ((Map<String, Object>) invitation).get("status") : null;
+            if (Invitation.InvitationStatus.fromString(invitationStatus instanceof String ? (String) invitationStatus : null)
+                    == Invitation.InvitationStatus.PENDING) {
+                invited = 1;
+            }
+        }
+        Map<String, Object> updates = countDecrements(waitlist, invited, attending);
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        return updates;
+    }
+
+    /**
+     * Count fields lowered by increments, so writes that land between our read and the
+     * commit aren't overwritten. isFull can't be moved that way; it is refreshed once the
+     * batch has committed.
+     */
+    private static Map<String, Object> countDecrements(long waitlist, long invited, long attending) {
+        Map<String, Object> updates = new HashMap<>();
+        putDecrement(updates, "waitlistCount", waitlist);
+        putDecrement(updates, "invitedCount", invited);
+        putDecrement(updates, "attendeeCount", attending);
+        putDecrement(updates, "entrantCount", waitlist + invited + attending);
+        return updates;
+    }
+
+    private static void putDecrement(Map<String, Object> updates, String field, long amount) {
+        if (amount > 0) {
+            updates.put(field, FieldValue.increment(-amount));
+        }
+    }
+
+    private void fail(String message, Exception e, PurgeCallback callback) {
+        Log.e(TAG, message, e);
+        callback.onError(e.getMessage());
+    }
+}
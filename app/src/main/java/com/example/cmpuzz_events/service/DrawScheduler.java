@@ -0,0 +1,319 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs the lottery for every event whose registration has closed without a draw.
+ * <p>
+ * Due events are found with an indexed query on (drawStatus, registrationEnd) and
+ * processed a page at a time: up to {@link #MAX_CONCURRENT_DRAWS} events are loaded
+ * and drawn in parallel, then the page's results are saved with
+ * {@link EventService#saveDraws}, which leaves out any event that is no longer PENDING
+ * or changed after it was read. Drawn events become DRAWN and events with nobody to
+ * draw become SKIPPED, so they drop out of the query; an interrupted run picks up
+ * where it stopped the next time it is started. Events that failed to load or save,
+ * or changed while being drawn, are counted as failed and retried if still PENDING.
+ */
+public class DrawScheduler {
+
+    private static final String TAG = "DrawScheduler";
+    private static final String COLLECTION_EVENTS = "events";
+    static final int PAGE_SIZE = 100;
+    static final int MAX_CONCURRENT_DRAWS = 4;
+
+    private final FirebaseFirestore db;
+    private final EventService eventService;
+
+    /**
+     * Counts for a scheduler run, reported after each page
+     */
+    public static class Progress {
+        private int scanned;
+        private int drawn;
+        private int skipped;
+        private int failed;
+
+        public int getScanned() {
+            return scanned;
+        }
+
+        public int getDrawn() {
+            return drawn;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return "scanned=" + scanned + ", drawn=" + drawn
+                    + ", skipped=" + skipped + ", failed=" + failed;
+        }
+    }
+
+    /**
+     * Callback for a scheduler run
+     */
+    public interface DrawRunCallback {
+        void onProgress(Progress progress);
+        void onComplete(Progress progress);
+        void onError(String error);
+    }
+
+    /**
+     * One event of a page and what happened to it
+     */
+    static class DrawJob {
+        final DocumentSnapshot doc;
+        EventEntity event;
+        EventService.DrawOutcome outcome;
+
+        DrawJob(DocumentSnapshot doc) {
+            this.doc = doc;
+        }
+    }
+
+    DrawScheduler(FirebaseFirestore db, EventService eventService) {
+        this.db = db;
+        this.eventService = eventService;
+    }
+
+    /**
+     * Draws every due event, optionally limited to one organizer.
+     *
+     * @param organizerId Only draw this organizer's events (null for all events)
+     * @param callback    Progress after each page, then completion
+     */
+    public void run(String organizerId, DrawRunCallback callback) {
+        Date now = new Date();
+        Log.d(TAG, "Starting auto-draw run for " + (organizerId != null ? organizerId : "all organizers"));
+        processPage(organizerId, now, null, new Progress(), callback);
+    }
+
+    /**
+     * Counts the events a run started now would draw.
+     *
+     * @param organizerId Only count this organizer's events (null for all events)
+     * @return Task with the number of due events
+     */
+    public Task<Long> countDue(String organizerId) {
+        return dueEvents(organizerId, new Date()).count().get(AggregateSource.SERVER)
+                .continueWith(task -> task.getResult().getCount());
+    }
+
+    /**
+     * Events still waiting for their lottery whose registration closed by now.
+     * Events created before drawStatus existed need {@link EventService#backfillDrawStatus}.
+     */
+    Query dueEvents(String organizerId, Date now) {
+        Query query = db.collection(COLLECTION_EVENTS)
+                .whereEqualTo("drawStatus", EventEntity.DrawStatus.PENDING.name());
+        if (organizerId != null) {
+            query = query.whereEqualTo("organizerId", organizerId);
+        }
+        return query.whereLessThanOrEqualTo("registrationEnd", now)
+                .orderBy("registrationEnd");
+    }
+
+    /**
+     * One page of due events, after the cursor if there is one
+     */
+    Query duePage(String organizerId, Date now, DocumentSnapshot cursor) {
+        Query query = dueEvents(organizerId, now).limit(PAGE_SIZE);
+        if (cursor != null) {
+            // Failed events stay PENDING, so page past them instead of re-reading them
+            query = query.startAfter(cursor);
+        }
+        return query;
+    }
+
+    /**
+     * @return where the next page starts, or null if this page was the last
+     */
+    static DocumentSnapshot nextCursor(List<DocumentSnapshot> docs) {
+        return docs.size() < PAGE_SIZE ? null : docs.get(docs.size() - 1);
+    }
+
+    private void processPage(String organizerId, Date now, DocumentSnapshot cursor,
+                             Progress progress, DrawRunCallback callback) {
+        Query query = duePage(organizerId, now, cursor);
+
+        query.get()
+            .addOnSuccessListener(snapshot -> {
+                List<DocumentSnapshot> docs = snapshot.getDocuments();
+                if (docs.isEmpty()) {
+                    Log.d(TAG, "Auto-draw run complete: " + progress);
+                    callback.onComplete(progress);
+                    return;
+                }
+
+                List<DrawJob> jobs = new ArrayList<>(docs.size());
+                for (DocumentSnapshot doc : docs) {
+                    jobs.add(new DrawJob(doc));
+                }
+                progress.scanned += jobs.size();
+
+                drawAll(jobs)
+                    .continueWithTask(task -> commitAll(jobs, progress))
+                    .addOnCompleteListener(task -> {
+                        callback.onProgress(progress);
+                        DocumentSnapshot next = nextCursor(docs);
+                        if (next == null) {
+                            Log.d(TAG, "Auto-draw run complete: " + progress);
+                            callback.onComplete(progress);
+                        } else {
+                            processPage(organizerId, now, next, progress, callback);
+                        }
+                    });
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error querying events due for a draw", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * Loads and draws every job, keeping at most MAX_CONCURRENT_DRAWS in flight.
+     * Completes once all jobs have finished; a failed job just has no outcome.
+     */
+    private Task<Void> drawAll(List<DrawJob> jobs) {
+        TaskCompletionSource<Void> done = new TaskCompletionSource<>();
+        int[] next = {0};
+        int[] remaining = {jobs.size()};
+
+        Runnable[] startNext = new Runnable[1];
+        startNext[0] = () -> {
+            int index;
+            synchronized (next) {
+                if (next[0] >= jobs.size()) {
+                    return;
+                }
+                index = next[0]++;
+            }
+            DrawJob job = jobs.get(index);
+            eventService.loadEntity(job.doc).addOnCompleteListener(task -> {
+                if (task.isSuccessful()) {
+                    job.event = task.getResult();
+                    job.outcome = eventService.applyDraw(job.event, null);
+                } else {
+                    Log.e(TAG, "Error loading event " + job.doc.getId(), task.getException());
+                }
+                boolean finished;
+                synchronized (next) {
+                    finished = --remaining[0] == 0;
+                }
+                if (finished) {
+                    done.setResult(null);
+                } else {
+                    startNext[0].run();
+                }
+            });
+        };
+
+        for (int i = 0; i < Math.min(MAX_CONCURRENT_DRAWS, jobs.size()); i++) {
+            startNext[0].run();
+        }
+        return done.getTask();
+    }
+
+    /**
+     * Saves a page's results in transactions of at most
+     * {@link EventService#MAX_DRAWS_PER_SAVE} events, then notifies lottery losers of
+     * the events that saved.
+     */
+    private Task<Void> commitAll(List<DrawJob> jobs, Progress progress) {
+        List<Task<Void>> commits = new ArrayList<>();
+        for (List<DrawJob> chunk : prepareCommits(jobs, progress)) {
+            commits.add(commitChunk(chunk, progress));
+        }
+        return Tasks.whenAllComplete(commits).continueWith(task -> null);
+    }
+
+    /**
+     * Counts jobs that failed to load, marks events with nothing to draw SKIPPED and
+     * splits the rest into chunks that each fit in one save.
+     */
+    static List<List<DrawJob>> prepareCommits(List<DrawJob> jobs, Progress progress) {
+        List<List<DrawJob>> chunks = new ArrayList<>();
+        List<DrawJob> chunk = new ArrayList<>();
+        for (DrawJob job : jobs) {
+            if (job.event == null) {
+                progress.failed++;
+                continue;
+            }
+            if (job.outcome.getError() != null) {
+                // Nothing to draw (empty waitlist, no capacity, already full)
+                Log.d(TAG, "Skipping " + job.event.getEventId() + ": " + job.outcome.getError());
+                job.event.setDrawStatus(EventEntity.DrawStatus.SKIPPED);
+            }
+            chunk.add(job);
+            if (chunk.size() == EventService.MAX_DRAWS_PER_SAVE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private Task<Void> commitChunk(List<DrawJob> chunk, Progress progress) {
+        List<EventEntity> events = new ArrayList<>(chunk.size());
+        for (DrawJob job : chunk) {
+            events.add(job.event);
+        }
+
+        return eventService.saveDraws(events, true).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Error saving auto-draw results", task.getException());
+                progress.failed += chunk.size();
+                return null;
+            }
+            for (DrawJob job : recordSaved(chunk, task.getResult(), progress)) {
+                eventService.notifyLotteryLosers(job.event, job.outcome.getLosers());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Counts how a chunk's save went. Events left out of the save changed after they
+     * were read and count as failed.
+     *
+     * @return the jobs whose draw was saved, whose losers should be notified
+     */
+    static List<DrawJob> recordSaved(List<DrawJob> chunk, Set<String> saved, Progress progress) {
+        List<DrawJob> drawn = new ArrayList<>();
+        for (DrawJob job : chunk) {
+            if (!saved.contains(job.event.getEventId())) {
+                progress.failed++;
+            } else if (job.outcome.getError() != null) {
+                progress.skipped++;
+            } else {
+                progress.drawn++;
+                drawn.add(job);
+            }
+        }
+        return drawn;
+    }
+}
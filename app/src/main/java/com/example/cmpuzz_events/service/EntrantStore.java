@@ -0,0 +1,662 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.event.EventCodec;
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.Invitation;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateField;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Subcollection storage for event entrants.
+ * Each entrant is one document at events/{eventId}/entrants/{userId} holding a status,
+ * an optional location and an optional invitation. It also carries a copy of the
+ * event's registrationEnd so a user's history can be paged from their entrant docs. The waitlist size is kept in
+ * sharded counter documents at events/{eventId}/counters/waitlist_{n} so that joins
+ * on large events don't all write the same document.
+ *
+ * EventService uses this for events whose entrantStorage is SUBCOLLECTION and keeps
+ * presenting the usual EventEntity lists on top of it.
+ */
+public class EntrantStore {
+    private static final String TAG = "EntrantStore";
+    static final String SUBCOLLECTION_ENTRANTS = "entrants";
+    static final String SUBCOLLECTION_COUNTERS = "counters";
+    static final int WAITLIST_SHARDS = 10;
+    static final int MAX_BATCH_WRITES = 500;
+
+    static final String STATUS_WAITLIST = "WAITLIST";
+    static final String STATUS_INVITED = "INVITED";
+    static final String STATUS_ATTENDING = "ATTENDING";
+    static final String STATUS_DECLINED = "DECLINED";
+
+    private final FirebaseFirestore db;
+    private final Random random = new Random();
+
+    public EntrantStore(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    private DocumentReference entrantRef(DocumentReference eventRef, String userId) {
+        return eventRef.collection(SUBCOLLECTION_ENTRANTS).document(userId);
+    }
+
+    private DocumentReference shardRef(DocumentReference eventRef, int shard) {
+        return eventRef.collection(SUBCOLLECTION_COUNTERS).document("waitlist_" + shard);
+    }
+
+    private DocumentReference randomShard(DocumentReference eventRef) {
+        return shardRef(eventRef, random.nextInt(WAITLIST_SHARDS));
+    }
+
+    /**
+     * Loads the whole entrant subcollection into the entity's lists and marks it clean.
+     * This reads every waitlisted user, so it is only for callers that need the whole
+     * waitlist, such as a draw; see {@link #hydrateDecided} otherwise.
+     *
+     * @param eventRef The event document
+     * @param entity   Entity hydrated from the event document
+     * @return Task completing once the lists are filled
+     */
+    public Task<EventEntity> hydrate(DocumentReference eventRef, EventEntity entity) {
+        return eventRef.collection(SUBCOLLECTION_ENTRANTS).get()
+                .continueWith(task -> fill(entity, task.getResult().getDocuments()));
+    }
+
+    /**
+     * Loads the invited, attending and declined entrants into the entity's lists, which
+     * are bounded by the event's capacity, and marks it clean. The waitlist is left out
+     * except for the viewer's own entry; the entity's counts come from the counter shards
+     * and the loaded entrants instead of its list sizes. Changes made to the entity are
+     * still saved safely: applyChanges skips users whose stored status it didn't load.
+     *
+     * @param eventRef The event document
+     * @param entity   Entity hydrated from the event document
+     * @param viewerId User whose own entrant doc is loaded whatever its status (null for none)
+     * @return Task completing once the lists are filled
+     */
+    public Task<EventEntity> hydrateDecided(DocumentReference eventRef, EventEntity entity, String viewerId) {
+        Task<QuerySnapshot> decided = eventRef.collection(SUBCOLLECTION_ENTRANTS)
+                .whereIn("status", Arrays.asList(STATUS_INVITED, STATUS_ATTENDING, STATUS_DECLINED))
+                .get();
+        Task<DocumentSnapshot> viewer = viewerId != null
+                ? entrantRef(eventRef, viewerId).get()
+                : Tasks.forResult(null);
+        Task<Long> waitlistCount = getWaitlistCount(eventRef);
+
+        return Tasks.whenAllSuccess(decided, viewer, waitlistCount).continueWith(task -> {
+            List<DocumentSnapshot> entrants = new ArrayList<>(decided.getResult().getDocuments());
+            DocumentSnapshot own = viewer.getResult();
+            if (own != null && own.exists() && STATUS_WAITLIST.equals(own.getString("status"))) {
+                entrants.add(own);
+            }
+            fill(entity, entrants);
+
+            Map<String, Object> counts = new HashMap<>();
+            counts.put("waitlistCount", waitlistCount.getResult());
+            counts.put("invitedCount", entity.getInvitedCount());
+            counts.put("attendeeCount", entity.getAttendeeCount());
+            return EventCodec.withCounts(entity, counts);
+        });
+    }
+
+    /**
+     * Sets the entity's lists from already-read entrant documents and marks it clean.
+     *
+     * @param entity   Entity hydrated from the event document
+     * @param entrants Documents of events/{eventId}/entrants
+     * @return the entity
+     */
+    @SuppressWarnings("unchecked")
+    static EventEntity fill(EventEntity entity, Iterable<DocumentSnapshot> entrants) {
+        List<String> waitlist = new ArrayList<>();
+        List<String> attendees = new ArrayList<>();
+        List<String> declined = new ArrayList<>();
+        List<Invitation> invitations = new ArrayList<>();
+        Map<String, List<Double>> locations = new HashMap<>();
+
+        for (DocumentSnapshot doc : entrants) {
+            String userId = doc.getId();
+            String status = doc.getString("status");
+            if (STATUS_WAITLIST.equals(status)) {
+                waitlist.add(userId);
+            } else if (STATUS_ATTENDING.equals(status)) {
+                attendees.add(userId);
+            } else if (STATUS_DECLINED.equals(status)) {
+                declined.add(userId);
+            }
+
+            Map<String, Object> invMap = (Map<String, Object>) doc.get("invitation");
+            if (invMap != null) {
+                invitations.add(mapToInvitation(invMap));
+            }
+
+            List<Number> coords = (List<Number>) doc.get("location");
+            if (coords != null && coords.size() >= 2) {
+                List<Double> latLon = new ArrayList<>();
+                latLon.add(coords.get(0).doubleValue());
+                latLon.add(coords.get(1).doubleValue());
+                locations.put(userId, latLon);
+            }
+        }
+
+        entity.setWaitlist(waitlist);
+        entity.setAttendees(attendees);
+        entity.setDeclined(declined);
+        entity.setInvitations(invitations);
+        entity.setEntrantLocations(locations);
+        entity.markClean();
+        return entity;
+    }
+
+    private static Invitation mapToInvitation(Map<String, Object> invMap) {
+        Invitation inv = new Invitation();
+        inv.setUserId((String) invMap.get("userId"));
+        inv.setUsername((String) invMap.get("username"));
+        String statusStr = (String) invMap.get("status");
+        if (statusStr != null) {
+            inv.setStatus(Invitation.InvitationStatus.fromString(statusStr));
+        }
+        inv.setInvitedAt(toDate(invMap.get("invitedAt")));
+        inv.setRespondedAt(toDate(invMap.get("respondedAt")));
+        return inv;
+    }
+
+    private static Date toDate(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate();
+        } else if (value instanceof Date) {
+            return (Date) value;
+        }
+        return null;
+    }
+
+    /**
+     * Adds a user to the waitlist as part of a transaction.
+     * Unlimited events only touch the entrant document and one counter shard.
+     * Events with a maxEntrants limit also read every shard so the limit holds exactly.
+     *
+     * @param event The event document, read earlier in the same transaction
+     * @return false if the user is already an entrant or the waitlist is full
+     * @throws FirebaseFirestoreException NOT_FOUND if the event is being deleted
+     */
+    public boolean joinInTransaction(Transaction transaction, DocumentSnapshot event, String userId,
+                                     List<Double> location)
+            throws FirebaseFirestoreException {
+        if (Boolean.TRUE.equals(event.getBoolean(EventDeleter.FIELD_DELETING))) {
+            throw new FirebaseFirestoreException("Event not found",
+                    FirebaseFirestoreException.Code.NOT_FOUND);
+        }
+        DocumentReference eventRef = event.getReference();
+        Long storedMax = event.getLong("maxEntrants");
+        long maxEntrants = storedMax != null ? storedMax : 0;
+        Date registrationEnd = event.getDate("registrationEnd");
+
+        DocumentSnapshot entrant = transaction.get(entrantRef(eventRef, userId));
+        if (entrant.exists()) {
+            return false; // Already an entrant in some state
+        }
+
+        if (maxEntrants > 0 && getWaitlistCount(transaction, eventRef) >= maxEntrants) {
+            return false; // Waitlist is full
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("status", STATUS_WAITLIST);
+        data.put("updatedAt", FieldValue.serverTimestamp());
+        if (registrationEnd != null) {
+            data.put("registrationEnd", registrationEnd);
+        }
+        if (location != null) {
+            data.put("location", location);
+        }
+        transaction.set(entrantRef(eventRef, userId), data);
+        transaction.set(randomShard(eventRef), counterDelta(1), SetOptions.merge());
+        return true;
+    }
+
+    /**
+     * Removes a user from the waitlist as part of a transaction.
+     *
+     * @return false if the user is not on the waitlist
+     */
+    public boolean leaveInTransaction(Transaction transaction, DocumentReference eventRef, String userId)
+            throws FirebaseFirestoreException {
+        DocumentSnapshot entrant = transaction.get(entrantRef(eventRef, userId));
+        if (!entrant.exists() || !STATUS_WAITLIST.equals(entrant.getString("status"))) {
+            return false;
+        }
+        transaction.delete(entrantRef(eventRef, userId));
+        transaction.set(randomShard(eventRef), counterDelta(-1), SetOptions.merge());
+        return true;
+    }
+
+    /**
+     * Deletes an entrant document as part of a batch, taking a waitlisted user off
+     * the counter shards.
+     *
+     * @param batch   Batch to add the writes to
+     * @param entrant Entrant document read from events/{eventId}/entrants
+     * @return number of writes added to the batch
+     */
+    int removeInBatch(WriteBatch batch, DocumentSnapshot entrant) {
+        batch.delete(entrant.getReference());
+        if (STATUS_WAITLIST.equals(entrant.getString("status"))) {
+            DocumentReference eventRef = entrant.getReference().getParent().getParent();
+            batch.set(randomShard(eventRef), counterDelta(-1), SetOptions.merge());
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * Sums the waitlist counter shards with one aggregation read.
+     *
+     * @param eventRef The event document
+     * @return Task with the current waitlist size
+     */
+    public Task<Long> getWaitlistCount(DocumentReference eventRef) {
+        AggregateField count = AggregateField.sum("count");
+        return eventRef.collection(SUBCOLLECTION_COUNTERS).aggregate(count)
+                .get(AggregateSource.SERVER)
+                .continueWith(task -> {
+                    Long total = task.getResult().getLong(count);
+                    return total != null ? total : 0L;
+                });
+    }
+
+    /**
+     * Sums the waitlist counter shards as part of a transaction.
+     *
+     * @param transaction Transaction the shard reads belong to
+     * @param eventRef    The event document
+     * @return the current waitlist size
+     */
+    public long getWaitlistCount(Transaction transaction, DocumentReference eventRef)
+            throws FirebaseFirestoreException {
+        long total = 0;
+        for (int i = 0; i < WAITLIST_SHARDS; i++) {
+            Long count = transaction.get(shardRef(eventRef, i)).getLong("count");
+            total += count != null ? count : 0;
+        }
+        return total;
+    }
+
+    /**
+     * How far an applyChanges call moved the entrant counts, counted from the status
+     * changes it actually wrote
+     */
+    static class AppliedChanges {
+        private long waitlist;
+        private long invited;
+        private long attending;
+        private int skipped;
+
+        long getWaitlist() {
+            return waitlist;
+        }
+
+        long getInvited() {
+            return invited;
+        }
+
+        long getAttending() {
+            return attending;
+        }
+
+        /**
+         * @return users left alone because their entrant doc changed after the read
+         */
+        int getSkipped() {
+            return skipped;
+        }
+
+        private void add(AppliedChanges other) {
+            waitlist += other.waitlist;
+            invited += other.invited;
+            attending += other.attending;
+            skipped += other.skipped;
+        }
+
+        /**
+         * Counts one entrant going from its stored document to its new data (null = deleted)
+         */
+        private void count(DocumentSnapshot stored, Map<String, Object> data) {
+            String before = stored.exists() ? stored.getString("status") : null;
+            String after = data != null ? (String) data.get("status") : null;
+            waitlist += is(after, STATUS_WAITLIST) - is(before, STATUS_WAITLIST);
+            attending += is(after, STATUS_ATTENDING) - is(before, STATUS_ATTENDING);
+            invited += pending(data != null ? data.get("invitation") : null)
+                    - pending(stored.exists() ? stored.get("invitation") : null);
+        }
+
+        private static int is(String status, String expected) {
+            return expected.equals(status) ? 1 : 0;
+        }
+
+        private static int pending(Object invitation) {
+            return invitation instanceof Map && Invitation.InvitationStatus.PENDING.name()
+                    .equals(((Map<?, ?>) invitation).get("status")) ? 1 : 0;
+        }
+    }
+
+    /**
+     * Writes every entrant whose membership changed since the entity was hydrated.
+     * Users are written in transactions of up to MAX_BATCH_WRITES - 1, one after another.
+     * Each re-reads its users' entrant documents and only writes a user whose stored
+     * status is still the one the entity was loaded with, so a user who joined, left or
+     * responded after the read is not overwritten from the stale copy. The waitlist
+     * shards move in the same transaction by the transitions actually written.
+     * A changed registrationEnd rewrites every entrant, since each carries a copy.
+     *
+     * @param eventRef The event document
+     * @param event    Tracked entity with pending changes
+     * @return Task with the count changes written, for the event document's counts
+     */
+    public Task<AppliedChanges> applyChanges(DocumentReference eventRef, EventEntity event) {
+        return applyChanges(eventRef, event, Membership.loaded(event));
+    }
+
+    /**
+     * @param loaded memberships the entity was loaded with, or null to write the
+     *               entity's state over whatever is stored
+     */
+    private Task<AppliedChanges> applyChanges(DocumentReference eventRef, EventEntity event,
+                                              Membership loaded) {
+        Set<String> affected = new HashSet<>();
+        for (String field : new String[]{"waitlist", "attendees", "declined"}) {
+            affected.addAll(event.getAddedIds(field));
+            affected.addAll(event.getRemovedIds(field));
+        }
+        affected.addAll(event.getChangedInvitationUserIds());
+        affected.addAll(event.getChangedLocationKeys());
+        Membership membership = new Membership(event);
+        boolean registrationEndChanged = event.getDirtyFields().contains("registrationEnd");
+        if (registrationEndChanged) {
+            affected.addAll(membership.userIds());
+        }
+
+        AppliedChanges applied = new AppliedChanges();
+        List<String> userIds = new ArrayList<>(affected);
+        Task<Void> writes = Tasks.forResult(null);
+        for (int from = 0; from < userIds.size(); from += MAX_BATCH_WRITES - 1) {
+            // One transaction holds at most MAX_BATCH_WRITES; leave room for the shard
+            List<String> chunk = userIds.subList(from, Math.min(userIds.size(), from + MAX_BATCH_WRITES - 1));
+            writes = writes.onSuccessTask(v -> db.runTransaction(transaction ->
+                    applyChunk(transaction, eventRef, chunk, membership, loaded, registrationEndChanged)))
+                .onSuccessTask(result -> {
+                    applied.add(result);
+                    return Tasks.forResult(null);
+                });
+        }
+        return writes.onSuccessTask(v -> {
+            Log.d(TAG, "Wrote " + (affected.size() - applied.getSkipped()) + " entrant docs, skipped "
+                    + applied.getSkipped() + " changed since the read");
+            return Tasks.forResult(applied);
+        });
+    }
+
+    private AppliedChanges applyChunk(Transaction transaction, DocumentReference eventRef,
+                                      List<String> userIds, Membership membership, Membership loaded,
+                                      boolean registrationEndChanged)
+            throws FirebaseFirestoreException {
+        List<DocumentSnapshot> stored = new ArrayList<>();
+        for (String userId : userIds) {
+            stored.add(transaction.get(entrantRef(eventRef, userId)));
+        }
+
+        AppliedChanges result = new AppliedChanges();
+        for (int i = 0; i < userIds.size(); i++) {
+            String userId = userIds.get(i);
+            DocumentSnapshot doc = stored.get(i);
+            DocumentReference ref = entrantRef(eventRef, userId);
+            String storedStatus = doc.exists() ? doc.getString("status") : null;
+            if (loaded != null && !Objects.equals(storedStatus, loaded.status(userId))) {
+                result.skipped++;
+                if (registrationEndChanged && doc.exists() && membership.registrationEnd != null) {
+                    transaction.update(ref, "registrationEnd", membership.registrationEnd);
+                }
+                continue;
+            }
+
+            Map<String, Object> data = membership.entrantData(userId);
+            if (data == null) {
+                if (doc.exists()) {
+                    transaction.delete(ref);
+                }
+            } else {
+                data.put("updatedAt", FieldValue.serverTimestamp());
+                transaction.set(ref, data);
+            }
+            result.count(doc, data);
+        }
+
+        if (result.waitlist != 0) {
+            transaction.set(randomShard(eventRef), counterDelta(result.waitlist), SetOptions.merge());
+        }
+        return result;
+    }
+
+    /**
+     * Moves an inline event's entrant arrays into the subcollection.
+     * Entrant docs are written first from the given entity, over anything an earlier
+     * interrupted migration left behind, with the counter shards moved to match. The
+     * switch to SUBCOLLECTION then runs in a transaction that re-reads the arrays,
+     * writes any entrant that joined, left or responded since the copy, and only then
+     * removes the arrays, so no change made during the migration is lost. An
+     * interrupted migration leaves the event readable in INLINE mode.
+     *
+     * @param eventRef The event document
+     * @param event    Entity hydrated in INLINE mode
+     * @return Task completing when the event has been switched over
+     */
+    public Task<Void> migrate(DocumentReference eventRef, EventEntity event) {
+        // Treat every current entrant as newly added so applyChanges writes them all
+        EventEntity empty = new EventEntity();
+        empty.markClean();
+        empty.setRegistrationEnd(event.getRegistrationEnd());
+        empty.setWaitlist(new ArrayList<>(event.getWaitlist()));
+        empty.setAttendees(new ArrayList<>(event.getAttendees()));
+        empty.setDeclined(new ArrayList<>(event.getDeclined()));
+        empty.setInvitations(new ArrayList<>(event.getInvitations()));
+        if (event.getEntrantLocations() != null) {
+            empty.setEntrantLocations(new HashMap<>(event.getEntrantLocations()));
+        }
+
+        return applyChanges(eventRef, empty, null)
+                .onSuccessTask(v -> db.runTransaction(transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(eventRef);
+                    if (!snapshot.exists()) {
+                        throw new FirebaseFirestoreException("Event not found",
+                                FirebaseFirestoreException.Code.NOT_FOUND);
+                    }
+                    EventEntity latest = EventCodec.decode(snapshot);
+                    if (latest.usesEntrantSubcollection()) {
+                        return null; // Another migration finished first
+                    }
+                    int late = copyLateChanges(transaction, eventRef, empty, latest);
+                    if (late > 0) {
+                        Log.d(TAG, "Copied " + late + " entrant change(s) made during migration");
+                    }
+
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put("entrantStorage", EventEntity.EntrantStorage.SUBCOLLECTION.name());
+                    updates.put("waitlist", FieldValue.delete());
+                    updates.put("attendees", FieldValue.delete());
+                    updates.put("declined", FieldValue.delete());
+                    updates.put("invitations", FieldValue.delete());
+                    updates.put("entrantLocations", FieldValue.delete());
+                    updates.put("participants", FieldValue.delete());
+                    updates.put("updatedAt", FieldValue.serverTimestamp());
+                    transaction.update(eventRef, updates);
+                    return null;
+                }));
+    }
+
+    /**
+     * Writes, inside the switch-over transaction, every entrant whose document differs
+     * between what was copied and the event's current arrays, and moves the waitlist
+     * counter by the difference in waitlist size.
+     *
+     * @return number of entrant documents written or deleted
+     */
+    private int copyLateChanges(Transaction transaction, DocumentReference eventRef,
+                                EventEntity copied, EventEntity latest)
+            throws FirebaseFirestoreException {
+        Membership before = new Membership(copied);
+        Membership after = new Membership(latest);
+        Set<String> userIds = new HashSet<>(before.userIds());
+        userIds.addAll(after.userIds());
+
+        int changed = 0;
+        for (String userId : userIds) {
+            Map<String, Object> was = before.entrantData(userId);
+            Map<String, Object> now = after.entrantData(userId);
+            if (was == null ? now == null : was.equals(now)) {
+                continue;
+            }
+            // One transaction holds at most MAX_BATCH_WRITES; leave room for the shard and event
+            if (++changed > MAX_BATCH_WRITES - 2) {
+                throw new FirebaseFirestoreException("Too many entrant changes during migration",
+                        FirebaseFirestoreException.Code.ABORTED);
+            }
+            if (now == null) {
+                transaction.delete(entrantRef(eventRef, userId));
+            } else {
+                now.put("updatedAt", FieldValue.serverTimestamp());
+                transaction.set(entrantRef(eventRef, userId), now);
+            }
+        }
+
+        int waitlistDelta = latest.getWaitlist().size() - copied.getWaitlist().size();
+        if (waitlistDelta != 0) {
+            transaction.set(randomShard(eventRef), counterDelta(waitlistDelta), SetOptions.merge());
+        }
+        return changed;
+    }
+
+    /**
+     * An entity's entrant lists indexed by user, for building entrant documents
+     */
+    private static class Membership {
+        private final Set<String> waitlist;
+        private final Set<String> attendees;
+        private final Set<String> declined;
+        private final Map<String, Invitation> invitations = new HashMap<>();
+        private final Map<String, List<Double>> locations;
+        private final Date registrationEnd;
+
+        Membership(EventEntity event) {
+            registrationEnd = event.getRegistrationEnd();
+            waitlist = new HashSet<>(event.getWaitlist());
+            attendees = new HashSet<>(event.getAttendees());
+            declined = new HashSet<>(event.getDeclined());
+            for (Invitation inv : event.getInvitations()) {
+                invitations.put(inv.getUserId(), inv);
+            }
+            locations = event.getEntrantLocations() != null
+                    ? event.getEntrantLocations() : new HashMap<>();
+        }
+
+        private Membership(Date registrationEnd, List<String> waitlist, List<String> attendees,
+                           List<String> declined, Set<String> invited) {
+            this.registrationEnd = registrationEnd;
+            this.waitlist = new HashSet<>(waitlist);
+            this.attendees = new HashSet<>(attendees);
+            this.declined = new HashSet<>(declined);
+            for (String userId : invited) {
+                invitations.put(userId, null);
+            }
+            locations = new HashMap<>();
+        }
+
+        /**
+         * The entity's memberships at its last clean state, for checking stored statuses
+         */
+        static Membership loaded(EventEntity event) {
+            return new Membership(event.getRegistrationEnd(), event.getCleanIds("waitlist"),
+                    event.getCleanIds("attendees"), event.getCleanIds("declined"),
+                    event.getCleanInvitationUserIds());
+        }
+
+        Set<String> userIds() {
+            Set<String> ids = new HashSet<>(waitlist);
+            ids.addAll(attendees);
+            ids.addAll(declined);
+            ids.addAll(invitations.keySet());
+            return ids;
+        }
+
+        /**
+         * @return the status of the user's entrant document, or null if they are in no list
+         */
+        String status(String userId) {
+            if (attendees.contains(userId)) {
+                return STATUS_ATTENDING;
+            } else if (declined.contains(userId)) {
+                return STATUS_DECLINED;
+            } else if (invitations.containsKey(userId)) {
+                return STATUS_INVITED;
+            } else if (waitlist.contains(userId)) {
+                return STATUS_WAITLIST;
+            }
+            return null;
+        }
+
+        /**
+         * @return the user's entrant document without updatedAt, or null if they are in no list
+         */
+        Map<String, Object> entrantData(String userId) {
+            String status = status(userId);
+            if (status == null) {
+                return null;
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("userId", userId);
+            data.put("status", status);
+            if (registrationEnd != null) {
+                data.put("registrationEnd", registrationEnd);
+            }
+            Invitation inv = invitations.get(userId);
+            if (inv != null) {
+                data.put("invitation", inv.toMap());
+            }
+            if (locations.containsKey(userId)) {
+                data.put("location", locations.get(userId));
+            }
+            return data;
+        }
+    }
+
+    private static Map<String, Object> counterDelta(long delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("count", FieldValue.increment(delta));
+        return data;
+    }
+}
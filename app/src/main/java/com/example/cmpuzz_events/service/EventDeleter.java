@@ -0,0 +1,428 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deletes events together with everything that hangs off them.
+ * <p>
+ * Each event is first marked {@code deleting} and its summary removed, so it drops out
+ * of the lists straight away. Its notifications (in any notifications collection) and
+ * its entrant and counter subcollections are then deleted a page at a time, in write
+ * batches of at most {@link #MAX_BATCH_WRITES}; notification pages also lower their
+ * recipients' {@link InboxCounts}. Once every event of the run is cleared,
+ * their posters are removed from Storage with at most {@link #MAX_CONCURRENT_STORAGE_DELETES}
+ * requests in flight, and the event documents are deleted last, each leaving a
+ * tombstone in {@value #COLLECTION_TOMBSTONES} so other devices drop it from their
+ * {@link LocalStore} (see {@link OfflineSync}).
+ * <p>
+ * The event document, with its poster URL, stays until everything else is gone, so an
+ * interrupted run is finished by running it again; {@link #resume} does that for every
+ * event still marked deleting.
+ */
+public class EventDeleter {
+
+    private static final String TAG = "EventDeleter";
+    private static final String COLLECTION_EVENTS = "events";
+    private static final String COLLECTION_SUMMARIES = "event_summaries";
+    private static final String COLLECTION_NOTIFICATIONS = "notifications";
+    static final String COLLECTION_TOMBSTONES = "deleted_events";
+    static final String FIELD_DELETING = "deleting";
+    static final int MAX_BATCH_WRITES = 500;
+    static final int MAX_CONCURRENT_STORAGE_DELETES = 4;
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Counts for a delete run, reported after each committed batch
+     */
+    public static class Progress {
+        private int documentsDeleted;
+        private int postersDeleted;
+        private int eventsDeleted;
+
+        /**
+         * @return notifications, entrants and counters deleted so far
+         */
+        public int getDocumentsDeleted() {
+            return documentsDeleted;
+        }
+
+        public int getPostersDeleted() {
+            return postersDeleted;
+        }
+
+        public int getEventsDeleted() {
+            return eventsDeleted;
+        }
+
+        @Override
+        public String toString() {
+            return "documents=" + documentsDeleted + ", posters=" + postersDeleted
+                    + ", events=" + eventsDeleted;
+        }
+    }
+
+    /**
+     * Callback for a delete run
+     */
+    public interface DeleteCallback {
+        void onProgress(Progress progress);
+        void onComplete(Progress progress);
+        void onError(String error);
+    }
+
+    EventDeleter(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Deletes the given events and their dependants. Stops at the first failure;
+     * running it again with the same IDs continues where it stopped.
+     *
+     * @param eventIds Events to delete
+     * @param callback Progress after each batch, then completion
+     */
+    public void delete(List<String> eventIds, DeleteCallback callback) {
+        Log.d(TAG, "Deleting " + eventIds.size() + " event(s)");
+        clearNext(eventIds, 0, new ArrayList<>(), new Progress(), callback);
+    }
+
+    /**
+     * Finishes deletes that were interrupted, optionally limited to one organizer.
+     * Works through the marked events MAX_BATCH_WRITES at a time until none are left.
+     *
+     * @param organizerId Only finish this organizer's events (null for all events)
+     * @param callback    Progress after each batch, then completion
+     */
+    public void resume(String organizerId, DeleteCallback callback) {
+        Query query = db.collection(COLLECTION_EVENTS).whereEqualTo(FIELD_DELETING, true);
+        if (organizerId != null) {
+            query = query.whereEqualTo("organizerId", organizerId);
+        }
+        resumePage(query.limit(MAX_BATCH_WRITES), new Progress(), callback);
+    }
+
+    /**
+     * Deletes one page of marked events, then reads the next. Deleted events leave
+     * the query, so each page is read from the start.
+     */
+    private void resumePage(Query query, Progress progress, DeleteCallback callback) {
+        query.get()
+            .addOnSuccessListener(snapshot -> {
+                List<String> eventIds = new ArrayList<>();
+                for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                    eventIds.add(doc.getId());
+                }
+                if (eventIds.isEmpty()) {
+                    Log.d(TAG, "Resumed deletes complete: " + progress);
+                    callback.onComplete(progress);
+                    return;
+                }
+                Log.d(TAG, "Resuming " + eventIds.size() + " interrupted delete(s)");
+                clearNext(eventIds, 0, new ArrayList<>(), progress, new DeleteCallback() {
+                    @Override
+                    public void onProgress(Progress progress) {
+                        callback.onProgress(progress);
+                    }
+
+                    @Override
+                    public void onComplete(Progress progress) {
+                        resumePage(query, progress, callback);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callback.onError(error);
+                    }
+                });
+            })
+            .addOnFailureListener(e -> fail("Error querying interrupted deletes", e, callback));
+    }
+
+    private DocumentReference eventRef(String eventId) {
+        return db.collection(COLLECTION_EVENTS).document(eventId);
+    }
+
+    private DocumentReference summaryRef(String eventId) {
+        return db.collection(COLLECTION_SUMMARIES).document(eventId);
+    }
+
+    /**
+     * Marks one event and clears its Firestore dependants, then moves on to the next.
+     * Events whose document is already gone only need their summary removed.
+     */
+    private void clearNext(List<String> eventIds, int index, List<DocumentSnapshot> cleared,
+                           Progress progress, DeleteCallback callback) {
+        if (index == eventIds.size()) {
+            finish(cleared, progress, callback);
+            return;
+        }
+        String eventId = eventIds.get(index);
+        DocumentReference eventRef = eventRef(eventId);
+
+        eventRef.get()
+            .addOnSuccessListener(doc -> {
+                if (!doc.exists()) {
+                    summaryRef(eventId).delete()
+                        .addOnSuccessListener(aVoid ->
+                                clearNext(eventIds, index + 1, cleared, progress, callback))
+                        .addOnFailureListener(e -> fail("Error deleting summary of " + eventId, e, callback));
+                    return;
+                }
+
+                markDeleting(eventRef)
+                    .onSuccessTask(v -> deletePages(db.collectionGroup(COLLECTION_NOTIFICATIONS)
+                            .whereEqualTo("eventId", eventId), true, progress, callback))
+                    .onSuccessTask(v -> deletePages(eventRef.collection(EntrantStore.SUBCOLLECTION_ENTRANTS),
+                            false, progress, callback))
+                    .onSuccessTask(v -> deletePages(eventRef.collection(EntrantStore.SUBCOLLECTION_COUNTERS),
+                            false, progress, callback))
+                    .addOnSuccessListener(v -> {
+                        cleared.add(doc);
+                        clearNext(eventIds, index + 1, cleared, progress, callback);
+                    })
+                    .addOnFailureListener(e -> fail("Error clearing dependants of " + eventId, e, callback));
+            })
+            .addOnFailureListener(e -> fail("Error loading event " + eventId, e, callback));
+    }
+
+    private Task<Void> markDeleting(DocumentReference eventRef) {
+        WriteBatch batch = db.batch();
+        // Stamped so the incremental sync sees the mark and drops the event locally
+        batch.update(eventRef, FIELD_DELETING, true, "updatedAt", FieldValue.serverTimestamp());
+        batch.delete(summaryRef(eventRef.getId()));
+        return batch.commit();
+    }
+
+    /**
+     * Deletes everything the query matches, MAX_BATCH_WRITES documents per page.
+     * Deleted documents leave the query, so each page is read from the start.
+     *
+     * @param notifications true if the documents are notifications; pages are then halved
+     *                      to leave room for one inbox counter write per recipient
+     */
+    private Task<Void> deletePages(Query query, boolean notifications, Progress progress,
+                                   DeleteCallback callback) {
+        int pageSize = notifications ? MAX_BATCH_WRITES / 2 : MAX_BATCH_WRITES;
+        return query.limit(pageSize).get().onSuccessTask(snapshot -> {
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            if (docs.isEmpty()) {
+                return Tasks.forResult(null);
+            }
+            Task<Map<String, Long>> watermarks = notifications
+                    ? readWatermarks(docs) : Tasks.forResult(Collections.emptyMap());
+            return watermarks.onSuccessTask(readUpTo -> {
+                WriteBatch batch = db.batch();
+                Map<String, long[]> inboxDeltas = new HashMap<>();
+                for (DocumentSnapshot doc : docs) {
+                    batch.delete(doc.getReference());
+                    String userId = doc.getString("userId");
+                    if (notifications && userId != null) {
+                        long[] removed = InboxCounts.removalDeltas(doc, readUpTo.get(userId));
+                        long[] total = inboxDeltas.computeIfAbsent(userId, id -> new long[2]);
+                        total[0] += removed[0];
+                        total[1] += removed[1];
+                    }
+                }
+                for (Map.Entry<String, long[]> entry : inboxDeltas.entrySet()) {
+                    InboxCounts.stage(batch, InboxCounts.ref(db, entry.getKey()),
+                            entry.getValue()[0], entry.getValue()[1]);
+                }
+                return batch.commit();
+            }).onSuccessTask(v -> {
+                progress.documentsDeleted += docs.size();
+                callback.onProgress(progress);
+                if (docs.size() < pageSize) {
+                    return Tasks.forResult(null);
+                }
+                return deletePages(query, notifications, progress, callback);
+            });
+        });
+    }
+
+    /**
+     * Reads the read watermark of every recipient on a page of notifications, so
+     * notifications already read through the watermark don't lower the unread count again.
+     */
+    private Task<Map<String, Long>> readWatermarks(List<DocumentSnapshot> notifications) {
+        Set<String> userIds = new HashSet<>();
+        for (DocumentSnapshot doc : notifications) {
+            String userId = doc.getString("userId");
+            if (userId != null) {
+                userIds.add(userId);
+            }
+        }
+        Map<String, Task<DocumentSnapshot>> reads = new HashMap<>();
+        for (String userId : userIds) {
+            reads.put(userId, InboxCounts.ref(db, userId).get());
+        }
+        return Tasks.whenAllSuccess(reads.values()).onSuccessTask(results -> {
+            Map<String, Long> readUpTo = new HashMap<>();
+            for (Map.Entry<String, Task<DocumentSnapshot>> entry : reads.entrySet()) {
+                readUpTo.put(entry.getKey(), InboxCounts.readUpTo(entry.getValue().getResult()));
+            }
+            return Tasks.forResult(readUpTo);
+        });
+    }
+
+    /**
+     * Removes the cleared events' posters, then the event documents themselves.
+     */
+    private void finish(List<DocumentSnapshot> cleared, Progress progress, DeleteCallback callback) {
+        if (cleared.isEmpty()) {
+            Log.d(TAG, "Delete run complete: " + progress);
+            callback.onComplete(progress);
+            return;
+        }
+        List<StorageReference> posters = new ArrayList<>();
+        for (DocumentSnapshot doc : cleared) {
+            StorageReference poster = posterRef(doc.getString("posterUrl"));
+            if (poster != null) {
+                posters.add(poster);
+            }
+        }
+
+        deleteObjects(posters, progress)
+            .onSuccessTask(v -> deleteEventDocs(cleared, progress))
+            .addOnSuccessListener(v -> {
+                Log.d(TAG, "Delete run complete: " + progress);
+                callback.onComplete(progress);
+            })
+            .addOnFailureListener(e -> fail("Error finishing delete run", e, callback));
+    }
+
+    /**
+     * @return the Storage object behind a poster URL, or null if there is none or it isn't ours
+     */
+    private static StorageReference posterRef(String posterUrl) {
+        if (posterUrl == null || posterUrl.isEmpty()) {
+            return null;
+        }
+        try {
+            return FirebaseStorage.getInstance().getReferenceFromUrl(posterUrl);
+        } catch (IllegalArgumentException e) {
+            Log.d(TAG, "Not deleting external poster " + posterUrl);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the objects keeping at most MAX_CONCURRENT_STORAGE_DELETES requests in flight.
+     * Objects that are already gone count as deleted; any other failure fails the task
+     * once every request has finished.
+     */
+    private Task<Void> deleteObjects(List<StorageReference> objects, Progress progress) {
+        if (objects.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        TaskCompletionSource<Void> done = new TaskCompletionSource<>();
+        int[] next = {0};
+        int[] remaining = {objects.size()};
+        Exception[] firstError = {null};
+
+        Runnable[] startNext = new Runnable[1];
+        startNext[0] = () -> {
+            int index;
+            synchronized (next) {
+                if (next[0] >= objects.size()) {
+                    return;
+                }
+                index = next[0]++;
+            }
+            StorageReference object = objects.get(index);
+            object.delete().addOnCompleteListener(task -> {
+                boolean finished;
+                synchronized (next) {
+                    Exception e = task.getException();
+                    if (task.isSuccessful() || isNotFound(e)) {
+                        progress.postersDeleted++;
+                    } else {
+                        Log.e(TAG, "Error deleting " + object.getPath(), e);
+                        if (firstError[0] == null) {
+                            firstError[0] = e;
+                        }
+                    }
+                    finished = --remaining[0] == 0;
+                }
+                if (!finished) {
+                    startNext[0].run();
+                } else if (firstError[0] != null) {
+                    done.setException(firstError[0]);
+                } else {
+                    done.setResult(null);
+                }
+            });
+        };
+
+        for (int i = 0; i < Math.min(MAX_CONCURRENT_STORAGE_DELETES, objects.size()); i++) {
+            startNext[0].run();
+        }
+        return done.getTask();
+    }
+
+    private static boolean isNotFound(Exception e) {
+        return e instanceof StorageException
+                && ((StorageException) e).getErrorCode() == StorageException.ERROR_OBJECT_NOT_FOUND;
+    }
+
+    /**
+     * Deletes the event documents and any summary a late join re-created, in batches,
+     * leaving a tombstone for each event in the same batch
+     */
+    private Task<Void> deleteEventDocs(List<DocumentSnapshot> cleared, Progress progress) {
+        List<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        for (DocumentSnapshot doc : cleared) {
+            if (writes + 3 > MAX_BATCH_WRITES) {
+                commits.add(batch.commit());
+                batch = db.batch();
+                writes = 0;
+            }
+            Map<String, Object> tombstone = new HashMap<>();
+            tombstone.put("deletedAt", FieldValue.serverTimestamp());
+            batch.delete(doc.getReference());
+            batch.delete(summaryRef(doc.getId()));
+            batch.set(db.collection(COLLECTION_TOMBSTONES).document(doc.getId()), tombstone);
+            writes += 3;
+        }
+        if (writes > 0) {
+            commits.add(batch.commit());
+        }
+        return Tasks.whenAll(commits).onSuccessTask(v -> {
+            for (DocumentSnapshot doc : cleared) {
+                if (LocalStore.isInitialized()) {
+                    LocalStore.getInstance().removeEvent(doc.getId());
+                }
+            }
+            progress.eventsDeleted += cleared.size();
+            return Tasks.forResult(null);
+        });
+    }
+
+    private void fail(String message, Exception e, DeleteCallback callback) {
+        Log.e(TAG, message, e);
+        callback.onError(e.getMessage());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.cmpuzz_events.service;
+
+import com.example.cmpuzz_events.models.event.EventSummary;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+
+/**
+ * One page of events from {@link IEventService#getEventsPage}.
+ * Pass the page back to fetch the next one; the cursor it carries is the
+ * last document read, so each page costs only its own reads.
+ */
+public class EventPage {
+    private final List<EventSummary> events;
+    private final DocumentSnapshot lastDocument;
+    private final boolean hasMore;
+
+    EventPage(List<EventSummary> events, DocumentSnapshot lastDocument, boolean hasMore) {
+        this.events = events;
+        this.lastDocument = lastDocument;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return event summaries on this page, newest first
+     */
+    public List<EventSummary> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return true if there are more events after this page
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    DocumentSnapshot getLastDocument() {
+        return lastDocument;
+    }
+}
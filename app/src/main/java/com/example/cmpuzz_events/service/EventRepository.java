@@ -0,0 +1,303 @@
+package com.example.cmpuzz_events.service;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live, shared view of individual events.
+ * Each observed event has one Firestore snapshot listener no matter how many screens
+ * observe it, and the latest hydrated {@link EventEntity} is cached, so a sub-screen
+ * opened on the same event is served from memory and kept up to date by the same
+ * listener. The listener is removed a short while after its last observer leaves,
+ * which lets navigation between screens of one event hand it over without a re-read.
+ * <p>
+ * Events with SUBCOLLECTION entrant storage get a second listener on their entrants.
+ * Its document changes are applied to a per-event cache, so a join costs one read
+ * rather than a reload of every entrant, and an event doc change rebuilds the entity
+ * from that cache without reading the entrants at all.
+ * <p>
+ * Entities handed to observers are shared between them and must be treated as
+ * read-only; changes go through {@link IEventService}. One-off reads instead get a
+ * copy of their own, rebuilt from the cached documents, which the caller may change
+ * and save. Call from the main thread.
+ */
+public class EventRepository {
+
+    private static final String TAG = "EventRepository";
+    private static final String COLLECTION_EVENTS = "events";
+    static final long RELEASE_DELAY_MS = 5000;
+
+    private static EventRepository instance;
+    private final FirebaseFirestore db;
+    private final EventService eventService;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, LiveEvent> liveEvents = new HashMap<>();
+
+    /**
+     * Receives an event's latest state
+     */
+    public interface EventObserver {
+        /**
+         * Called with the cached event straight away if there is one, then on every change
+         */
+        void onEventChanged(EventEntity event);
+
+        void onError(String error);
+    }
+
+    /**
+     * Handle for one observer; remove it when the screen goes away
+     */
+    public final class Subscription {
+        private final String eventId;
+        private final EventObserver observer;
+        private boolean removed;
+
+        private Subscription(String eventId, EventObserver observer) {
+            this.eventId = eventId;
+            this.observer = observer;
+        }
+
+        /**
+         * Stop receiving updates; safe to call more than once
+         */
+        public void remove() {
+            if (!removed) {
+                removed = true;
+                release(eventId, observer);
+            }
+        }
+    }
+
+    /**
+     * Listener, cache and observers for one event
+     */
+    private static class LiveEvent {
+        final List<EventObserver> observers = new ArrayList<>();
+        ListenerRegistration registration;
+        ListenerRegistration entrantsRegistration;   // only for SUBCOLLECTION events
+        final Map<String, DocumentSnapshot> entrants = new LinkedHashMap<>();
+        boolean entrantsLoaded;
+        DocumentSnapshot eventDoc;
+        EventEntity latest;
+        Runnable pendingRelease;
+    }
+
+    private EventRepository() {
+        db = FirebaseFirestore.getInstance();
+        eventService = EventService.getInstance();
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized EventRepository getInstance() {
+        if (instance == null) {
+            instance = new EventRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Observe an event until the returned subscription is removed.
+     *
+     * @param eventId  The event ID
+     * @param observer Receives the event now (if cached) and after every change
+     * @return Subscription to remove when done
+     */
+    public Subscription observe(String eventId, EventObserver observer) {
+        LiveEvent live = liveEvents.get(eventId);
+        if (live == null) {
+            live = new LiveEvent();
+            liveEvents.put(eventId, live);
+            listen(eventId, live);
+        } else if (live.pendingRelease != null) {
+            handler.removeCallbacks(live.pendingRelease);
+            live.pendingRelease = null;
+        }
+
+        live.observers.add(observer);
+        if (live.latest != null) {
+            observer.onEventChanged(live.latest);
+        }
+        return new Subscription(eventId, observer);
+    }
+
+    /**
+     * One-off read of an event. Served from the cache while the event is observed,
+     * otherwise read from Firestore. Either way the caller gets its own entity.
+     *
+     * @param eventId  The event ID
+     * @param callback Callback with the event or an error
+     */
+    public void getEvent(String eventId, IEventService.EventCallback callback) {
+        LiveEvent live = liveEvents.get(eventId);
+        if (live != null && live.latest != null && isReady(live)) {
+            callback.onSuccess(build(live));
+            return;
+        }
+        eventService.getEvent(eventId, callback);
+    }
+
+    /**
+     * Like {@link #getEvent} but with the whole waitlist, which a plain read leaves
+     * out for events that keep their entrants in a subcollection.
+     *
+     * @param eventId  The event ID
+     * @param callback Callback with the event or an error
+     */
+    public void getEventWithEntrants(String eventId, IEventService.EventCallback callback) {
+        LiveEvent live = liveEvents.get(eventId);
+        if (live != null && live.latest != null && isReady(live)) {
+            callback.onSuccess(build(live));
+            return;
+        }
+        eventService.getEventWithEntrants(eventId, callback);
+    }
+
+    private void listen(String eventId, LiveEvent live) {
+        live.registration = db.collection(COLLECTION_EVENTS).document(eventId)
+            .addSnapshotListener((snapshot, e) -> {
+                if (liveEvents.get(eventId) != live) {
+                    return; // released while this snapshot was in flight
+                }
+                if (e != null) {
+                    Log.e(TAG, "Error listening to event " + eventId, e);
+                    notifyError(live, e.getMessage());
+                    return;
+                }
+                if (snapshot == null || !snapshot.exists()) {
+                    live.latest = null;
+                    notifyError(live, "Event not found");
+                    return;
+                }
+
+                live.eventDoc = snapshot;
+                if (EventEntity.EntrantStorage.SUBCOLLECTION.name().equals(snapshot.getString("entrantStorage"))) {
+                    if (live.entrantsRegistration == null) {
+                        listenToEntrants(eventId, live);
+                    }
+                } else if (live.entrantsRegistration != null) {
+                    stopListeningToEntrants(live);
+                }
+                publish(live);
+            });
+    }
+
+    /**
+     * Keeps the entrant cache of a SUBCOLLECTION event in step with its documents.
+     * The first snapshot loads them all; after that only changed documents are read.
+     */
+    private void listenToEntrants(String eventId, LiveEvent live) {
+        live.entrantsRegistration = db.collection(COLLECTION_EVENTS).document(eventId)
+            .collection(EntrantStore.SUBCOLLECTION_ENTRANTS)
+            .addSnapshotListener((snapshot, e) -> {
+                if (liveEvents.get(eventId) != live || live.entrantsRegistration == null) {
+                    return;
+                }
+                if (e != null) {
+                    Log.e(TAG, "Error listening to entrants of " + eventId, e);
+                    notifyError(live, e.getMessage());
+                    return;
+                }
+                if (snapshot == null) {
+                    return;
+                }
+
+                for (DocumentChange change : snapshot.getDocumentChanges()) {
+                    DocumentSnapshot doc = change.getDocument();
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        live.entrants.remove(doc.getId());
+                    } else {
+                        live.entrants.put(doc.getId(), doc);
+                    }
+                }
+                live.entrantsLoaded = true;
+                publish(live);
+            });
+    }
+
+    private void stopListeningToEntrants(LiveEvent live) {
+        live.entrantsRegistration.remove();
+        live.entrantsRegistration = null;
+        live.entrants.clear();
+        live.entrantsLoaded = false;
+    }
+
+    /**
+     * Rebuilds the entity from the cached event doc (and entrants) and hands it to the
+     * observers. Waits for the first entrants snapshot of a SUBCOLLECTION event.
+     */
+    private void publish(LiveEvent live) {
+        if (!isReady(live)) {
+            return;
+        }
+        EventEntity entity = build(live);
+        live.latest = entity;
+        for (EventObserver observer : new ArrayList<>(live.observers)) {
+            observer.onEventChanged(entity);
+        }
+    }
+
+    /**
+     * Whether the cache holds the event doc and, for a SUBCOLLECTION event, its entrants
+     */
+    private static boolean isReady(LiveEvent live) {
+        return live.eventDoc != null
+                && (live.entrantsLoaded || !EventEntity.EntrantStorage.SUBCOLLECTION.name()
+                        .equals(live.eventDoc.getString("entrantStorage")));
+    }
+
+    /**
+     * A new entity from the cached event doc and entrants; no reads
+     */
+    private EventEntity build(LiveEvent live) {
+        EventEntity entity = eventService.documentToEventEntity(live.eventDoc);
+        if (entity.usesEntrantSubcollection()) {
+            EntrantStore.fill(entity, live.entrants.values());
+        }
+        return entity;
+    }
+
+    private void notifyError(LiveEvent live, String error) {
+        for (EventObserver observer : new ArrayList<>(live.observers)) {
+            observer.onError(error);
+        }
+    }
+
+    private void release(String eventId, EventObserver observer) {
+        LiveEvent live = liveEvents.get(eventId);
+        if (live == null) {
+            return;
+        }
+        live.observers.remove(observer);
+        if (!live.observers.isEmpty() || live.pendingRelease != null) {
+            return;
+        }
+
+        live.pendingRelease = () -> {
+            if (liveEvents.get(eventId) == live && live.observers.isEmpty()) {
+                live.registration.remove();
+                if (live.entrantsRegistration != null) {
+                    stopListeningToEntrants(live);
+                }
+                liveEvents.remove(eventId);
+                Log.d(TAG, "Stopped listening to event " + eventId);
+            }
+        };
+        handler.postDelayed(live.pendingRelease, RELEASE_DELAY_MS);
+    }
+}
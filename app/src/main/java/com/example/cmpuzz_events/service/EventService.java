@@ -2,21 +2,40 @@ package com.example.cmpuzz_events.service;
 
 import android.util.Log;
 
+import com.example.cmpuzz_events.models.event.DrawPolicy;
+import com.example.cmpuzz_events.models.event.EventCodec;
 import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.EventSummary;
 import com.example.cmpuzz_events.models.event.Invitation;
 import com.example.cmpuzz_events.ui.event.Event;
-import com.google.firebase.Timestamp;
+import com.example.cmpuzz_events.utils.LotteryEngine;
+import com.example.cmpuzz_events.utils.SingleFlight;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 
 import com.example.cmpuzz_events.models.notification.Notification;
 
@@ -28,12 +47,27 @@ import com.example.cmpuzz_events.models.notification.Notification;
 public class EventService implements IEventService {
     private static final String TAG = "EventService";
     private static final String COLLECTION_EVENTS = "events";
+    private static final String COLLECTION_SUMMARIES = "event_summaries";
+    private static final String[] ENTRANT_FIELDS =
+            {"waitlist", "attendees", "declined", "invitations", "entrantLocations", "participants"};
+    private static final String[] COUNT_FIELDS =
+            {"waitlistCount", "invitedCount", "attendeeCount", "entrantCount"};
+    private static final int MAX_IDS_PER_QUERY = 30;
+    /** Each drawn event writes its document and its summary, so one save holds this many */
+    static final int MAX_DRAWS_PER_SAVE = EntrantStore.MAX_BATCH_WRITES / 2;
     
     private static EventService instance;
     private final FirebaseFirestore db;
+    private final EntrantStore entrantStore;
+    private final DrawScheduler drawScheduler;
+    private final EventDeleter eventDeleter;
+    private final SingleFlight<DocumentSnapshot> eventReads = new SingleFlight<>();
 
     private EventService() {
         db = FirebaseFirestore.getInstance();
+        entrantStore = new EntrantStore(db);
+        drawScheduler = new DrawScheduler(db, this);
+        eventDeleter = new EventDeleter(db);
     }
 
     /**
@@ -89,6 +123,26 @@ public class EventService implements IEventService {
         uiEvent.setEntrants(entity.getEntrants());
         uiEvent.setPosterUrl(entity.getPosterUrl());
         uiEvent.setPrice(entity.getPrice());
+        uiEvent.setEntrantCount(entity.getEntrantCount());
+        uiEvent.setFull(entity.isFull());
+        return uiEvent;
+    }
+
+    /**
+     * Convert an event document to a UI Event without loading its entrants.
+     * The stored availability fields are used when present, since subcollection
+     * events have no entrant arrays to count on the document itself.
+     */
+    private Event convertToUIEvent(DocumentSnapshot doc) {
+        Event uiEvent = convertToUIEvent(documentToEventEntity(doc));
+        Long entrantCount = doc.getLong("entrantCount");
+        Boolean full = doc.getBoolean("isFull");
+        if (entrantCount != null) {
+            uiEvent.setEntrantCount(entrantCount.intValue());
+        }
+        if (full != null) {
+            uiEvent.setFull(full);
+        }
         return uiEvent;
     }
 
@@ -105,9 +159,10 @@ public class EventService implements IEventService {
         EventEntity entity = convertToEntity(uiEvent);
         Log.d(TAG, "Converted to entity, ID: " + entity.getEventId() + ", OrganizerID: " + entity.getOrganizerId());
         
-        db.collection(COLLECTION_EVENTS)
-            .document(entity.getEventId())
-            .set(entity.toMap())
+        WriteBatch batch = db.batch();
+        batch.set(db.collection(COLLECTION_EVENTS).document(entity.getEventId()), stampedDoc(entity));
+        batch.set(summaryRef(entity.getEventId()), EventSummary.of(entity).toMap());
+        batch.commit()
             .addOnSuccessListener(aVoid -> {
                 Log.d(TAG, "Event created successfully: " + entity.getEventId());
                 callback.onSuccess(entity);
@@ -120,19 +175,47 @@ public class EventService implements IEventService {
 
     /**
      * Retrieves a Firestore event by its ID.
+     * Subcollection events come with their invited, attending and declined entrants but
+     * not their waitlist, which can be far larger; their counts are still complete.
+     * Use {@link #getEventWithEntrants} where the waitlist itself is needed.
      *
      * @param eventId  The ID of the event
      * @param callback Callback returning the EventEntity or an error
      */
     @Override
     public void getEvent(String eventId, EventCallback callback) {
-        db.collection(COLLECTION_EVENTS)
-            .document(eventId)
-            .get()
+        readEvent(eventId, false, callback);
+    }
+
+    /**
+     * Retrieves a Firestore event by its ID with every entrant, waitlist included.
+     *
+     * @param eventId  The ID of the event
+     * @param callback Callback returning the EventEntity or an error
+     */
+    @Override
+    public void getEventWithEntrants(String eventId, EventCallback callback) {
+        readEvent(eventId, true, callback);
+    }
+
+    private void readEvent(String eventId, boolean withWaitlist, EventCallback callback) {
+        // Callers asking for the same event at once share one read; each still
+        // gets its own entity since callers modify what they are given
+        long saved = eventReads.getCoalescedCount();
+        Task<DocumentSnapshot> read = eventReads.run(COLLECTION_EVENTS + "/" + eventId,
+                () -> db.collection(COLLECTION_EVENTS).document(eventId).get());
+        if (eventReads.getCoalescedCount() > saved) {
+            Log.d(TAG, "Joined in-flight read of " + eventId + " (" + eventReads + ")");
+        }
+        read
             .addOnSuccessListener(documentSnapshot -> {
                 if (documentSnapshot.exists()) {
-                    EventEntity entity = documentToEventEntity(documentSnapshot);
-                    callback.onSuccess(entity);
+                    (withWaitlist ? loadEntity(documentSnapshot) : loadDecided(documentSnapshot, null))
+                        .addOnSuccessListener(callback::onSuccess)
+                        .addOnFailureListener(e -> {
+                            Log.e(TAG, "Error loading entrants", e);
+                            callback.onError(e.getMessage());
+                        });
                 } else {
                     callback.onError("Event not found");
                 }
@@ -143,6 +226,37 @@ public class EventService implements IEventService {
             });
     }
 
+    /**
+     * Converts an event document, loading its entrant lists from the
+     * events/{id}/entrants subcollection when the event stores them there.
+     *
+     * @param doc Existing event document
+     * @return Task completing with the full entity
+     */
+    Task<EventEntity> loadEntity(DocumentSnapshot doc) {
+        EventEntity entity = documentToEventEntity(doc);
+        if (entity.usesEntrantSubcollection()) {
+            return entrantStore.hydrate(doc.getReference(), entity);
+        }
+        return Tasks.forResult(entity);
+    }
+
+    /**
+     * Like {@link #loadEntity} but leaves out a subcollection event's waitlist,
+     * apart from the viewer's own entry.
+     *
+     * @param doc      Existing event document
+     * @param viewerId User whose own entry is always loaded (null for none)
+     * @return Task completing with the entity
+     */
+    private Task<EventEntity> loadDecided(DocumentSnapshot doc, String viewerId) {
+        EventEntity entity = documentToEventEntity(doc);
+        if (entity.usesEntrantSubcollection()) {
+            return entrantStore.hydrateDecided(doc.getReference(), entity, viewerId);
+        }
+        return Tasks.forResult(entity);
+    }
+
     /**
      * Retrieves a UI Event by ID, converting from Firestore entity.
      *
@@ -217,7 +331,33 @@ public class EventService implements IEventService {
     }
 
     /**
-     * This method retrieves the event history where the specific user was an entrant..
+     * Retrieves list rows for an organizer's events from the event summaries.
+     *
+     * @param organizerId Organizer's user ID
+     * @param callback Callback with the summaries or error
+     */
+    @Override
+    public void getEventSummariesForOrganizer(String organizerId, SummaryListCallback callback) {
+        db.collection(COLLECTION_SUMMARIES)
+            .whereEqualTo("organizerId", organizerId)
+            .get()
+            .addOnSuccessListener(queryDocumentSnapshots -> {
+                List<EventSummary> summaries = new ArrayList<>();
+                for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
+                    summaries.add(EventSummary.fromMap(doc.getData()));
+                }
+                Log.d(TAG, "Retrieved " + summaries.size() + " event summaries for organizer");
+                callback.onSuccess(summaries);
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error getting event summaries for organizer", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * This method retrieves the event history where the specific user was an entrant,
+     * most recently closed first. The filtering and ordering run on the server.
      *
      * @param userId   The ID of the user whose registration history is being
      *                 retrieved.
@@ -230,31 +370,170 @@ public class EventService implements IEventService {
             callback.onError("User ID is required.");
             return;
         }
-        db.collection("events").whereArrayContains("entrants", userId).get().addOnCompleteListener(task -> {
-                // Find all events where the user's ID is in the 'entrants' list
-                    if (task.isSuccessful()) {
-                        List<EventEntity> pastEvents = new ArrayList<>();
-                        Date now = new Date(); // Current time
-
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            EventEntity event = document.toObject(EventEntity.class);
-                            event.setEventId(document.getId());
-
-                            // check to see if the event has ended
-                            if (event.getRegistrationEnd() != null && event.getRegistrationEnd().before(now)) {
-                                pastEvents.add(event);
-                            }
-                        }
+        loadHistoryPage(userId, null, 0)
+            .addOnSuccessListener(page -> callback.onSuccess(page.getEvents()))
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error getting registration history", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * Retrieves one page of a user's past events, most recently closed first.
+     *
+     * @param userId   The ID of the user whose registration history is requested
+     * @param after    The previous page, or null for the first page
+     * @param pageSize Maximum number of events from the participants query on this page
+     * @param callback Callback with the page or error
+     */
+    @Override
+    public void getRegistrationHistoryPage(String userId, HistoryPage after, int pageSize,
+                                           HistoryPageCallback callback) {
+        if (userId == null || userId.isEmpty()) {
+            callback.onError("User ID is required.");
+            return;
+        }
+        loadHistoryPage(userId, after, pageSize)
+            .addOnSuccessListener(page -> {
+                Log.d(TAG, "Retrieved history page of " + page.getEvents().size()
+                        + " events, more: " + page.hasMore());
+                if (LocalStore.isInitialized()) {
+                    LocalStore.getInstance().putEvents(page.getEvents());
+                }
+                callback.onSuccess(page);
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error getting registration history page", e);
+                callback.onError(e.getMessage());
+            });
+    }
 
-                        // Sort events by end date, most recent first
-                        pastEvents.sort((e1, e2) -> e2.getRegistrationEnd().compareTo(e1.getRegistrationEnd()));
+    /**
+     * Inline events come from the participants array, subcollection events from the user's
+     * entrant docs, which carry a copy of registrationEnd. Both are filtered on
+     * registrationEnd and ordered by it on the server, paged with their own cursor, and
+     * merged so a page holds the pageSize most recently closed events of the two.
+     * Subcollection events are shown from their summary plus the user's entrant doc, so
+     * no entrant lists are read.
+     *
+     * @param pageSize page size, or 0 for every past event at once
+     */
+    private Task<HistoryPage> loadHistoryPage(String userId, HistoryPage after, int pageSize) {
+        Date before = after != null ? after.getBefore() : new Date();
+
+        Task<QuerySnapshot> inline = after != null && after.isInlineExhausted()
+                ? Tasks.forResult(null)
+                : historyQuery(db.collection(COLLECTION_EVENTS).whereArrayContains("participants", userId),
+                        before, pageSize, after != null ? after.getLastInline() : null).get();
+        Task<QuerySnapshot> sharded = after != null && after.isShardedExhausted()
+                ? Tasks.forResult(null)
+                : historyQuery(db.collectionGroup(EntrantStore.SUBCOLLECTION_ENTRANTS).whereEqualTo("userId", userId),
+                        before, pageSize, after != null ? after.getLastSharded() : null).get();
+
+        return Tasks.whenAllSuccess(inline, sharded).continueWithTask(task -> {
+            List<DocumentSnapshot> inlineDocs = inline.getResult() != null
+                    ? inline.getResult().getDocuments() : new ArrayList<>();
+            List<DocumentSnapshot> shardedDocs = sharded.getResult() != null
+                    ? sharded.getResult().getDocuments() : new ArrayList<>();
+
+            // Take the most recently closed of the two heads until the page is full
+            int i = 0;
+            int j = 0;
+            while ((pageSize == 0 || i + j < pageSize) && (i < inlineDocs.size() || j < shardedDocs.size())) {
+                if (j >= shardedDocs.size() || (i < inlineDocs.size()
+                        && !registrationEnd(inlineDocs.get(i)).before(registrationEnd(shardedDocs.get(j))))) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            List<DocumentSnapshot> pageInline = inlineDocs.subList(0, i);
+            List<DocumentSnapshot> pageSharded = shardedDocs.subList(0, j);
+
+            // A stream is done once everything it returned is used and it returned no extra doc
+            boolean inlineExhausted = i == inlineDocs.size() && (pageSize == 0 || inlineDocs.size() <= pageSize);
+            boolean shardedExhausted = j == shardedDocs.size() && (pageSize == 0 || shardedDocs.size() <= pageSize);
+            DocumentSnapshot lastInline = i > 0 ? pageInline.get(i - 1)
+                    : after != null ? after.getLastInline() : null;
+            DocumentSnapshot lastSharded = j > 0 ? pageSharded.get(j - 1)
+                    : after != null ? after.getLastSharded() : null;
+
+            return loadShardedHistory(pageSharded).continueWith(shardedTask -> {
+                List<EventEntity> events = new ArrayList<>(pageInline.size() + pageSharded.size());
+                for (DocumentSnapshot doc : pageInline) {
+                    events.add(EventCodec.decode(doc));
+                }
+                events.addAll(shardedTask.getResult());
+                events.sort((e1, e2) -> e2.getRegistrationEnd().compareTo(e1.getRegistrationEnd()));
+                return new HistoryPage(events, before, lastInline, inlineExhausted,
+                        lastSharded, shardedExhausted);
+            });
+        });
+    }
 
-                        callback.onSuccess(pastEvents);
-                    } else {
-                        Log.e(TAG, "Error getting registration history", task.getException());
-                        callback.onError(task.getException() != null ? task.getException().getMessage() : "Unknown error");
+    /**
+     * Past-registration query on registrationEnd, newest first, reading one document past
+     * the page so the caller can tell whether another page exists
+     */
+    private static Query historyQuery(Query query, Date before, int pageSize, DocumentSnapshot after) {
+        query = query.whereLessThan("registrationEnd", before)
+                .orderBy("registrationEnd", Query.Direction.DESCENDING);
+        if (pageSize > 0) {
+            query = query.limit(pageSize + 1);
+        }
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query;
+    }
+
+    private static Date registrationEnd(DocumentSnapshot doc) {
+        Date end = doc.getDate("registrationEnd");
+        return end != null ? end : new Date(0);
+    }
+
+    /**
+     * Builds history entries for subcollection events from their summaries, read in
+     * whereIn chunks, and the user's own entrant docs. Events whose summary is gone
+     * (deleted events) are left out.
+     */
+    private Task<List<EventEntity>> loadShardedHistory(List<DocumentSnapshot> entrantDocs) {
+        Map<String, DocumentSnapshot> byEvent = new LinkedHashMap<>();
+        for (DocumentSnapshot entrantDoc : entrantDocs) {
+            DocumentReference eventRef = entrantDoc.getReference().getParent().getParent();
+            if (eventRef != null) {
+                byEvent.put(eventRef.getId(), entrantDoc);
+            }
+        }
+        if (byEvent.isEmpty()) {
+            return Tasks.forResult(new ArrayList<>());
+        }
+
+        List<String> eventIds = new ArrayList<>(byEvent.keySet());
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (int k = 0; k < eventIds.size(); k += MAX_IDS_PER_QUERY) {
+            reads.add(db.collection(COLLECTION_SUMMARIES)
+                    .whereIn(FieldPath.documentId(),
+                            eventIds.subList(k, Math.min(k + MAX_IDS_PER_QUERY, eventIds.size())))
+                    .get());
+        }
+        return Tasks.whenAllSuccess(reads).continueWith(task -> {
+            List<EventEntity> events = new ArrayList<>();
+            for (Task<QuerySnapshot> read : reads) {
+                for (DocumentSnapshot summaryDoc : read.getResult().getDocuments()) {
+                    Map<String, Object> data = summaryDoc.getData();
+                    if (data == null) {
+                        continue;
                     }
-                });
+                    data.put("eventId", summaryDoc.getId());
+                    EventEntity entity = EventCodec.decodeSummary(data);
+                    entity.setEntrantStorage(EventEntity.EntrantStorage.SUBCOLLECTION);
+                    events.add(EntrantStore.fill(entity,
+                            Collections.singletonList(byEvent.get(summaryDoc.getId()))));
+                }
+            }
+            return events;
+        });
     }
 
     /**
@@ -269,9 +548,7 @@ public class EventService implements IEventService {
             .addOnSuccessListener(queryDocumentSnapshots -> {
                 List<Event> uiEvents = new ArrayList<>();
                 for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                    EventEntity entity = documentToEventEntity(doc);
-                    Event uiEvent = convertToUIEvent(entity);
-                    uiEvents.add(uiEvent);
+                    uiEvents.add(convertToUIEvent(doc));
                 }
                 Log.d(TAG, "Retrieved " + uiEvents.size() + " events");
                 callback.onSuccess(uiEvents);
@@ -282,6 +559,52 @@ public class EventService implements IEventService {
             });
     }
 
+    /**
+     * Retrieves one page of event summaries ordered by creation time, newest first.
+     * Summaries carry counts instead of entrant lists, so a page costs a few KB however
+     * big its events are. Reads one document past the page to learn whether another
+     * page exists, and continues from the previous page's last document.
+     *
+     * @param after    The previous page, or null for the first page
+     * @param pageSize Number of events per page
+     * @param full     true for only full events, false for only events with room,
+     *                 null for no filter
+     * @param callback Callback returning the page or an error
+     */
+    @Override
+    public void getEventsPage(EventPage after, int pageSize, Boolean full, EventPageCallback callback) {
+        Query query = db.collection(COLLECTION_SUMMARIES);
+        if (full != null) {
+            // Served by the event_summaries (isFull, createdAt) index; older events need backfillSummaries
+            query = query.whereEqualTo("isFull", full);
+        }
+        query = query.orderBy("createdAt", Query.Direction.DESCENDING)
+                .limit(pageSize + 1);
+        if (after != null && after.getLastDocument() != null) {
+            // Document ID breaks ties between events created at the same instant
+            query = query.startAfter(after.getLastDocument());
+        }
+
+        query.get()
+            .addOnSuccessListener(queryDocumentSnapshots -> {
+                List<DocumentSnapshot> docs = queryDocumentSnapshots.getDocuments();
+                boolean hasMore = docs.size() > pageSize;
+                List<DocumentSnapshot> pageDocs = hasMore ? docs.subList(0, pageSize) : docs;
+
+                List<EventSummary> summaries = new ArrayList<>(pageDocs.size());
+                for (DocumentSnapshot doc : pageDocs) {
+                    summaries.add(EventSummary.fromMap(doc.getData()));
+                }
+                DocumentSnapshot last = pageDocs.isEmpty() ? null : pageDocs.get(pageDocs.size() - 1);
+                Log.d(TAG, "Retrieved page of " + summaries.size() + " events, more: " + hasMore);
+                callback.onSuccess(new EventPage(summaries, last, hasMore));
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error getting events page", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
     /**
      * Retrieves all events in which the user is enrolled (on waitlist).
      *
@@ -317,42 +640,11 @@ public class EventService implements IEventService {
      */
     @Override
     public void getEventsForUser(String userId, UIEventListCallback callback) {
-        // Get all events and filter for user involvement
-        db.collection(COLLECTION_EVENTS)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
+        queryEventsForUser(userId)
+            .addOnSuccessListener(entities -> {
                 List<Event> uiEvents = new ArrayList<>();
-                for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                    EventEntity entity = documentToEventEntity(doc);
-                    
-                    // Check if user is in waitlist
-                    boolean inWaitlist = entity.getWaitlist() != null && 
-                                        entity.getWaitlist().contains(userId);
-                    
-                    // Check if user has declined
-                    boolean hasDeclined = entity.getDeclined() != null &&
-                                         entity.getDeclined().contains(userId);
-                    
-                    // Check if user is an attendee
-                    boolean isAttendee = entity.getAttendees() != null &&
-                                        entity.getAttendees().contains(userId);
-                    
-                    // Check if user has an invitation
-                    boolean hasInvitation = false;
-                    if (entity.getInvitations() != null) {
-                        for (Invitation inv : entity.getInvitations()) {
-                            if (inv.getUserId() != null && inv.getUserId().equals(userId)) {
-                                hasInvitation = true;
-                                break;
-                            }
-                        }
-                    }
-                    
-                    // Include event if user is involved in any way
-                    if (inWaitlist || hasInvitation || hasDeclined || isAttendee) {
-                        Event uiEvent = convertToUIEvent(entity);
-                        uiEvents.add(uiEvent);
-                    }
+                for (EventEntity entity : entities) {
+                    uiEvents.add(convertToUIEvent(entity));
                 }
                 Log.d(TAG, "User involved in " + uiEvents.size() + " events total");
                 callback.onSuccess(uiEvents);
@@ -371,43 +663,12 @@ public class EventService implements IEventService {
      */
     @Override
     public void getEventsForUserWithEntities(String userId, EventListCallback callback) {
-        // Get all events and filter for user involvement - return EventEntity
-        db.collection(COLLECTION_EVENTS)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                List<EventEntity> entities = new ArrayList<>();
-                for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                    EventEntity entity = documentToEventEntity(doc);
-                    
-                    // Check if user is in waitlist
-                    boolean inWaitlist = entity.getWaitlist() != null && 
-                                        entity.getWaitlist().contains(userId);
-                    
-                    // Check if user has declined
-                    boolean hasDeclined = entity.getDeclined() != null &&
-                                         entity.getDeclined().contains(userId);
-                    
-                    // Check if user is an attendee
-                    boolean isAttendee = entity.getAttendees() != null &&
-                                        entity.getAttendees().contains(userId);
-                    
-                    // Check if user has an invitation
-                    boolean hasInvitation = false;
-                    if (entity.getInvitations() != null) {
-                        for (Invitation inv : entity.getInvitations()) {
-                            if (inv.getUserId() != null && inv.getUserId().equals(userId)) {
-                                hasInvitation = true;
-                                break;
-                            }
-                        }
-                    }
-                    
-                    // Include event if user is involved in any way
-                    if (inWaitlist || hasInvitation || hasDeclined || isAttendee) {
-                        entities.add(entity);
-                    }
-                }
+        queryEventsForUser(userId)
+            .addOnSuccessListener(entities -> {
                 Log.d(TAG, "User involved in " + entities.size() + " events (entities)");
+                if (LocalStore.isInitialized()) {
+                    LocalStore.getInstance().putEvents(entities);
+                }
                 callback.onSuccess(entities);
             })
             .addOnFailureListener(e -> {
@@ -417,120 +678,856 @@ public class EventService implements IEventService {
     }
 
     /**
-     * Updates an existing event document in Firestore.
+     * Finds every event a user is involved in with indexed queries, so the cost scales
+     * with the user's events rather than the whole events collection.
+     * Inline events are matched on their participants array; subcollection events are
+     * found through the user's docs in the entrants collection group.
+     *
+     * @param userId User ID
+     * @return Task completing with the user's events
+     */
+    private Task<List<EventEntity>> queryEventsForUser(String userId) {
+        Task<QuerySnapshot> inline = db.collection(COLLECTION_EVENTS)
+                .whereArrayContains("participants", userId)
+                .get();
+        Task<QuerySnapshot> sharded = db.collectionGroup(EntrantStore.SUBCOLLECTION_ENTRANTS)
+                .whereEqualTo("userId", userId)
+                .get();
+
+        return Tasks.whenAllSuccess(inline, sharded).continueWithTask(task -> {
+            Set<String> seen = new HashSet<>();
+            List<Task<EventEntity>> loads = new ArrayList<>();
+            for (DocumentSnapshot doc : inline.getResult().getDocuments()) {
+                if (seen.add(doc.getId())) {
+                    loads.add(loadDecided(doc, userId));
+                }
+            }
+            for (DocumentSnapshot entrantDoc : sharded.getResult().getDocuments()) {
+                DocumentReference eventRef = entrantDoc.getReference().getParent().getParent();
+                if (eventRef != null && seen.add(eventRef.getId())) {
+                    loads.add(eventRef.get().continueWithTask(eventTask -> {
+                        DocumentSnapshot eventDoc = eventTask.getResult();
+                        return eventDoc.exists()
+                                ? loadDecided(eventDoc, userId)
+                                : Tasks.forResult((EventEntity) null);
+                    }));
+                }
+            }
+            return Tasks.<EventEntity>whenAllSuccess(loads);
+        }).continueWith(task -> {
+            List<EventEntity> entities = new ArrayList<>();
+            for (EventEntity entity : task.getResult()) {
+                if (entity != null) {
+                    entities.add(entity); // null = entrant doc of a deleted event
+                }
+            }
+            return entities;
+        });
+    }
+
+    /**
+     * Writes the participants index onto inline events created before it existed.
+     * Only needed once per database; events already carrying the field are left alone.
      *
-     * @param event Event entity to update
      * @param callback Callback for success or error
      */
     @Override
-    public void updateEvent(EventEntity event, VoidCallback callback) {
-        event.setUpdatedAt(new Date());
-        
+    public void backfillParticipants(VoidCallback callback) {
         db.collection(COLLECTION_EVENTS)
-            .document(event.getEventId())
-            .set(event.toMap())
+            .get()
+            .continueWithTask(task -> {
+                List<Task<Void>> commits = new ArrayList<>();
+                WriteBatch batch = db.batch();
+                int writes = 0;
+                for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                    if (doc.contains("participants")) {
+                        continue;
+                    }
+                    EventEntity entity = documentToEventEntity(doc);
+                    if (entity.usesEntrantSubcollection()) {
+                        continue; // found through the entrants collection group
+                    }
+                    batch.update(doc.getReference(), "participants", entity.getParticipants());
+                    if (++writes == EntrantStore.MAX_BATCH_WRITES) {
+                        commits.add(batch.commit());
+                        batch = db.batch();
+                        writes = 0;
+                    }
+                }
+                if (writes > 0) {
+                    commits.add(batch.commit());
+                }
+                return Tasks.whenAll(commits);
+            })
             .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Event updated successfully: " + event.getEventId());
+                Log.d(TAG, "Participants index backfilled");
                 callback.onSuccess();
             })
             .addOnFailureListener(e -> {
-                Log.e(TAG, "Error updating event", e);
+                Log.e(TAG, "Error backfilling participants", e);
                 callback.onError(e.getMessage());
             });
     }
 
     /**
-     * Deletes an event by ID.
+     * Writes the availability fields onto events created before they existed.
+     * Events already carrying isFull are left alone; subcollection events are
+     * hydrated first so their counts come from the entrant documents.
      *
-     * @param eventId  ID of the event to delete
-     * @param callback Callback for completion
+     * @param callback Callback for success or error
      */
     @Override
-    public void deleteEvent(String eventId, VoidCallback callback) {
+    public void backfillAvailability(VoidCallback callback) {
         db.collection(COLLECTION_EVENTS)
-            .document(eventId)
-            .delete()
+            .get()
+            .continueWithTask(task -> {
+                List<Task<EventEntity>> loads = new ArrayList<>();
+                for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                    if (!doc.contains("isFull")) {
+                        loads.add(loadEntity(doc));
+                    }
+                }
+                return Tasks.whenAllSuccess(loads);
+            })
+            .continueWithTask(task -> {
+                List<Task<Void>> commits = new ArrayList<>();
+                WriteBatch batch = db.batch();
+                int writes = 0;
+                for (Object result : task.getResult()) {
+                    EventEntity entity = (EventEntity) result;
+                    batch.update(db.collection(COLLECTION_EVENTS).document(entity.getEventId()),
+                            entity.getAvailability());
+                    if (++writes == EntrantStore.MAX_BATCH_WRITES) {
+                        commits.add(batch.commit());
+                        batch = db.batch();
+                        writes = 0;
+                    }
+                }
+                if (writes > 0) {
+                    commits.add(batch.commit());
+                }
+                return Tasks.whenAll(commits);
+            })
             .addOnSuccessListener(aVoid -> {
-                Log.d(TAG, "Event deleted successfully: " + eventId);
+                Log.d(TAG, "Availability fields backfilled");
                 callback.onSuccess();
             })
             .addOnFailureListener(e -> {
-                Log.e(TAG, "Error deleting event", e);
+                Log.e(TAG, "Error backfilling availability", e);
                 callback.onError(e.getMessage());
             });
     }
 
     /**
-     * Joins an event with geolocation data.
+     * Writes a summary document for every event that lacks a complete one.
+     * Subcollection events are hydrated first so their counts come from the entrant documents.
      *
-     * @param eventId   The ID of the event to join.
-     * @param userId    The ID of the user joining.
-     * @param latitude  The user's latitude.
-     * @param longitude The user's longitude.
-     * @param callback  Callback for success or error.
+     * @param callback Callback for success or error
      */
     @Override
-    public void joinEventWithLocation(String eventId, String userId, double latitude, double longitude, VoidCallback callback) {
-        getEvent(eventId, new EventCallback() {
-            @Override
-            public void onSuccess(EventEntity event) {
-                // Add to waitlist logic
-                boolean added = event.addToWaitlist(userId);
-
-                if (added) {
-                    // Save location if added successfully
-                    event.addLocation(userId, latitude, longitude);
-                    updateEvent(event, callback);
-                } else {
-                    callback.onError("Failed to join: User already in waitlist or full.");
+    public void backfillSummaries(VoidCallback callback) {
+        Task<QuerySnapshot> events = db.collection(COLLECTION_EVENTS).get();
+        Task<QuerySnapshot> summaries = db.collection(COLLECTION_SUMMARIES).get();
+        Tasks.whenAllSuccess(events, summaries)
+            .continueWithTask(task -> {
+                // Join/leave merges can leave a partial summary behind; only createdAt marks a full one
+                Set<String> summarised = new HashSet<>();
+                for (DocumentSnapshot doc : summaries.getResult().getDocuments()) {
+                    if (doc.contains("createdAt")) {
+                        summarised.add(doc.getId());
+                    }
                 }
-            }
-
-            @Override
-            public void onError(String error) {
-                callback.onError(error);
-            }
-        });
+                List<Task<EventEntity>> loads = new ArrayList<>();
+                for (DocumentSnapshot doc : events.getResult().getDocuments()) {
+                    if (!summarised.contains(doc.getId())
+                            && !Boolean.TRUE.equals(doc.getBoolean(EventDeleter.FIELD_DELETING))) {
+                        loads.add(loadEntity(doc));
+                    }
+                }
+                return Tasks.whenAllSuccess(loads);
+            })
+            .continueWithTask(task -> {
+                List<Task<Void>> commits = new ArrayList<>();
+                WriteBatch batch = db.batch();
+                int writes = 0;
+                for (Object result : task.getResult()) {
+                    EventEntity entity = (EventEntity) result;
+                    batch.set(summaryRef(entity.getEventId()), EventSummary.of(entity).toMap());
+                    if (++writes == EntrantStore.MAX_BATCH_WRITES) {
+                        commits.add(batch.commit());
+                        batch = db.batch();
+                        writes = 0;
+                    }
+                }
+                if (writes > 0) {
+                    commits.add(batch.commit());
+                }
+                Log.d(TAG, "Backfilling " + task.getResult().size() + " event summaries");
+                return Tasks.whenAll(commits);
+            })
+            .addOnSuccessListener(aVoid -> callback.onSuccess())
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error backfilling summaries", e);
+                callback.onError(e.getMessage());
+            });
     }
 
-
     /**
-     * Adds a user to an event waitlist.
+     * Writes drawStatus onto events created before it existed, so the draw scheduler's
+     * query can find them. Events that already have invitations or attendees count as
+     * DRAWN, the rest as PENDING; events already carrying the field are left alone.
      *
-     * @param eventId Event ID
-     * @param userId User ID
      * @param callback Callback for success or error
      */
     @Override
-    public void addToWaitlist(String eventId, String userId, VoidCallback callback) {
-        getEvent(eventId, new EventCallback() {
-            @Override
-            public void onSuccess(EventEntity event) {
-//                if (event.getMaxEntrants() == 0) {
-//                    callback.onError("This event is not accepting new entrants.");
-//                    return;
-//                }
-                if (event.addToWaitlist(userId)) {
-                    updateEvent(event, callback);
-                } else {
-                    callback.onError("Failed to add to waitlist - already exists or waitlist full");
+    public void backfillDrawStatus(VoidCallback callback) {
+        db.collection(COLLECTION_EVENTS)
+            .get()
+            .continueWithTask(task -> {
+                List<Task<Void>> commits = new ArrayList<>();
+                WriteBatch batch = db.batch();
+                int writes = 0;
+                for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                    if (doc.contains("drawStatus")) {
+                        continue;
+                    }
+                    EventEntity.DrawStatus status = hasBeenDrawn(doc)
+                            ? EventEntity.DrawStatus.DRAWN : EventEntity.DrawStatus.PENDING;
+                    batch.update(doc.getReference(), "drawStatus", status.name());
+                    if (++writes == EntrantStore.MAX_BATCH_WRITES) {
+                        commits.add(batch.commit());
+                        batch = db.batch();
+                        writes = 0;
+                    }
                 }
-            }
-
-            @Override
-            public void onError(String error) {
-                callback.onError(error);
-            }
-        });
+                if (writes > 0) {
+                    commits.add(batch.commit());
+                }
+                return Tasks.whenAll(commits);
+            })
+            .addOnSuccessListener(aVoid -> {
+                Log.d(TAG, "Draw status backfilled");
+                callback.onSuccess();
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error backfilling draw status", e);
+                callback.onError(e.getMessage());
+            });
     }
 
     /**
-     * Adds a user to a waitlist.
-     * @param eventId The event ID
-     * @param userId The user ID to add
-     * @param callback Callback on success or error
+     * Whether an event document shows signs of a past draw: invited, attending or declined
+     * entrants in its arrays or, for subcollection events, in its stored counts
      */
-    @Override
+    private static boolean hasBeenDrawn(DocumentSnapshot doc) {
+        List<?> invitations = (List<?>) doc.get("invitations");
+        List<?> attendees = (List<?>) doc.get("attendees");
+        List<?> declined = (List<?>) doc.get("declined");
+        return (invitations != null && !invitations.isEmpty())
+                || (attendees != null && !attendees.isEmpty())
+                || (declined != null && !declined.isEmpty())
+                || storedCount(doc, "invitedCount") > 0
+                || storedCount(doc, "attendeeCount") > 0;
+    }
+
+    private DocumentReference summaryRef(String eventId) {
+        return db.collection(COLLECTION_SUMMARIES).document(eventId);
+    }
+
+    /**
+     * Full event document with updatedAt stamped by the server, so sync watermarks
+     * don't depend on the writing device's clock
+     */
+    private static Map<String, Object> stampedDoc(EventEntity event) {
+        Map<String, Object> data = event.toMap();
+        data.put("updatedAt", FieldValue.serverTimestamp());
+        return data;
+    }
+
+    /**
+     * Commits an event document update together with the matching summary fields
+     */
+    private Task<Void> updateWithSummary(DocumentReference eventRef, Map<String, Object> updates) {
+        WriteBatch batch = db.batch();
+        FieldUpdates.update(batch, eventRef, updates);
+        batch.set(summaryRef(eventRef.getId()), EventSummary.project(updates), SetOptions.merge());
+        return batch.commit();
+    }
+
+    /**
+     * Transaction version of {@link #updateWithSummary(DocumentReference, Map)}
+     */
+    private void updateWithSummary(Transaction transaction, DocumentReference eventRef,
+                                   Map<String, Object> updates) {
+        FieldUpdates.update(transaction, eventRef, updates);
+        transaction.set(summaryRef(eventRef.getId()), EventSummary.project(updates), SetOptions.merge());
+    }
+
+    /**
+     * Updates an existing event document in Firestore.
+     * Entities hydrated from Firestore only send the fields that changed since they
+     * were loaded; list fields are sent as arrayUnion/arrayRemove deltas where possible.
+     * Entities built locally fall back to a full document write.
+     *
+     * @param event Event entity to update
+     * @param callback Callback for success or error
+     */
+    @Override
+    public void updateEvent(EventEntity event, VoidCallback callback) {
+        event.setUpdatedAt(new Date());
+
+        DocumentReference eventRef = db.collection(COLLECTION_EVENTS).document(event.getEventId());
+        Task<Void> write;
+        if (event.isTracked() && event.usesEntrantSubcollection()) {
+            // Entrant changes go to the subcollection first, then the event doc with its counts
+            Map<String, Object> updates = buildEventDocUpdate(event);
+            write = entrantStore.applyChanges(eventRef, event)
+                    .onSuccessTask(applied -> updateWithEntrantCounts(eventRef, event, applied, updates));
+        } else if (event.isTracked()) {
+            Map<String, Object> updates = buildPartialUpdate(event);
+            Log.d(TAG, "Partial update of " + event.getEventId() + ": " + updates.keySet());
+            write = touchesAvailability(updates)
+                    ? updateWithAvailability(eventRef, event, updates)
+                    : updateWithSummary(eventRef, updates);
+        } else {
+            WriteBatch batch = db.batch();
+            batch.set(eventRef, stampedDoc(event));
+            batch.set(summaryRef(event.getEventId()), EventSummary.of(event).toMap());
+            write = batch.commit();
+        }
+
+        write
+            .addOnSuccessListener(aVoid -> {
+                Log.d(TAG, "Event updated successfully: " + event.getEventId());
+                event.markClean();
+                callback.onSuccess();
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error updating event", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * Saves drawn events in one transaction, leaving out any event that changed after it
+     * was read: its stored updatedAt no longer matches the one it was loaded with or, with
+     * requirePending, someone else drew or skipped it meanwhile. A concurrent draw or join
+     * is therefore never overwritten with a stale copy. Inline events are written with
+     * their counts, which are exact since the document is unchanged. Subcollection events
+     * are claimed in the transaction and their entrants written after it; if that fails
+     * the event goes back to PENDING so it can be drawn again.
+     *
+     * @param events         drawn entities, at most MAX_DRAWS_PER_SAVE
+     * @param requirePending also leave out events that are no longer PENDING
+     * @return Task with the IDs of the events that were saved
+     */
+    public Task<Set<String>> saveDraws(List<EventEntity> events, boolean requirePending) {
+        List<DocumentReference> refs = new ArrayList<>();
+        for (EventEntity event : events) {
+            refs.add(db.collection(COLLECTION_EVENTS).document(event.getEventId()));
+        }
+        return db.runTransaction(transaction -> {
+            List<DocumentSnapshot> stored = new ArrayList<>();
+            for (DocumentReference ref : refs) {
+                stored.add(transaction.get(ref));
+            }
+            Set<String> saved = new HashSet<>();
+            for (int i = 0; i < events.size(); i++) {
+                EventEntity event = events.get(i);
+                if (!isUnchangedSinceLoad(stored.get(i), event, requirePending)) {
+                    Log.d(TAG, "Not saving draw of " + event.getEventId() + ": changed since it was read");
+                    continue;
+                }
+                event.setUpdatedAt(new Date());
+                Map<String, Object> updates = buildEventDocUpdate(event);
+                if (!event.usesEntrantSubcollection()) {
+                    updates.putAll(event.getAvailability());
+                }
+                updateWithSummary(transaction, refs.get(i), updates);
+                saved.add(event.getEventId());
+            }
+            return saved;
+        }).onSuccessTask(saved -> writeDrawnEntrants(events, saved));
+    }
+
+    private static boolean isUnchangedSinceLoad(DocumentSnapshot stored, EventEntity event,
+                                                boolean requirePending) {
+        if (!stored.exists() || Boolean.TRUE.equals(stored.getBoolean(EventDeleter.FIELD_DELETING))) {
+            return false;
+        }
+        if (requirePending && EventEntity.DrawStatus.fromString(stored.getString("drawStatus"))
+                != EventEntity.DrawStatus.PENDING) {
+            return false;
+        }
+        Object updatedAt = stored.get("updatedAt");
+        return updatedAt != null ? updatedAt.equals(event.getLoadedUpdatedAt())
+                : event.getLoadedUpdatedAt() == null;
+    }
+
+    /**
+     * Writes the entrants and counts of the subcollection events a draw transaction
+     * claimed. An event whose entrants fail to save is released and left out of the result.
+     */
+    private Task<Set<String>> writeDrawnEntrants(List<EventEntity> events, Set<String> claimed) {
+        Set<String> saved = new HashSet<>(claimed);
+        List<Task<Void>> writes = new ArrayList<>();
+        for (EventEntity event : events) {
+            if (!claimed.contains(event.getEventId())) {
+                continue;
+            }
+            if (!event.usesEntrantSubcollection()) {
+                event.markClean();
+                continue;
+            }
+            DocumentReference eventRef = db.collection(COLLECTION_EVENTS).document(event.getEventId());
+            Map<String, Object> stamp = new HashMap<>();
+            stamp.put("updatedAt", FieldValue.serverTimestamp());
+            writes.add(entrantStore.applyChanges(eventRef, event).continueWithTask(entrants -> {
+                if (!entrants.isSuccessful()) {
+                    Log.e(TAG, "Error saving drawn entrants of " + event.getEventId(), entrants.getException());
+                    saved.remove(event.getEventId());
+                    return releaseDrawClaim(eventRef);
+                }
+                return updateWithEntrantCounts(eventRef, event, entrants.getResult(), stamp).continueWith(counts -> {
+                    if (!counts.isSuccessful()) {
+                        Log.e(TAG, "Error saving counts of " + event.getEventId(), counts.getException());
+                    }
+                    event.markClean();
+                    return null;
+                });
+            }));
+        }
+        return Tasks.whenAllComplete(writes).continueWith(task -> saved);
+    }
+
+    /**
+     * Puts a claimed event back to PENDING after its draw could not be saved
+     */
+    private Task<Void> releaseDrawClaim(DocumentReference eventRef) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("drawStatus", EventEntity.DrawStatus.PENDING.name());
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        return updateWithSummary(eventRef, updates).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Error releasing draw of " + eventRef.getId(), task.getException());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Builds the event document part of a partial update. For subcollection events the
+     * entrant fields are left out because they live in events/{id}/entrants, and so are
+     * the counts, which are recomputed against the stored document when written.
+     */
+    private Map<String, Object> buildEventDocUpdate(EventEntity event) {
+        Map<String, Object> updates = buildPartialUpdate(event);
+        if (event.usesEntrantSubcollection()) {
+            updates.keySet().removeIf(key -> {
+                for (String field : ENTRANT_FIELDS) {
+                    if (key.equals(field)) return true;
+                }
+                for (String field : COUNT_FIELDS) {
+                    if (key.equals(field)) return true;
+                }
+                return key.equals("isFull");
+            });
+        }
+        return updates;
+    }
+
+    /**
+     * Builds a Firestore update map containing only the event's dirty fields.
+     * String list fields are written as array deltas (both ways if they grew and shrank),
+     * entrant locations are written per user, everything else is written whole.
+     */
+    private Map<String, Object> buildPartialUpdate(EventEntity event) {
+        Map<String, Object> full = event.toMap();
+        Map<String, Object> updates = new HashMap<>();
+
+        for (String field : event.getDirtyFields()) {
+            if (!full.containsKey(field)) {
+                continue; // not a persisted field
+            }
+            switch (field) {
+                case "waitlist":
+                case "attendees":
+                case "declined":
+                case "participants":
+                    List<String> added = event.getAddedIds(field);
+                    List<String> removed = event.getRemovedIds(field);
+                    if (!added.isEmpty() && removed.isEmpty()) {
+                        updates.put(field, FieldValue.arrayUnion(added.toArray()));
+                    } else if (added.isEmpty() && !removed.isEmpty()) {
+                        updates.put(field, FieldValue.arrayRemove(removed.toArray()));
+                    } else if (!added.isEmpty()) {
+                        // Written as an arrayUnion and then an arrayRemove, see FieldUpdates
+                        updates.put(field, new FieldUpdates.ArrayChange(added, removed));
+                    } else {
+                        // Only reordered: no concurrent change to lose by writing it whole
+                        updates.put(field, full.get(field));
+                    }
+                    break;
+                case "entrantLocations":
+                    // Per user, as FieldPaths, so a UID containing "." stays one key
+                    Map<String, List<Double>> locations = event.getEntrantLocations();
+                    FieldUpdates.Entries changed = new FieldUpdates.Entries();
+                    for (String userId : event.getChangedLocationKeys()) {
+                        List<Double> coords = locations != null ? locations.get(userId) : null;
+                        changed.put(userId, coords != null ? coords : FieldValue.delete());
+                    }
+                    if (!changed.isEmpty()) {
+                        updates.put(field, changed);
+                    }
+                    break;
+                default:
+                    updates.put(field, full.get(field));
+            }
+        }
+
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        return updates;
+    }
+
+    private static boolean touchesAvailability(Map<String, Object> updates) {
+        return updates.containsKey("waitlist") || updates.containsKey("attendees")
+                || updates.containsKey("invitations") || updates.containsKey("capacity");
+    }
+
+    /**
+     * Applies a partial update in a transaction that recomputes the availability fields
+     * from the stored document plus this update, so concurrent joins and leaves can't
+     * leave the counts or isFull out of step with the entrant arrays.
+     */
+    private Task<Void> updateWithAvailability(DocumentReference eventRef, EventEntity event,
+                                              Map<String, Object> updates) {
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(eventRef);
+            long waitlistCount = sizeAfterUpdate(snapshot, event, "waitlist", updates);
+            long attendeeCount = sizeAfterUpdate(snapshot, event, "attendees", updates);
+            long invitedCount = updates.containsKey("invitations")
+                    ? event.getInvitedCount() : pendingInvitations(snapshot);
+            Long storedCapacity = snapshot.getLong("capacity");
+            long capacity = updates.containsKey("capacity") || storedCapacity == null
+                    ? event.getCapacity() : storedCapacity;
+
+            Map<String, Object> withAvailability = new HashMap<>(updates);
+            withAvailability.putAll(EventEntity.availability(waitlistCount, invitedCount, attendeeCount, capacity));
+            updateWithSummary(transaction, eventRef, withAvailability);
+            return null;
+        });
+    }
+
+    /**
+     * Applies a subcollection event's doc update in a transaction that recomputes its counts:
+     * the waitlist from the counter shards, invitations and attendees as the stored counts
+     * moved by the entrant changes that were actually written. Concurrent joins and draws
+     * are therefore never overwritten with counts from the entity's stale copy.
+     */
+    private Task<Void> updateWithEntrantCounts(DocumentReference eventRef, EventEntity event,
+                                               EntrantStore.AppliedChanges applied,
+                                               Map<String, Object> updates) {
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(eventRef);
+            long waitlistCount = entrantStore.getWaitlistCount(transaction, eventRef);
+            long invitedCount = storedCount(snapshot, "invitedCount") + applied.getInvited();
+            long attendeeCount = storedCount(snapshot, "attendeeCount") + applied.getAttending();
+            Long storedCapacity = snapshot.getLong("capacity");
+            long capacity = updates.containsKey("capacity") || storedCapacity == null
+                    ? event.getCapacity() : storedCapacity;
+
+            Map<String, Object> withAvailability = new HashMap<>(updates);
+            withAvailability.putAll(EventEntity.availability(waitlistCount, Math.max(0, invitedCount),
+                    Math.max(0, attendeeCount), capacity));
+            updateWithSummary(transaction, eventRef, withAvailability);
+            return null;
+        });
+    }
+
+    /**
+     * Recomputes an event's stored counts and isFull from its entrants: inline events
+     * from their arrays, subcollection events from the counter shards plus the stored
+     * invitation and attendee counts. Nothing is written while isFull is right and the
+     * stored waitlist count is off by less than the tolerance.
+     *
+     * @param eventRef  The event document
+     * @param tolerance How far the stored waitlist count may drift before it is rewritten
+     * @return Task with whether the event doc was written
+     */
+    Task<Boolean> refreshAvailability(DocumentReference eventRef, long tolerance) {
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(eventRef);
+            if (!snapshot.exists()) {
+                return false;
+            }
+            Map<String, Object> availability;
+            if (EventEntity.EntrantStorage.SUBCOLLECTION.name().equals(snapshot.getString("entrantStorage"))) {
+                Long capacity = snapshot.getLong("capacity");
+                availability = EventEntity.availability(entrantStore.getWaitlistCount(transaction, eventRef),
+                        storedCount(snapshot, "invitedCount"), storedCount(snapshot, "attendeeCount"),
+                        capacity != null ? capacity : 0);
+            } else {
+                availability = availabilityAfterWaitlistChange(snapshot, 0);
+            }
+
+            long drift = Math.abs((Long) availability.get("waitlistCount") - storedCount(snapshot, "waitlistCount"));
+            boolean fullnessChanged = !availability.get("isFull").equals(Boolean.TRUE.equals(snapshot.getBoolean("isFull")));
+            if (drift < Math.max(1, tolerance) && !fullnessChanged) {
+                return false;
+            }
+            availability.put("updatedAt", FieldValue.serverTimestamp());
+            updateWithSummary(transaction, eventRef, availability);
+            return true;
+        });
+    }
+
+    /**
+     * Size of an entrant array once an update is applied: whole lists are taken as written,
+     * arrayUnion/arrayRemove deltas are applied to the stored array
+     */
+    @SuppressWarnings("unchecked")
+    private static long sizeAfterUpdate(DocumentSnapshot snapshot, EventEntity event,
+                                        String field, Map<String, Object> updates) {
+        Object update = updates.get(field);
+        if (update instanceof List) {
+            return ((List<?>) update).size();
+        }
+        List<String> stored = (List<String>) snapshot.get(field);
+        Set<String> ids = stored != null ? new HashSet<>(stored) : new HashSet<>();
+        if (update != null) {
+            ids.addAll(event.getAddedIds(field));
+            ids.removeAll(event.getRemovedIds(field));
+        }
+        return ids.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long pendingInvitations(DocumentSnapshot snapshot) {
+        List<Map<String, Object>> invitations = (List<Map<String, Object>>) snapshot.get("invitations");
+        long pending = 0;
+        if (invitations != null) {
+            for (Map<String, Object> inv : invitations) {
+                if (Invitation.InvitationStatus.PENDING.name().equals(inv.get("status"))) pending++;
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Availability fields for an inline event document after its waitlist grows or shrinks
+     * by delta, counted from the entrant arrays.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> availabilityAfterWaitlistChange(DocumentSnapshot snapshot, int delta) {
+        List<String> waitlist = (List<String>) snapshot.get("waitlist");
+        List<String> attendees = (List<String>) snapshot.get("attendees");
+        long waitlistCount = waitlist != null ? waitlist.size() : 0;
+        long attendeeCount = attendees != null ? attendees.size() : 0;
+        Long capacity = snapshot.getLong("capacity");
+        return EventEntity.availability(Math.max(0, waitlistCount + delta), pendingInvitations(snapshot),
+                attendeeCount, capacity != null ? capacity : 0);
+    }
+
+    /**
+     * Brings a subcollection event's stored counts up to date after a join or leave,
+     * outside the join's transaction. The shards are summed with one aggregation read
+     * and compared with the event doc the join read; the refresh transaction only runs
+     * when the join or leave made isFull flip or the stored waitlist count has drifted
+     * by WAITLIST_SHARDS, so most joins don't read the shards in a transaction or
+     * write the event doc.
+     *
+     * @param eventRef The event document
+     * @param stored   The event document as the join or leave read it
+     */
+    private void refreshAvailabilityIfNeeded(DocumentReference eventRef, DocumentSnapshot stored) {
+        entrantStore.getWaitlistCount(eventRef)
+            .onSuccessTask(waitlistCount -> {
+                Long capacity = stored.getLong("capacity");
+                Map<String, Object> availability = EventEntity.availability(waitlistCount,
+                        storedCount(stored, "invitedCount"), storedCount(stored, "attendeeCount"),
+                        capacity != null ? capacity : 0);
+                boolean crossed = !availability.get("isFull").equals(Boolean.TRUE.equals(stored.getBoolean("isFull")));
+                long drift = Math.abs(waitlistCount - storedCount(stored, "waitlistCount"));
+                if (!crossed && drift < EntrantStore.WAITLIST_SHARDS) {
+                    return Tasks.forResult(false);
+                }
+                return refreshAvailability(eventRef, EntrantStore.WAITLIST_SHARDS);
+            })
+            .addOnSuccessListener(written -> {
+                if (Boolean.TRUE.equals(written)) {
+                    Log.d(TAG, "Refreshed counts of event: " + eventRef.getId());
+                }
+            })
+            .addOnFailureListener(e -> Log.e(TAG, "Error refreshing event counts", e));
+    }
+
+    private static long storedCount(DocumentSnapshot snapshot, String field) {
+        Long count = snapshot.getLong(field);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Deletes an event by ID, along with its notifications, entrants and poster.
+     * See {@link EventDeleter}; calling it again after a failure finishes the job.
+     *
+     * @param eventId  ID of the event to delete
+     * @param callback Callback for completion
+     */
+    @Override
+    public void deleteEvent(String eventId, VoidCallback callback) {
+        eventDeleter.delete(Collections.singletonList(eventId), new EventDeleter.DeleteCallback() {
+            @Override
+            public void onProgress(EventDeleter.Progress progress) {
+                Log.d(TAG, "Deleting event " + eventId + ": " + progress);
+            }
+
+            @Override
+            public void onComplete(EventDeleter.Progress progress) {
+                Log.d(TAG, "Event deleted successfully: " + eventId);
+                callback.onSuccess();
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    /**
+     * Deletes several events and their dependants in one run.
+     *
+     * @param eventIds IDs of the events to delete
+     * @param callback Progress after each batch, then completion
+     */
+    @Override
+    public void deleteEvents(List<String> eventIds, EventDeleter.DeleteCallback callback) {
+        eventDeleter.delete(eventIds, callback);
+    }
+
+    /**
+     * Finishes event deletes that were interrupted part way.
+     *
+     * @param organizerId Only finish this organizer's events (null for all events)
+     * @param callback    Progress after each batch, then completion
+     */
+    @Override
+    public void resumeEventDeletes(String organizerId, EventDeleter.DeleteCallback callback) {
+        eventDeleter.resume(organizerId, callback);
+    }
+
+    /**
+     * Joins an event with geolocation data.
+     *
+     * @param eventId   The ID of the event to join.
+     * @param userId    The ID of the user joining.
+     * @param latitude  The user's latitude.
+     * @param longitude The user's longitude.
+     * @param callback  Callback for success or error.
+     */
+    @Override
+    public void joinEventWithLocation(String eventId, String userId, double latitude, double longitude, VoidCallback callback) {
+        joinWaitlistAtomically(eventId, userId, Arrays.asList(latitude, longitude),
+                "Failed to join: User already in waitlist or full.", callback);
+    }
+
+
+    /**
+     * Adds a user to an event waitlist.
+     *
+     * @param eventId Event ID
+     * @param userId User ID
+     * @param callback Callback for success or error
+     */
+    @Override
+    public void addToWaitlist(String eventId, String userId, VoidCallback callback) {
+        joinWaitlistAtomically(eventId, userId, null,
+                "Failed to add to waitlist - already exists or waitlist full", callback);
+    }
+
+    /**
+     * Adds a user to the waitlist inside a transaction.
+     * The duplicate and maxEntrants checks run against the latest server copy,
+     * and only the changed fields are written (arrayUnion on the waitlist plus the
+     * user's location), so concurrent joins never overwrite each other.
+     *
+     * @param eventId        The event ID
+     * @param userId         The user joining
+     * @param location       {lat, lon} to store in entrantLocations, or null
+     * @param rejectedError  Error reported when the user is already listed or the waitlist is full
+     * @param callback       Callback for success or error
+     */
+    private void joinWaitlistAtomically(String eventId, String userId, List<Double> location,
+                                        String rejectedError, VoidCallback callback) {
+        DocumentReference eventRef = db.collection(COLLECTION_EVENTS).document(eventId);
+        // The event doc a sharded join or leave read, for the follow-up count check
+        DocumentSnapshot[] sharded = {null};
+
+        db.runTransaction(transaction -> {
+            sharded[0] = null;
+            DocumentSnapshot snapshot = transaction.get(eventRef);
+            if (!snapshot.exists() || Boolean.TRUE.equals(snapshot.getBoolean(EventDeleter.FIELD_DELETING))) {
+                // An event being deleted is already out of the lists; a join would outlive it
+                throw new FirebaseFirestoreException("Event not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+
+            Long maxEntrants = snapshot.getLong("maxEntrants");
+            if (EventEntity.EntrantStorage.SUBCOLLECTION.name().equals(snapshot.getString("entrantStorage"))) {
+                // Only the entrant doc and one shard; the event doc is refreshed out of band
+                sharded[0] = snapshot;
+                return entrantStore.joinInTransaction(transaction, snapshot, userId, location);
+            }
+
+            List<String> waitlist = (List<String>) snapshot.get("waitlist");
+            int waitlistSize = waitlist != null ? waitlist.size() : 0;
+            if (waitlist != null && waitlist.contains(userId)) {
+                return false; // Already on waitlist
+            }
+
+            if (maxEntrants != null && maxEntrants > 0 && waitlistSize >= maxEntrants) {
+                return false; // Waitlist is full
+            }
+
+            if (location != null) {
+                transaction.update(eventRef,
+                        "waitlist", FieldValue.arrayUnion(userId),
+                        "participants", FieldValue.arrayUnion(userId),
+                        "updatedAt", FieldValue.serverTimestamp(),
+                        FieldPath.of("entrantLocations", userId), location);
+            } else {
+                transaction.update(eventRef,
+                        "waitlist", FieldValue.arrayUnion(userId),
+                        "participants", FieldValue.arrayUnion(userId),
+                        "updatedAt", FieldValue.serverTimestamp());
+            }
+            updateWithSummary(transaction, eventRef, availabilityAfterWaitlistChange(snapshot, 1));
+            return true;
+        })
+            .addOnSuccessListener(added -> {
+                if (Boolean.TRUE.equals(added)) {
+                    Log.d(TAG, "User " + userId + " joined waitlist of event: " + eventId);
+                    if (sharded[0] != null) {
+                        refreshAvailabilityIfNeeded(eventRef, sharded[0]);
+                    }
+                    callback.onSuccess();
+                } else {
+                    callback.onError(rejectedError);
+                }
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error joining waitlist", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * Adds a user to a waitlist.
+     * @param eventId The event ID
+     * @param userId The user ID to add
+     * @param callback Callback on success or error
+     */
+    @Override
     public void joinEvent(String eventId, String userId, VoidCallback callback) {
         // joinEvent is just an alias for addToWaitlist with better logging
         Log.d(TAG, "User joining event: " + eventId);
@@ -545,21 +1542,81 @@ public class EventService implements IEventService {
      */
     @Override
     public void removeFromWaitlist(String eventId, String userId, VoidCallback callback) {
-        getEvent(eventId, new EventCallback() {
-            @Override
-            public void onSuccess(EventEntity event) {
-                if (event.removeFromWaitlist(userId)) {
-                    updateEvent(event, callback);
+        DocumentReference eventRef = db.collection(COLLECTION_EVENTS).document(eventId);
+
+        // The event doc a sharded join or leave read, for the follow-up count check
+        DocumentSnapshot[] sharded = {null};
+
+        // Read-check-arrayRemove in one transaction so a concurrent join is never rolled back
+        db.runTransaction(transaction -> {
+            sharded[0] = null;
+            DocumentSnapshot snapshot = transaction.get(eventRef);
+            if (!snapshot.exists()) {
+                throw new FirebaseFirestoreException("Event not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+
+            if (EventEntity.EntrantStorage.SUBCOLLECTION.name().equals(snapshot.getString("entrantStorage"))) {
+                sharded[0] = snapshot;
+                return entrantStore.leaveInTransaction(transaction, eventRef, userId);
+            }
+
+            List<String> waitlist = (List<String>) snapshot.get("waitlist");
+            if (waitlist == null || !waitlist.contains(userId)) {
+                return false;
+            }
+
+            if (hasOtherStatus(snapshot, userId)) {
+                transaction.update(eventRef,
+                        "waitlist", FieldValue.arrayRemove(userId),
+                        "updatedAt", FieldValue.serverTimestamp());
+            } else {
+                transaction.update(eventRef,
+                        "waitlist", FieldValue.arrayRemove(userId),
+                        "participants", FieldValue.arrayRemove(userId),
+                        "updatedAt", FieldValue.serverTimestamp());
+            }
+            updateWithSummary(transaction, eventRef, availabilityAfterWaitlistChange(snapshot, -1));
+            return true;
+        })
+            .addOnSuccessListener(removed -> {
+                if (Boolean.TRUE.equals(removed)) {
+                    Log.d(TAG, "User " + userId + " left waitlist of event: " + eventId);
+                    if (sharded[0] != null) {
+                        refreshAvailabilityIfNeeded(eventRef, sharded[0]);
+                    }
+                    callback.onSuccess();
                 } else {
                     callback.onError("User not found in waitlist");
                 }
-            }
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error leaving waitlist", e);
+                callback.onError(e.getMessage());
+            });
+    }
 
-            @Override
-            public void onError(String error) {
-                callback.onError(error);
+    /**
+     * Whether a user is invited, attending or declined on an inline event document,
+     * in which case they must stay in its participants index after leaving the waitlist
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean hasOtherStatus(DocumentSnapshot snapshot, String userId) {
+        List<String> attendees = (List<String>) snapshot.get("attendees");
+        List<String> declined = (List<String>) snapshot.get("declined");
+        if ((attendees != null && attendees.contains(userId))
+                || (declined != null && declined.contains(userId))) {
+            return true;
+        }
+        List<Map<String, Object>> invitations = (List<Map<String, Object>>) snapshot.get("invitations");
+        if (invitations != null) {
+            for (Map<String, Object> inv : invitations) {
+                if (userId.equals(inv.get("userId"))) {
+                    return true;
+                }
             }
-        });
+        }
+        return false;
     }
 
     /**
@@ -595,7 +1652,7 @@ public class EventService implements IEventService {
      */
     @Override
     public void sendInvitations(String eventId, List<Invitation> invitations, VoidCallback callback) {
-        getEvent(eventId, new EventCallback() {
+        getEventWithEntrants(eventId, new EventCallback() {
             @Override
             public void onSuccess(EventEntity event) {
                 for (Invitation invitation : invitations) {
@@ -670,113 +1727,61 @@ public class EventService implements IEventService {
      */
     @Override
     public void drawAttendees(String eventId, Integer sampleSize, VoidCallback callback) {
-        getEvent(eventId, new EventCallback() {
+        drawAttendees(eventId, sampleSize, null, callback);
+    }
+
+    /**
+     * Randomly draws attendees like {@link #drawAttendees(String, Integer, VoidCallback)},
+     * using the given seed so the same waitlist always produces the same draw.
+     *
+     * @param eventId    Event ID
+     * @param sampleSize Number of users to invite
+     * @param seed       Seed for the lottery (null for a random draw)
+     * @param callback   Completion callback
+     */
+    @Override
+    public void drawAttendees(String eventId, Integer sampleSize, Long seed, VoidCallback callback) {
+        DrawPolicy policy = new DrawPolicy();
+        policy.setSampleSize(sampleSize);
+        policy.setSeed(seed);
+        drawAttendeesWithPolicy(eventId, policy, callback);
+    }
+
+    /**
+     * Draws attendees following a draw policy: seats reserved by the policy's strata go
+     * to entrants whose joining location is inside each region, and every pick is
+     * weighted by the policy. A policy without weights or strata is a uniform draw.
+     *
+     * @param eventId  Event ID
+     * @param policy   Sample size, seed, weights and strata for the draw
+     * @param callback Completion callback
+     */
+    @Override
+    public void drawAttendeesWithPolicy(String eventId, DrawPolicy policy, VoidCallback callback) {
+        getEventWithEntrants(eventId, new EventCallback() {
             @Override
             public void onSuccess(EventEntity event) {
-                List<String> waitlist = event.getWaitlist();
-                
-                // Validate waitlist is not empty
-                if (waitlist == null || waitlist.isEmpty()) {
-                    callback.onError("Waitlist is empty - no attendees to draw");
-                    return;
-                }
-                
-                if (event.getCapacity() <= 0) {
-                    callback.onError("Unable to draw attendees: Attendees for event is set to zero.");
+                DrawOutcome outcome = applyDraw(event, policy);
+                if (outcome.getError() != null) {
+                    callback.onError(outcome.getError());
                     return;
                 }
 
-//                if (event.getMaxEntrants() == 0) {
-//                    callback.onError("Event max entrants is zero; cannot draw attendees.");
-//                    return;
-//                }
-
-                // Count already invited and attending users
-                int alreadyInvitedOrAttending = 0;
-                if (event.getInvitations() != null) {
-                    alreadyInvitedOrAttending += event.getInvitations().size();
-                }
-                if (event.getAttendees() != null) {
-                    alreadyInvitedOrAttending += event.getAttendees().size();
-                }
-                
-                // Determine how many to sample
-                int numToSample;
-                if (sampleSize != null && sampleSize > 0) {
-                    // Use provided sample size, minus already invited/attending
-                    numToSample = sampleSize - alreadyInvitedOrAttending;
-                } else if (event.getCapacity() > 0) {
-                    // Use capacity, minus already invited/attending
-                    numToSample = event.getCapacity() - alreadyInvitedOrAttending;
-                } else {
-                    // Random between 1 and maxEntrants (or waitlist size if smaller)
-                    int maxEntrants = event.getMaxEntrants();
-                    if (maxEntrants <= 0) {
-                        maxEntrants = waitlist.size();
-                    }
-                    int maxPossible = Math.min(maxEntrants, waitlist.size());
-                    Random random = new Random();
-                    numToSample = random.nextInt(maxPossible) + 1;
-                }
-                
-                // Ensure we don't draw negative or zero (if capacity already met)
-                if (numToSample <= 0) {
-                    callback.onError("Capacity already met. " + alreadyInvitedOrAttending + " already invited/attending.");
-                    return;
-                }
-                
-                // Cap at waitlist size
-                numToSample = Math.min(numToSample, waitlist.size());
-                final int finalNumToSample = numToSample; // Make effectively final for inner class
-                
-                Log.d(TAG, "Drawing " + finalNumToSample + " attendees from waitlist of " + waitlist.size());
-                
-                // Randomly sample from waitlist
-                List<String> shuffledWaitlist = new ArrayList<>(waitlist);
-                Collections.shuffle(shuffledWaitlist);
-                List<String> selectedUserIds = shuffledWaitlist.subList(0, finalNumToSample);
-
-                // Users who remain on the waitlist = "lost" this draw
-                final List<String> loserUserIds = new ArrayList<>(waitlist);
-                loserUserIds.removeAll(selectedUserIds);
-
-                // Create invitations for selected attendees
-                List<Invitation> invitations = new ArrayList<>();
-                for (String userId : selectedUserIds) {
-                    Invitation invitation = new Invitation(userId, null); // username can be null
-                    invitations.add(invitation);
-                }
-                
-                // Add invitations to event and remove from waitlist
-                for (Invitation invitation : invitations) {
-                    event.addInvitation(invitation);
-                    event.removeFromWaitlist(invitation.getUserId());
-                }
-                
-                // Save the updated event
-                updateEvent(event, new VoidCallback() {
-                    @Override
-                    public void onSuccess() {
-                        Log.d(TAG, "Successfully drew " + finalNumToSample + " attendees and sent invitations");
-                        // Send "lost the lottery" notifications (best-effort, don’t block UI)
-                        if (loserUserIds != null && !loserUserIds.isEmpty()) {
-                            NotificationService.getInstance().sendNotificationsToUsers(
-                                    loserUserIds,
-                                    event.getEventId(),
-                                    event.getTitle(),
-                                    Notification.NotificationType.WAITLISTED,  // use the “not selected” message
-                                    null   // fire-and-forget; we ignore success/failure here
-                            );
+                // Only saved if nobody else drew or changed the event since it was read
+                saveDraws(Collections.singletonList(event), false)
+                    .addOnSuccessListener(saved -> {
+                        if (saved.isEmpty()) {
+                            callback.onError("The event changed while drawing - please try again");
+                            return;
                         }
-
+                        Log.d(TAG, "Successfully drew " + outcome.getDrawnCount() + " attendees and sent invitations");
+                        notifyLotteryLosers(event, outcome.getLosers());
                         callback.onSuccess();
-                    }
-                    
-                    @Override
-                    public void onError(String error) {
-                        callback.onError("Failed to save drawn attendees: " + error);
-                    }
-                });
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error saving draw", e);
+                        callback.onError("Failed to save drawn attendees: " + e.getMessage());
+                    });
             }
 
             @Override
@@ -786,9 +1791,174 @@ public class EventService implements IEventService {
         });
     }
 
+    /**
+     * Runs the lottery for every event whose registration has ended without a draw.
+     * Events are drawn with the default policy; see {@link DrawScheduler}.
+     *
+     * @param organizerId Only draw this organizer's events (null for all events)
+     * @param callback    Progress after each page of events, then completion
+     */
+    @Override
+    public void runScheduledDraws(String organizerId, DrawScheduler.DrawRunCallback callback) {
+        drawScheduler.run(organizerId, callback);
+    }
+
+    /**
+     * Counts the events {@link #runScheduledDraws} would draw, with one aggregation query.
+     *
+     * @param organizerId Only count this organizer's events (null for all events)
+     * @param callback    Callback with the number of events due for a draw
+     */
+    @Override
+    public void countScheduledDraws(String organizerId, CountCallback callback) {
+        drawScheduler.countDue(organizerId)
+            .addOnSuccessListener(callback::onSuccess)
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error counting events due for a draw", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * Result of running the lottery on an event in memory
+     */
+    static class DrawOutcome {
+        private final int drawnCount;
+        private final List<String> losers;
+        private final String error;
+
+        private DrawOutcome(int drawnCount, List<String> losers, String error) {
+            this.drawnCount = drawnCount;
+            this.losers = losers;
+            this.error = error;
+        }
+
+        static DrawOutcome drawn(int drawnCount, List<String> losers) {
+            return new DrawOutcome(drawnCount, losers, null);
+        }
+
+        static DrawOutcome failed(String error) {
+            return new DrawOutcome(0, new ArrayList<>(), error);
+        }
+
+        int getDrawnCount() {
+            return drawnCount;
+        }
+
+        List<String> getLosers() {
+            return losers;
+        }
+
+        /**
+         * @return why nothing was drawn, or null if the draw succeeded
+         */
+        String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Runs the lottery on an event without saving it: winners get invitations and
+     * leave the waitlist, and the event is marked DRAWN. The caller persists the event.
+     *
+     * @param event  Event to draw for (modified in place on success)
+     * @param policy Sample size, seed, weights and strata (null for a uniform draw)
+     * @return drawn count and losers, or the reason nothing was drawn
+     */
+    DrawOutcome applyDraw(EventEntity event, DrawPolicy policy) {
+        DrawPolicy drawPolicy = policy != null ? policy : new DrawPolicy();
+        Integer sampleSize = drawPolicy.getSampleSize();
+        Long seed = drawPolicy.getSeed();
+        List<String> waitlist = event.getWaitlist();
+
+        // Validate waitlist is not empty
+        if (waitlist == null || waitlist.isEmpty()) {
+            return DrawOutcome.failed("Waitlist is empty - no attendees to draw");
+        }
+
+        if (event.getCapacity() <= 0) {
+            return DrawOutcome.failed("Unable to draw attendees: Attendees for event is set to zero.");
+        }
+
+//        if (event.getMaxEntrants() == 0) {
+//            return DrawOutcome.failed("Event max entrants is zero; cannot draw attendees.");
+//        }
+
+        // Count already invited and attending users
+        int alreadyInvitedOrAttending = 0;
+        if (event.getInvitations() != null) {
+            alreadyInvitedOrAttending += event.getInvitations().size();
+        }
+        if (event.getAttendees() != null) {
+            alreadyInvitedOrAttending += event.getAttendees().size();
+        }
+
+        // Determine how many to sample
+        int numToSample;
+        if (sampleSize != null && sampleSize > 0) {
+            // Use provided sample size, minus already invited/attending
+            numToSample = sampleSize - alreadyInvitedOrAttending;
+        } else if (event.getCapacity() > 0) {
+            // Use capacity, minus already invited/attending
+            numToSample = event.getCapacity() - alreadyInvitedOrAttending;
+        } else {
+            // Random between 1 and maxEntrants (or waitlist size if smaller)
+            int maxEntrants = event.getMaxEntrants();
+            if (maxEntrants <= 0) {
+                maxEntrants = waitlist.size();
+            }
+            int maxPossible = Math.min(maxEntrants, waitlist.size());
+            Random random = seed != null ? new Random(seed) : new Random();
+            numToSample = random.nextInt(maxPossible) + 1;
+        }
+
+        // Ensure we don't draw negative or zero (if capacity already met)
+        if (numToSample <= 0) {
+            return DrawOutcome.failed("Capacity already met. " + alreadyInvitedOrAttending + " already invited/attending.");
+        }
+
+        // Cap at waitlist size
+        numToSample = Math.min(numToSample, waitlist.size());
+
+        Log.d(TAG, "Drawing " + numToSample + " attendees from waitlist of " + waitlist.size());
+
+        // Randomly sample from waitlist
+        LotteryEngine lottery = seed != null ? new LotteryEngine(seed) : new LotteryEngine();
+        LotteryEngine.DrawResult draw = lottery.draw(waitlist, numToSample,
+                drawPolicy, event.getEntrantLocations());
+
+        // Create invitations for selected attendees
+        for (String userId : draw.getWinners()) {
+            event.addInvitation(new Invitation(userId, null)); // username can be null
+        }
+
+        // Remove all winners from the waitlist in one pass
+        event.removeAllFromWaitlist(draw.getWinnerSet());
+        event.setDrawStatus(EventEntity.DrawStatus.DRAWN);
+
+        // Users who remain on the waitlist = "lost" this draw
+        return DrawOutcome.drawn(draw.getWinners().size(), draw.getLosers());
+    }
+
+    /**
+     * Sends "lost the lottery" notifications (best-effort, don't block UI)
+     */
+    void notifyLotteryLosers(EventEntity event, List<String> loserUserIds) {
+        if (loserUserIds == null || loserUserIds.isEmpty()) {
+            return;
+        }
+        NotificationService.getInstance().sendNotificationsToUsers(
+                loserUserIds,
+                event.getEventId(),
+                event.getTitle(),
+                Notification.NotificationType.WAITLISTED,  // use the "not selected" message
+                null   // fire-and-forget; we ignore success/failure here
+        );
+    }
+
     @Override
     public void drawReplacementAttendee(String eventId, VoidCallback callback) {
-        getEvent(eventId, new EventCallback() {
+        getEventWithEntrants(eventId, new EventCallback() {
             @Override
             public void onSuccess(EventEntity event) {
                 List<String> waitlist = event.getWaitlist();
@@ -818,9 +1988,7 @@ public class EventService implements IEventService {
                     return;
                 }
 
-                List<String> shuffledWaitlist = new ArrayList<>(waitlist);
-                Collections.shuffle(shuffledWaitlist);
-                String selectedUserId = shuffledWaitlist.get(0);
+                String selectedUserId = new LotteryEngine().drawOne(waitlist);
 
                 Invitation replacementInvitation = new Invitation(selectedUserId, null);
                 event.addInvitation(replacementInvitation);
@@ -849,138 +2017,21 @@ public class EventService implements IEventService {
 
     /**
      * Helper method to turn a Firestore document into an EventEntity object.
-     * It safely handles missing numbers (like capacity) by defaulting them to 0.
+     * Decoding is done by {@link EventCodec}; missing numbers (like capacity) default to 0.
      * @param doc The document snapshot from Firestore.
      * @return A complete EventEntity.
      */
-    private EventEntity documentToEventEntity(DocumentSnapshot doc) {
-        EventEntity entity = new EventEntity();
-
-        entity.setEventId(doc.getString("eventId"));
-        entity.setTitle(doc.getString("title"));
-        entity.setDescription(doc.getString("description"));
-
-        // fix for the getter issue relating to the availbility of each event
-        Long capacity = doc.getLong("capacity");
-        if (capacity != null) {
-            entity.setCapacity(capacity.intValue());
-        } else {
-            entity.setCapacity(0);
-        }
-
-
-        entity.setRegistrationStart(doc.getDate("registrationStart"));
-        entity.setRegistrationEnd(doc.getDate("registrationEnd"));
-        entity.setOrganizerId(doc.getString("organizerId"));
-        entity.setOrganizerName(doc.getString("organizerName"));
-
-        Boolean geoRequired = doc.getBoolean("geolocationRequired");
-        if (geoRequired != null) entity.setGeolocationRequired(geoRequired);
-
-        // same as the fix for capacity above
-        Long maxEntrants = doc.getLong("maxEntrants");
-        if (maxEntrants != null) {
-            entity.setMaxEntrants(maxEntrants.intValue());
-        } else {
-            entity.setMaxEntrants(0);
-        }
-
-
-        // Waitlist
-        List<String> waitlist = (List<String>) doc.get("waitlist");
-        if (waitlist != null) entity.setWaitlist(waitlist);
-
-        // Attendees
-        List<String> attendees = (List<String>) doc.get("attendees");
-        if (attendees != null) entity.setAttendees(attendees);
-
-        // Declined
-        List<String> declined = (List<String>) doc.get("declined");
-        if (declined != null) entity.setDeclined(declined);
-
-        // Entrants
-        List<String> entrants = (List<String>) doc.get("entrants");
-        if (entrants != null) entity.setEntrants(entrants);
-
-        // Invitations
-        List<Map<String, Object>> invitationMaps = (List<Map<String, Object>>) doc.get("invitations");
-        if (invitationMaps != null) {
-            List<Invitation> invitations = new ArrayList<>();
-            for (Map<String, Object> invMap : invitationMaps) {
-                Invitation inv = new Invitation();
-                inv.setUserId((String) invMap.get("userId"));
-                inv.setUsername((String) invMap.get("username"));
-
-                String statusStr = (String) invMap.get("status");
-                if (statusStr != null) {
-                    inv.setStatus(Invitation.InvitationStatus.fromString(statusStr));
-                }
-
-                // Handle both Timestamp and Date types
-                Object invitedAtObj = invMap.get("invitedAt");
-                if (invitedAtObj instanceof Timestamp) {
-                    inv.setInvitedAt(((Timestamp) invitedAtObj).toDate());
-                } else if (invitedAtObj instanceof Date) {
-                    inv.setInvitedAt((Date) invitedAtObj);
-                }
-
-                Object respondedAtObj = invMap.get("respondedAt");
-                if (respondedAtObj instanceof Timestamp) {
-                    inv.setRespondedAt(((Timestamp) respondedAtObj).toDate());
-                } else if (respondedAtObj instanceof Date) {
-                    inv.setRespondedAt((Date) respondedAtObj);
-                }
-
-                invitations.add(inv);
-            }
-            entity.setInvitations(invitations);
-        }
-
-        // QR Code URL
-        String qrCodeUrl = doc.getString("qrCodeUrl");
-        if (qrCodeUrl != null) entity.setQrCodeUrl(qrCodeUrl);
-
-        entity.setCreatedAt(doc.getDate("createdAt"));
-        entity.setUpdatedAt(doc.getDate("updatedAt"));
-
-        // Poster URL
-        String posterUrl = doc.getString("posterUrl");
-        Log.d("EventService", "documentToEventEntity: posterUrl from Firestore = " + posterUrl);
-        if (posterUrl != null) entity.setPosterUrl(posterUrl);
-
-        // Price
-        Double price = doc.getDouble("price");
-        if (price != null) entity.setPrice(price);
-
-
-
-        // Data overwrite occurs when another user joins event
-        Map<String, Object> locationsMap = (Map<String, Object>) doc.get("entrantLocations");
-        if (locationsMap != null) {
-            for (Map.Entry<String, Object> entry : locationsMap.entrySet()) {
-                if (entry.getValue() instanceof List) {
-                    List<?> coords = (List<?>) entry.getValue();
-                    if (coords.size() >= 2) {
-                        // Convert List<Double> back to double primitive or Double object
-                        double lat = ((Number) coords.get(0)).doubleValue();
-                        double lon = ((Number) coords.get(1)).doubleValue();
-                        entity.addLocation(entry.getKey(), lat, lon);
-                    }
-                }
-            }
-        }
-
-        return entity;
+    EventEntity documentToEventEntity(DocumentSnapshot doc) {
+        return EventCodec.decode(doc);
     }
     
     @Override
     public void updateEventPoster(String eventId, String posterUrl, VoidCallback callback) {
         Map<String, Object> updates = new HashMap<>();
         updates.put("posterUrl", posterUrl);
-        updates.put("updatedAt", new Date());
+        updates.put("updatedAt", FieldValue.serverTimestamp());
         
-        db.collection("events").document(eventId)
-            .update(updates)
+        updateWithSummary(db.collection(COLLECTION_EVENTS).document(eventId), updates)
             .addOnSuccessListener(aVoid -> {
                 Log.d(TAG, "Event poster updated successfully for event: " + eventId);
                 callback.onSuccess();
@@ -991,6 +2042,40 @@ public class EventService implements IEventService {
             });
     }
 
+    /**
+     * Moves an event's entrants from inline arrays into the entrants subcollection.
+     * Does nothing if the event already uses subcollection storage.
+     *
+     * @param eventId  The event ID
+     * @param callback Callback for success or error
+     */
+    @Override
+    public void migrateToEntrantSubcollection(String eventId, VoidCallback callback) {
+        getEvent(eventId, new EventCallback() {
+            @Override
+            public void onSuccess(EventEntity event) {
+                if (event.usesEntrantSubcollection()) {
+                    callback.onSuccess();
+                    return;
+                }
+                entrantStore.migrate(db.collection(COLLECTION_EVENTS).document(eventId), event)
+                    .addOnSuccessListener(aVoid -> {
+                        Log.d(TAG, "Migrated entrants to subcollection for event: " + eventId);
+                        callback.onSuccess();
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error migrating entrants", e);
+                        callback.onError(e.getMessage());
+                    });
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
     public void cancelInvitation(String eventId, String userId, VoidCallback callback) {
         getEvent(eventId, new EventCallback() {
             @Override
@@ -0,0 +1,126 @@
+package com.example.cmpuzz_events.service;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes event update maps that may touch single entries of a map field.
+ * <p>
+ * A string key like {@code "entrantLocations." + uid} is split on every dot, so a UID
+ * containing one would write a nested path. Per-entry changes are therefore kept as an
+ * {@link Entries} value under the map field's name and written with
+ * {@code FieldPath.of(field, key)}. An array field that both gained and lost IDs is
+ * kept as an {@link ArrayChange}: Firestore can't union and remove in one field write,
+ * so the document is updated twice in the same batch or transaction, arrayUnion first
+ * and arrayRemove second. Every other key is written as given.
+ */
+final class FieldUpdates {
+
+    /**
+     * Changes to individual entries of a map field, keyed by entry. A value of
+     * {@code FieldValue.delete()} removes the entry.
+     */
+    static final class Entries extends HashMap<String, Object> {
+    }
+
+    /**
+     * IDs added to and removed from an array field since it was loaded; the two
+     * sets never share an ID.
+     */
+    static final class ArrayChange {
+        final Object[] added;
+        final Object[] removed;
+
+        ArrayChange(List<String> added, List<String> removed) {
+            this.added = added.toArray();
+            this.removed = removed.toArray();
+        }
+    }
+
+    private FieldUpdates() {
+    }
+
+    static void update(WriteBatch batch, DocumentReference ref, Map<String, Object> updates) {
+        for (Map<String, Object> part : split(updates)) {
+            updateOnce(batch, ref, part);
+        }
+    }
+
+    static void update(Transaction transaction, DocumentReference ref, Map<String, Object> updates) {
+        for (Map<String, Object> part : split(updates)) {
+            updateOnce(transaction, ref, part);
+        }
+    }
+
+    /**
+     * Splits off the removals of any ArrayChange into a second update, which must be
+     * applied after the first
+     */
+    static List<Map<String, Object>> split(Map<String, Object> updates) {
+        Map<String, Object> first = new HashMap<>(updates);
+        Map<String, Object> removals = new HashMap<>();
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            if (entry.getValue() instanceof ArrayChange) {
+                ArrayChange change = (ArrayChange) entry.getValue();
+                first.put(entry.getKey(), FieldValue.arrayUnion(change.added));
+                removals.put(entry.getKey(), FieldValue.arrayRemove(change.removed));
+            }
+        }
+        return removals.isEmpty() ? Collections.singletonList(updates) : Arrays.asList(first, removals);
+    }
+
+    private static void updateOnce(WriteBatch batch, DocumentReference ref, Map<String, Object> updates) {
+        List<Object> args = toArgs(updates);
+        if (args.isEmpty()) {
+            batch.update(ref, updates);
+            return;
+        }
+        Object[] rest = args.subList(2, args.size()).toArray();
+        if (args.get(0) instanceof FieldPath) {
+            batch.update(ref, (FieldPath) args.get(0), args.get(1), rest);
+        } else {
+            batch.update(ref, (String) args.get(0), args.get(1), rest);
+        }
+    }
+
+    private static void updateOnce(Transaction transaction, DocumentReference ref, Map<String, Object> updates) {
+        List<Object> args = toArgs(updates);
+        if (args.isEmpty()) {
+            transaction.update(ref, updates);
+            return;
+        }
+        Object[] rest = args.subList(2, args.size()).toArray();
+        if (args.get(0) instanceof FieldPath) {
+            transaction.update(ref, (FieldPath) args.get(0), args.get(1), rest);
+        } else {
+            transaction.update(ref, (String) args.get(0), args.get(1), rest);
+        }
+    }
+
+    /**
+     * @return alternating field (String or FieldPath) and value, as the varargs update takes
+     */
+    static List<Object> toArgs(Map<String, Object> updates) {
+        List<Object> args = new ArrayList<>(updates.size() * 2);
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            if (entry.getValue() instanceof Entries) {
+                for (Map.Entry<String, Object> item : ((Entries) entry.getValue()).entrySet()) {
+                    args.addAll(Arrays.asList(FieldPath.of(entry.getKey(), item.getKey()), item.getValue()));
+                }
+            } else {
+                args.addAll(Arrays.asList(entry.getKey(), entry.getValue()));
+            }
+        }
+        return args;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.cmpuzz_events.service;
+
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One page of a user's registration history from {@link IEventService#getRegistrationHistoryPage}.
+ * Pass the page back to fetch older events. It carries a cursor into each of the two
+ * indexed queries (the participants array of inline events and the user's entrant docs
+ * of subcollection events) and the cut-off time fixed by the first page, so events
+ * closing while the user scrolls don't shift the pages.
+ */
+public class HistoryPage {
+    private final List<EventEntity> events;
+    private final Date before;
+    private final DocumentSnapshot lastInline;
+    private final boolean inlineExhausted;
+    private final DocumentSnapshot lastSharded;
+    private final boolean shardedExhausted;
+
+    HistoryPage(List<EventEntity> events, Date before, DocumentSnapshot lastInline, boolean inlineExhausted,
+                DocumentSnapshot lastSharded, boolean shardedExhausted) {
+        this.events = events;
+        this.before = before;
+        this.lastInline = lastInline;
+        this.inlineExhausted = inlineExhausted;
+        this.lastSharded = lastSharded;
+        this.shardedExhausted = shardedExhausted;
+    }
+
+    /**
+     * @return past events on this page, most recently closed first. Subcollection events
+     * are built from their summary and only list the user themselves as an entrant.
+     */
+    public List<EventEntity> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return true if there are older events after this page
+     */
+    public boolean hasMore() {
+        return !inlineExhausted || !shardedExhausted;
+    }
+
+    Date getBefore() {
+        return before;
+    }
+
+    DocumentSnapshot getLastInline() {
+        return lastInline;
+    }
+
+    boolean isInlineExhausted() {
+        return inlineExhausted;
+    }
+
+    /**
+     * @return the last entrant doc returned, the cursor into the user's subcollection events
+     */
+    DocumentSnapshot getLastSharded() {
+        return lastSharded;
+    }
+
+    boolean isShardedExhausted() {
+        return shardedExhausted;
+    }
+}
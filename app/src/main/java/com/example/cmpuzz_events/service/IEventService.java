@@ -1,6 +1,8 @@
 package com.example.cmpuzz_events.service;
 
+import com.example.cmpuzz_events.models.event.DrawPolicy;
 import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.EventSummary;
 import com.example.cmpuzz_events.models.event.Invitation;
 import com.example.cmpuzz_events.ui.event.Event;
 
@@ -45,6 +47,26 @@ public interface IEventService {
         void onError(String error);
     }
 
+    interface EventPageCallback {
+        void onSuccess(EventPage page);
+        void onError(String error);
+    }
+
+    interface SummaryListCallback {
+        void onSuccess(List<EventSummary> summaries);
+        void onError(String error);
+    }
+
+    interface HistoryPageCallback {
+        void onSuccess(HistoryPage page);
+        void onError(String error);
+    }
+
+    interface CountCallback {
+        void onSuccess(long count);
+        void onError(String error);
+    }
+
     /**
      * Create a new event from UI Event model.
      * Converts UI Event to EventEntity and saves to Firebase.
@@ -55,13 +77,22 @@ public interface IEventService {
     void createEvent(Event uiEvent, EventCallback callback);
 
     /**
-     * Get an event by ID from Firebase
+     * Get an event by ID from Firebase. The waitlist of an event that keeps its
+     * entrants in a subcollection is not loaded, only counted
      *
      * @param eventId The event ID
      * @param callback Callback with the EventEntity or error
      */
     void getEvent(String eventId, EventCallback callback);
 
+    /**
+     * Get an event by ID with every entrant, including the whole waitlist
+     *
+     * @param eventId The event ID
+     * @param callback Callback with the EventEntity or error
+     */
+    void getEventWithEntrants(String eventId, EventCallback callback);
+
     /**
      * Get an event as UI Event by ID from Firebase
      *
@@ -86,6 +117,14 @@ public interface IEventService {
      */
     void getEventsForOrganizerUI(String organizerId, UIEventListCallback callback);
 
+    /**
+     * Get list rows for an organizer's events, read from the event summaries
+     *
+     * @param organizerId The organizer's ID
+     * @param callback Callback with the summaries or error
+     */
+    void getEventSummariesForOrganizer(String organizerId, SummaryListCallback callback);
+
     /**
      * Get all events as UI Events (for browsing/joining)
      *
@@ -93,6 +132,16 @@ public interface IEventService {
      */
     void getAllEvents(UIEventListCallback callback);
 
+    /**
+     * Get one page of event summaries, newest first.
+     *
+     * @param after The previous page, or null for the first page
+     * @param pageSize Number of events per page
+     * @param full Only full (true) or not full (false) events; null means no filter
+     * @param callback Callback with the page or an error
+     */
+    void getEventsPage(EventPage after, int pageSize, Boolean full, EventPageCallback callback);
+
     /**
      * Get events where user is in the waitlist
      *
@@ -128,13 +177,30 @@ public interface IEventService {
     void updateEvent(EventEntity event, VoidCallback callback);
 
     /**
-     * Delete an event
+     * Delete an event with its notifications, entrants and poster
      *
      * @param eventId The event ID to delete
      * @param callback Callback on success or error
      */
     void deleteEvent(String eventId, VoidCallback callback);
 
+    /**
+     * Delete several events with their notifications, entrants and posters.
+     * Running it again after an interruption finishes the remaining work.
+     *
+     * @param eventIds The event IDs
+     * @param callback Progress after each batch, then completion
+     */
+    void deleteEvents(List<String> eventIds, EventDeleter.DeleteCallback callback);
+
+    /**
+     * Finish deleting events whose delete was interrupted.
+     *
+     * @param organizerId Only finish this organizer's events (null for all events)
+     * @param callback Progress after each batch, then completion
+     */
+    void resumeEventDeletes(String organizerId, EventDeleter.DeleteCallback callback);
+
     /**
      * Add a user to event waitlist
      *
@@ -215,6 +281,44 @@ public interface IEventService {
      */
     void drawAttendees(String eventId, Integer sampleSize, VoidCallback callback);
 
+    /**
+     * Draw random attendees as above, seeding the lottery so the draw is reproducible.
+     *
+     * @param eventId The event ID
+     * @param sampleSize Number of attendees to draw (null to use capacity or random 1-maxEntrants)
+     * @param seed Lottery seed (null for an unseeded draw)
+     * @param callback Callback on success or error
+     */
+    void drawAttendees(String eventId, Integer sampleSize, Long seed, VoidCallback callback);
+
+    /**
+     * Draw attendees with weights and reserved seats.
+     * Strata seats are filled first from entrants whose location is in each region,
+     * then the rest are drawn from everyone left, each pick weighted by the policy.
+     *
+     * @param eventId The event ID
+     * @param policy Sample size, seed, weights and strata for the draw
+     * @param callback Callback on success or error
+     */
+    void drawAttendeesWithPolicy(String eventId, DrawPolicy policy, VoidCallback callback);
+
+    /**
+     * Draw attendees for every event whose registration has ended and that has not been drawn yet.
+     * Safe to run again after an interruption; events already drawn are not drawn twice.
+     *
+     * @param organizerId Only draw this organizer's events (null for all events)
+     * @param callback Progress after each page of events, then completion
+     */
+    void runScheduledDraws(String organizerId, DrawScheduler.DrawRunCallback callback);
+
+    /**
+     * Count the events runScheduledDraws would draw, so the organizer can be asked first.
+     *
+     * @param organizerId Only count this organizer's events (null for all events)
+     * @param callback Callback with the count or an error
+     */
+    void countScheduledDraws(String organizerId, CountCallback callback);
+
 
     /**
      * Retrieves the registration history for a specified user.
@@ -224,6 +328,18 @@ public interface IEventService {
      *                 or an error on failure.
      */
     void getRegistrationHistory(String userId, RegistrationHistoryCallback callback);
+
+    /**
+     * Retrieves one page of a user's past events (registration closed), most recently
+     * closed first, using an indexed query instead of filtering every event on the device.
+     *
+     * @param userId   The ID of the user whose registration history is requested.
+     * @param after    The previous page, or null for the first page
+     * @param pageSize Maximum number of events from the indexed query on this page
+     * @param callback Callback invoked with the page on success, or an error on failure.
+     */
+    void getRegistrationHistoryPage(String userId, HistoryPage after, int pageSize, HistoryPageCallback callback);
+
     /**
      * Draw a single replacement attendee from the waitlist.
      * Used when a previously selected entrant cancels or declines.
@@ -251,4 +367,46 @@ public interface IEventService {
      * @param callback Callback for success or error.
      */
     public void cancelInvitations(String eventId, List<String> userIds, VoidCallback callback);
+
+    /**
+     * Switch an event to subcollection entrant storage.
+     * Entrants move to events/{eventId}/entrants/{userId} documents and the waitlist
+     * size is tracked in sharded counters; the rest of this API keeps working unchanged.
+     *
+     * @param eventId The event ID
+     * @param callback Callback on success or error
+     */
+    void migrateToEntrantSubcollection(String eventId, VoidCallback callback);
+
+    /**
+     * Writes the participants index onto events created before it existed,
+     * so they show up in getEventsForUser.
+     *
+     * @param callback Callback on success or error
+     */
+    void backfillParticipants(VoidCallback callback);
+
+    /**
+     * Writes the availability counts and isFull flag onto events created before they
+     * existed, so the full / not full filters can find them.
+     *
+     * @param callback Callback on success or error
+     */
+    void backfillAvailability(VoidCallback callback);
+
+    /**
+     * Writes an event_summaries document for every event, for events created
+     * before summaries existed. List screens only show events that have one.
+     *
+     * @param callback Callback on success or error
+     */
+    void backfillSummaries(VoidCallback callback);
+
+    /**
+     * Writes the draw status onto events created before it existed, so the
+     * scheduled draws can find the ones still waiting for their lottery.
+     *
+     * @param callback Callback on success or error
+     */
+    void backfillDrawStatus(VoidCallback callback);
 }
@@ -25,9 +25,20 @@ public interface INotificationService {
                                    String eventName, boolean accepted, VoidCallback callback);
     
     /**
-     * Get all notifications for a specific user
+     * Get one page of a user's notifications, newest first
+     *
+     * @param userId   The user whose inbox to read
+     * @param after    The previous page, or null for the first page
+     * @param pageSize Number of notifications per page
+     * @param callback Callback returning the page or an error
+     */
+    void getNotificationsPage(String userId, NotificationPage after, int pageSize,
+                              NotificationPageCallback callback);
+    
+    /**
+     * Get a user's unread and important counts from their inbox counter
      */
-    void getNotificationsForUser(String userId, NotificationListCallback callback);
+    void getInboxCounts(String userId, InboxCountsCallback callback);
     
     /**
      * Mark a notification as read
@@ -35,10 +46,16 @@ public interface INotificationService {
     void markAsRead(String notificationId, VoidCallback callback);
     
     /**
-     * Mark all notifications as read for a user
+     * Mark all notifications as read for a user, updating each unread notification
      */
     void markAllAsRead(String userId, VoidCallback callback);
     
+    /**
+     * Mark all notifications as read for a user by moving their read watermark to now,
+     * without updating each notification
+     */
+    void markAllAsReadUpToNow(String userId, VoidCallback callback);
+    
     /**
      * Delete a notification
      */
@@ -75,6 +92,16 @@ public interface INotificationService {
         void onError(String error);
     }
     
+    interface NotificationPageCallback {
+        void onSuccess(NotificationPage page);
+        void onError(String error);
+    }
+    
+    interface InboxCountsCallback {
+        void onSuccess(InboxCounts counts);
+        void onError(String error);
+    }
+    
     interface NotificationPreferenceCallback {
         void onSuccess(boolean enabled);
         void onError(String error);
@@ -0,0 +1,174 @@
+package com.example.cmpuzz_events.service;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unread and important counts of a user's inbox, from {@link INotificationService#getInboxCounts}.
+ * <p>
+ * The counts live in one document per user, {@code users/{uid}/counters/inbox}, and every
+ * write that creates, reads, stars or deletes a notification adjusts it in the same batch
+ * or transaction. Badges therefore cost one read however long the history is. Counters
+ * created before this existed are counted once with aggregation queries; until then the
+ * document has no {@link #FIELD_INITIALIZED} flag.
+ * <p>
+ * The document also holds the user's read watermark, {@link #FIELD_READ_UP_TO}: every
+ * notification at or before that time counts as read whatever its own isRead says. The
+ * watermark and each notification's {@code sentAt} are both server timestamps, so a
+ * notification counts as read exactly when its unread increment was committed before the
+ * watermark zeroed the count. Watermarks are compared in microseconds, Firestore's
+ * timestamp precision.
+ */
+public class InboxCounts {
+
+    static final String SUBCOLLECTION_COUNTERS = "counters";
+    static final String DOC_INBOX = "inbox";
+    static final String FIELD_UNREAD = "unread";
+    static final String FIELD_IMPORTANT = "important";
+    static final String FIELD_INITIALIZED = "initialized";
+    static final String FIELD_READ_UP_TO = "readUpTo";
+
+    private final long unread;
+    private final long important;
+
+    InboxCounts(long unread, long important) {
+        this.unread = Math.max(0, unread);
+        this.important = Math.max(0, important);
+    }
+
+    /**
+     * @return notifications the user hasn't read yet
+     */
+    public long getUnread() {
+        return unread;
+    }
+
+    /**
+     * @return notifications the user marked important
+     */
+    public long getImportant() {
+        return important;
+    }
+
+    @Override
+    public String toString() {
+        return "unread=" + unread + ", important=" + important;
+    }
+
+    static DocumentReference ref(FirebaseFirestore db, String userId) {
+        return db.collection("users").document(userId)
+                .collection(SUBCOLLECTION_COUNTERS).document(DOC_INBOX);
+    }
+
+    /**
+     * @return the counts in a counter document, or null if it has never been initialized
+     */
+    static InboxCounts fromSnapshot(DocumentSnapshot doc) {
+        if (doc == null || !doc.exists() || !Boolean.TRUE.equals(doc.getBoolean(FIELD_INITIALIZED))) {
+            return null;
+        }
+        Long unread = doc.getLong(FIELD_UNREAD);
+        Long important = doc.getLong(FIELD_IMPORTANT);
+        return new InboxCounts(unread != null ? unread : 0, important != null ? important : 0);
+    }
+
+    /**
+     * Adds a change to the counter to a batch; does nothing if both deltas are zero
+     */
+    static void stage(WriteBatch batch, DocumentReference ref, long unreadDelta, long importantDelta) {
+        if (unreadDelta != 0 || importantDelta != 0) {
+            batch.set(ref, deltas(unreadDelta, importantDelta), SetOptions.merge());
+        }
+    }
+
+    /**
+     * Adds a change to the counter to a transaction; does nothing if both deltas are zero
+     */
+    static void stage(Transaction transaction, DocumentReference ref, long unreadDelta, long importantDelta) {
+        if (unreadDelta != 0 || importantDelta != 0) {
+            transaction.set(ref, deltas(unreadDelta, importantDelta), SetOptions.merge());
+        }
+    }
+
+    /**
+     * @return the read watermark in a counter document in microseconds, or 0 if there is
+     * none or it hasn't reached the server yet
+     */
+    static long readUpTo(DocumentSnapshot counter) {
+        Object readUpTo = counter != null && counter.exists() ? counter.get(FIELD_READ_UP_TO) : null;
+        if (readUpTo instanceof Timestamp) {
+            return micros((Timestamp) readUpTo);
+        }
+        // Watermarks written in device milliseconds before they were server timestamps
+        return readUpTo instanceof Number ? ((Number) readUpTo).longValue() * 1000 : 0;
+    }
+
+    /**
+     * @return whether a notification document counts as read under the given watermark
+     */
+    static boolean isRead(DocumentSnapshot notification, long readUpTo) {
+        if (Boolean.TRUE.equals(notification.getBoolean("isRead"))) {
+            return true;
+        }
+        return sentAt(notification) <= readUpTo;
+    }
+
+    /**
+     * When the server committed a notification, in microseconds. Notifications written
+     * before sentAt existed fall back to the sender's timestamp; one whose sentAt is still
+     * pending was sent after any watermark we could have read.
+     */
+    private static long sentAt(DocumentSnapshot notification) {
+        Timestamp sentAt = notification.getTimestamp("sentAt");
+        if (sentAt != null) {
+            return micros(sentAt);
+        }
+        Long timestamp = notification.contains("sentAt") ? null : notification.getLong("timestamp");
+        return timestamp != null ? timestamp * 1000 : Long.MAX_VALUE;
+    }
+
+    static long micros(Timestamp timestamp) {
+        return timestamp.getSeconds() * 1_000_000 + timestamp.getNanoseconds() / 1000;
+    }
+
+    /**
+     * @return how the counts change when this notification document is deleted
+     */
+    static long[] removalDeltas(DocumentSnapshot notification, long readUpTo) {
+        return new long[]{
+                isRead(notification, readUpTo) ? 0 : -1,
+                Boolean.TRUE.equals(notification.getBoolean("isImportant")) ? -1 : 0
+        };
+    }
+
+    /**
+     * Fields that set the counter to counted values and mark it initialized
+     */
+    static Map<String, Object> initialValues(long unread, long important) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(FIELD_UNREAD, unread);
+        data.put(FIELD_IMPORTANT, important);
+        data.put(FIELD_INITIALIZED, true);
+        return data;
+    }
+
+    private static Map<String, Object> deltas(long unreadDelta, long importantDelta) {
+        Map<String, Object> data = new HashMap<>();
+        if (unreadDelta != 0) {
+            data.put(FIELD_UNREAD, FieldValue.increment(unreadDelta));
+        }
+        if (importantDelta != 0) {
+            data.put(FIELD_IMPORTANT, FieldValue.increment(importantDelta));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Marks every notification of a user read.
+ * <p>
+ * {@link #markAll} queries the unread notifications once and marks them in transactions
+ * of {@link #DOCS_PER_TRANSACTION}, with at most {@link #MAX_CONCURRENT_COMMITS} in
+ * flight. Each transaction re-reads its notifications and only marks, and only lowers
+ * the user's {@link InboxCounts} for, the ones still unread, so a notification marked
+ * read elsewhere since the query isn't subtracted twice. A failed transaction doesn't
+ * stop the others; the result says how many were marked and how many weren't.
+ * <p>
+ * {@link #markUpTo} instead moves the user's read watermark to the server's commit time
+ * and zeroes the unread count in a single write, leaving the notification documents
+ * untouched. Readers treat anything sent at or before the watermark as read.
+ */
+public class InboxReadMarker {
+
+    private static final String TAG = "InboxReadMarker";
+    private static final String COLLECTION_NOTIFICATIONS = "notifications";
+    // Transaction reads are one round trip each, so chunks are kept well under the
+    // 500-write limit (one write is the counter)
+    static final int DOCS_PER_TRANSACTION = 100;
+    static final int MAX_CONCURRENT_COMMITS = 3;
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Counts for one mark-all run
+     */
+    public static class Result {
+        private int unread;
+        private int marked;
+        private int skipped;
+        private int failed;
+        private final List<String> markedIds = new ArrayList<>();
+
+        public int getUnread() {
+            return unread;
+        }
+
+        public int getMarked() {
+            return marked;
+        }
+
+        /**
+         * @return notifications already read or deleted by the time they were marked
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return IDs of the notifications that were marked read
+         */
+        public List<String> getMarkedIds() {
+            return markedIds;
+        }
+
+        @Override
+        public String toString() {
+            return "unread=" + unread + ", marked=" + marked + ", skipped=" + skipped
+                    + ", failed=" + failed;
+        }
+    }
+
+    /**
+     * Callback for a mark-all run; called once every batch has finished
+     */
+    public interface MarkCallback {
+        void onComplete(Result result);
+        void onError(String error);
+    }
+
+    InboxReadMarker(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Sets isRead on each of the user's unread notifications.
+     *
+     * @param userId   The user whose inbox to mark
+     * @param callback Called with the counts once every batch has finished, or with an
+     *                 error if the unread notifications couldn't be read
+     */
+    public void markAll(String userId, MarkCallback callback) {
+        DocumentReference countsRef = InboxCounts.ref(db, userId);
+        Task<DocumentSnapshot> counter = countsRef.get();
+        Task<QuerySnapshot> unread = db.collection(COLLECTION_NOTIFICATIONS)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("isRead", false)
+                .get();
+
+        Tasks.whenAllSuccess(counter, unread)
+            .addOnSuccessListener(results -> {
+                long readUpTo = InboxCounts.readUpTo(counter.getResult());
+                List<DocumentSnapshot> docs = unread.getResult().getDocuments();
+                Result result = new Result();
+                result.unread = docs.size();
+                Log.d(TAG, "Marking " + docs.size() + " notifications read for " + userId);
+                commitAll(docs, countsRef, readUpTo, result)
+                    .addOnCompleteListener(task -> {
+                        Log.d(TAG, "Mark-all complete: " + result);
+                        callback.onComplete(result);
+                    });
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error loading unread notifications", e);
+                callback.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * Marks the notifications in transactions, keeping at most MAX_CONCURRENT_COMMITS in
+     * flight. Completes once every transaction has finished; failed ones are counted, not
+     * retried.
+     */
+    private Task<Void> commitAll(List<DocumentSnapshot> docs, DocumentReference countsRef,
+                                 long readUpTo, Result result) {
+        List<List<DocumentReference>> chunks = chunk(docs, DOCS_PER_TRANSACTION);
+        if (chunks.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+
+        TaskCompletionSource<Void> done = new TaskCompletionSource<>();
+        int[] next = {0};
+        int[] remaining = {chunks.size()};
+
+        Runnable[] startNext = new Runnable[1];
+        startNext[0] = () -> {
+            int index;
+            synchronized (next) {
+                if (next[0] >= chunks.size()) {
+                    return;
+                }
+                index = next[0]++;
+            }
+            List<DocumentReference> chunk = chunks.get(index);
+            db.runTransaction(transaction -> markChunk(transaction, chunk, countsRef, readUpTo))
+                .addOnCompleteListener(task -> {
+                    boolean finished;
+                    synchronized (next) {
+                        if (!task.isSuccessful()) {
+                            Log.e(TAG, "Error marking " + chunk.size() + " notifications read", task.getException());
+                        }
+                        record(result, chunk.size(), task.isSuccessful() ? task.getResult() : null);
+                        finished = --remaining[0] == 0;
+                    }
+                    if (finished) {
+                        done.setResult(null);
+                    } else {
+                        startNext[0].run();
+                    }
+                });
+        };
+
+        for (int i = 0; i < Math.min(MAX_CONCURRENT_COMMITS, chunks.size()); i++) {
+            startNext[0].run();
+        }
+        return done.getTask();
+    }
+
+    /**
+     * @return the documents' references in chunks of at most size
+     */
+    static List<List<DocumentReference>> chunk(List<DocumentSnapshot> docs, int size) {
+        List<List<DocumentReference>> chunks = new ArrayList<>();
+        for (int i = 0; i < docs.size(); i += size) {
+            List<DocumentReference> chunk = new ArrayList<>();
+            for (DocumentSnapshot doc : docs.subList(i, Math.min(i + size, docs.size()))) {
+                chunk.add(doc.getReference());
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Marks one chunk read inside a transaction. The notifications are read again first:
+     * ones already read or deleted are left alone, and the unread count only drops for
+     * those that were unread (isRead false and sent after the watermark) until now.
+     *
+     * @return IDs of the notifications this transaction marked read
+     */
+    static List<String> markChunk(Transaction transaction, List<DocumentReference> refs,
+                                  DocumentReference countsRef, long readUpTo)
+            throws FirebaseFirestoreException {
+        List<DocumentSnapshot> current = new ArrayList<>(refs.size());
+        for (DocumentReference ref : refs) {
+            current.add(transaction.get(ref));
+        }
+
+        List<String> marked = new ArrayList<>();
+        int counted = 0;
+        for (DocumentSnapshot doc : current) {
+            if (!doc.exists() || Boolean.TRUE.equals(doc.getBoolean("isRead"))) {
+                continue;
+            }
+            if (!InboxCounts.isRead(doc, readUpTo)) {
+                counted++;
+            }
+            transaction.update(doc.getReference(), "isRead", true);
+            marked.add(doc.getId());
+        }
+        InboxCounts.stage(transaction, countsRef, -counted, 0);
+        return marked;
+    }
+
+    /**
+     * Adds a finished chunk to the result
+     *
+     * @param marked IDs the chunk marked read, or null if its transaction failed
+     */
+    static void record(Result result, int chunkSize, List<String> marked) {
+        if (marked == null) {
+            result.failed += chunkSize;
+            return;
+        }
+        result.marked += marked.size();
+        result.skipped += chunkSize - marked.size();
+        result.markedIds.addAll(marked);
+    }
+
+    /**
+     * Moves the user's read watermark to now and zeroes the unread count in one write.
+     * The counter should be initialized first, or the zeroed count would later be
+     * recounted from the documents. The watermark is the write's server timestamp, the
+     * same clock as each notification's sentAt: a notification whose unread increment
+     * commits after the zeroing is also stamped after the watermark, so it shows as unread
+     * and is counted once.
+     *
+     * @param userId The user whose inbox to mark
+     * @return Task that completes once the watermark is written
+     */
+    public Task<Void> markUpTo(String userId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(InboxCounts.FIELD_READ_UP_TO, FieldValue.serverTimestamp());
+        data.put(InboxCounts.FIELD_UNREAD, 0);
+        return InboxCounts.ref(db, userId).set(data, SetOptions.merge())
+            .addOnSuccessListener(aVoid -> Log.d(TAG, "Read watermark for " + userId + " moved"));
+    }
+}
@@ -0,0 +1,610 @@
+package com.example.cmpuzz_events.service;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.EventSummary;
+import com.example.cmpuzz_events.models.notification.Notification;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * On-device SQLite copy of the events catalogue and the signed-in user's notifications,
+ * so list screens can draw straight away (and offline) while Firestore refreshes them.
+ * <p>
+ * Events are stored as summary rows plus their waitlist and attendee IDs, with a
+ * participants table for "my events" lookups and an FTS4 table over title and
+ * description for search. {@link OfflineSync} fills the store incrementally and
+ * screens write through what they fetch. All database work runs on one background
+ * thread; results are delivered on the main thread.
+ */
+public class LocalStore extends SQLiteOpenHelper {
+
+    private static final String TAG = "LocalStore";
+    private static final String DB_NAME = "cmpuzz_local.db";
+    private static final int DB_VERSION = 3;
+
+    private static final String EVENT_COLUMNS = "e.event_id, e.title, e.description, e.organizer_id, "
+            + "e.organizer_name, e.capacity, e.max_entrants, e.registration_start, e.registration_end, "
+            + "e.geolocation_required, e.poster_url, e.price, e.entrant_count, e.is_full, "
+            + "e.selections_finalized, e.waitlist, e.attendees, "
+            + "e.waitlist_count, e.invited_count, e.attendee_count, e.created_at";
+
+    private static LocalStore instance;
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private LocalStore(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    /**
+     * Open the store; call once from the launching activity
+     */
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new LocalStore(context);
+        }
+    }
+
+    /**
+     * Get singleton instance
+     *
+     * @throws IllegalStateException if {@link #init(Context)} has not been called
+     */
+    public static synchronized LocalStore getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("LocalStore.init must be called first");
+        }
+        return instance;
+    }
+
+    /**
+     * @return true once {@link #init(Context)} has been called
+     */
+    public static synchronized boolean isInitialized() {
+        return instance != null;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE events ("
+                + "_id INTEGER PRIMARY KEY, "
+                + "event_id TEXT NOT NULL UNIQUE, "
+                + "title TEXT, description TEXT, organizer_id TEXT, organizer_name TEXT, "
+                + "capacity INTEGER, max_entrants INTEGER, "
+                + "registration_start INTEGER, registration_end INTEGER, "
+                + "geolocation_required INTEGER, poster_url TEXT, price REAL, "
+                + "entrant_count INTEGER, is_full INTEGER, selections_finalized INTEGER, "
+                + "waitlist_count INTEGER, invited_count INTEGER, attendee_count INTEGER, "
+                + "waitlist TEXT, attendees TEXT, "
+                + "created_at INTEGER, updated_at INTEGER)");
+        db.execSQL("CREATE INDEX events_created ON events (created_at DESC)");
+        db.execSQL("CREATE INDEX events_full_created ON events (is_full, created_at DESC)");
+
+        db.execSQL("CREATE TABLE event_participants ("
+                + "user_id TEXT NOT NULL, event_id TEXT NOT NULL, "
+                + "PRIMARY KEY (user_id, event_id))");
+        db.execSQL("CREATE INDEX participants_event ON event_participants (event_id)");
+
+        // docid is the events row's _id
+        db.execSQL("CREATE VIRTUAL TABLE events_fts USING fts4(title, description)");
+
+        db.execSQL("CREATE TABLE notifications ("
+                + "notification_id TEXT PRIMARY KEY, user_id TEXT NOT NULL, "
+                + "event_id TEXT, event_name TEXT, type TEXT, title TEXT, message TEXT, "
+                + "timestamp INTEGER, is_read INTEGER, is_important INTEGER)");
+        db.execSQL("CREATE INDEX notifications_user_time ON notifications (user_id, timestamp DESC)");
+
+        db.execSQL("CREATE TABLE sync_state (name TEXT PRIMARY KEY, value INTEGER, doc_id TEXT)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Everything here is a cache of Firestore, so start over and let sync refill it
+        db.execSQL("DROP TABLE IF EXISTS events");
+        db.execSQL("DROP TABLE IF EXISTS event_participants");
+        db.execSQL("DROP TABLE IF EXISTS events_fts");
+        db.execSQL("DROP TABLE IF EXISTS notifications");
+        db.execSQL("DROP TABLE IF EXISTS sync_state");
+        onCreate(db);
+    }
+
+    // ----- Events -----
+
+    /**
+     * Store or replace events (write-through after a Firestore read)
+     *
+     * @param events hydrated events
+     */
+    public void putEvents(Collection<EventEntity> events) {
+        List<EventEntity> copy = new ArrayList<>(events);
+        io.execute(() -> {
+            try {
+                storeEvents(copy, null, null, null);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error storing events", e);
+            }
+        });
+    }
+
+    /**
+     * Store events from a sync page, drop the events it found deleted, and advance that
+     * sync's watermark in the same transaction, so an interrupted sync never skips changes.
+     * If the write fails nothing is stored and the watermark stays where it was.
+     *
+     * @param removedIds events deleted or being deleted
+     * @param callback   Called on the main thread once written, or with the error
+     */
+    void writeEvents(List<EventEntity> events, List<String> removedIds, String watermarkName,
+                     Watermark watermark, IEventService.VoidCallback callback) {
+        io.execute(() -> {
+            try {
+                storeEvents(events, removedIds, watermarkName, watermark);
+                mainHandler.post(callback::onSuccess);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error storing events", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
+
+    private void storeEvents(List<EventEntity> events, List<String> removedIds,
+                             String watermarkName, Watermark watermark) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (EventEntity event : events) {
+                upsertEvent(db, event);
+            }
+            if (removedIds != null) {
+                for (String eventId : removedIds) {
+                    deleteEvent(db, eventId);
+                }
+            }
+            if (watermarkName != null) {
+                putWatermark(db, watermarkName, watermark);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void upsertEvent(SQLiteDatabase db, EventEntity event) {
+        ContentValues values = new ContentValues();
+        values.put("event_id", event.getEventId());
+        values.put("title", event.getTitle());
+        values.put("description", event.getDescription());
+        values.put("organizer_id", event.getOrganizerId());
+        values.put("organizer_name", event.getOrganizerName());
+        values.put("capacity", event.getCapacity());
+        values.put("max_entrants", event.getMaxEntrants());
+        values.put("registration_start", millis(event.getRegistrationStart()));
+        values.put("registration_end", millis(event.getRegistrationEnd()));
+        values.put("geolocation_required", event.isGeolocationRequired() ? 1 : 0);
+        values.put("poster_url", event.getPosterUrl());
+        values.put("price", event.getPrice());
+        values.put("entrant_count", event.getEntrantCount());
+        values.put("waitlist_count", event.getWaitlistCount());
+        values.put("invited_count", event.getInvitedCount());
+        values.put("attendee_count", event.getAttendeeCount());
+        values.put("is_full", event.isFull() ? 1 : 0);
+        values.put("selections_finalized", event.isSelectionsFinalized() ? 1 : 0);
+        values.put("waitlist", toJson(event.getWaitlist()));
+        values.put("attendees", toJson(event.getAttendees()));
+        values.put("created_at", millis(event.getCreatedAt()));
+        values.put("updated_at", millis(event.getUpdatedAt()));
+
+        String[] idArg = {event.getEventId()};
+        long rowId = rowIdOf(db, event.getEventId());
+        if (rowId < 0) {
+            rowId = db.insertOrThrow("events", null, values);
+        } else {
+            db.update("events", values, "_id = ?", new String[]{String.valueOf(rowId)});
+        }
+
+        ContentValues text = new ContentValues();
+        text.put("docid", rowId);
+        text.put("title", event.getTitle());
+        text.put("description", event.getDescription());
+        db.delete("events_fts", "docid = ?", new String[]{String.valueOf(rowId)});
+        db.insert("events_fts", null, text);
+
+        db.delete("event_participants", "event_id = ?", idArg);
+        ContentValues participant = new ContentValues();
+        participant.put("event_id", event.getEventId());
+        for (String userId : event.getParticipants()) {
+            participant.put("user_id", userId);
+            db.insertWithOnConflict("event_participants", null, participant, SQLiteDatabase.CONFLICT_IGNORE);
+        }
+    }
+
+    /**
+     * Drop a deleted event
+     */
+    public void removeEvent(String eventId) {
+        io.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                deleteEvent(db, eventId);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    private static void deleteEvent(SQLiteDatabase db, String eventId) {
+        long rowId = rowIdOf(db, eventId);
+        if (rowId >= 0) {
+            db.delete("events_fts", "docid = ?", new String[]{String.valueOf(rowId)});
+        }
+        db.delete("event_participants", "event_id = ?", new String[]{eventId});
+        db.delete("events", "event_id = ?", new String[]{eventId});
+    }
+
+    /**
+     * Load stored events, newest first
+     *
+     * @param full     Only full (true) or not full (false) events, or null for all
+     * @param limit    Maximum rows, or 0 for no limit
+     * @param callback Receives event summaries on the main thread
+     */
+    public void loadEvents(Boolean full, int limit, IEventService.SummaryListCallback callback) {
+        String where = full != null ? " WHERE e.is_full = " + (full ? 1 : 0) : "";
+        query("SELECT " + EVENT_COLUMNS + " FROM events e" + where
+                + " ORDER BY e.created_at DESC" + limitClause(limit), null, callback);
+    }
+
+    /**
+     * Full-text search over stored titles and descriptions; every word of the query
+     * must start a word in the event
+     *
+     * @param text     Text typed by the user
+     * @param limit    Maximum rows, or 0 for no limit
+     * @param callback Receives summaries of matching events on the main thread, newest first
+     */
+    public void searchEvents(String text, int limit, IEventService.SummaryListCallback callback) {
+        String match = toMatchQuery(text);
+        if (match.isEmpty()) {
+            mainHandler.post(() -> callback.onSuccess(new ArrayList<>()));
+            return;
+        }
+        query("SELECT " + EVENT_COLUMNS + " FROM events_fts f JOIN events e ON e._id = f.docid"
+                + " WHERE events_fts MATCH ? ORDER BY e.created_at DESC" + limitClause(limit),
+                new String[]{match}, callback);
+    }
+
+    /**
+     * Load the stored events a user is involved in
+     *
+     * @param userId   The user
+     * @param callback Receives read-only entities on the main thread
+     */
+    public void loadEventsForUser(String userId, IEventService.EventListCallback callback) {
+        io.execute(() -> {
+            List<EventEntity> events = new ArrayList<>();
+            try (Cursor c = getReadableDatabase().rawQuery("SELECT " + EVENT_COLUMNS
+                    + " FROM event_participants p JOIN events e ON e.event_id = p.event_id"
+                    + " WHERE p.user_id = ? ORDER BY e.registration_end DESC", new String[]{userId})) {
+                while (c.moveToNext()) {
+                    events.add(readEntity(c));
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error reading events for user", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+            mainHandler.post(() -> callback.onSuccess(events));
+        });
+    }
+
+    private void query(String sql, String[] args, IEventService.SummaryListCallback callback) {
+        io.execute(() -> {
+            List<EventSummary> events = new ArrayList<>();
+            try (Cursor c = getReadableDatabase().rawQuery(sql, args)) {
+                while (c.moveToNext()) {
+                    events.add(readSummary(c));
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error reading events", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+            mainHandler.post(() -> callback.onSuccess(events));
+        });
+    }
+
+    private static EventSummary readSummary(Cursor c) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", c.getString(0));
+        data.put("title", c.getString(1));
+        data.put("description", c.getString(2));
+        data.put("organizerId", c.getString(3));
+        data.put("organizerName", c.getString(4));
+        data.put("capacity", c.getInt(5));
+        data.put("maxEntrants", c.getInt(6));
+        data.put("registrationStart", date(c, 7));
+        data.put("registrationEnd", date(c, 8));
+        data.put("posterUrl", c.getString(10));
+        data.put("price", c.isNull(11) ? null : c.getDouble(11));
+        data.put("entrantCount", c.getInt(12));
+        data.put("isFull", c.getInt(13) != 0);
+        data.put("selectionsFinalized", c.getInt(14) != 0);
+        data.put("waitlistCount", c.getInt(17));
+        data.put("invitedCount", c.getInt(18));
+        data.put("attendeeCount", c.getInt(19));
+        data.put("createdAt", date(c, 20));
+        return EventSummary.fromMap(data);
+    }
+
+    private static EventEntity readEntity(Cursor c) {
+        EventEntity entity = new EventEntity(c.getString(0), c.getString(1), c.getString(2), c.getInt(5),
+                date(c, 7), date(c, 8), c.getString(3), c.getString(4), c.getInt(9) != 0, c.getInt(6));
+        entity.setPosterUrl(c.getString(10));
+        entity.setPrice(c.isNull(11) ? null : c.getDouble(11));
+        entity.setSelectionsFinalized(c.getInt(14) != 0);
+        entity.setWaitlist(fromJson(c.getString(15)));
+        entity.setAttendees(fromJson(c.getString(16)));
+        return entity;
+    }
+
+    // ----- Notifications -----
+
+    /**
+     * Store a page of notifications loaded from Firestore
+     */
+    public void putNotifications(List<Notification> notifications) {
+        List<Notification> copy = new ArrayList<>(notifications);
+        io.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Notification notification : copy) {
+                    upsertNotification(db, notification);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * Store notifications from a sync page and advance the sync's watermark with them.
+     *
+     * @param callback Called on the main thread once written, or with the error
+     */
+    void writeNotifications(List<Notification> notifications, String watermarkName, Watermark watermark,
+                            IEventService.VoidCallback callback) {
+        io.execute(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Notification notification : notifications) {
+                    upsertNotification(db, notification);
+                }
+                putWatermark(db, watermarkName, watermark);
+                db.setTransactionSuccessful();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error storing notifications", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            } finally {
+                db.endTransaction();
+            }
+            mainHandler.post(callback::onSuccess);
+        });
+    }
+
+    private void upsertNotification(SQLiteDatabase db, Notification notification) {
+        ContentValues values = new ContentValues();
+        values.put("notification_id", notification.getId());
+        values.put("user_id", notification.getUserId());
+        values.put("event_id", notification.getEventId());
+        values.put("event_name", notification.getEventName());
+        values.put("type", notification.getTypeString());
+        values.put("title", notification.getTitle());
+        values.put("message", notification.getMessage());
+        values.put("timestamp", notification.getTimestamp());
+        values.put("is_read", notification.isRead() ? 1 : 0);
+        values.put("is_important", notification.isImportant() ? 1 : 0);
+        db.insertWithOnConflict("notifications", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Mirror a change made to one notification in Firestore
+     *
+     * @param notificationId The notification
+     * @param column         "is_read" or "is_important"
+     * @param value          New flag value
+     */
+    public void setNotificationFlag(String notificationId, String column, boolean value) {
+        io.execute(() -> {
+            ContentValues values = new ContentValues();
+            values.put(column, value ? 1 : 0);
+            getWritableDatabase().update("notifications", values, "notification_id = ?",
+                    new String[]{notificationId});
+        });
+    }
+
+    /**
+     * Mark every stored notification of a user as read
+     */
+    public void markAllNotificationsRead(String userId) {
+        io.execute(() -> {
+            ContentValues values = new ContentValues();
+            values.put("is_read", 1);
+            getWritableDatabase().update("notifications", values, "user_id = ?", new String[]{userId});
+        });
+    }
+
+    /**
+     * Drop a deleted notification
+     */
+    public void removeNotification(String notificationId) {
+        io.execute(() -> getWritableDatabase().delete("notifications", "notification_id = ?",
+                new String[]{notificationId}));
+    }
+
+    /**
+     * Load a user's stored notifications, newest first
+     *
+     * @param callback Receives the notifications on the main thread
+     */
+    public void loadNotifications(String userId, INotificationService.NotificationListCallback callback) {
+        io.execute(() -> {
+            List<Notification> notifications = new ArrayList<>();
+            try (Cursor c = getReadableDatabase().rawQuery("SELECT notification_id, user_id, event_id, "
+                    + "event_name, type, title, message, timestamp, is_read, is_important "
+                    + "FROM notifications WHERE user_id = ? ORDER BY timestamp DESC", new String[]{userId})) {
+                while (c.moveToNext()) {
+                    Notification notification = new Notification();
+                    notification.setId(c.getString(0));
+                    notification.setUserId(c.getString(1));
+                    notification.setEventId(c.getString(2));
+                    notification.setEventName(c.getString(3));
+                    notification.setTypeString(c.getString(4));
+                    notification.setTitle(c.getString(5));
+                    notification.setMessage(c.getString(6));
+                    notification.setTimestamp(c.getLong(7));
+                    notification.setRead(c.getInt(8) != 0);
+                    notification.setImportant(c.getInt(9) != 0);
+                    notifications.add(notification);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error reading notifications", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+            mainHandler.post(() -> callback.onSuccess(notifications));
+        });
+    }
+
+    // ----- Sync state -----
+
+    /**
+     * Where a sync stopped: the server time of the last document it stored, truncated
+     * to milliseconds, and that document's ID. Syncs resume after this pair, so
+     * documents sharing a timestamp are never skipped.
+     */
+    static final class Watermark {
+        final long value;
+        final String docId;
+
+        Watermark(long value, String docId) {
+            this.value = value;
+            this.docId = docId;
+        }
+
+        /**
+         * @return true if the sync never ran
+         */
+        boolean isEmpty() {
+            return docId == null;
+        }
+    }
+
+    /**
+     * Read where a sync stopped (empty if it never ran)
+     *
+     * @param callback Receives the watermark on the main thread
+     */
+    void readWatermark(String name, Consumer<Watermark> callback) {
+        io.execute(() -> {
+            Watermark value;
+            try (Cursor c = getReadableDatabase().rawQuery("SELECT value, doc_id FROM sync_state WHERE name = ?",
+                    new String[]{name})) {
+                value = c.moveToFirst() ? new Watermark(c.getLong(0), c.getString(1)) : new Watermark(0, null);
+            }
+            mainHandler.post(() -> callback.accept(value));
+        });
+    }
+
+    private static void putWatermark(SQLiteDatabase db, String name, Watermark watermark) {
+        ContentValues values = new ContentValues();
+        values.put("name", name);
+        values.put("value", watermark.value);
+        values.put("doc_id", watermark.docId);
+        db.insertWithOnConflict("sync_state", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // ----- Helpers -----
+
+    private static long rowIdOf(SQLiteDatabase db, String eventId) {
+        try (Cursor c = db.rawQuery("SELECT _id FROM events WHERE event_id = ?", new String[]{eventId})) {
+            return c.moveToFirst() ? c.getLong(0) : -1;
+        }
+    }
+
+    /**
+     * Turns typed text into an FTS prefix query: each word becomes "word*", all must match
+     */
+    static String toMatchQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(word).append('*');
+            }
+        }
+        return match.toString();
+    }
+
+    private static String limitClause(int limit) {
+        return limit > 0 ? " LIMIT " + limit : "";
+    }
+
+    private static Long millis(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
+    private static Date date(Cursor c, int column) {
+        return c.isNull(column) ? null : new Date(c.getLong(column));
+    }
+
+    private static String toJson(List<String> ids) {
+        return ids != null ? new JSONArray(ids).toString() : null;
+    }
+
+    private static List<String> fromJson(String json) {
+        List<String> ids = new ArrayList<>();
+        if (json == null) {
+            return ids;
+        }
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                ids.add(array.getString(i));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Corrupt ID list in local store", e);
+        }
+        return ids;
+    }
+}
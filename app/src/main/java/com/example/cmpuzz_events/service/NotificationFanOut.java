@@ -0,0 +1,195 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.notification.Notification;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sends the same notification to many users, e.g. every lottery loser of a draw.
+ * <p>
+ * Recipients who turned notifications off are dropped using the cached {@link OptOutSet},
+ * or their own user documents while it isn't confirmed by the server yet; if neither can
+ * be read everyone is notified. Notification documents are then written in
+ * batches of {@link #USERS_PER_BATCH} recipients, each with its recipient's {@link InboxCounts}
+ * increment, with at most {@link #MAX_CONCURRENT_COMMITS} commits in flight. A draw with
+ * 3,000 losers costs 12 commits instead of 6,000 separate round trips.
+ */
+public class NotificationFanOut {
+
+    private static final String TAG = "NotificationFanOut";
+    private static final String COLLECTION_NOTIFICATIONS = "notifications";
+    static final int MAX_BATCH_WRITES = 500;
+    static final int USERS_PER_BATCH = MAX_BATCH_WRITES / 2; // notification + counter each
+    static final int MAX_CONCURRENT_COMMITS = 3;
+
+    private final FirebaseFirestore db;
+    private final OptOutSet optOuts;
+
+    /**
+     * Counts for one fan-out
+     */
+    public static class Result {
+        private int requested;
+        private int optedOut;
+        private int sent;
+        private int failed;
+
+        public int getRequested() {
+            return requested;
+        }
+
+        public int getOptedOut() {
+            return optedOut;
+        }
+
+        public int getSent() {
+            return sent;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return "requested=" + requested + ", optedOut=" + optedOut
+                    + ", sent=" + sent + ", failed=" + failed;
+        }
+    }
+
+    /**
+     * Callback for a fan-out; called once every batch has finished
+     */
+    public interface FanOutCallback {
+        void onComplete(Result result);
+    }
+
+    NotificationFanOut(FirebaseFirestore db, OptOutSet optOuts) {
+        this.db = db;
+        this.optOuts = optOuts;
+    }
+
+    /**
+     * Writes one notification per user who hasn't turned notifications off.
+     *
+     * @param userIds  Recipients; duplicates get one notification
+     * @param template Notification to send; its user ID is replaced per recipient
+     * @param callback Called with the counts once every batch has finished
+     */
+    public void send(List<String> userIds, Notification template, FanOutCallback callback) {
+        List<String> recipients = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Result result = new Result();
+        result.requested = recipients.size();
+
+        optOuts.optedOutAmong(recipients)
+            .continueWithTask(task -> {
+                List<String> enabled = new ArrayList<>(recipients.size());
+                if (task.isSuccessful()) {
+                    Set<String> optedOut = task.getResult();
+                    for (String userId : recipients) {
+                        if (!optedOut.contains(userId)) {
+                            enabled.add(userId);
+                        }
+                    }
+                } else {
+                    Log.e(TAG, "Error loading notification opt-outs, including everyone", task.getException());
+                    enabled.addAll(recipients);
+                }
+                result.optedOut = recipients.size() - enabled.size();
+                Log.d(TAG, "Sending " + template.getTypeString() + " to " + enabled.size() + "/"
+                        + recipients.size() + " users");
+                return commitAll(enabled, template, result);
+            })
+            .addOnCompleteListener(task -> {
+                Log.d(TAG, "Fan-out complete: " + result);
+                callback.onComplete(result);
+            });
+    }
+
+    /**
+     * Writes the notifications in batches, keeping at most MAX_CONCURRENT_COMMITS in flight.
+     * Completes once every batch has finished; failed batches are counted, not retried.
+     */
+    private Task<Void> commitAll(List<String> userIds, Notification template, Result result) {
+        List<List<String>> chunks = chunk(userIds);
+        if (chunks.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+
+        TaskCompletionSource<Void> done = new TaskCompletionSource<>();
+        int[] next = {0};
+        int[] remaining = {chunks.size()};
+
+        Runnable[] startNext = new Runnable[1];
+        startNext[0] = () -> {
+            int index;
+            synchronized (next) {
+                if (next[0] >= chunks.size()) {
+                    return;
+                }
+                index = next[0]++;
+            }
+            List<String> chunk = chunks.get(index);
+            WriteBatch batch = db.batch();
+            for (String userId : chunk) {
+                Notification notification = new Notification(userId, template.getEventId(),
+                        template.getEventName(), template.getType(), template.getTitle(), template.getMessage());
+                batch.set(db.collection(COLLECTION_NOTIFICATIONS).document(),
+                        NotificationService.toData(notification));
+                InboxCounts.stage(batch, InboxCounts.ref(db, userId), 1, 0);
+            }
+            batch.commit().addOnCompleteListener(task -> {
+                boolean finished;
+                synchronized (next) {
+                    if (!task.isSuccessful()) {
+                        Log.e(TAG, "Error writing " + chunk.size() + " notifications", task.getException());
+                    }
+                    record(result, chunk.size(), task.isSuccessful());
+                    finished = --remaining[0] == 0;
+                }
+                if (finished) {
+                    done.setResult(null);
+                } else {
+                    startNext[0].run();
+                }
+            });
+        };
+
+        for (int i = 0; i < Math.min(MAX_CONCURRENT_COMMITS, chunks.size()); i++) {
+            startNext[0].run();
+        }
+        return done.getTask();
+    }
+
+    /**
+     * @return the recipients in chunks of at most USERS_PER_BATCH
+     */
+    static List<List<String>> chunk(List<String> userIds) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i += USERS_PER_BATCH) {
+            chunks.add(userIds.subList(i, Math.min(i + USERS_PER_BATCH, userIds.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Adds a finished batch to the result; a failed batch sent none of its notifications
+     */
+    static void record(Result result, int chunkSize, boolean committed) {
+        if (committed) {
+            result.sent += chunkSize;
+        } else {
+            result.failed += chunkSize;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.cmpuzz_events.service;
+
+import com.example.cmpuzz_events.models.notification.Notification;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+
+/**
+ * One page of a user's inbox from {@link INotificationService#getNotificationsPage}.
+ * Pass the page back to fetch older notifications; the cursor it carries is the
+ * last document read, so each page costs only its own reads.
+ */
+public class NotificationPage {
+    private final List<Notification> notifications;
+    private final DocumentSnapshot lastDocument;
+    private final boolean hasMore;
+
+    NotificationPage(List<Notification> notifications, DocumentSnapshot lastDocument, boolean hasMore) {
+        this.notifications = notifications;
+        this.lastDocument = lastDocument;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return notifications on this page, newest first
+     */
+    public List<Notification> getNotifications() {
+        return notifications;
+    }
+
+    /**
+     * @return true if there are older notifications after this page
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    DocumentSnapshot getLastDocument() {
+        return lastDocument;
+    }
+}
@@ -4,13 +4,21 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 
+import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.models.notification.Notification;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
 import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
@@ -27,11 +35,17 @@ public class NotificationService implements INotificationService {
     private static final String COLLECTION_NOTIFICATIONS = "notifications";
     
     private final FirebaseFirestore db;
+    private final OptOutSet optOuts;
+    private final NotificationFanOut fanOut;
+    private final InboxReadMarker readMarker;
     private static NotificationService instance;
     private Context context;
     
     private NotificationService() {
         this.db = FirebaseFirestore.getInstance();
+        this.optOuts = new OptOutSet(db);
+        this.fanOut = new NotificationFanOut(db, optOuts);
+        this.readMarker = new InboxReadMarker(db);
     }
     
     public void setContext(Context context) {
@@ -47,21 +61,15 @@ public class NotificationService implements INotificationService {
     
     @Override
     public void sendNotification(Notification notification, VoidCallback callback) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("userId", notification.getUserId());
-        data.put("eventId", notification.getEventId());
-        data.put("eventName", notification.getEventName());
-        data.put("type", notification.getTypeString());
-        data.put("title", notification.getTitle());
-        data.put("message", notification.getMessage());
-        data.put("timestamp", notification.getTimestamp());
-        data.put("isRead", notification.isRead());
-        data.put("isImportant", notification.isImportant());
+        DocumentReference ref = db.collection(COLLECTION_NOTIFICATIONS).document();
+        WriteBatch batch = db.batch();
+        batch.set(ref, toData(notification));
+        stageCounts(batch, notification.getUserId(), notification.isRead() ? 0 : 1,
+                notification.isImportant() ? 1 : 0);
         
-        db.collection(COLLECTION_NOTIFICATIONS)
-            .add(data)
-            .addOnSuccessListener(documentReference -> {
-                Log.d(TAG, "Notification sent: " + documentReference.getId());
+        batch.commit()
+            .addOnSuccessListener(aVoid -> {
+                Log.d(TAG, "Notification sent: " + ref.getId());
                 if (callback != null) {
                     callback.onSuccess();
                 }
@@ -84,140 +92,217 @@ public class NotificationService implements INotificationService {
             return;
         }
         
-        // Filter users based on notification preferences from Firestore
-        filterUsersWithNotificationsEnabledFromFirestore(userIds, enabledUsers -> {
-            if (enabledUsers.isEmpty()) {
-                Log.d(TAG, "No users have notifications enabled");
-                if (callback != null) {
-                    callback.onSuccess(); // Consider it success but no notifications sent
-                }
+        fanOutNotifications(userIds, eventId, eventName, type, result -> {
+            if (callback == null) {
                 return;
             }
-            
-            Log.d(TAG, "Sending notifications to " + enabledUsers.size() + "/" + userIds.size() + " users");
-            
-            String title = generateTitle(type);
-            String message = generateMessage(type, eventName);
-            
-            int[] successCount = {0};
-            int[] errorCount = {0};
-            int totalUsers = enabledUsers.size();
-            
-            for (String userId : enabledUsers) {
-                Notification notification = new Notification(userId, eventId, eventName, type, title, message);
-                
-                sendNotification(notification, new VoidCallback() {
-                    @Override
-                    public void onSuccess() {
-                        successCount[0]++;
-                        checkCompletion();
-                    }
-                    
-                    @Override
-                    public void onError(String error) {
-                        errorCount[0]++;
-                        checkCompletion();
-                    }
-                    
-                    private void checkCompletion() {
-                        if (successCount[0] + errorCount[0] == totalUsers) {
-                            if (callback != null) {
-                                if (errorCount[0] == 0) {
-                                    callback.onSuccess();
-                                } else {
-                                    callback.onError(errorCount[0] + " notifications failed");
-                                }
-                            }
-                        }
-                    }
-                });
+            if (result.getFailed() == 0) {
+                callback.onSuccess();
+            } else {
+                callback.onError(result.getFailed() + " notifications failed");
             }
         });
     }
     
+    /**
+     * Send notifications to multiple users and report how many were sent, skipped
+     * because the user turned notifications off, or failed to save.
+     * See {@link NotificationFanOut}.
+     */
+    public void fanOutNotifications(List<String> userIds, String eventId, String eventName,
+                                    Notification.NotificationType type,
+                                    NotificationFanOut.FanOutCallback callback) {
+        Notification template = new Notification(null, eventId, eventName, type,
+                generateTitle(type), generateMessage(type, eventName));
+        fanOut.send(userIds, template, callback);
+    }
+    
     @Override
     public void notifyOrganizerOfResponse(String organizerId, String userName, String eventId, 
                                          String eventName, boolean accepted, VoidCallback callback) {
-        // Check if organizer has notifications enabled in Firestore
-        db.collection("users").document(organizerId)
-            .get()
-            .addOnSuccessListener(documentSnapshot -> {
-                boolean notificationsEnabled = documentSnapshot.getBoolean("notificationsEnabled") != null 
-                    ? documentSnapshot.getBoolean("notificationsEnabled") : true;
-                
-                if (!notificationsEnabled) {
+        String title = accepted ? "Invitation Accepted" : "Invitation Declined";
+        String message = userName + " has " + (accepted ? "accepted" : "declined") + 
+                        " the invitation to \"" + eventName + "\"";
+        
+        Notification.NotificationType type = accepted ? 
+                                            Notification.NotificationType.ACCEPTED : 
+                                            Notification.NotificationType.DECLINED;
+        
+        Notification notification = new Notification(organizerId, eventId, eventName, type, title, message);
+        
+        // Check the cached opt-outs; the profile is only read until they are confirmed
+        optOuts.optedOutAmong(Collections.singletonList(organizerId))
+            .addOnSuccessListener(optedOut -> {
+                if (optedOut.contains(organizerId)) {
                     Log.d(TAG, "Organizer has notifications disabled, skipping");
                     if (callback != null) {
                         callback.onSuccess();
                     }
                     return;
                 }
-                
-                String title = accepted ? "Invitation Accepted" : "Invitation Declined";
-                String message = userName + " has " + (accepted ? "accepted" : "declined") + 
-                                " the invitation to \"" + eventName + "\"";
-                
-                Notification.NotificationType type = accepted ? 
-                                                    Notification.NotificationType.ACCEPTED : 
-                                                    Notification.NotificationType.DECLINED;
-                
-                Notification notification = new Notification(organizerId, eventId, eventName, type, title, message);
                 sendNotification(notification, callback);
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Error checking organizer notification preference, sending anyway", e);
                 // Send notification on error (fail-safe)
-                String title = accepted ? "Invitation Accepted" : "Invitation Declined";
-                String message = userName + " has " + (accepted ? "accepted" : "declined") + 
-                                " the invitation to \"" + eventName + "\"";
-                
-                Notification.NotificationType type = accepted ? 
-                                                    Notification.NotificationType.ACCEPTED : 
-                                                    Notification.NotificationType.DECLINED;
-                
-                Notification notification = new Notification(organizerId, eventId, eventName, type, title, message);
                 sendNotification(notification, callback);
             });
     }
     
+    /**
+     * Pages are newest first, served by the (userId, timestamp DESC) index. The first page
+     * is one query however long the user's history is; later pages continue after the
+     * last document of the page passed in. The inbox counter is read alongside each page
+     * so notifications under the read watermark come back as read.
+     */
     @Override
-    public void getNotificationsForUser(String userId, NotificationListCallback callback) {
-        db.collection(COLLECTION_NOTIFICATIONS)
-            .whereEqualTo("userId", userId)
-            .orderBy("timestamp", Query.Direction.DESCENDING)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                List<Notification> notifications = new ArrayList<>();
-                queryDocumentSnapshots.forEach(document -> {
-                    Notification notification = new Notification();
-                    notification.setId(document.getId());
-                    notification.setUserId(document.getString("userId"));
-                    notification.setEventId(document.getString("eventId"));
-                    notification.setEventName(document.getString("eventName"));
-                    notification.setTypeString(document.getString("type"));
-                    notification.setTitle(document.getString("title"));
-                    notification.setMessage(document.getString("message"));
-                    
-                    Long timestamp = document.getLong("timestamp");
-                    notification.setTimestamp(timestamp != null ? timestamp : System.currentTimeMillis());
-                    notification.setRead(Boolean.TRUE.equals(document.getBoolean("isRead")));
-                    notification.setImportant(Boolean.TRUE.equals(document.getBoolean("isImportant")));
+    public void getNotificationsPage(String userId, NotificationPage after, int pageSize,
+                                     NotificationPageCallback callback) {
+        Query query = db.collection(COLLECTION_NOTIFICATIONS)
+                .whereEqualTo("userId", userId)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(pageSize + 1);
+        if (after != null && after.getLastDocument() != null) {
+            query = query.startAfter(after.getLastDocument());
+        }
+
+        Task<DocumentSnapshot> counter = InboxCounts.ref(db, userId).get();
+        Task<QuerySnapshot> page = query.get();
+        Tasks.whenAllSuccess(counter, page)
+            .addOnSuccessListener(results -> {
+                long readUpTo = InboxCounts.readUpTo(counter.getResult());
+                List<DocumentSnapshot> docs = page.getResult().getDocuments();
+                boolean hasMore = docs.size() > pageSize;
+                List<DocumentSnapshot> pageDocs = hasMore ? docs.subList(0, pageSize) : docs;
+
+                List<Notification> notifications = new ArrayList<>(pageDocs.size());
+                for (DocumentSnapshot doc : pageDocs) {
+                    Notification notification = documentToNotification(doc);
+                    notification.setRead(InboxCounts.isRead(doc, readUpTo));
                     notifications.add(notification);
-                });
-                
-                Log.d(TAG, "Loaded " + notifications.size() + " notifications for user");
+                }
+                DocumentSnapshot last = pageDocs.isEmpty() ? null : pageDocs.get(pageDocs.size() - 1);
+                Log.d(TAG, "Loaded page of " + notifications.size() + " notifications, more: " + hasMore);
+                if (LocalStore.isInitialized()) {
+                    LocalStore.getInstance().putNotifications(notifications);
+                }
                 if (callback != null) {
-                    callback.onSuccess(notifications);
+                    callback.onSuccess(new NotificationPage(notifications, last, hasMore));
                 }
             })
             .addOnFailureListener(e -> {
-                Log.e(TAG, "Error loading notifications", e);
+                Log.e(TAG, "Error loading notifications page", e);
                 if (callback != null) {
                     callback.onError(e.getMessage());
                 }
             });
     }
     
+    @Override
+    public void getInboxCounts(String userId, InboxCountsCallback callback) {
+        loadInboxCounts(userId)
+            .addOnSuccessListener(callback::onSuccess)
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error loading inbox counts", e);
+                callback.onError(e.getMessage());
+            });
+    }
+    
+    private Task<InboxCounts> loadInboxCounts(String userId) {
+        return InboxCounts.ref(db, userId).get()
+            .onSuccessTask(doc -> {
+                InboxCounts counts = InboxCounts.fromSnapshot(doc);
+                return counts != null ? Tasks.forResult(counts) : initializeInboxCounts(userId);
+            });
+    }
+    
+    /**
+     * Counts an inbox that has no initialized counter yet with two aggregation queries and
+     * stores the result. Another device may initialize it first, in which case its counts
+     * win. A notification written between the count and the transaction isn't counted.
+     */
+    private Task<InboxCounts> initializeInboxCounts(String userId) {
+        Query inbox = db.collection(COLLECTION_NOTIFICATIONS).whereEqualTo("userId", userId);
+        Task<AggregateQuerySnapshot> unreadCount =
+                inbox.whereEqualTo("isRead", false).count().get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> importantCount =
+                inbox.whereEqualTo("isImportant", true).count().get(AggregateSource.SERVER);
+        
+        return Tasks.whenAllSuccess(unreadCount, importantCount).onSuccessTask(results -> {
+            long unread = unreadCount.getResult().getCount();
+            long important = importantCount.getResult().getCount();
+            DocumentReference ref = InboxCounts.ref(db, userId);
+            return db.runTransaction(transaction -> {
+                InboxCounts existing = InboxCounts.fromSnapshot(transaction.get(ref));
+                if (existing != null) {
+                    return existing;
+                }
+                transaction.set(ref, InboxCounts.initialValues(unread, important), SetOptions.merge());
+                Log.d(TAG, "Initialized inbox counts for " + userId + ": unread=" + unread
+                        + ", important=" + important);
+                return new InboxCounts(unread, important);
+            });
+        });
+    }
+    
+    /**
+     * Reads the user's read watermark inside a transaction, before any of its writes
+     */
+    private long readUpTo(Transaction transaction, String userId) throws FirebaseFirestoreException {
+        return userId != null ? InboxCounts.readUpTo(transaction.get(InboxCounts.ref(db, userId))) : 0;
+    }
+    
+    private void stageCounts(WriteBatch batch, String userId, long unreadDelta, long importantDelta) {
+        if (userId != null) {
+            InboxCounts.stage(batch, InboxCounts.ref(db, userId), unreadDelta, importantDelta);
+        }
+    }
+    
+    private void stageCounts(Transaction transaction, String userId, long unreadDelta, long importantDelta) {
+        if (userId != null) {
+            InboxCounts.stage(transaction, InboxCounts.ref(db, userId), unreadDelta, importantDelta);
+        }
+    }
+    
+    /**
+     * Fields stored for a notification document
+     */
+    static Map<String, Object> toData(Notification notification) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", notification.getUserId());
+        data.put("eventId", notification.getEventId());
+        data.put("eventName", notification.getEventName());
+        data.put("type", notification.getTypeString());
+        data.put("title", notification.getTitle());
+        data.put("message", notification.getMessage());
+        data.put("timestamp", notification.getTimestamp());
+        // Server time of the write, which incremental syncs page on
+        data.put("sentAt", FieldValue.serverTimestamp());
+        data.put("isRead", notification.isRead());
+        data.put("isImportant", notification.isImportant());
+        return data;
+    }
+    
+    /**
+     * Build a notification from its Firestore document
+     */
+    static Notification documentToNotification(DocumentSnapshot document) {
+        Notification notification = new Notification();
+        notification.setId(document.getId());
+        notification.setUserId(document.getString("userId"));
+        notification.setEventId(document.getString("eventId"));
+        notification.setEventName(document.getString("eventName"));
+        notification.setTypeString(document.getString("type"));
+        notification.setTitle(document.getString("title"));
+        notification.setMessage(document.getString("message"));
+
+        Long timestamp = document.getLong("timestamp");
+        notification.setTimestamp(timestamp != null ? timestamp : System.currentTimeMillis());
+        notification.setRead(Boolean.TRUE.equals(document.getBoolean("isRead")));
+        notification.setImportant(Boolean.TRUE.equals(document.getBoolean("isImportant")));
+        return notification;
+    }
+    
     @Override
     public void getAllNotifications(NotificationListCallback callback) {
         db.collection(COLLECTION_NOTIFICATIONS)
@@ -225,22 +310,8 @@ public class NotificationService implements INotificationService {
             .get()
             .addOnSuccessListener(queryDocumentSnapshots -> {
                 List<Notification> notifications = new ArrayList<>();
-                queryDocumentSnapshots.forEach(document -> {
-                    Notification notification = new Notification();
-                    notification.setId(document.getId());
-                    notification.setUserId(document.getString("userId"));
-                    notification.setEventId(document.getString("eventId"));
-                    notification.setEventName(document.getString("eventName"));
-                    notification.setTypeString(document.getString("type"));
-                    notification.setTitle(document.getString("title"));
-                    notification.setMessage(document.getString("message"));
-                    
-                    Long timestamp = document.getLong("timestamp");
-                    notification.setTimestamp(timestamp != null ? timestamp : System.currentTimeMillis());
-                    notification.setRead(Boolean.TRUE.equals(document.getBoolean("isRead")));
-                    notification.setImportant(Boolean.TRUE.equals(document.getBoolean("isImportant")));
-                    notifications.add(notification);
-                });
+                queryDocumentSnapshots.forEach(document ->
+                    notifications.add(documentToNotification(document)));
                 
                 Log.d(TAG, "Loaded " + notifications.size() + " total notifications for admin log");
                 if (callback != null) {
@@ -257,10 +328,27 @@ public class NotificationService implements INotificationService {
     
     @Override
     public void markAsRead(String notificationId, VoidCallback callback) {
-        db.collection(COLLECTION_NOTIFICATIONS)
-            .document(notificationId)
-            .update("isRead", true)
+        DocumentReference ref = db.collection(COLLECTION_NOTIFICATIONS).document(notificationId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref);
+            if (!snapshot.exists()) {
+                throw new FirebaseFirestoreException("Notification not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            // Already read: nothing to write, and the counter must not drop twice
+            if (!Boolean.TRUE.equals(snapshot.getBoolean("isRead"))) {
+                String userId = snapshot.getString("userId");
+                transaction.update(ref, "isRead", true);
+                if (!InboxCounts.isRead(snapshot, readUpTo(transaction, userId))) {
+                    stageCounts(transaction, userId, -1, 0);
+                }
+            }
+            return null;
+        })
             .addOnSuccessListener(aVoid -> {
+                if (LocalStore.isInitialized()) {
+                    LocalStore.getInstance().setNotificationFlag(notificationId, "is_read", true);
+                }
                 if (callback != null) {
                     callback.onSuccess();
                 }
@@ -272,34 +360,62 @@ public class NotificationService implements INotificationService {
             });
     }
     
+    /**
+     * Marks each unread notification in transactions; see {@link InboxReadMarker}. Reports
+     * an error naming how many notifications couldn't be marked if any transaction fails.
+     */
     @Override
     public void markAllAsRead(String userId, VoidCallback callback) {
-        db.collection(COLLECTION_NOTIFICATIONS)
-            .whereEqualTo("userId", userId)
-            .whereEqualTo("isRead", false)
-            .get()
-            .addOnSuccessListener(queryDocumentSnapshots -> {
-                if (queryDocumentSnapshots.isEmpty()) {
-                    if (callback != null) {
-                        callback.onSuccess();
+        readMarker.markAll(userId, new InboxReadMarker.MarkCallback() {
+            @Override
+            public void onComplete(InboxReadMarker.Result result) {
+                if (LocalStore.isInitialized()) {
+                    if (result.getFailed() == 0) {
+                        LocalStore.getInstance().markAllNotificationsRead(userId);
+                    } else {
+                        for (String notificationId : result.getMarkedIds()) {
+                            LocalStore.getInstance().setNotificationFlag(notificationId, "is_read", true);
+                        }
                     }
+                }
+                if (callback == null) {
                     return;
                 }
-                
-                int[] count = {0};
-                int total = queryDocumentSnapshots.size();
-                
-                queryDocumentSnapshots.forEach(document -> {
-                    document.getReference().update("isRead", true)
-                        .addOnCompleteListener(task -> {
-                            count[0]++;
-                            if (count[0] == total && callback != null) {
-                                callback.onSuccess();
-                            }
-                        });
-                });
+                if (result.getFailed() == 0) {
+                    callback.onSuccess();
+                } else {
+                    callback.onError(result.getFailed() + " of " + result.getUnread()
+                            + " notifications could not be marked read");
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                if (callback != null) {
+                    callback.onError(error);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Initializes the inbox counter if needed, then moves the read watermark; see
+     * {@link InboxReadMarker#markUpTo}.
+     */
+    @Override
+    public void markAllAsReadUpToNow(String userId, VoidCallback callback) {
+        loadInboxCounts(userId)
+            .onSuccessTask(counts -> readMarker.markUpTo(userId))
+            .addOnSuccessListener(aVoid -> {
+                if (LocalStore.isInitialized()) {
+                    LocalStore.getInstance().markAllNotificationsRead(userId);
+                }
+                if (callback != null) {
+                    callback.onSuccess();
+                }
             })
             .addOnFailureListener(e -> {
+                Log.e(TAG, "Error moving read watermark", e);
                 if (callback != null) {
                     callback.onError(e.getMessage());
                 }
@@ -308,10 +424,21 @@ public class NotificationService implements INotificationService {
     
     @Override
     public void deleteNotification(String notificationId, VoidCallback callback) {
-        db.collection(COLLECTION_NOTIFICATIONS)
-            .document(notificationId)
-            .delete()
+        DocumentReference ref = db.collection(COLLECTION_NOTIFICATIONS).document(notificationId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref);
+            if (snapshot.exists()) {
+                String userId = snapshot.getString("userId");
+                long[] deltas = InboxCounts.removalDeltas(snapshot, readUpTo(transaction, userId));
+                transaction.delete(ref);
+                stageCounts(transaction, userId, deltas[0], deltas[1]);
+            }
+            return null;
+        })
             .addOnSuccessListener(aVoid -> {
+                if (LocalStore.isInitialized()) {
+                    LocalStore.getInstance().removeNotification(notificationId);
+                }
                 if (callback != null) {
                     callback.onSuccess();
                 }
@@ -345,67 +472,13 @@ public class NotificationService implements INotificationService {
         }
     }
     
-    /**
-     * Filter users who have notifications enabled from Firestore
-     */
-    private void filterUsersWithNotificationsEnabledFromFirestore(List<String> userIds, UserFilterCallback callback) {
-        if (userIds.isEmpty()) {
-            callback.onFiltered(new ArrayList<>());
-            return;
-        }
-        
-        List<String> enabledUsers = Collections.synchronizedList(new ArrayList<>());
-        int[] checkedCount = {0};
-        
-        Log.d(TAG, "Filtering " + userIds.size() + " users for notification preferences");
-        
-        for (String userId : userIds) {
-            db.collection("users").document(userId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    Boolean notifPref = documentSnapshot.getBoolean("notificationsEnabled");
-                    boolean notificationsEnabled = notifPref != null ? notifPref : true;
-                    
-                    Log.d(TAG, "User " + userId + " notifications: " + notificationsEnabled);
-                    
-                    synchronized (enabledUsers) {
-                        if (notificationsEnabled) {
-                            enabledUsers.add(userId);
-                        }
-                        
-                        checkedCount[0]++;
-                        if (checkedCount[0] == userIds.size()) {
-                            Log.d(TAG, "Filtering complete: " + enabledUsers.size() + "/" + userIds.size() + " users have notifications enabled");
-                            callback.onFiltered(new ArrayList<>(enabledUsers));
-                        }
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error checking notification preference for user " + userId + ", including anyway", e);
-                    
-                    synchronized (enabledUsers) {
-                        // Include user on error (fail-safe)
-                        enabledUsers.add(userId);
-                        
-                        checkedCount[0]++;
-                        if (checkedCount[0] == userIds.size()) {
-                            Log.d(TAG, "Filtering complete: " + enabledUsers.size() + "/" + userIds.size() + " users have notifications enabled");
-                            callback.onFiltered(new ArrayList<>(enabledUsers));
-                        }
-                    }
-                });
-        }
-    }
-    
-    /**
-     * Callback for filtering users
-     */
-    private interface UserFilterCallback {
-        void onFiltered(List<String> enabledUserIds);
-    }
-    
     @Override
     public void getNotificationPreference(String userId, NotificationPreferenceCallback callback) {
+        Task<Void> loaded = optOuts.load();
+        if (loaded.isComplete() && loaded.isSuccessful() && optOuts.isCurrent()) {
+            callback.onSuccess(!optOuts.isOptedOut(userId));
+            return;
+        }
         db.collection("users").document(userId)
             .get()
             .addOnSuccessListener(documentSnapshot -> {
@@ -425,6 +498,8 @@ public class NotificationService implements INotificationService {
             .update("notificationsEnabled", enabled)
             .addOnSuccessListener(aVoid -> {
                 Log.d(TAG, "Notification preference updated for user " + userId + ": " + enabled);
+                optOuts.setOptedOut(userId, !enabled);
+                AuthManager.getInstance().getUserDirectory().invalidate(userId);
                 callback.onSuccess();
             })
             .addOnFailureListener(e -> {
@@ -435,11 +510,24 @@ public class NotificationService implements INotificationService {
     
     @Override
     public void updateImportantStatus(String notificationId, boolean isImportant, VoidCallback callback) {
-        db.collection(COLLECTION_NOTIFICATIONS)
-            .document(notificationId)
-            .update("isImportant", isImportant)
+        DocumentReference ref = db.collection(COLLECTION_NOTIFICATIONS).document(notificationId);
+        db.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref);
+            if (!snapshot.exists()) {
+                throw new FirebaseFirestoreException("Notification not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            if (Boolean.TRUE.equals(snapshot.getBoolean("isImportant")) != isImportant) {
+                transaction.update(ref, "isImportant", isImportant);
+                stageCounts(transaction, snapshot.getString("userId"), 0, isImportant ? 1 : -1);
+            }
+            return null;
+        })
             .addOnSuccessListener(aVoid -> {
                 Log.d(TAG, "Notification important status updated: " + notificationId + " = " + isImportant);
+                if (LocalStore.isInitialized()) {
+                    LocalStore.getInstance().setNotificationFlag(notificationId, "is_important", isImportant);
+                }
                 if (callback != null) {
                     callback.onSuccess();
                 }
@@ -0,0 +1,263 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.notification.Notification;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Brings the {@link LocalStore} up to date with Firestore.
+ * Each sync keeps a watermark (events: updatedAt, notifications: sentAt) and only
+ * reads documents after it, a page at a time in ascending order, so a sync after
+ * a short absence costs a handful of reads and an interrupted one resumes where it stopped.
+ * Both fields are server timestamps, so a device with a slow clock can't write under
+ * the watermark, and pages are ordered by (time, document ID) and resumed with
+ * startAfter, so documents sharing a timestamp are never skipped at a page boundary.
+ * <p>
+ * Deleted events are dropped locally in two ways: events still marked deleting come
+ * through the event pages (the mark stamps updatedAt), and events already gone are
+ * read from the tombstones {@link EventDeleter} leaves behind, which have a watermark
+ * of their own. A page that can't be stored stops the sync without advancing its
+ * watermark, so the next sync reads it again.
+ * <p>
+ * Read-state changes are not seen by the incremental sync; screens reconcile those
+ * when they write through a full Firestore result. The same goes for notifications
+ * sent before sentAt was stamped.
+ */
+public class OfflineSync {
+
+    private static final String TAG = "OfflineSync";
+    static final int PAGE_SIZE = 200;
+    private static final String EVENTS_WATERMARK = "events.updatedAt";
+    private static final String TOMBSTONES_WATERMARK = "deleted_events.deletedAt";
+    private static final String NOTIFICATIONS_WATERMARK = "notifications.sentAt.";
+
+    private static OfflineSync instance;
+    private final FirebaseFirestore db;
+    private boolean eventsSyncing;
+
+    private OfflineSync() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized OfflineSync getInstance() {
+        if (instance == null) {
+            instance = new OfflineSync();
+        }
+        return instance;
+    }
+
+    /**
+     * Copies events changed since the last sync into the local store.
+     * Does nothing if a sync is already running.
+     *
+     * @param callback Callback once the store has caught up, or null
+     */
+    public void syncEvents(IEventService.VoidCallback callback) {
+        if (eventsSyncing) {
+            if (callback != null) callback.onSuccess();
+            return;
+        }
+        eventsSyncing = true;
+        LocalStore store = LocalStore.getInstance();
+        store.readWatermark(EVENTS_WATERMARK, since -> {
+            Query query = db.collection("events")
+                .orderBy("updatedAt", Query.Direction.ASCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.ASCENDING)
+                .limit(PAGE_SIZE);
+            syncEventsPage(store, after(query, since), 0, callback);
+        });
+    }
+
+    private void syncEventsPage(LocalStore store, Query query, int synced, IEventService.VoidCallback callback) {
+        query.get()
+            .addOnSuccessListener(snapshot -> {
+                List<DocumentSnapshot> docs = snapshot.getDocuments();
+                if (docs.isEmpty()) {
+                    syncTombstones(store, synced, callback);
+                    return;
+                }
+
+                EventService eventService = EventService.getInstance();
+                List<EventEntity> events = new ArrayList<>(docs.size());
+                List<String> removed = new ArrayList<>();
+                for (DocumentSnapshot doc : docs) {
+                    if (Boolean.TRUE.equals(doc.getBoolean(EventDeleter.FIELD_DELETING))) {
+                        removed.add(doc.getId());
+                    } else {
+                        events.add(eventService.documentToEventEntity(doc));
+                    }
+                }
+
+                DocumentSnapshot last = docs.get(docs.size() - 1);
+                store.writeEvents(events, removed, EVENTS_WATERMARK, watermarkOf(last, "updatedAt"),
+                        new IEventService.VoidCallback() {
+                    @Override
+                    public void onSuccess() {
+                        if (docs.size() < PAGE_SIZE) {
+                            syncTombstones(store, synced + docs.size(), callback);
+                        } else {
+                            syncEventsPage(store, query.startAfter(last), synced + docs.size(), callback);
+                        }
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        failEvents(error, callback);
+                    }
+                });
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error syncing events", e);
+                failEvents(e.getMessage(), callback);
+            });
+    }
+
+    /**
+     * Drops events deleted since the last sync, read from their tombstones.
+     */
+    private void syncTombstones(LocalStore store, int synced, IEventService.VoidCallback callback) {
+        store.readWatermark(TOMBSTONES_WATERMARK, since -> {
+            Query query = db.collection(EventDeleter.COLLECTION_TOMBSTONES)
+                .orderBy("deletedAt", Query.Direction.ASCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.ASCENDING)
+                .limit(PAGE_SIZE);
+            syncTombstonesPage(store, after(query, since), synced, 0, callback);
+        });
+    }
+
+    private void syncTombstonesPage(LocalStore store, Query query, int synced, int removed,
+                                    IEventService.VoidCallback callback) {
+        query.get()
+            .addOnSuccessListener(snapshot -> {
+                List<DocumentSnapshot> docs = snapshot.getDocuments();
+                if (docs.isEmpty()) {
+                    finishEvents(synced, removed, callback);
+                    return;
+                }
+
+                List<String> eventIds = new ArrayList<>(docs.size());
+                for (DocumentSnapshot doc : docs) {
+                    eventIds.add(doc.getId());
+                }
+
+                DocumentSnapshot last = docs.get(docs.size() - 1);
+                store.writeEvents(new ArrayList<>(), eventIds, TOMBSTONES_WATERMARK, watermarkOf(last, "deletedAt"),
+                        new IEventService.VoidCallback() {
+                    @Override
+                    public void onSuccess() {
+                        if (docs.size() < PAGE_SIZE) {
+                            finishEvents(synced, removed + docs.size(), callback);
+                        } else {
+                            syncTombstonesPage(store, query.startAfter(last), synced,
+                                    removed + docs.size(), callback);
+                        }
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        failEvents(error, callback);
+                    }
+                });
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error syncing deleted events", e);
+                failEvents(e.getMessage(), callback);
+            });
+    }
+
+    private void finishEvents(int synced, int removed, IEventService.VoidCallback callback) {
+        Log.d(TAG, "Event sync complete, " + synced + " events updated, " + removed + " deletions applied");
+        eventsSyncing = false;
+        if (callback != null) callback.onSuccess();
+    }
+
+    private void failEvents(String error, IEventService.VoidCallback callback) {
+        eventsSyncing = false;
+        if (callback != null) callback.onError(error);
+    }
+
+    /**
+     * Copies a user's notifications created since the last sync into the local store.
+     *
+     * @param userId   The signed-in user
+     * @param callback Callback once the store has caught up, or null
+     */
+    public void syncNotifications(String userId, IEventService.VoidCallback callback) {
+        LocalStore store = LocalStore.getInstance();
+        store.readWatermark(NOTIFICATIONS_WATERMARK + userId, since -> {
+            Query query = db.collection("notifications")
+                .whereEqualTo("userId", userId)
+                .orderBy("sentAt", Query.Direction.ASCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.ASCENDING)
+                .limit(PAGE_SIZE);
+            syncNotificationsPage(store, userId, after(query, since), callback);
+        });
+    }
+
+    private void syncNotificationsPage(LocalStore store, String userId, Query query,
+                                       IEventService.VoidCallback callback) {
+        query.get()
+            .addOnSuccessListener(snapshot -> {
+                List<DocumentSnapshot> docs = snapshot.getDocuments();
+                if (docs.isEmpty()) {
+                    if (callback != null) callback.onSuccess();
+                    return;
+                }
+
+                List<Notification> notifications = new ArrayList<>(docs.size());
+                for (DocumentSnapshot doc : docs) {
+                    notifications.add(NotificationService.documentToNotification(doc));
+                }
+
+                DocumentSnapshot last = docs.get(docs.size() - 1);
+                store.writeNotifications(notifications, NOTIFICATIONS_WATERMARK + userId,
+                        watermarkOf(last, "sentAt"), new IEventService.VoidCallback() {
+                    @Override
+                    public void onSuccess() {
+                        if (docs.size() < PAGE_SIZE) {
+                            Log.d(TAG, "Notification sync complete for " + userId);
+                            if (callback != null) callback.onSuccess();
+                        } else {
+                            syncNotificationsPage(store, userId, query.startAfter(last), callback);
+                        }
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        if (callback != null) callback.onError(error);
+                    }
+                });
+            })
+            .addOnFailureListener(e -> {
+                Log.e(TAG, "Error syncing notifications", e);
+                if (callback != null) callback.onError(e.getMessage());
+            });
+    }
+
+    /**
+     * Resumes a (time, document ID) ordered query after a stored watermark.
+     * The stored time is truncated to milliseconds, so at worst a few documents
+     * from that same millisecond are read again.
+     */
+    private static Query after(Query query, LocalStore.Watermark since) {
+        return since.isEmpty() ? query : query.startAfter(new Date(since.value), since.docId);
+    }
+
+    private static LocalStore.Watermark watermarkOf(DocumentSnapshot doc, String field) {
+        Timestamp time = doc.getTimestamp(field);
+        return new LocalStore.Watermark(time != null ? time.toDate().getTime() : 0, doc.getId());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory set of the users who turned notifications off.
+ * <p>
+ * Opt-outs are rare and change seldom, so instead of reading each recipient's user
+ * document before every send, one listener follows the users whose notificationsEnabled
+ * is false and keeps their IDs in a hash set. Preference checks are then lookups.
+ * The listener starts on first use; {@link #setOptedOut} applies the signed-in user's own
+ * change straight away instead of waiting for it to come back through the listener.
+ * <p>
+ * The listener's first snapshot may come from the local cache alone, which can be stale or
+ * hold only the opt-outs this device happened to see. Until a snapshot from the server
+ * arrives, {@link #optedOutAmong} reads the recipients' own user documents instead.
+ */
+public class OptOutSet {
+
+    private static final String TAG = "OptOutSet";
+    static final int MAX_IDS_PER_QUERY = 30;
+
+    private final FirebaseFirestore db;
+    private Set<String> optedOut = Collections.emptySet();
+    private ListenerRegistration registration;
+    private TaskCompletionSource<Void> firstLoad;
+    private boolean current;
+
+    OptOutSet(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Starts following opt-outs if needed.
+     *
+     * @return Task completing once the listener's first snapshot arrived, or failing if it
+     * couldn't be started; the set may still be cache-only, see {@link #isCurrent()}
+     */
+    public synchronized Task<Void> load() {
+        if (registration == null) {
+            TaskCompletionSource<Void> loading = new TaskCompletionSource<>();
+            firstLoad = loading;
+            registration = db.collection("users")
+                .whereEqualTo("notificationsEnabled", false)
+                .addSnapshotListener(MetadataChanges.INCLUDE, (snapshot, e) -> {
+                    if (e != null || snapshot == null) {
+                        Log.e(TAG, "Opt-out listener failed, will retry on next use", e);
+                        reset(loading, e != null ? e : new IllegalStateException("No opt-out snapshot"));
+                        return;
+                    }
+                    Set<String> ids = new HashSet<>(snapshot.size() * 4 / 3 + 1);
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        ids.add(doc.getId());
+                    }
+                    boolean fromServer = !snapshot.getMetadata().isFromCache();
+                    synchronized (this) {
+                        optedOut = ids;
+                        current |= fromServer;
+                    }
+                    Log.d(TAG, ids.size() + " users have notifications turned off"
+                            + (fromServer ? "" : " (from cache)"));
+                    loading.trySetResult(null);
+                });
+        }
+        return firstLoad.getTask();
+    }
+
+    private synchronized void reset(TaskCompletionSource<Void> loading, Exception e) {
+        if (firstLoad == loading && registration != null) {
+            registration.remove();
+            registration = null;
+            current = false;
+        }
+        loading.trySetException(e);
+    }
+
+    /**
+     * @return whether the set has been confirmed by the server since the listener started
+     */
+    public synchronized boolean isCurrent() {
+        return current;
+    }
+
+    /**
+     * Finds which of these users turned notifications off. Answered from the set once it is
+     * current; before that the users' documents are read in whereIn(documentId) queries of
+     * up to {@link #MAX_IDS_PER_QUERY} IDs.
+     *
+     * @return Task with the opted-out users among userIds, failing if they couldn't be checked
+     */
+    public Task<Set<String>> optedOutAmong(Collection<String> userIds) {
+        return load().continueWithTask(task -> {
+            if (task.isSuccessful() && isCurrent()) {
+                Set<String> found = new HashSet<>();
+                for (String userId : userIds) {
+                    if (isOptedOut(userId)) {
+                        found.add(userId);
+                    }
+                }
+                return Tasks.forResult(found);
+            }
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Opt-out listener unavailable, reading user documents", task.getException());
+            }
+            return readOptOuts(new ArrayList<>(userIds));
+        });
+    }
+
+    private Task<Set<String>> readOptOuts(List<String> userIds) {
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i += MAX_IDS_PER_QUERY) {
+            List<String> ids = userIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, userIds.size()));
+            reads.add(db.collection("users").whereIn(FieldPath.documentId(), new ArrayList<>(ids)).get());
+        }
+        return Tasks.<QuerySnapshot>whenAllSuccess(reads).continueWith(task -> {
+            Set<String> found = new HashSet<>();
+            for (QuerySnapshot snapshot : task.getResult()) {
+                for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                    if (Boolean.FALSE.equals(doc.getBoolean("notificationsEnabled"))) {
+                        found.add(doc.getId());
+                    }
+                }
+            }
+            return found;
+        });
+    }
+
+    /**
+     * @return whether the user turned notifications off, as of the last update; call
+     * {@link #load()} first and check {@link #isCurrent()} before relying on it
+     */
+    public synchronized boolean isOptedOut(String userId) {
+        return optedOut.contains(userId);
+    }
+
+    /**
+     * Records a preference change made on this device
+     */
+    public synchronized void setOptedOut(String userId, boolean optOut) {
+        Set<String> ids = new HashSet<>(optedOut);
+        if (optOut) {
+            ids.add(userId);
+        } else {
+            ids.remove(userId);
+        }
+        optedOut = ids;
+    }
+}
@@ -4,19 +4,17 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.example.cmpuzz_events.auth.AuthManager;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.FirebaseAuthRecentLoginRequiredException;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.SetOptions;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class ProfileService {
@@ -52,8 +50,8 @@ public class ProfileService {
         }
         base.put("updatedAt", FieldValue.serverTimestamp());
 
-        Task<Void> baseWrite = db.collection("users").document(uid)
-                .set(base, SetOptions.merge());
+        Task<Void> baseWrite = dropCachedUser(uid, db.collection("users").document(uid)
+                .set(base, SetOptions.merge()));
 
         // 2) Email update only if different
         boolean emailChanged = false;
@@ -74,7 +72,7 @@ public class ProfileService {
                     Map<String, Object> up = new HashMap<>();
                     up.put("email", newEmail);
                     up.put("updatedAt", FieldValue.serverTimestamp());
-                    return db.collection("users").document(uid).set(up, SetOptions.merge());
+                    return dropCachedUser(uid, db.collection("users").document(uid).set(up, SetOptions.merge()));
                 })
                 .addOnFailureListener(e -> {
                     // Let caller decide whether to re-auth or show message
@@ -114,10 +112,10 @@ public class ProfileService {
         }
         
         // First, remove user from all event lists
-        return removeUserFromAllEvents(uid)
+        return new AccountPurge(db).purge(uid, false)
                 .onSuccessTask(v -> {
                     // Then delete user document from Firestore
-                    return db.collection("users").document(uid).delete();
+                    return dropCachedUser(uid, db.collection("users").document(uid).delete());
                 })
                 .onSuccessTask(v -> {
                     // Finally delete from Firebase Auth (this removes email and everything)
@@ -125,93 +123,6 @@ public class ProfileService {
                 });
     }
     
-    /**
-     * Removes the user from all event lists they're in:
-     * - waitlist
-     * - declined
-     * - attendees
-     * - invitations
-     */
-    private Task<Void> removeUserFromAllEvents(String uid) {
-        return db.collection("events")
-                .get()
-                .onSuccessTask(querySnapshot -> {
-                    List<Task<Void>> updateTasks = new ArrayList<>();
-                    
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        boolean needsUpdate = false;
-                        Map<String, Object> updates = new HashMap<>();
-                        
-                        // Check and remove from waitlist
-                        List<String> waitlist = (List<String>) doc.get("waitlist");
-                        if (waitlist != null && waitlist.contains(uid)) {
-                            waitlist = new ArrayList<>(waitlist);
-                            waitlist.remove(uid);
-                            updates.put("waitlist", waitlist);
-                            needsUpdate = true;
-                            Log.d(TAG, "Removing user from waitlist of event: " + doc.getId());
-                        }
-                        
-                        // Check and remove from declined
-                        List<String> declined = (List<String>) doc.get("declined");
-                        if (declined != null && declined.contains(uid)) {
-                            declined = new ArrayList<>(declined);
-                            declined.remove(uid);
-                            updates.put("declined", declined);
-                            needsUpdate = true;
-                            Log.d(TAG, "Removing user from declined of event: " + doc.getId());
-                        }
-                        
-                        // Check and remove from attendees
-                        List<String> attendees = (List<String>) doc.get("attendees");
-                        if (attendees != null && attendees.contains(uid)) {
-                            attendees = new ArrayList<>(attendees);
-                            attendees.remove(uid);
-                            updates.put("attendees", attendees);
-                            needsUpdate = true;
-                            Log.d(TAG, "Removing user from attendees of event: " + doc.getId());
-                        }
-                        
-                        // Check and remove from invitations
-                        List<Map<String, Object>> invitations = (List<Map<String, Object>>) doc.get("invitations");
-                        if (invitations != null) {
-                            List<Map<String, Object>> updatedInvitations = new ArrayList<>();
-                            boolean foundInInvitations = false;
-                            
-                            for (Map<String, Object> invMap : invitations) {
-                                String invUserId = (String) invMap.get("userId");
-                                if (!uid.equals(invUserId)) {
-                                    updatedInvitations.add(invMap);
-                                } else {
-                                    foundInInvitations = true;
-                                }
-                            }
-                            
-                            if (foundInInvitations) {
-                                updates.put("invitations", updatedInvitations);
-                                needsUpdate = true;
-                                Log.d(TAG, "Removing user from invitations of event: " + doc.getId());
-                            }
-                        }
-                        
-                        // If any list contained the user, update the document
-                        if (needsUpdate) {
-                            Task<Void> updateTask = doc.getReference().update(updates);
-                            updateTasks.add(updateTask);
-                        }
-                    }
-                    
-                    // Wait for all updates to complete
-                    if (updateTasks.isEmpty()) {
-                        Log.d(TAG, "User not found in any event lists");
-                        return Tasks.forResult(null);
-                    }
-                    
-                    Log.d(TAG, "Updating " + updateTasks.size() + " events to remove user");
-                    return Tasks.whenAll(updateTasks);
-                });
-    }
-
     public Task<String> getDisplayNameById(String userId) {
         return db.collection("users").document(userId).get()
                 .onSuccessTask(documentSnapshot -> {
@@ -236,7 +147,16 @@ public class ProfileService {
         updates.put("profileImageUrl", profileImageUrl);
         updates.put("updatedAt", FieldValue.serverTimestamp());
         
-        return db.collection("users").document(uid)
-                .set(updates, SetOptions.merge());
+        return dropCachedUser(uid, db.collection("users").document(uid)
+                .set(updates, SetOptions.merge()));
+    }
+
+    /**
+     * Drops the user from the directory cache once a write to their profile lands,
+     * so entrant lists don't keep showing the old profile until the entry expires.
+     */
+    private static Task<Void> dropCachedUser(String uid, Task<Void> write) {
+        write.addOnSuccessListener(v -> AuthManager.getInstance().getUserDirectory().invalidate(uid));
+        return write;
     }
 }
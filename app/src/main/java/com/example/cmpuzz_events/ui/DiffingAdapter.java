@@ -0,0 +1,139 @@
+package com.example.cmpuzz_events.ui;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Base for list adapters that update by diffing instead of {@code notifyDataSetChanged()}.
+ * Each submitted item is keyed (event ID, notification ID, user ID) and snapshotted as the
+ * value its row shows; {@link AsyncListDiffer} compares the snapshots on a background thread
+ * and only rows that were added, moved, removed or changed are rebound.
+ * <p>
+ * Snapshots are taken on submit, so an item changed in place (say, marked read) is still
+ * seen as changed when the list is submitted again. Row IDs are stable per key, so the
+ * RecyclerView keeps views and animations across updates.
+ *
+ * @param <T>  item type
+ * @param <VH> view holder type
+ */
+public abstract class DiffingAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    /**
+     * An item with its key and content as they were when the list was submitted
+     */
+    private static final class Row<T> {
+        final T item;
+        final String key;
+        final Object content;
+
+        Row(T item, String key, Object content) {
+            this.item = item;
+            this.key = key;
+            this.content = content;
+        }
+    }
+
+    private static final DiffUtil.ItemCallback<Row<?>> ROW_CALLBACK = new DiffUtil.ItemCallback<Row<?>>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Row<?> oldRow, @NonNull Row<?> newRow) {
+            return oldRow.key.equals(newRow.key);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Row<?> oldRow, @NonNull Row<?> newRow) {
+            return Objects.equals(oldRow.content, newRow.content);
+        }
+    };
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final AsyncListDiffer<Row<T>> differ =
+            new AsyncListDiffer<>(this, (DiffUtil.ItemCallback) ROW_CALLBACK);
+    private final Map<String, Long> stableIds = new HashMap<>();
+
+    protected DiffingAdapter() {
+        setHasStableIds(true);
+    }
+
+    /**
+     * @return the ID that identifies this item across updates
+     */
+    protected abstract String getItemKey(@NonNull T item);
+
+    /**
+     * @return a value-comparable snapshot of everything the item's row displays
+     */
+    protected abstract Object getItemContent(@NonNull T item);
+
+    /**
+     * Show a new list; the diff runs in the background and rows update once it is done.
+     * The list is copied, so callers may keep changing theirs.
+     *
+     * @param items items to show, or null for none
+     */
+    public void submitList(List<T> items) {
+        if (items == null || items.isEmpty()) {
+            differ.submitList(null);
+            return;
+        }
+        List<Row<T>> rows = new ArrayList<>(items.size());
+        for (T item : items) {
+            String key = getItemKey(item);
+            if (key == null) {
+                key = "@" + System.identityHashCode(item); // unsaved item, only itself matches
+            }
+            rows.add(new Row<>(item, key, getItemContent(item)));
+        }
+        differ.submitList(rows);
+    }
+
+    /**
+     * Resubmit the current items, rebinding those whose content has changed in place
+     */
+    public void refresh() {
+        submitList(getCurrentList());
+    }
+
+    /**
+     * @return the items being shown, in order
+     */
+    public List<T> getCurrentList() {
+        List<Row<T>> rows = differ.getCurrentList();
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> items = new ArrayList<>(rows.size());
+        for (Row<T> row : rows) {
+            items.add(row.item);
+        }
+        return items;
+    }
+
+    protected T getItem(int position) {
+        return differ.getCurrentList().get(position).item;
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String key = differ.getCurrentList().get(position).key;
+        Long id = stableIds.get(key);
+        if (id == null) {
+            id = (long) stableIds.size();
+            stableIds.put(key, id);
+        }
+        return id;
+    }
+}
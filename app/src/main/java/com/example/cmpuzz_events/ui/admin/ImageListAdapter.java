@@ -12,12 +12,13 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.cmpuzz_events.R;
+import com.example.cmpuzz_events.ui.DiffingAdapter;
 
+import java.util.Arrays;
 import java.util.List;
 
-public class ImageListAdapter extends RecyclerView.Adapter<ImageListAdapter.ImageViewHolder> {
+public class ImageListAdapter extends DiffingAdapter<ImageItem, ImageListAdapter.ImageViewHolder> {
     
-    private List<ImageItem> imageItems;
     private OnImageActionListener listener;
     
     public interface OnImageActionListener {
@@ -25,7 +26,7 @@ public class ImageListAdapter extends RecyclerView.Adapter<ImageListAdapter.Imag
     }
     
     public ImageListAdapter(List<ImageItem> imageItems) {
-        this.imageItems = imageItems;
+        submitList(imageItems);
     }
     
     public void setOnImageActionListener(OnImageActionListener listener) {
@@ -33,8 +34,18 @@ public class ImageListAdapter extends RecyclerView.Adapter<ImageListAdapter.Imag
     }
     
     public void updateImages(List<ImageItem> newImages) {
-        this.imageItems = newImages;
-        notifyDataSetChanged();
+        submitList(newImages);
+    }
+    
+    @Override
+    protected String getItemKey(@NonNull ImageItem imageItem) {
+        // Storage path when known; URLs carry a download token that can change
+        return imageItem.getReference() != null ? imageItem.getReference().getPath() : imageItem.getUrl();
+    }
+    
+    @Override
+    protected Object getItemContent(@NonNull ImageItem imageItem) {
+        return Arrays.asList(imageItem.getName(), imageItem.getUrl());
     }
     
     @NonNull
@@ -47,7 +58,7 @@ public class ImageListAdapter extends RecyclerView.Adapter<ImageListAdapter.Imag
     
     @Override
     public void onBindViewHolder(@NonNull ImageViewHolder holder, int position) {
-        ImageItem imageItem = imageItems.get(position);
+        ImageItem imageItem = getItem(position);
         
         // Load image using Glide with optimizations
         Glide.with(holder.itemView.getContext())
@@ -67,11 +78,6 @@ public class ImageListAdapter extends RecyclerView.Adapter<ImageListAdapter.Imag
         });
     }
     
-    @Override
-    public int getItemCount() {
-        return imageItems.size();
-    }
-    
     static class ImageViewHolder extends RecyclerView.ViewHolder {
         ImageView imageView;
         TextView tvImageName;
@@ -14,7 +14,9 @@ import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.models.event.EventEntity;
 import com.example.cmpuzz_events.models.notification.Notification;
 import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.ui.DiffingAdapter;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,9 +27,8 @@ import java.util.Set;
  * Shows organizer name, recipient name, event name, notification type, and timestamp.
  * Supports starring notifications as important.
  */
-public class NotificationLogAdapter extends RecyclerView.Adapter<NotificationLogAdapter.LogEntryViewHolder> {
+public class NotificationLogAdapter extends DiffingAdapter<Notification, NotificationLogAdapter.LogEntryViewHolder> {
     
-    private List<Notification> notifications;
     private Map<String, EventEntity> eventCache;
     private Map<String, User> userCache;
     private Set<String> starredNotificationIds;
@@ -38,30 +39,42 @@ public class NotificationLogAdapter extends RecyclerView.Adapter<NotificationLog
     }
     
     public NotificationLogAdapter(List<Notification> notifications) {
-        this.notifications = notifications;
         this.eventCache = new HashMap<>();
         this.userCache = new HashMap<>();
         this.starredNotificationIds = new java.util.HashSet<>();
+        submitList(notifications);
     }
     
     public void setNotifications(List<Notification> notifications, 
                                   Map<String, EventEntity> eventCache,
                                   Map<String, User> userCache) {
-        this.notifications = notifications;
         this.eventCache = eventCache;
         this.userCache = userCache;
-        notifyDataSetChanged();
+        submitList(notifications);
     }
     
     public void setStarredNotificationIds(Set<String> starredIds) {
         this.starredNotificationIds = starredIds != null ? starredIds : new java.util.HashSet<>();
-        notifyDataSetChanged();
+        refresh(); // stars are set on the notifications in place
     }
     
     public void setOnStarClickListener(OnStarClickListener listener) {
         this.starClickListener = listener;
     }
     
+    @Override
+    protected String getItemKey(@NonNull Notification notification) {
+        return notification.getId();
+    }
+    
+    @Override
+    protected Object getItemContent(@NonNull Notification notification) {
+        return Arrays.asList(notification.isImportant(),
+                organizerName(notification, eventCache), recipientName(notification, userCache),
+                notification.getEventName(), notification.getType(), notification.getMessage(),
+                notification.getTimestamp());
+    }
+    
     @NonNull
     @Override
     public LogEntryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -72,15 +85,34 @@ public class NotificationLogAdapter extends RecyclerView.Adapter<NotificationLog
     
     @Override
     public void onBindViewHolder(@NonNull LogEntryViewHolder holder, int position) {
-        Notification notification = notifications.get(position);
+        Notification notification = getItem(position);
         // Use the notification's isImportant field (from Firebase) as the source of truth
         boolean isStarred = notification.isImportant();
         holder.bind(notification, eventCache, userCache, isStarred, starClickListener);
     }
     
-    @Override
-    public int getItemCount() {
-        return notifications != null ? notifications.size() : 0;
+    private static String organizerName(Notification notification, Map<String, EventEntity> eventCache) {
+        if (notification.getEventId() != null) {
+            EventEntity event = eventCache.get(notification.getEventId());
+            if (event != null && event.getOrganizerName() != null) {
+                return event.getOrganizerName();
+            }
+        }
+        return "Deleted Organizer";
+    }
+    
+    private static String recipientName(Notification notification, Map<String, User> userCache) {
+        if (notification.getUserId() != null) {
+            User user = userCache.get(notification.getUserId());
+            if (user != null) {
+                return user.getDisplayName() != null && !user.getDisplayName().isEmpty()
+                        ? user.getDisplayName()
+                        : (user.getUsername() != null && !user.getUsername().isEmpty()
+                                ? user.getUsername()
+                                : user.getEmail());
+            }
+        }
+        return "Deleted User";
     }
     
     static class LogEntryViewHolder extends RecyclerView.ViewHolder {
@@ -128,28 +160,10 @@ public class NotificationLogAdapter extends RecyclerView.Adapter<NotificationLog
                 });
             }
             // Get organizer name from event
-            String organizerName = "Deleted Organizer";
-            if (notification.getEventId() != null) {
-                EventEntity event = eventCache.get(notification.getEventId());
-                if (event != null && event.getOrganizerName() != null) {
-                    organizerName = event.getOrganizerName();
-                }
-            }
-            tvOrganizer.setText("Organizer: " + organizerName);
+            tvOrganizer.setText("Organizer: " + organizerName(notification, eventCache));
             
             // Get recipient name from user cache
-            String recipientName = "Deleted User";
-            if (notification.getUserId() != null) {
-                User user = userCache.get(notification.getUserId());
-                if (user != null) {
-                    recipientName = user.getDisplayName() != null && !user.getDisplayName().isEmpty()
-                            ? user.getDisplayName()
-                            : (user.getUsername() != null && !user.getUsername().isEmpty()
-                                    ? user.getUsername()
-                                    : user.getEmail());
-                }
-            }
-            tvRecipient.setText("Recipient: " + recipientName);
+            tvRecipient.setText("Recipient: " + recipientName(notification, userCache));
             
             // Event name
             String eventName = notification.getEventName() != null 
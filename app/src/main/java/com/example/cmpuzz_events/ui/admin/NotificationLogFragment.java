@@ -23,6 +23,7 @@ import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.models.event.EventEntity;
 import com.example.cmpuzz_events.models.notification.Notification;
 import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.service.EventRepository;
 import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
 import com.example.cmpuzz_events.service.INotificationService;
@@ -49,6 +50,7 @@ public class NotificationLogFragment extends Fragment {
     private Spinner filterSpinner;
     private NotificationService notificationService;
     private EventService eventService;
+    private EventRepository eventRepository;
     private User currentUser;
     
     // Cache for events and users to avoid repeated queries
@@ -89,6 +91,7 @@ public class NotificationLogFragment extends Fragment {
         notificationService = NotificationService.getInstance();
         notificationService.setContext(requireContext().getApplicationContext());
         eventService = EventService.getInstance();
+        eventRepository = EventRepository.getInstance();
         currentUser = AuthManager.getInstance().getCurrentUser();
         
         // Check if user is admin
@@ -309,7 +312,7 @@ public class NotificationLogFragment extends Fragment {
         int totalEvents = eventIds.size();
         
         for (String eventId : eventIds) {
-            eventService.getEvent(eventId, new IEventService.EventCallback() {
+            eventRepository.getEvent(eventId, new IEventService.EventCallback() {
                 @Override
                 public void onSuccess(EventEntity event) {
                     eventCache.put(eventId, event);
@@ -11,19 +11,20 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.ui.DiffingAdapter;
 import com.example.cmpuzz_events.ui.event.OnItemClickListener;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Adapter to display users with a clickable interface
  */
-public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserViewHolder> {
+public class UserListAdapter extends DiffingAdapter<User, UserListAdapter.UserViewHolder> {
 
-    private List<User> users;
     private OnItemClickListener listener;
 
     public interface OnItemClickListener {
@@ -36,12 +37,22 @@ public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserVi
     }
 
     public UserListAdapter(List<User> users) {
-        this.users = users;
+        submitList(users);
     }
 
     public void updateUsers(List<User> newUsers) {
-        this.users = newUsers;
-        notifyDataSetChanged();
+        submitList(newUsers);
+    }
+
+    @Override
+    protected String getItemKey(@NonNull User user) {
+        return user.getUid();
+    }
+
+    @Override
+    protected Object getItemContent(@NonNull User user) {
+        return Arrays.asList(user.getDisplayName(), user.getUsername(), user.getEmail(),
+                user.getProfileImageUrl());
     }
 
     @NonNull
@@ -54,21 +65,18 @@ public class UserListAdapter extends RecyclerView.Adapter<UserListAdapter.UserVi
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User currUser = users.get(position);
+        User currUser = getItem(position);
         holder.bind(currUser);
 
         holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onItemClick(currUser, position);
+            // Rows are no longer all rebound on every update, so read the position at click time
+            int current = holder.getAdapterPosition();
+            if (listener != null && current != RecyclerView.NO_POSITION) {
+                listener.onItemClick(currUser, current);
             }
         });
     }
 
-    @Override
-    public int getItemCount() {
-        return users != null ? users.size() : 0;
-    }
-
     static class UserViewHolder extends RecyclerView.ViewHolder {
         private final TextView userName;
         private final ImageView avatar;
@@ -24,14 +24,20 @@ import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.databinding.FragmentBrowseEventsBinding;
 import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.EventSummary;
 import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
-import com.example.cmpuzz_events.ui.event.Event;
+import com.example.cmpuzz_events.service.LocalStore;
+import com.example.cmpuzz_events.service.OfflineSync;
+import com.example.cmpuzz_events.ui.event.EventPageLoader;
+import com.example.cmpuzz_events.utils.EventSearchIndex;
 import com.example.cmpuzz_events.ui.home.MyEventsAdapter;
 import com.example.cmpuzz_events.utils.QRCodeGenerator;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A {@link Fragment} responsible for displaying a list of all available public events
@@ -44,7 +50,9 @@ public class BrowseEventsFragment extends Fragment {
     private EventService eventService;
     private MyEventsAdapter adapter;
     private static final String TAG = "BrowseEventsFragment";
-    private List<Event> allEvents = new ArrayList<>();
+    private List<EventSummary> allEvents = new ArrayList<>();
+    private final EventSearchIndex searchIndex = new EventSearchIndex();
+    private EventPageLoader pageLoader;
 
     /**
      * inflates the layout, initilizes viewbinding,sets up recyclerview,
@@ -77,10 +85,10 @@ public class BrowseEventsFragment extends Fragment {
         adapter.setOnEventClickListener(new MyEventsAdapter.OnEventClickListener() {
             /**
              * handles click events on an event item.
-             * @param event The {@link Event} object that was click
+             * @param event The {@link EventSummary} object that was click
              */
             @Override
-            public void onViewEventClick(Event event) {
+            public void onViewEventClick(EventSummary event) {
                 Bundle bundle = new Bundle();
                 bundle.putString("eventId", event.getEventId());
                 Navigation.findNavController(root).navigate(
@@ -95,17 +103,18 @@ public class BrowseEventsFragment extends Fragment {
              * @param event The event associated with the action.
              */
             @Override
-            public void onDrawAttendeesClick(Event event) {
+            public void onDrawAttendeesClick(EventSummary event) {
                 // Do nothing - users can't draw attendees
             }
 
             @Override
-            public void onOverflowClick(Event event, View anchorView) {
+            public void onOverflowClick(EventSummary event, View anchorView) {
                 showEventOptionsBottomSheet(event);
             }
         });
         
         binding.recyclerViewBrowseEvents.setAdapter(adapter);
+        setupPageLoader();
         
         // Setup search and filters
         setupSearchView();
@@ -122,6 +131,7 @@ public class BrowseEventsFragment extends Fragment {
             @Override
             public boolean onQueryTextSubmit(String query) {
                 applyFilters();
+                searchStoredEvents(query);
                 return false;
             }
 
@@ -137,11 +147,26 @@ public class BrowseEventsFragment extends Fragment {
         binding.availabilityFilterGroup.setOnCheckedChangeListener(new RadioGroup.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(RadioGroup group, int checkedId) {
+                // Refetch from the server so pages aren't emptied by the filter
+                pageLoader.setFullFilter(selectedFullFilter());
                 applyFilters();
             }
         });
     }
 
+    /**
+     * @return the isFull value the availability radio buttons ask for, or null for "Any"
+     */
+    private Boolean selectedFullFilter() {
+        int checkedId = binding.availabilityFilterGroup.getCheckedRadioButtonId();
+        if (checkedId == R.id.radio_full) {
+            return true;
+        } else if (checkedId == R.id.radio_not_full) {
+            return false;
+        }
+        return null;
+    }
+
     private void applyFilters() {
         if (binding == null) {
             return;
@@ -150,30 +175,25 @@ public class BrowseEventsFragment extends Fragment {
         String query = binding.eventSearchView.getQuery().toString();
         int selectedAvailabilityId = binding.availabilityFilterGroup.getCheckedRadioButtonId();
 
-        List<Event> filteredEvents = new ArrayList<>();
-        String lowerCaseQuery = (query == null) ? "" : query.toLowerCase();
+        List<EventSummary> filteredEvents = new ArrayList<>();
+        // Ranked matches from the index; an empty query keeps every event in list order
+        List<EventSummary> candidates = (query == null || query.trim().isEmpty())
+                ? allEvents : searchIndex.search(query);
 
-        for (Event event : allEvents) {
+        for (EventSummary event : candidates) {
             // Filter by availability
             boolean availabilityMatch = false;
-            int currentEntrantCount = (event.getEntrants() != null) ? event.getEntrants().size() : 0;
-            int capacity = event.getCapacity();
 
             if (selectedAvailabilityId == R.id.radio_not_full) {
-                availabilityMatch = (capacity == 0 || currentEntrantCount < capacity);
+                availabilityMatch = !event.isFull();
             } else if (selectedAvailabilityId == R.id.radio_full) {
-                availabilityMatch = (capacity > 0 && currentEntrantCount >= capacity);
+                availabilityMatch = event.isFull();
             } else {
                 availabilityMatch = true;
             }
 
-            // Filter by search query
             if (availabilityMatch) {
-                if (lowerCaseQuery.isEmpty() ||
-                        event.getTitle().toLowerCase().contains(lowerCaseQuery) ||
-                        event.getDescription().toLowerCase().contains(lowerCaseQuery)) {
-                    filteredEvents.add(event);
-                }
+                filteredEvents.add(event);
             }
         }
 
@@ -190,29 +210,113 @@ public class BrowseEventsFragment extends Fragment {
     }
 
     /**
-     * Fetches the list of all events from the {@link EventService}.
+     * Pages through events as the list scrolls, so first paint costs one page of reads.
      */
-    private void loadAllEvents() {
-        eventService.getAllEvents(new IEventService.UIEventListCallback() {
+    private void setupPageLoader() {
+        pageLoader = new EventPageLoader(eventService, new EventPageLoader.Listener() {
             @Override
-            public void onSuccess(List<Event> events) {
+            public void onPageLoaded(List<EventSummary> events, boolean firstPage) {
                 if (binding == null) {
                     return;
                 }
-                
-                Log.d(TAG, "Loaded " + events.size() + " events");
-                allEvents.clear();
+
+                Log.d(TAG, "Loaded page of " + events.size() + " events");
+                if (firstPage) {
+                    allEvents.clear();
+                    searchIndex.clear();
+                }
                 allEvents.addAll(events);
-                
+                searchIndex.putAll(events);
+
                 applyFilters();
             }
 
             @Override
             public void onError(String error) {
+                if (binding == null) {
+                    return;
+                }
                 Log.e(TAG, "Error loading events: " + error);
                 Toast.makeText(getContext(), "Error loading events", Toast.LENGTH_SHORT).show();
-                binding.tvEmptyState.setVisibility(View.VISIBLE);
-                binding.recyclerViewBrowseEvents.setVisibility(View.GONE);
+                if (allEvents.isEmpty()) {
+                    binding.tvEmptyState.setVisibility(View.VISIBLE);
+                    binding.recyclerViewBrowseEvents.setVisibility(View.GONE);
+                }
+            }
+        });
+        pageLoader.attach(binding.recyclerViewBrowseEvents);
+        pageLoader.setFullFilter(selectedFullFilter());
+    }
+
+    /**
+     * Fetches the first page of events from the {@link EventService};
+     * later pages are prefetched while scrolling. Stored events are shown until
+     * it arrives, and stay up if the device is offline.
+     */
+    private void loadAllEvents() {
+        showStoredEvents();
+        pageLoader.loadFirstPage();
+        if (LocalStore.isInitialized()) {
+            OfflineSync.getInstance().syncEvents(null);
+        }
+    }
+
+    /**
+     * Paints the events kept in the {@link LocalStore}, unless a page has already arrived
+     */
+    private void showStoredEvents() {
+        if (!LocalStore.isInitialized()) {
+            return;
+        }
+        LocalStore.getInstance().loadEvents(selectedFullFilter(), 0, new IEventService.SummaryListCallback() {
+            @Override
+            public void onSuccess(List<EventSummary> events) {
+                if (binding == null || !allEvents.isEmpty() || events.isEmpty()) {
+                    return;
+                }
+                Log.d(TAG, "Showing " + events.size() + " stored events");
+                allEvents.addAll(events);
+                searchIndex.putAll(events);
+                applyFilters();
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error loading stored events: " + error);
+            }
+        });
+    }
+
+    /**
+     * Adds stored events matching a submitted search, so matches on pages not yet
+     * scrolled to are found too
+     */
+    private void searchStoredEvents(String query) {
+        if (!LocalStore.isInitialized() || query == null || query.trim().isEmpty()) {
+            return;
+        }
+        LocalStore.getInstance().searchEvents(query, 0, new IEventService.SummaryListCallback() {
+            @Override
+            public void onSuccess(List<EventSummary> matches) {
+                if (binding == null || matches.isEmpty()) {
+                    return;
+                }
+                Set<String> shown = new HashSet<>();
+                for (EventSummary event : allEvents) {
+                    shown.add(event.getEventId());
+                }
+                for (EventSummary event : matches) {
+                    if (shown.add(event.getEventId())) {
+                        allEvents.add(event);
+                        searchIndex.put(event);
+                    }
+                }
+                applyFilters();
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error searching stored events: " + error);
             }
         });
     }
@@ -220,7 +324,7 @@ public class BrowseEventsFragment extends Fragment {
     /**
      * Show bottom sheet with event options (Share and QR Code)
      */
-    private void showEventOptionsBottomSheet(Event event) {
+    private void showEventOptionsBottomSheet(EventSummary event) {
         BottomSheetDialog bottomSheet = new BottomSheetDialog(requireContext());
         View sheetView = getLayoutInflater().inflate(R.layout.bottom_sheet_event_options, null);
         bottomSheet.setContentView(sheetView);
@@ -245,7 +349,7 @@ public class BrowseEventsFragment extends Fragment {
     /**
      * Share event using Android's share intent with deep link
      */
-    private void shareEvent(Event event) {
+    private void shareEvent(EventSummary event) {
         // Create deep link URL
         String deepLink = "cmpuzzevents://event/" + event.getEventId();
         
@@ -264,7 +368,7 @@ public class BrowseEventsFragment extends Fragment {
     /**
      * Show QR code dialog for the event
      */
-    private void showQRCodeDialog(Event event) {
+    private void showQRCodeDialog(EventSummary event) {
         Dialog dialog = new Dialog(requireContext());
         View dialogView = getLayoutInflater().inflate(R.layout.dialog_qr_code, null);
         dialog.setContentView(dialogView);
@@ -309,6 +413,7 @@ public class BrowseEventsFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        pageLoader.detach();
         binding = null;
     }
 }
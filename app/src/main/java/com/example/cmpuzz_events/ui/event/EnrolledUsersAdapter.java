@@ -14,23 +14,33 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.bitmap.CircleCrop;
 import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.ui.DiffingAdapter;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Adapter to display enrolled users in an event's waitlist
  */
-public class EnrolledUsersAdapter extends RecyclerView.Adapter<EnrolledUsersAdapter.UserViewHolder> {
-
-    private List<User> users;
+public class EnrolledUsersAdapter extends DiffingAdapter<User, EnrolledUsersAdapter.UserViewHolder> {
 
     public EnrolledUsersAdapter(List<User> users) {
-        this.users = users;
+        submitList(users);
     }
 
     public void updateUsers(List<User> newUsers) {
-        this.users = newUsers;
-        notifyDataSetChanged();
+        submitList(newUsers);
+    }
+
+    @Override
+    protected String getItemKey(@NonNull User user) {
+        return user.getUid();
+    }
+
+    @Override
+    protected Object getItemContent(@NonNull User user) {
+        return Arrays.asList(user.getDisplayName(), user.getUsername(), user.getEmail(),
+                user.getProfileImageUrl());
     }
 
     @NonNull
@@ -43,14 +53,9 @@ public class EnrolledUsersAdapter extends RecyclerView.Adapter<EnrolledUsersAdap
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        holder.bind(users.get(position));
-
+        holder.bind(getItem(position));
     }
 
-    @Override
-    public int getItemCount() {
-        return users != null ? users.size() : 0;
-    }
     static class UserViewHolder extends RecyclerView.ViewHolder {
         private final TextView userName;
         private final ImageView userAvatar;
@@ -22,6 +22,8 @@ public class Event implements Serializable {
     private List<String> entrants;           // All people who signed up for the event
     private String posterUrl;
     private Double price;                     // Event price (null if free)
+    private int entrantCount;                // Waitlisted + invited + attending
+    private boolean full;                    // entrantCount has reached capacity
 
 
     public Event(String eventId, String title, String description, int capacity,
@@ -72,4 +74,20 @@ public class Event implements Serializable {
         this.price = price;
     }
 
+    public int getEntrantCount() {
+        return entrantCount;
+    }
+
+    public void setEntrantCount(int entrantCount) {
+        this.entrantCount = entrantCount;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
 }
@@ -23,6 +23,7 @@ import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.models.event.EventEntity;
 import com.example.cmpuzz_events.models.notification.Notification;
 import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.service.EventRepository;
 import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
 import com.example.cmpuzz_events.service.INotificationService;
@@ -47,6 +48,7 @@ public class EventActionMenuFragment extends Fragment {
     private Event event;
     private NotificationService notificationService;
     private EventService eventService;
+    private EventRepository eventRepository;
 
     public static EventActionMenuFragment newInstance(Event event) {
         EventActionMenuFragment fragment = new EventActionMenuFragment();
@@ -72,6 +74,7 @@ public class EventActionMenuFragment extends Fragment {
         notificationService = NotificationService.getInstance();
         notificationService.setContext(requireContext().getApplicationContext());
         eventService = EventService.getInstance();
+        eventRepository = EventRepository.getInstance();
 
         // Setup toolbar
         MaterialToolbar toolbar = root.findViewById(R.id.toolbar);
@@ -189,8 +192,8 @@ public class EventActionMenuFragment extends Fragment {
             return;
         }
 
-        // Get full event entity with user lists
-        eventService.getEvent(event.getEventId(), new IEventService.EventCallback() {
+        // Get full event entity with user lists; only the waitlist group needs the waitlist
+        IEventService.EventCallback send = new IEventService.EventCallback() {
             @Override
             public void onSuccess(EventEntity eventEntity) {
                 final List<String> userIds;
@@ -259,7 +262,12 @@ public class EventActionMenuFragment extends Fragment {
                 showToast("Error loading event details");
                 Log.e(TAG, "Error: " + error);
             }
-        });
+        };
+        if ("waitlist".equals(group)) {
+            eventRepository.getEventWithEntrants(event.getEventId(), send);
+        } else {
+            eventRepository.getEvent(event.getEventId(), send);
+        }
     }
 
     private void showToast(String message) {
@@ -311,7 +319,7 @@ public class EventActionMenuFragment extends Fragment {
      * Fetches event details to get the attendee list and initiates the CSV export process.
      */
     private void exportEnrolledEntrants() {
-        eventService.getEvent(event.getEventId(), new IEventService.EventCallback() {
+        eventRepository.getEvent(event.getEventId(), new IEventService.EventCallback() {
             @Override
             public void onSuccess(EventEntity eventEntity) {
                 List<String> eeList = eventEntity.getAttendees() != null ? new ArrayList<>(eventEntity.getAttendees()) : new ArrayList<>();
@@ -345,7 +353,7 @@ public class EventActionMenuFragment extends Fragment {
      */
     private void cancelPendingInvitations(String eventId) {
         // Fetch the event to find users who haven't responded.
-        eventService.getEvent(eventId, new IEventService.EventCallback() {
+        eventRepository.getEvent(eventId, new IEventService.EventCallback() {
             @Override
             public void onSuccess(EventEntity eventEntity) {
                 final List<String> pendingInvitees = new ArrayList<>();
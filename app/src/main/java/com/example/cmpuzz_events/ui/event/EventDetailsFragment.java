@@ -28,6 +28,7 @@ import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.models.user.User;
 import com.example.cmpuzz_events.models.event.EventEntity;
 import com.example.cmpuzz_events.models.event.Invitation;
+import com.example.cmpuzz_events.service.EventRepository;
 import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
 import com.google.android.gms.location.FusedLocationProviderClient;
@@ -66,6 +67,7 @@ public class EventDetailsFragment extends Fragment {
     private String eventId;
 
     private IEventService eventService;
+    private EventRepository.Subscription eventSubscription;
 
     // Store the UI Event
     private Event currentEvent;
@@ -348,17 +350,21 @@ public class EventDetailsFragment extends Fragment {
         });
     }
     /**
-     * Fetches all details for the specified event from the service and updates the UI.
+     * Observes the event and updates the UI with its details whenever it changes.
+     * Later calls are no-ops while the event is already being observed.
      */
     private void loadEventDetails() {
         if (eventId == null || eventId.isEmpty()) {
             Toast.makeText(getContext(), "Invalid event", Toast.LENGTH_SHORT).show();
             return;
         }
+        if (eventSubscription != null) {
+            return; // already live
+        }
 
-        eventService.getEvent(eventId, new IEventService.EventCallback() {
+        eventSubscription = EventRepository.getInstance().observe(eventId, new EventRepository.EventObserver() {
             @Override
-            public void onSuccess(EventEntity eventEntity) {
+            public void onEventChanged(EventEntity eventEntity) {
                 List<String> waitlistIds = eventEntity.getWaitlist();
                 // Convert to UI Event and store
                 currentEvent = new Event(
@@ -382,7 +388,7 @@ public class EventDetailsFragment extends Fragment {
                 // Load enrolled users for both organizers and regular users
                 User currentUser = AuthManager.getInstance().getCurrentUser();
                 if (currentUser != null) {
-                    loadEnrolledUsers(eventEntity.getWaitlist());
+                    loadEnrolledUsers(eventEntity);
                 }
             }
 
@@ -396,64 +402,53 @@ public class EventDetailsFragment extends Fragment {
     /**
      * Fetches user profiles for all IDs associated with an event (waitlist, invited, attending) and displays them.
      */
-    private void loadEnrolledUsers(List<String> waitlist) {
+    private void loadEnrolledUsers(EventEntity event) {
         // Combine all user IDs: waitlist + invited + attendees
         List<String> allUserIds = new ArrayList<>();
         
         // Add waitlist users
-        if (waitlist != null) {
-            allUserIds.addAll(waitlist);
+        if (event.getWaitlist() != null) {
+            allUserIds.addAll(event.getWaitlist());
         }
         
-        // Add invited users and attendees
-        EventService.getInstance().getEvent(eventId, new IEventService.EventCallback() {
-            @Override
-            public void onSuccess(EventEntity event) {
-                // Add users with pending invitations
-                if (event.getInvitations() != null) {
-                    for (Invitation invitation : event.getInvitations()) {
-                        String userId = invitation.getUserId();
-                        if (userId != null && !userId.isEmpty() && !allUserIds.contains(userId)) {
-                            allUserIds.add(userId);
-                        }
-                    }
+        // Add users with pending invitations
+        if (event.getInvitations() != null) {
+            for (Invitation invitation : event.getInvitations()) {
+                String userId = invitation.getUserId();
+                if (userId != null && !userId.isEmpty() && !allUserIds.contains(userId)) {
+                    allUserIds.add(userId);
                 }
-                
-                // Add attendees (users who accepted invitations)
-                if (event.getAttendees() != null) {
-                    for (String userId : event.getAttendees()) {
-                        if (userId != null && !userId.isEmpty() && !allUserIds.contains(userId)) {
-                            allUserIds.add(userId);
-                        }
-                    }
-                }
-                
-                // Now load all users
-                if (allUserIds.isEmpty()) {
-                    usersAdapter.updateUsers(new ArrayList<>());
-                    usersRecyclerView.setVisibility(View.GONE);
-                    return;
+            }
+        }
+        
+        // Add attendees (users who accepted invitations)
+        if (event.getAttendees() != null) {
+            for (String userId : event.getAttendees()) {
+                if (userId != null && !userId.isEmpty() && !allUserIds.contains(userId)) {
+                    allUserIds.add(userId);
                 }
-                
-                AuthManager.getInstance().getUsersByIds(allUserIds, new AuthManager.UsersCallback() {
-                    @Override
-                    public void onSuccess(List<User> users) {
-                        Log.d(TAG, "Loaded " + users.size() + " total entrants");
-                        usersAdapter.updateUsers(users);
-                        usersRecyclerView.setVisibility(View.VISIBLE);
-                    }
-
-                    @Override
-                    public void onError(String error) {
-                        Log.e(TAG, "Error loading users: " + error);
-                        usersAdapter.updateUsers(new ArrayList<>());
-                    }
-                });
+            }
+        }
+        
+        // Now load all users
+        if (allUserIds.isEmpty()) {
+            usersAdapter.updateUsers(new ArrayList<>());
+            usersRecyclerView.setVisibility(View.GONE);
+            return;
+        }
+        
+        AuthManager.getInstance().getUsersByIds(allUserIds, new AuthManager.UsersCallback() {
+            @Override
+            public void onSuccess(List<User> users) {
+                Log.d(TAG, "Loaded " + users.size() + " total entrants");
+                usersAdapter.updateUsers(users);
+                usersRecyclerView.setVisibility(View.VISIBLE);
             }
 
             @Override
             public void onError(String error) {
-                Log.e(TAG, "Error loading event for entrants: " + error);
+                Log.e(TAG, "Error loading users: " + error);
+                usersAdapter.updateUsers(new ArrayList<>());
             }
         });
     }
@@ -532,15 +527,7 @@ public class EventDetailsFragment extends Fragment {
                 boolean isAttending = event.getAttendees() != null && event.getAttendees().contains(userId);
                 
                 // Check if user has a pending invitation
-                boolean hasInvitation = false;
-                if (event.getInvitations() != null) {
-                    for (Invitation inv : event.getInvitations()) {
-                        if (inv.getUserId() != null && inv.getUserId().equals(userId)) {
-                            hasInvitation = true;
-                            break;
-                        }
-                    }
-                }
+                boolean hasInvitation = event.hasInvitation(userId);
                 
                 // Check if registration has started
                 boolean registrationStarted = true;
@@ -804,4 +791,16 @@ public class EventDetailsFragment extends Fragment {
                 Toast.makeText(getContext(), "Error uploading image", Toast.LENGTH_SHORT).show();
             });
     }
+
+    /**
+     * Stops live updates for the event once the view is gone.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (eventSubscription != null) {
+            eventSubscription.remove();
+            eventSubscription = null;
+        }
+    }
 }
@@ -12,7 +12,7 @@ import androidx.navigation.Navigation;
 
 import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.models.event.EventEntity;
-import com.example.cmpuzz_events.service.EventService;
+import com.example.cmpuzz_events.service.EventRepository;
 import com.example.cmpuzz_events.service.IEventService;
 import com.example.cmpuzz_events.service.ProfileService;
 import com.google.android.gms.maps.CameraUpdateFactory;
@@ -77,7 +77,7 @@ public class EventMapFragment extends Fragment implements OnMapReadyCallback {
     private void loadEntrantLocations() {
         if (eventId == null) return;
 
-        EventService.getInstance().getEvent(eventId, new IEventService.EventCallback() {
+        EventRepository.getInstance().getEventWithEntrants(eventId, new IEventService.EventCallback() {
             @Override
             public void onSuccess(EventEntity event) {
                 Map<String, List<Double>> locations = event.getEntrantLocations();
@@ -0,0 +1,172 @@
+package com.example.cmpuzz_events.ui.event;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.cmpuzz_events.models.event.EventSummary;
+import com.example.cmpuzz_events.service.EventPage;
+import com.example.cmpuzz_events.service.IEventService;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Loads the event catalogue a page at a time for a scrolling list.
+ * The first page is fetched on {@link #loadFirstPage()}; the next page is
+ * prefetched once the user scrolls within {@link #PREFETCH_DISTANCE} rows of
+ * the end, or straight away if the loaded rows don't fill the list.
+ */
+public class EventPageLoader {
+
+    private static final String TAG = "EventPageLoader";
+    public static final int PAGE_SIZE = 20;
+    private static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * Receives pages as they arrive
+     */
+    public interface Listener {
+        /**
+         * @param events    events on the new page
+         * @param firstPage true if this page replaces everything loaded before
+         */
+        void onPageLoaded(List<EventSummary> events, boolean firstPage);
+
+        void onError(String error);
+    }
+
+    private final IEventService eventService;
+    private final Listener listener;
+    private RecyclerView recyclerView;
+    private EventPage lastPage;
+    private boolean loading;
+    private boolean exhausted;
+    private boolean started;
+    private Boolean fullFilter;   // only events whose isFull matches, null for all
+    private int generation;   // bumped on reload so late pages from an old load are dropped
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+            if (dy > 0) {
+                prefetchIfNeeded();
+            }
+        }
+    };
+
+    public EventPageLoader(IEventService eventService, Listener listener) {
+        this.eventService = eventService;
+        this.listener = listener;
+    }
+
+    /**
+     * Start prefetching pages as this list is scrolled
+     *
+     * @param recyclerView list using a LinearLayoutManager
+     */
+    public void attach(RecyclerView recyclerView) {
+        this.recyclerView = recyclerView;
+        recyclerView.addOnScrollListener(scrollListener);
+    }
+
+    /**
+     * Stop listening to the list; pages still in flight are dropped
+     */
+    public void detach() {
+        if (recyclerView != null) {
+            recyclerView.removeOnScrollListener(scrollListener);
+            recyclerView = null;
+        }
+        generation++;
+        loading = false;
+    }
+
+    /**
+     * Only load events that are full (true) or not full (false), or all events (null).
+     * Changing the filter once loading has started reloads from the first page.
+     */
+    public void setFullFilter(Boolean full) {
+        if (Objects.equals(fullFilter, full)) {
+            return;
+        }
+        fullFilter = full;
+        if (started) {
+            loadFirstPage();
+        }
+    }
+
+    /**
+     * Discard loaded pages and fetch the first one again
+     */
+    public void loadFirstPage() {
+        started = true;
+        generation++;
+        lastPage = null;
+        exhausted = false;
+        loading = false;
+        loadNextPage();
+    }
+
+    /**
+     * Fetch the page after the last one loaded, unless a fetch is running or all pages are in
+     */
+    public void loadNextPage() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        eventService.getEventsPage(lastPage, PAGE_SIZE, fullFilter, new IEventService.EventPageCallback() {
+            @Override
+            public void onSuccess(EventPage page) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                boolean firstPage = lastPage == null;
+                lastPage = page;
+                exhausted = !page.hasMore();
+                loading = false;
+                listener.onPageLoaded(page.getEvents(), firstPage);
+                if (recyclerView != null) {
+                    // Filters may hide rows, so check again once the list has laid out
+                    recyclerView.post(EventPageLoader.this::prefetchIfNeeded);
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                Log.e(TAG, "Error loading events page: " + error);
+                listener.onError(error);
+            }
+        });
+    }
+
+    /**
+     * @return true while more pages remain on the server
+     */
+    public boolean hasMore() {
+        return !exhausted;
+    }
+
+    private void prefetchIfNeeded() {
+        if (recyclerView == null || loading || exhausted) {
+            return;
+        }
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+        int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        int itemCount = layoutManager.getItemCount();
+        if (lastVisible >= itemCount - 1 - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+    }
+}
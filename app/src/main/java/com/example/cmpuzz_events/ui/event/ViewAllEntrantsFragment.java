@@ -18,8 +18,7 @@ import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.models.event.EventEntity;
 import com.example.cmpuzz_events.models.event.Invitation;
 import com.example.cmpuzz_events.models.user.User;
-import com.example.cmpuzz_events.service.EventService;
-import com.example.cmpuzz_events.service.IEventService;
+import com.example.cmpuzz_events.service.EventRepository;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +36,7 @@ public class ViewAllEntrantsFragment extends Fragment {
     private RecyclerView recyclerView;
     private EnrolledUsersAdapter adapter;
     private TextView emptyStateText;
+    private EventRepository.Subscription eventSubscription;
     /**
      * Factory method to create a new instance of the fragment with a given event ID.
      */
@@ -81,12 +81,13 @@ public class ViewAllEntrantsFragment extends Fragment {
         return root;
     }
     /**
-     * Fetches the event details to compile a list of all user IDs (waitlist, invited, attendees).
+     * Observes the event to compile a list of all user IDs (waitlist, invited, attendees),
+     * refreshing the list whenever the event changes.
      */
     private void loadAllEntrants() {
-        EventService.getInstance().getEvent(eventId, new IEventService.EventCallback() {
+        eventSubscription = EventRepository.getInstance().observe(eventId, new EventRepository.EventObserver() {
             @Override
-            public void onSuccess(EventEntity event) {
+            public void onEventChanged(EventEntity event) {
                 // Combine all user IDs: waitlist + invited + attendees (exclude declined)
                 List<String> allUserIds = new ArrayList<>();
                 
@@ -162,4 +163,16 @@ public class ViewAllEntrantsFragment extends Fragment {
         emptyStateText.setVisibility(View.VISIBLE);
         emptyStateText.setText(message);
     }
+
+    /**
+     * Stops live updates for the event once the view is gone.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (eventSubscription != null) {
+            eventSubscription.remove();
+            eventSubscription = null;
+        }
+    }
 }
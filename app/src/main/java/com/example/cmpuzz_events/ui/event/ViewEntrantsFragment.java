@@ -19,6 +19,7 @@ import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.models.event.EventEntity;
 import com.example.cmpuzz_events.models.event.Invitation;
 import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.service.EventRepository;
 import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
 import com.google.android.material.button.MaterialButton;
@@ -49,6 +50,7 @@ public class ViewEntrantsFragment extends Fragment {
     private boolean isOrganizer;
     private boolean isDrawingReplacement = false;
     private IEventService eventService;
+    private EventRepository.Subscription eventSubscription;
 
     public static ViewEntrantsFragment newInstance(String eventId) {
         ViewEntrantsFragment fragment = new ViewEntrantsFragment();
@@ -112,10 +114,16 @@ public class ViewEntrantsFragment extends Fragment {
         return root;
     }
 
+    /**
+     * Observes the event so the tabs refresh whenever its entrants change.
+     */
     private void loadEventData() {
-        eventService.getEvent(eventId, new IEventService.EventCallback() {
+        if (eventSubscription != null) {
+            return; // already live
+        }
+        eventSubscription = EventRepository.getInstance().observe(eventId, new EventRepository.EventObserver() {
             @Override
-            public void onSuccess(EventEntity event) {
+            public void onEventChanged(EventEntity event) {
                 currentEvent = event;
                 int position = tabLayout != null ? tabLayout.getSelectedTabPosition() : 0;
                 if (position < 0) {
@@ -288,4 +296,16 @@ public class ViewEntrantsFragment extends Fragment {
             Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
         }
     }
+
+    /**
+     * Stops live updates for the event once the view is gone.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (eventSubscription != null) {
+            eventSubscription.remove();
+            eventSubscription = null;
+        }
+    }
 }
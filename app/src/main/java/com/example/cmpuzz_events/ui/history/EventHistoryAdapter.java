@@ -12,8 +12,12 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.EventSummary;
+import com.example.cmpuzz_events.ui.DiffingAdapter;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -22,29 +26,46 @@ import java.util.Locale;
  * A {@link RecyclerView.Adapter} responsible for binding a list of {@link EventEntity} objects
  * to a {@link RecyclerView}. This adapter is specifically designed to display a history of events
  * for which a user has registered, showing key details and the user's selection status for each event.
+ * Each row keeps only the event's {@link EventSummary} and the status worked out when the list is set,
+ * so entrant lists are not held for the lifetime of the screen.
  *
  * @see EventHistoryViewHolder
  * @see EventEntity
  */
-public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapter.EventHistoryViewHolder> {
+public class EventHistoryAdapter extends DiffingAdapter<EventHistoryAdapter.HistoryRow, EventHistoryAdapter.EventHistoryViewHolder> {
 
     /**
-     * The list of event entities that the adapter will display.
+     * The user's selection status for an event in the history.
      */
-    private final List<EventEntity> eventList;
+    enum SelectionStatus {
+        SELECTED, NOT_SELECTED, PENDING, NONE
+    }
 
     /**
-     * The unique identifier of the current user, used to determine their selection status for each event.
+     * An event summary paired with the current user's selection status.
      */
-    private String currentUserId;
+    static class HistoryRow {
+        final EventSummary event;
+        final SelectionStatus status;
+
+        HistoryRow(EventSummary event, SelectionStatus status) {
+            this.event = event;
+            this.status = status;
+        }
+    }
 
     /**
      * Constructs a new {@code EventHistoryAdapter}.
      *
-     * @param eventList A non-null list of {@link EventEntity} objects to be managed and displayed by this adapter.
+     * @param eventList A non-null list of {@link EventEntity} objects to be displayed by this adapter;
+     *                  no user is selected, so no status is shown until {@link #updateEvents} is called.
      */
     public EventHistoryAdapter(List<EventEntity> eventList) {
-        this.eventList = eventList;
+        List<HistoryRow> rows = new ArrayList<>(eventList.size());
+        for (EventEntity event : eventList) {
+            rows.add(new HistoryRow(EventSummary.of(event), SelectionStatus.NONE));
+        }
+        submitList(rows);
     }
 
     /**
@@ -75,33 +96,64 @@ public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapte
      */
     @Override
     public void onBindViewHolder(@NonNull EventHistoryViewHolder holder, int position) {
-        EventEntity event = eventList.get(position);
-        holder.bind(event, currentUserId);
+        holder.bind(getItem(position));
+    }
+
+    /**
+     * Rows are identified by their event ID.
+     *
+     * @param row The row to identify.
+     * @return The event ID of the row.
+     */
+    @Override
+    protected String getItemKey(@NonNull HistoryRow row) {
+        return row.event.getEventId();
     }
 
     /**
-     * Returns the total number of items in the data set held by the adapter.
+     * Everything a history row displays, so rows are only rebound when one of these changes.
      *
-     * @return The total number of events in {@link #eventList}.
+     * @param row The row to snapshot.
+     * @return The row's displayed values.
      */
     @Override
-    public int getItemCount() {
-        return eventList.size();
+    protected Object getItemContent(@NonNull HistoryRow row) {
+        EventSummary event = row.event;
+        return Arrays.asList(event.getTitle(), event.getDescription(), event.getRegistrationEnd(),
+                event.getAttendeeCount(), event.getCapacity(), row.status);
     }
 
     /**
-     * Clears the current list of events and replaces it with a new list, while also setting the current user's ID.
-     * After updating the data source, it notifies the attached observers that the data set has
-     * changed, causing the UI to refresh.
+     * Replaces the current list of events with a new one, working out the current user's status for each.
+     * The new rows are diffed against the old ones in the background and only changed rows are redrawn.
      *
      * @param newEvents The new list of {@link EventEntity} objects to display.
      * @param userId The unique identifier for the current user, necessary for determining selection status.
      */
     public void updateEvents(List<EventEntity> newEvents, String userId) {
-        this.eventList.clear();
-        this.eventList.addAll(newEvents);
-        this.currentUserId = userId;
-        notifyDataSetChanged();
+        List<HistoryRow> rows = new ArrayList<>(newEvents.size());
+        for (EventEntity event : newEvents) {
+            rows.add(new HistoryRow(EventSummary.of(event), selectionStatus(event, userId)));
+        }
+        submitList(rows);
+    }
+
+    /**
+     * Works out the user's status from the event's attendee and waitlist membership and
+     * whether selections have been finalized.
+     *
+     * @param event  The event the user registered for.
+     * @param userId The unique identifier of the current user.
+     * @return The status to display for the event.
+     */
+    static SelectionStatus selectionStatus(EventEntity event, String userId) {
+        if (event.getAttendees() != null && event.getAttendees().contains(userId)) {
+            return SelectionStatus.SELECTED;
+        }
+        if (event.getWaitlist() != null && event.getWaitlist().contains(userId)) {
+            return event.isSelectionsFinalized() ? SelectionStatus.NOT_SELECTED : SelectionStatus.PENDING;
+        }
+        return SelectionStatus.NONE;
     }
 
     /**
@@ -145,18 +197,17 @@ public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapte
         }
 
         /**
-         * Binds an {@link EventEntity} object to the views in the ViewHolder and determines user-specific status.
+         * Binds a history row to the views in the ViewHolder.
          * <p>
-         * This method populates the UI elements with data from the provided {@code EventEntity}.
-         * It sets the event name, description, date, and attendee count. Crucially, it calculates
-         * and displays the user's registration status ("Selected," "Not Selected," or "Pending Selection")
-         * based on their presence in the event's attendee or waitlist and whether selections have been finalized.
+         * This method populates the UI elements with data from the row's {@link EventSummary}.
+         * It sets the event name, description, date, and attendee count, and displays the user's
+         * registration status ("Selected," "Not Selected," or "Pending Selection").
          *
-         * @param event The {@link EventEntity} object containing the event data to display.
-         * @param userId The unique identifier of the current user, used to determine their status.
+         * @param row The event summary and user status to display.
          */
-        public void bind(EventEntity event, String userId) {
+        public void bind(HistoryRow row) {
             Context context = itemView.getContext();
+            EventSummary event = row.event;
 
             tvEventName.setText(event.getTitle());
             tvDesc.setText(event.getDescription());
@@ -175,7 +226,7 @@ public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapte
                 itemView.findViewById(R.id.date_container).setVisibility(View.GONE);
             }
 
-            int currentAttendees = (event.getAttendees() != null) ? event.getAttendees().size() : 0;
+            int currentAttendees = event.getAttendeeCount();
             int capacity = event.getCapacity();
             String attendeeText;
             if (capacity > 0) {
@@ -185,25 +236,24 @@ public class EventHistoryAdapter extends RecyclerView.Adapter<EventHistoryAdapte
             }
             tvAttendeeCount.setText(attendeeText);
 
-            boolean isAttendee = event.getAttendees() != null && event.getAttendees().contains(userId);
-            boolean isWaitlisted = event.getWaitlist() != null && event.getWaitlist().contains(userId);
-            boolean selectionsFinalized = event.isSelectionsFinalized();
-
             tvSelectionStatus.setVisibility(View.VISIBLE);
 
-            if (isAttendee) {
-                tvSelectionStatus.setText(R.string.status_selected);
-                tvSelectionStatus.setBackground(ContextCompat.getDrawable(context, R.drawable.status_background_selected));
-            } else if (isWaitlisted) {
-                if (selectionsFinalized) {
+            switch (row.status) {
+                case SELECTED:
+                    tvSelectionStatus.setText(R.string.status_selected);
+                    tvSelectionStatus.setBackground(ContextCompat.getDrawable(context, R.drawable.status_background_selected));
+                    break;
+                case NOT_SELECTED:
                     tvSelectionStatus.setText(R.string.status_not_selected);
                     tvSelectionStatus.setBackground(ContextCompat.getDrawable(context, R.drawable.status_background_not_selected));
-                } else {
+                    break;
+                case PENDING:
                     tvSelectionStatus.setText(R.string.status_pending);
                     tvSelectionStatus.setBackground(ContextCompat.getDrawable(context, R.drawable.status_background_pending));
-                }
-            } else {
-                tvSelectionStatus.setVisibility(View.GONE);
+                    break;
+                default:
+                    tvSelectionStatus.setVisibility(View.GONE);
+                    break;
             }
         }
     }
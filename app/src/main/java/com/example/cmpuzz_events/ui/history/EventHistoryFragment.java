@@ -18,9 +18,12 @@ import com.example.cmpuzz_events.databinding.FragmentHistoryBinding;
 import com.example.cmpuzz_events.models.event.EventEntity;
 import com.example.cmpuzz_events.models.user.User;
 import com.example.cmpuzz_events.service.EventService;
+import com.example.cmpuzz_events.service.HistoryPage;
 import com.example.cmpuzz_events.service.IEventService;
+import com.example.cmpuzz_events.service.LocalStore;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -29,7 +32,8 @@ import java.util.List;
  * <p>
  * This fragment retrieves event data using {@link EventService} and displays it in a
  * {@link RecyclerView} managed by an {@link EventHistoryAdapter}. It handles user authentication
- * status via {@link AuthManager}.
+ * status via {@link AuthManager}. Past events are loaded a page at a time, newest first, and
+ * older pages are fetched as the user scrolls towards the end of the list.
  *
  * @see EventHistoryAdapter
  * @see EventService
@@ -42,6 +46,16 @@ public class EventHistoryFragment extends Fragment {
      */
     private static final String TAG = "EventHistoryFragment";
 
+    /**
+     * Number of past events requested per page.
+     */
+    static final int PAGE_SIZE = 20;
+
+    /**
+     * How close to the end of the list, in rows, the next page starts loading.
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
     /**
      * View binding instance for this fragment, providing direct access to the views
      * defined in the {@code fragment_history.xml} layout. It is nulled out in {@link #onDestroyView()}.
@@ -58,6 +72,26 @@ public class EventHistoryFragment extends Fragment {
      */
     private EventHistoryAdapter eventHistoryAdapter;
 
+    /**
+     * The current user's ID, set once the history starts loading.
+     */
+    private String currentUserId;
+
+    /**
+     * Every past event loaded so far, newest first.
+     */
+    private final List<EventEntity> loadedEvents = new ArrayList<>();
+
+    /**
+     * The last page received, used as the cursor for the next one; null before the first page.
+     */
+    private HistoryPage lastPage;
+
+    /**
+     * True while a page request is in flight.
+     */
+    private boolean loading;
+
     /**
      * Called to have the fragment instantiate its user interface view.
      * <p>
@@ -91,16 +125,38 @@ public class EventHistoryFragment extends Fragment {
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         eventHistoryAdapter = new EventHistoryAdapter(new ArrayList<>());
         recyclerView.setAdapter(eventHistoryAdapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (dy > 0) {
+                    prefetchIfNeeded();
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the next page once the list is scrolled within {@link #PREFETCH_DISTANCE} rows of
+     * its end, or straight away if the loaded rows don't fill the screen.
+     */
+    private void prefetchIfNeeded() {
+        if (binding == null) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) binding.recyclerViewHistory.getLayoutManager();
+        if (layoutManager != null
+                && layoutManager.findLastVisibleItemPosition() >= layoutManager.getItemCount() - 1 - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
     }
 
     /**
-     * Fetches and displays the history of all events the current user has registered for.
+     * Fetches and displays the history of past events the current user has registered for.
      * <p>
      * It first checks if a user is logged in using {@link AuthManager}. If not, it displays a
-     * message and an empty state view. If logged in, it calls the {@link EventService} to get all
-     * events the user is involved in (as an attendee or on a waitlist). It then passes this list,
-     * along with the user's ID, to the {@link EventHistoryAdapter} for display. It handles both
-     * success and error cases from the service call, updating the UI accordingly.
+     * message and an empty state view. If logged in, it shows the past events kept in the
+     * {@link LocalStore} and then asks the {@link EventService} for the first page of the user's
+     * registration history, which replaces them. Later pages are loaded by {@link #loadNextPage()}.
      */
     private void loadEventHistory() {
         User currentUser = AuthManager.getInstance().getCurrentUser();
@@ -111,26 +167,86 @@ public class EventHistoryFragment extends Fragment {
             return;
         }
 
-        String currentUserId = currentUser.getUid();
+        currentUserId = currentUser.getUid();
 
-        eventService.getEventsForUserWithEntities(currentUserId, new IEventService.EventListCallback() {
+        // Draw the stored history straight away; the first page replaces it
+        if (LocalStore.isInitialized()) {
+            LocalStore.getInstance().loadEventsForUser(currentUserId, new IEventService.EventListCallback() {
+                @Override
+                public void onSuccess(List<EventEntity> storedEvents) {
+                    if (binding == null || lastPage != null) {
+                        return;
+                    }
+                    List<EventEntity> pastEvents = new ArrayList<>();
+                    Date now = new Date();
+                    for (EventEntity event : storedEvents) {
+                        if (event.getRegistrationEnd() != null && event.getRegistrationEnd().before(now)) {
+                            pastEvents.add(event);
+                        }
+                    }
+                    if (pastEvents.isEmpty()) {
+                        return;
+                    }
+                    binding.recyclerViewHistory.setVisibility(View.VISIBLE);
+                    binding.emptyStateView.setVisibility(View.GONE);
+                    eventHistoryAdapter.updateEvents(pastEvents, currentUserId);
+                }
+
+                @Override
+                public void onError(String error) {
+                    Log.e(TAG, "Error loading stored history: " + error);
+                }
+            });
+        }
+
+        loadNextPage();
+    }
+
+    /**
+     * Requests the page of history after the last one loaded, unless a request is already
+     * running or every page has been loaded. The first page replaces whatever is shown.
+     */
+    private void loadNextPage() {
+        if (currentUserId == null || loading || (lastPage != null && !lastPage.hasMore())) {
+            return;
+        }
+        loading = true;
+        eventService.getRegistrationHistoryPage(currentUserId, lastPage, PAGE_SIZE, new IEventService.HistoryPageCallback() {
             @Override
-            public void onSuccess(List<EventEntity> allInvolvedEvents) {
-                Log.d(TAG, "Found " + allInvolvedEvents.size() + " events in user's history.");
+            public void onSuccess(HistoryPage page) {
+                loading = false;
+                if (binding == null) {
+                    return;
+                }
+                boolean firstPage = lastPage == null;
+                lastPage = page;
+                if (firstPage) {
+                    loadedEvents.clear();
+                }
+                loadedEvents.addAll(page.getEvents());
+                Log.d(TAG, "Loaded " + loadedEvents.size() + " events of user's history, more: " + page.hasMore());
 
-                if (allInvolvedEvents.isEmpty()) {
+                if (loadedEvents.isEmpty()) {
                     binding.recyclerViewHistory.setVisibility(View.GONE);
                     binding.emptyStateView.setVisibility(View.VISIBLE);
                 } else {
                     binding.recyclerViewHistory.setVisibility(View.VISIBLE);
                     binding.emptyStateView.setVisibility(View.GONE);
-                    eventHistoryAdapter.updateEvents(allInvolvedEvents, currentUserId);
                 }
+                eventHistoryAdapter.updateEvents(loadedEvents, currentUserId);
+                binding.recyclerViewHistory.post(EventHistoryFragment.this::prefetchIfNeeded);
             }
 
             @Override
             public void onError(String error) {
+                loading = false;
                 Log.e(TAG, "Error loading event history: " + error);
+                if (binding == null) {
+                    return;
+                }
+                if (eventHistoryAdapter.getItemCount() > 0) {
+                    return; // keep showing what is loaded (or stored) while offline
+                }
                 Toast.makeText(getContext(), "Error: " + error, Toast.LENGTH_LONG).show();
                 binding.emptyStateView.setVisibility(View.VISIBLE);
                 binding.recyclerViewHistory.setVisibility(View.GONE);
@@ -9,13 +9,12 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
-import java.util.List;
 
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.cmpuzz_events.Entrant;
 import com.bumptech.glide.Glide;
 import com.example.cmpuzz_events.R;
-import com.example.cmpuzz_events.ui.event.Event;
+import com.example.cmpuzz_events.models.event.EventSummary;
 
 public class EventViewHolder extends RecyclerView.ViewHolder {
     private final TextView tvEventName;
@@ -39,15 +38,14 @@ public class EventViewHolder extends RecyclerView.ViewHolder {
         imgBanner = itemView.findViewById(R.id.imgBanner);   // hook up ImageView
     }
 
-    public void bind(Event event, MyEventsAdapter.OnEventClickListener listener, boolean isOrganizerView) {
+    public void bind(EventSummary event, MyEventsAdapter.OnEventClickListener listener, boolean isOrganizerView) {
         tvEventName.setText(event.getTitle());
         tvDescription.setText(event.getDescription());
         tvMaxAttendees.setText("Maximum Attendees: " + event.getCapacity());
 
         // Ability for user to see waitlist count
         Context context = itemView.getContext();
-        List<String> waitlist = event.getWaitingList();
-        int waitlistCount = (waitlist != null) ? waitlist.size() : 0;
+        int waitlistCount = event.getWaitlistCount();
         if (waitlistCount >= 0) {
             tvWaitlistCount.setVisibility(View.VISIBLE);
             tvWaitlistCount.setText(context.getString(R.string.waitlist_count_format, waitlistCount));
@@ -12,6 +12,7 @@ import android.widget.ImageView;
 import android.widget.RadioGroup;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.widget.SearchView;
 
 import androidx.annotation.NonNull;
@@ -26,10 +27,15 @@ import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.databinding.FragmentHomeBinding;
 import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.EventSummary;
 import com.example.cmpuzz_events.models.user.User;
+import com.example.cmpuzz_events.service.DrawScheduler;
+import com.example.cmpuzz_events.service.EventDeleter;
 import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
-import com.example.cmpuzz_events.ui.event.Event;
+import com.example.cmpuzz_events.service.LocalStore;
+import com.example.cmpuzz_events.ui.event.EventPageLoader;
+import com.example.cmpuzz_events.utils.EventSearchIndex;
 import com.example.cmpuzz_events.utils.QRCodeGenerator;
 
 import java.util.ArrayList;
@@ -41,9 +47,11 @@ public class HomeFragment extends Fragment {
     private FragmentHomeBinding binding;
     private EventService eventService;
     private MyEventsAdapter adapter;
+    private EventPageLoader pageLoader;   // entrant view only
 
     // Lists to hold all events for filtering
-    private List<Event> allEvents = new ArrayList<>();
+    private List<EventSummary> allEvents = new ArrayList<>();
+    private final EventSearchIndex searchIndex = new EventSearchIndex();
 
     public View onCreateView(@NonNull LayoutInflater inflater,
                              ViewGroup container, Bundle savedInstanceState) {
@@ -59,6 +67,8 @@ public class HomeFragment extends Fragment {
         if (currentUser != null && currentUser.canManageEvents()) {
             binding.tvMyEventsTitle.setText("My Events");
             loadMyEvents();
+            showScheduledDraws(currentUser);
+            resumeEventDeletes(currentUser);
         } else {
             binding.tvMyEventsTitle.setText("All Events");
             loadAllEvents();
@@ -71,12 +81,28 @@ public class HomeFragment extends Fragment {
         binding.availabilityFilterGroup.setOnCheckedChangeListener(new RadioGroup.OnCheckedChangeListener() {
             @Override
             public void onCheckedChanged(RadioGroup group, int checkedId) {
-                // when the radio buttons change, apply the new filters onto the allEvents list
+                // Paged lists fetch matching events from the server; the rest filter allEvents
+                if (pageLoader != null) {
+                    pageLoader.setFullFilter(selectedFullFilter());
+                }
                 applyFilters();
             }
         });
     }
 
+    /**
+     * @return the isFull value the availability radio buttons ask for, or null for "Any"
+     */
+    private Boolean selectedFullFilter() {
+        int checkedId = binding.availabilityFilterGroup.getCheckedRadioButtonId();
+        if (checkedId == R.id.radio_full) {
+            return true;
+        } else if (checkedId == R.id.radio_not_full) {
+            return false;
+        }
+        return null;
+    }
+
     private void setupRecyclerView(View root) {
         RecyclerView recyclerView = binding.recyclerViewMyEvents;
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
@@ -85,7 +111,7 @@ public class HomeFragment extends Fragment {
         adapter = new MyEventsAdapter(new ArrayList<>(), isOrganizer);
         adapter.setOnEventClickListener(new MyEventsAdapter.OnEventClickListener() {
             @Override
-            public void onViewEventClick(Event event) {
+            public void onViewEventClick(EventSummary event) {
                 Bundle bundle = new Bundle();
                 bundle.putString("eventId", event.getEventId());
                 Navigation.findNavController(root).navigate(
@@ -95,12 +121,12 @@ public class HomeFragment extends Fragment {
             }
 
             @Override
-            public void onDrawAttendeesClick(Event event) {
+            public void onDrawAttendeesClick(EventSummary event) {
                 drawAttendeesForEvent(event);
             }
 
             @Override
-            public void onOverflowClick(Event event, View anchorView) {
+            public void onOverflowClick(EventSummary event, View anchorView) {
                 showEventOptionsBottomSheet(event);
             }
         });
@@ -139,38 +165,33 @@ public class HomeFragment extends Fragment {
         String query = binding.eventSearchView.getQuery().toString();
         int selectedAvailabilityId = binding.availabilityFilterGroup.getCheckedRadioButtonId();
 
-        List<Event> filteredEvents = new ArrayList<>();
-        String lowerCaseQuery = (query == null) ? "" : query.toLowerCase();
+        List<EventSummary> filteredEvents = new ArrayList<>();
+        // Ranked matches from the index; an empty query keeps every event in list order
+        List<EventSummary> candidates = (query == null || query.trim().isEmpty())
+                ? allEvents : searchIndex.search(query);
 
-        for (Event event : allEvents) {
+        for (EventSummary event : candidates) {
             // Filter by availability
             boolean availabilityMatch = false;
-            int currentEntrantCount = (event.getEntrants() != null) ? event.getEntrants().size() : 0;
-            int capacity = event.getCapacity();
 
             if (selectedAvailabilityId == R.id.radio_not_full) {
-                availabilityMatch = (capacity == 0 || currentEntrantCount < capacity);
+                availabilityMatch = !event.isFull();
             } else if (selectedAvailabilityId == R.id.radio_full) {
-                availabilityMatch = (capacity > 0 && currentEntrantCount >= capacity);
+                availabilityMatch = event.isFull();
             } else {
                 // "Any" case
                 availabilityMatch = true;
             }
 
-            // Filter by search query
             if (availabilityMatch) {
-                if (lowerCaseQuery.isEmpty() ||
-                        event.getTitle().toLowerCase().contains(lowerCaseQuery) ||
-                        event.getDescription().toLowerCase().contains(lowerCaseQuery)) {
-                    filteredEvents.add(event);
-                }
+                filteredEvents.add(event);
             }
         }
 
         adapter.updateEvents(filteredEvents);
     }
 
-    private void drawAttendeesForEvent(Event event) {
+    private void drawAttendeesForEvent(EventSummary event) {
         Log.d(TAG, "Drawing attendees for event: " + event.getTitle());
 
         eventService.drawAttendees(event.getEventId(), null, new IEventService.VoidCallback() {
@@ -193,6 +214,104 @@ public class HomeFragment extends Fragment {
         });
     }
 
+    /**
+     * Counts the organizer's events whose registration has closed without a draw and,
+     * if there are any, offers to draw them. Nothing is drawn until the organizer confirms.
+     */
+    private void showScheduledDraws(User currentUser) {
+        eventService.countScheduledDraws(currentUser.getUid(), new IEventService.CountCallback() {
+            @Override
+            public void onSuccess(long count) {
+                if (binding == null) {
+                    return;
+                }
+                if (count == 0) {
+                    binding.btnDrawClosedEvents.setVisibility(View.GONE);
+                    return;
+                }
+                binding.btnDrawClosedEvents.setText("Draw " + count + " closed event(s)");
+                binding.btnDrawClosedEvents.setVisibility(View.VISIBLE);
+                binding.btnDrawClosedEvents.setOnClickListener(v -> confirmScheduledDraws(currentUser, count));
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error counting events due for a draw: " + error);
+            }
+        });
+    }
+
+    private void confirmScheduledDraws(User currentUser, long count) {
+        new AlertDialog.Builder(requireContext())
+            .setTitle("Draw Closed Events")
+            .setMessage(count + " event(s) have closed registration without a draw. Draw attendees for them now?")
+            .setPositiveButton("Draw", (dialog, which) -> runScheduledDraws(currentUser))
+            .setNegativeButton("Cancel", null)
+            .show();
+    }
+
+    /**
+     * Draws attendees for the organizer's events whose registration has closed without
+     * a draw, then refreshes the list and the count of events still due.
+     */
+    private void runScheduledDraws(User currentUser) {
+        binding.btnDrawClosedEvents.setEnabled(false);
+        eventService.runScheduledDraws(currentUser.getUid(), new DrawScheduler.DrawRunCallback() {
+            @Override
+            public void onProgress(DrawScheduler.Progress progress) {
+                Log.d(TAG, "Auto-draw progress: " + progress);
+            }
+
+            @Override
+            public void onComplete(DrawScheduler.Progress progress) {
+                if (binding == null) {
+                    return;
+                }
+                binding.btnDrawClosedEvents.setEnabled(true);
+                Toast.makeText(getContext(),
+                        "Drew attendees for " + progress.getDrawn() + " closed event(s)",
+                        Toast.LENGTH_SHORT).show();
+                loadMyEvents();
+                showScheduledDraws(currentUser);
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error running scheduled draws: " + error);
+                if (binding != null) {
+                    binding.btnDrawClosedEvents.setEnabled(true);
+                    Toast.makeText(getContext(), "Error drawing closed events: " + error,
+                            Toast.LENGTH_LONG).show();
+                }
+            }
+        });
+    }
+
+    /**
+     * Finishes deleting any of the organizer's events whose delete was cut short,
+     * so their notifications and posters don't linger.
+     */
+    private void resumeEventDeletes(User currentUser) {
+        eventService.resumeEventDeletes(currentUser.getUid(), new EventDeleter.DeleteCallback() {
+            @Override
+            public void onProgress(EventDeleter.Progress progress) {
+                Log.d(TAG, "Resumed delete progress: " + progress);
+            }
+
+            @Override
+            public void onComplete(EventDeleter.Progress progress) {
+                if (progress.getEventsDeleted() > 0) {
+                    Log.d(TAG, "Finished " + progress.getEventsDeleted() + " interrupted event delete(s)");
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Error resuming event deletes: " + error);
+            }
+        });
+    }
+
     /**
      * Fetches events organized by the current user and updates the UI.
      * <p>
@@ -200,18 +319,18 @@ public class HomeFragment extends Fragment {
      * user has permissions to manage events (i.e., is an organizer). If these checks fail,
      * it returns early without fetching data.
      * <p>
-     * If the checks pass, it calls the {@link EventService} to retrieve the events for the
+     * If the checks pass, it calls the {@link EventService} to retrieve the event summaries for the
      * current organizer's user ID.
      * <p>
-     * On success, it clears the existing event lists, converts the retrieved {@link EventEntity}
-     * objects into UI-specific {@link Event} models, and calls {@link #applyFilters()} to display
+     * On success, it replaces the existing event lists with the retrieved {@link EventSummary}
+     * rows, and calls {@link #applyFilters()} to display
      * the data. The UI is updated to show the event list or an empty state view.
      * <p>
      * On error, it logs the issue, shows a toast notification, and updates the UI to display an
      * error message.
      *
      * @see AuthManager#getCurrentUser()
-     * @see IEventService#getEventsForOrganizer(String, IEventService.EventListCallback)
+     * @see IEventService#getEventSummariesForOrganizer(String, IEventService.SummaryListCallback)
      * @see #applyFilters()
      */
 
@@ -233,36 +352,19 @@ public class HomeFragment extends Fragment {
             return;
         }
 
-        eventService.getEventsForOrganizer(currentUser.getUid(), new IEventService.EventListCallback() {
+        eventService.getEventSummariesForOrganizer(currentUser.getUid(), new IEventService.SummaryListCallback() {
             @Override
-            public void onSuccess(List<EventEntity> entities) {
-                Log.d("HomeFragment", "Loaded " + entities.size() + " events");
+            public void onSuccess(List<EventSummary> summaries) {
+                Log.d("HomeFragment", "Loaded " + summaries.size() + " events");
                 if (binding == null) {
                     Log.w(TAG, "HomeFragment view was destroyed. Ignoring event list response.");
                     return;
                 }
 
                 allEvents.clear();
-
-                // Convert entities to UI Events
-                for (EventEntity entity : entities) {
-                    Event uiEvent = new Event(
-                            entity.getEventId(),
-                            entity.getTitle(),
-                            entity.getDescription(),
-                            entity.getCapacity(),
-                            entity.getRegistrationStart(),
-                            entity.getRegistrationEnd(),
-                            entity.getOrganizerId(),
-                            entity.getOrganizerName(),
-                            entity.isGeolocationRequired(),
-                            entity.getWaitlist()
-                    );
-                    uiEvent.setMaxEntrants(entity.getMaxEntrants());
-                    uiEvent.setEntrants(entity.getEntrants());
-                    uiEvent.setPosterUrl(entity.getPosterUrl());
-                    allEvents.add(uiEvent);
-                }
+                searchIndex.clear();
+                allEvents.addAll(summaries);
+                searchIndex.putAll(summaries);
 
                 applyFilters();
 
@@ -294,52 +396,97 @@ public class HomeFragment extends Fragment {
 
 
     /**
-     * Fetches all public events using proper UI layer (Event model).
+     * Fetches public event summaries a page at a time.
+     * The first page paints the list; later pages are prefetched while scrolling.
      */
     private void loadAllEvents() {
-        eventService.getAllEvents(new IEventService.UIEventListCallback() {
-            @Override
-            public void onSuccess(List<Event> events) {
-                if (binding == null) {
-                    Log.w(TAG, "HomeFragment view was destroyed. Ignoring event list response.");
-                    return;
+        if (pageLoader == null) {
+            pageLoader = new EventPageLoader(eventService, new EventPageLoader.Listener() {
+                @Override
+                public void onPageLoaded(List<EventSummary> events, boolean firstPage) {
+                    if (binding == null) {
+                        Log.w(TAG, "HomeFragment view was destroyed. Ignoring event list response.");
+                        return;
+                    }
+
+                    Log.d(TAG, "Successfully loaded page of " + events.size() + " public events.");
+                    if (firstPage) {
+                        allEvents.clear();
+                        searchIndex.clear();
+                    }
+                    allEvents.addAll(events);
+                    searchIndex.putAll(events);
+
+                    applyFilters();
+
+                    if (adapter.getItemCount() == 0 && !pageLoader.hasMore()) {
+                        binding.recyclerViewMyEvents.setVisibility(View.GONE);
+                        binding.tvEmptyState.setText("No events available right now.");
+                        binding.tvEmptyState.setVisibility(View.VISIBLE);
+                    } else {
+                        binding.recyclerViewMyEvents.setVisibility(View.VISIBLE);
+                        binding.tvEmptyState.setVisibility(View.GONE);
+                    }
+
+                    binding.eventSearchView.setVisibility(View.VISIBLE);
+                    binding.availabilityFilterGroup.setVisibility(View.VISIBLE);
                 }
 
-                Log.d(TAG, "Successfully loaded " + events.size() + " public events.");
-                allEvents.clear();
-                allEvents.addAll(events);
+                @Override
+                public void onError(String error) {
+                    if (binding == null) {
+                        Log.w(TAG, "HomeFragment view was destroyed. Ignoring error response.");
+                        return;
+                    }
 
-                applyFilters();
+                    Log.e(TAG, "Error loading all public events: " + error);
+                    Toast.makeText(getContext(), "Error loading events: " + error, Toast.LENGTH_SHORT).show();
+                    if (!allEvents.isEmpty()) {
+                        return; // keep the pages already shown
+                    }
 
-                if (adapter.getItemCount() == 0) {
-                    binding.recyclerViewMyEvents.setVisibility(View.GONE);
-                    binding.tvEmptyState.setText("No events available right now.");
+                    binding.tvEmptyState.setText("Could not load events.");
                     binding.tvEmptyState.setVisibility(View.VISIBLE);
-                } else {
-                    binding.recyclerViewMyEvents.setVisibility(View.VISIBLE);
-                    binding.tvEmptyState.setVisibility(View.GONE);
+                    binding.recyclerViewMyEvents.setVisibility(View.GONE);
+
+                    binding.eventSearchView.setVisibility(View.GONE);
+                    binding.availabilityFilterGroup.setVisibility(View.GONE);
                 }
+            });
+            pageLoader.attach(binding.recyclerViewMyEvents);
+            pageLoader.setFullFilter(selectedFullFilter());
+        }
+        showStoredEvents();
+        pageLoader.loadFirstPage();
+    }
 
+    /**
+     * Paints the events kept in the {@link LocalStore} until the first page arrives,
+     * and keeps them up if the device is offline
+     */
+    private void showStoredEvents() {
+        if (!LocalStore.isInitialized()) {
+            return;
+        }
+        LocalStore.getInstance().loadEvents(selectedFullFilter(), 0, new IEventService.SummaryListCallback() {
+            @Override
+            public void onSuccess(List<EventSummary> events) {
+                if (binding == null || !allEvents.isEmpty() || events.isEmpty()) {
+                    return;
+                }
+                Log.d(TAG, "Showing " + events.size() + " stored events");
+                allEvents.addAll(events);
+                searchIndex.putAll(events);
+                applyFilters();
+                binding.recyclerViewMyEvents.setVisibility(View.VISIBLE);
+                binding.tvEmptyState.setVisibility(View.GONE);
                 binding.eventSearchView.setVisibility(View.VISIBLE);
                 binding.availabilityFilterGroup.setVisibility(View.VISIBLE);
             }
 
             @Override
             public void onError(String error) {
-                if (binding == null) {
-                    Log.w(TAG, "HomeFragment view was destroyed. Ignoring error response.");
-                    return;
-                }
-
-                Log.e(TAG, "Error loading all public events: " + error);
-                Toast.makeText(getContext(), "Error loading events: " + error, Toast.LENGTH_SHORT).show();
-
-                binding.tvEmptyState.setText("Could not load events.");
-                binding.tvEmptyState.setVisibility(View.VISIBLE);
-                binding.recyclerViewMyEvents.setVisibility(View.GONE);
-
-                binding.eventSearchView.setVisibility(View.GONE);
-                binding.availabilityFilterGroup.setVisibility(View.GONE);
+                Log.e(TAG, "Error loading stored events: " + error);
             }
         });
     }
@@ -349,7 +496,7 @@ public class HomeFragment extends Fragment {
     /**
      * Show bottom sheet with event options (Share and QR Code)
      */
-    private void showEventOptionsBottomSheet(Event event) {
+    private void showEventOptionsBottomSheet(EventSummary event) {
         BottomSheetDialog bottomSheet = new BottomSheetDialog(requireContext());
         View sheetView = getLayoutInflater().inflate(R.layout.bottom_sheet_event_options, null);
         bottomSheet.setContentView(sheetView);
@@ -374,7 +521,7 @@ public class HomeFragment extends Fragment {
     /**
      * Share event using Android's share intent with deep link
      */
-    private void shareEvent(Event event) {
+    private void shareEvent(EventSummary event) {
         // Create deep link URL
         String deepLink = "cmpuzzevents://event/" + event.getEventId();
 
@@ -393,7 +540,7 @@ public class HomeFragment extends Fragment {
     /**
      * Show QR code dialog for the event
      */
-    private void showQRCodeDialog(Event event) {
+    private void showQRCodeDialog(EventSummary event) {
         Dialog dialog = new Dialog(requireContext());
         View dialogView = getLayoutInflater().inflate(R.layout.dialog_qr_code, null);
         dialog.setContentView(dialogView);
@@ -445,6 +592,10 @@ public class HomeFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (pageLoader != null) {
+            pageLoader.detach();
+            pageLoader = null;
+        }
         binding = null;
     }
 }
@@ -5,37 +5,45 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.cmpuzz_events.R;
-import com.example.cmpuzz_events.ui.event.Event;
+import com.example.cmpuzz_events.models.event.EventSummary;
+import com.example.cmpuzz_events.ui.DiffingAdapter;
 
 import java.util.List;
 
-public class MyEventsAdapter extends RecyclerView.Adapter<EventViewHolder> {
+public class MyEventsAdapter extends DiffingAdapter<EventSummary, EventViewHolder> {
 
-    private List<Event> events;
     private OnEventClickListener listener;
     private boolean isOrganizerView;
 
     public interface OnEventClickListener {
-        void onViewEventClick(Event event);
-        void onDrawAttendeesClick(Event event);
-        void onOverflowClick(Event event, View anchorView);
+        void onViewEventClick(EventSummary event);
+        void onDrawAttendeesClick(EventSummary event);
+        void onOverflowClick(EventSummary event, View anchorView);
     }
 
-    public MyEventsAdapter(List<Event> events, boolean isOrganizerView) {
-        this.events = events;
+    public MyEventsAdapter(List<EventSummary> events, boolean isOrganizerView) {
         this.isOrganizerView = isOrganizerView;
+        submitList(events);
     }
 
     public void setOnEventClickListener(OnEventClickListener listener) {
         this.listener = listener;
     }
 
-    public void updateEvents(List<Event> newEvents) {
-        this.events = newEvents;
-        notifyDataSetChanged();
+    public void updateEvents(List<EventSummary> newEvents) {
+        submitList(newEvents);
+    }
+
+    @Override
+    protected String getItemKey(@NonNull EventSummary event) {
+        return event.getEventId();
+    }
+
+    @Override
+    protected Object getItemContent(@NonNull EventSummary event) {
+        return event.toMap();
     }
 
     @NonNull
@@ -48,11 +56,6 @@ public class MyEventsAdapter extends RecyclerView.Adapter<EventViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
-        holder.bind(events.get(position), listener, isOrganizerView);
-    }
-
-    @Override
-    public int getItemCount() {
-        return events.size();
+        holder.bind(getItem(position), listener, isOrganizerView);
     }
 }
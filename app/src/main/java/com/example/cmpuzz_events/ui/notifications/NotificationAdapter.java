@@ -13,13 +13,13 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.models.notification.Notification;
+import com.example.cmpuzz_events.ui.DiffingAdapter;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapter.NotificationViewHolder> {
+public class NotificationAdapter extends DiffingAdapter<Notification, NotificationAdapter.NotificationViewHolder> {
 
-    private List<Notification> notifications;
     private OnNotificationActionListener listener;
 
     public interface OnNotificationActionListener {
@@ -29,21 +29,31 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
     }
 
     public NotificationAdapter() {
-        this.notifications = new ArrayList<>();
     }
 
     public void setNotifications(List<Notification> notifications) {
-        this.notifications = notifications;
-        notifyDataSetChanged();
+        submitList(notifications);
     }
 
     public void setOnNotificationActionListener(OnNotificationActionListener listener) {
         this.listener = listener;
     }
 
+    @Override
+    protected String getItemKey(@NonNull Notification notification) {
+        return notification.getId();
+    }
+
+    @Override
+    protected Object getItemContent(@NonNull Notification notification) {
+        // read is included since marking a notification read changes it in place
+        return Arrays.asList(notification.getType(), notification.getTitle(), notification.getEventName(),
+                notification.getMessage(), notification.getTimestamp(), notification.isRead());
+    }
+
     @Override
     public int getItemViewType(int position) {
-        Notification n = notifications.get(position);
+        Notification n = getItem(position);
 
         // Waitlist-loss notifications use special layout
         if (n.getType() == Notification.NotificationType.WAITLISTED) {
@@ -70,15 +80,10 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
 
     @Override
     public void onBindViewHolder(@NonNull NotificationViewHolder holder, int position) {
-        Notification notification = notifications.get(position);
+        Notification notification = getItem(position);
         holder.bind(notification, listener);
     }
 
-    @Override
-    public int getItemCount() {
-        return notifications.size();
-    }
-
     static class NotificationViewHolder extends RecyclerView.ViewHolder {
         private final TextView tvTitle;
         private final TextView tvEventName;
@@ -11,6 +11,7 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.databinding.FragmentNotificationsBinding;
@@ -19,19 +20,27 @@ import com.example.cmpuzz_events.models.user.User;
 import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
 import com.example.cmpuzz_events.service.INotificationService;
+import com.example.cmpuzz_events.service.LocalStore;
+import com.example.cmpuzz_events.service.NotificationPage;
 import com.example.cmpuzz_events.service.NotificationService;
 import com.example.cmpuzz_events.ui.event.Event;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class NotificationsFragment extends Fragment {
 
     private static final String TAG = "NotificationsFragment";
+    static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 5;
     private FragmentNotificationsBinding binding;
     private NotificationAdapter adapter;
     private NotificationService notificationService;
     private EventService eventService;
     private User currentUser;
+    private final List<Notification> loadedNotifications = new ArrayList<>();
+    private NotificationPage lastPage; // cursor for the next page; null before the first
+    private boolean loading;
 
     public View onCreateView(@NonNull LayoutInflater inflater,
                              ViewGroup container, Bundle savedInstanceState) {
@@ -53,6 +62,14 @@ public class NotificationsFragment extends Fragment {
         adapter = new NotificationAdapter();
         binding.recyclerViewNotifications.setLayoutManager(new LinearLayoutManager(getContext()));
         binding.recyclerViewNotifications.setAdapter(adapter);
+        binding.recyclerViewNotifications.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (dy > 0) {
+                    prefetchIfNeeded();
+                }
+            }
+        });
 
         adapter.setOnNotificationActionListener(new NotificationAdapter.OnNotificationActionListener() {
             @Override
@@ -77,30 +94,102 @@ public class NotificationsFragment extends Fragment {
             return;
         }
 
-        notificationService.getNotificationsForUser(currentUser.getUid(), 
-            new INotificationService.NotificationListCallback() {
+        // Draw the stored inbox straight away; the first Firestore page replaces it
+        lastPage = null;
+        loading = false;
+        if (LocalStore.isInitialized()) {
+            LocalStore.getInstance().loadNotifications(currentUser.getUid(),
+                new INotificationService.NotificationListCallback() {
+                    @Override
+                    public void onSuccess(List<Notification> notifications) {
+                        if (binding == null || lastPage != null || notifications.isEmpty()) {
+                            return;
+                        }
+                        adapter.setNotifications(notifications);
+                        binding.recyclerViewNotifications.setVisibility(View.VISIBLE);
+                        binding.tvEmptyState.setVisibility(View.GONE);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "Error loading stored notifications: " + error);
+                    }
+                });
+        }
+
+        loadNextPage();
+    }
+
+    /**
+     * Requests the page of notifications after the last one loaded, unless a request is
+     * already running or every page has been loaded. The first page replaces whatever is shown.
+     */
+    private void loadNextPage() {
+        if (currentUser == null || loading || (lastPage != null && !lastPage.hasMore())) {
+            return;
+        }
+        loading = true;
+        NotificationPage after = lastPage;
+        notificationService.getNotificationsPage(currentUser.getUid(), after, PAGE_SIZE,
+            new INotificationService.NotificationPageCallback() {
                 @Override
-                public void onSuccess(List<Notification> notifications) {
-                    Log.d(TAG, "Loaded " + notifications.size() + " notifications");
-                    adapter.setNotifications(notifications);
+                public void onSuccess(NotificationPage page) {
+                    if (lastPage != after) {
+                        return; // superseded by a reload
+                    }
+                    loading = false;
+                    if (binding == null) {
+                        return;
+                    }
+                    lastPage = page;
+                    if (after == null) {
+                        loadedNotifications.clear();
+                    }
+                    loadedNotifications.addAll(page.getNotifications());
+                    Log.d(TAG, "Loaded " + loadedNotifications.size() + " notifications, more: " + page.hasMore());
+                    adapter.setNotifications(new ArrayList<>(loadedNotifications));
                     
-                    if (notifications.isEmpty()) {
+                    if (loadedNotifications.isEmpty()) {
                         binding.recyclerViewNotifications.setVisibility(View.GONE);
                         binding.tvEmptyState.setVisibility(View.VISIBLE);
                     } else {
                         binding.recyclerViewNotifications.setVisibility(View.VISIBLE);
                         binding.tvEmptyState.setVisibility(View.GONE);
                     }
+                    binding.recyclerViewNotifications.post(NotificationsFragment.this::prefetchIfNeeded);
                 }
 
                 @Override
                 public void onError(String error) {
+                    if (lastPage != after) {
+                        return;
+                    }
+                    loading = false;
                     Log.e(TAG, "Error loading notifications: " + error);
+                    if (binding == null || adapter.getItemCount() > 0) {
+                        return; // keep showing what is loaded (or stored) while offline
+                    }
                     Toast.makeText(getContext(), "Error loading notifications", Toast.LENGTH_SHORT).show();
                 }
             });
     }
 
+    /**
+     * Loads the next page once the list is scrolled within {@link #PREFETCH_DISTANCE} rows of
+     * its end, or straight away if the loaded rows don't fill the screen.
+     */
+    private void prefetchIfNeeded() {
+        if (binding == null) {
+            return;
+        }
+        LinearLayoutManager layoutManager =
+                (LinearLayoutManager) binding.recyclerViewNotifications.getLayoutManager();
+        if (layoutManager != null
+                && layoutManager.findLastVisibleItemPosition() >= layoutManager.getItemCount() - 1 - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+    }
+
     private void showConfirmationDialog(Notification notification, boolean isAccept) {
         String title = isAccept ? "Accept Invitation" : "Decline Invitation";
         String message = isAccept ? 
@@ -214,6 +303,10 @@ public class NotificationsFragment extends Fragment {
                 @Override
                 public void onSuccess() {
                     Log.d(TAG, "Notification marked as read");
+                    notification.setRead(true);
+                    if (binding != null) {
+                        adapter.refresh(); // redraws just this row
+                    }
                 }
 
                 @Override
@@ -11,9 +11,11 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.cmpuzz_events.R;
-import com.example.cmpuzz_events.ui.event.Event;
+import com.example.cmpuzz_events.models.event.EventSummary;
+import com.example.cmpuzz_events.ui.DiffingAdapter;
 
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
@@ -22,26 +24,25 @@ import java.util.Locale;
  * It shows each event's details and status, like "attending" or "waitlisted,"
  * and provides actions the user can take.
  */
-public class EnrolledEventsAdapter extends RecyclerView.Adapter<EnrolledEventsAdapter.EnrolledEventViewHolder> {
+public class EnrolledEventsAdapter extends DiffingAdapter<EnrolledEventsAdapter.EventWithStatus, EnrolledEventsAdapter.EnrolledEventViewHolder> {
 
-    private List<EventWithStatus> eventsWithStatus;
     private OnEventActionListener listener;
 
     /**
-     * A helper class that bundles an Event object with its current enrollment status.
+     * A helper class that bundles an event's summary with its current enrollment status.
      * This makes it easier to manage the event's state within the adapter.
      */
     public static class EventWithStatus {
-        public Event event;
+        public EventSummary event;
         public String status; // "waitlist", "invited", "attending", "declined"
 
         /**
          * Creates a new instance of EventWithStatus.
          *
-         * @param event  The event object.
+         * @param event  The event summary.
          * @param status The user's status for this event.
          */
-        public EventWithStatus(Event event, String status) {
+        public EventWithStatus(EventSummary event, String status) {
             this.event = event;
             this.status = status;
         }
@@ -56,22 +57,22 @@ public class EnrolledEventsAdapter extends RecyclerView.Adapter<EnrolledEventsAd
          * Called when the user decides to leave the waitlist for an event.
          * @param event The event to leave.
          */
-        void onLeaveWaitlist(Event event);
+        void onLeaveWaitlist(EventSummary event);
         /**
          * Called when the user accepts an invitation to an event.
          * @param event The event to accept.
          */
-        void onAcceptInvitation(Event event);
+        void onAcceptInvitation(EventSummary event);
         /**
          * Called when the user declines an invitation to an event.
          * @param event The event to decline.
          */
-        void onDeclineInvitation(Event event);
+        void onDeclineInvitation(EventSummary event);
         /**
          * Called when the user taps on an event to see more details.
          * @param event The event to view.
          */
-        void onViewEvent(Event event);
+        void onViewEvent(EventSummary event);
     }
 
     /**
@@ -80,7 +81,7 @@ public class EnrolledEventsAdapter extends RecyclerView.Adapter<EnrolledEventsAd
      * @param eventsWithStatus The initial list of events to display.
      */
     public EnrolledEventsAdapter(List<EventWithStatus> eventsWithStatus) {
-        this.eventsWithStatus = eventsWithStatus;
+        submitList(eventsWithStatus);
     }
 
     /**
@@ -93,13 +94,35 @@ public class EnrolledEventsAdapter extends RecyclerView.Adapter<EnrolledEventsAd
     }
 
     /**
-     * Updates the list of events displayed by the adapter and refreshes the view.
+     * Updates the list of events displayed by the adapter. Only rows whose event or status
+     * changed are redrawn.
      *
      * @param newEventsWithStatus The new list of events to show.
      */
     public void updateEvents(List<EventWithStatus> newEventsWithStatus) {
-        this.eventsWithStatus = newEventsWithStatus;
-        notifyDataSetChanged();
+        submitList(newEventsWithStatus);
+    }
+
+    /**
+     * Rows are identified by their event ID.
+     *
+     * @param eventWithStatus The row to identify.
+     * @return The event ID of the row.
+     */
+    @Override
+    protected String getItemKey(@NonNull EventWithStatus eventWithStatus) {
+        return eventWithStatus.event.getEventId();
+    }
+
+    /**
+     * The event's summary fields together with the user's status.
+     *
+     * @param eventWithStatus The row to snapshot.
+     * @return The row's displayed values.
+     */
+    @Override
+    protected Object getItemContent(@NonNull EventWithStatus eventWithStatus) {
+        return Arrays.asList(eventWithStatus.event.toMap(), eventWithStatus.status);
     }
 
     /**
@@ -127,17 +150,7 @@ public class EnrolledEventsAdapter extends RecyclerView.Adapter<EnrolledEventsAd
      */
     @Override
     public void onBindViewHolder(@NonNull EnrolledEventViewHolder holder, int position) {
-        holder.bind(eventsWithStatus.get(position), listener);
-    }
-
-    /**
-     * Returns the total number of items in the data set held by the adapter.
-     *
-     * @return The total number of events in the list.
-     */
-    @Override
-    public int getItemCount() {
-        return eventsWithStatus != null ? eventsWithStatus.size() : 0;
+        holder.bind(getItem(position), listener);
     }
 
     /**
@@ -177,7 +190,7 @@ public class EnrolledEventsAdapter extends RecyclerView.Adapter<EnrolledEventsAd
          * @param listener The listener to handle actions.
          */
         public void bind(EventWithStatus eventWithStatus, OnEventActionListener listener) {
-            Event event = eventWithStatus.event;
+            EventSummary event = eventWithStatus.event;
             String status = eventWithStatus.status;
 
             tvEventTitle.setText(event.getTitle());
@@ -24,6 +24,7 @@ import com.example.cmpuzz_events.R;
 import com.example.cmpuzz_events.auth.AuthManager;
 import com.example.cmpuzz_events.databinding.FragmentProfileBinding;
 import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.EventSummary;
 import com.example.cmpuzz_events.models.event.Invitation;
 import com.example.cmpuzz_events.models.user.User;
 import com.example.cmpuzz_events.service.AdminService;
@@ -31,7 +32,6 @@ import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
 import com.example.cmpuzz_events.service.INotificationService;
 import com.example.cmpuzz_events.service.NotificationService;
-import com.example.cmpuzz_events.ui.event.Event;
 import com.example.cmpuzz_events.ui.event.EventDetailsFragment;
 import com.example.cmpuzz_events.ui.profile.EnrolledEventsAdapter.EventWithStatus;
 
@@ -250,22 +250,22 @@ public class ProfileFragment extends Fragment {
 
         adapter.setOnEventActionListener(new EnrolledEventsAdapter.OnEventActionListener() {
             @Override
-            public void onLeaveWaitlist(Event event) {
+            public void onLeaveWaitlist(EventSummary event) {
                 leaveWaitlist(event, currentUser);
             }
 
             @Override
-            public void onAcceptInvitation(Event event) {
+            public void onAcceptInvitation(EventSummary event) {
                 acceptInvitation(event, currentUser);
             }
 
             @Override
-            public void onDeclineInvitation(Event event) {
+            public void onDeclineInvitation(EventSummary event) {
                 declineInvitation(event, currentUser);
             }
 
             @Override
-            public void onViewEvent(Event event) {
+            public void onViewEvent(EventSummary event) {
                 // Navigate to event details
                 Bundle bundle = new Bundle();
                 bundle.putString("eventId", event.getEventId());
@@ -293,12 +293,11 @@ public class ProfileFragment extends Fragment {
             public void onSuccess(List<EventEntity> entities) {
                 Log.d(TAG, "Loaded " + entities.size() + " events for user");
 
-                // Convert to EventWithStatus
+                // Keep only a summary per row; the entities are dropped once statuses are known
                 List<EventWithStatus> eventsWithStatus = new ArrayList<>();
                 for (EventEntity entity : entities) {
-                    Event uiEvent = convertToUIEvent(entity);
                     String status = determineUserStatus(entity, userId);
-                    eventsWithStatus.add(new EventWithStatus(uiEvent, status));
+                    eventsWithStatus.add(new EventWithStatus(EventSummary.of(entity), status));
                 }
 
                 adapter.updateEvents(eventsWithStatus);
@@ -320,30 +319,6 @@ public class ProfileFragment extends Fragment {
         });
     }
 
-    /**
-     * Converts an {@link EventEntity} data model to an {@link Event} UI model.
-     *
-     * @param entity The {@link EventEntity} to convert.
-     * @return The resulting {@link Event} object for UI display.
-     */
-    private Event convertToUIEvent(EventEntity entity) {
-        List<String> waitlistIds = entity.getWaitlist();
-        Event uiEvent = new Event(
-                entity.getEventId(),
-                entity.getTitle(),
-                entity.getDescription(),
-                entity.getCapacity(),
-                entity.getRegistrationStart(),
-                entity.getRegistrationEnd(),
-                entity.getOrganizerId(),
-                entity.getOrganizerName(),
-                entity.isGeolocationRequired(),
-                waitlistIds
-        );
-        uiEvent.setMaxEntrants(entity.getMaxEntrants());
-        return uiEvent;
-    }
-
     /**
      * Determines the user's status for a given event (e.g., attending, invited, waitlist).
      *
@@ -384,7 +359,7 @@ public class ProfileFragment extends Fragment {
      * @param event The event from which the user is leaving the waitlist.
      * @param currentUser The current user performing the action.
      */
-    private void leaveWaitlist(Event event, User currentUser) {
+    private void leaveWaitlist(EventSummary event, User currentUser) {
         eventService.removeFromWaitlist(event.getEventId(), currentUser.getUid(), new IEventService.VoidCallback() {
             @Override
             public void onSuccess() {
@@ -406,7 +381,7 @@ public class ProfileFragment extends Fragment {
      * @param event The event for which the invitation is being accepted.
      * @param currentUser The current user accepting the invitation.
      */
-    private void acceptInvitation(Event event, User currentUser) {
+    private void acceptInvitation(EventSummary event, User currentUser) {
         eventService.respondToInvitation(event.getEventId(), currentUser.getUid(), true, new IEventService.VoidCallback() {
             @Override
             public void onSuccess() {
@@ -451,7 +426,7 @@ public class ProfileFragment extends Fragment {
      * @param event The event for which the invitation is being declined.
      * @param currentUser The current user declining the invitation.
      */
-    private void declineInvitation(Event event, User currentUser) {
+    private void declineInvitation(EventSummary event, User currentUser) {
         eventService.respondToInvitation(event.getEventId(), currentUser.getUid(), false, new IEventService.VoidCallback() {
             @Override
             public void onSuccess() {
@@ -0,0 +1,252 @@
+package com.example.cmpuzz_events.utils;
+
+import com.example.cmpuzz_events.models.event.EventSummary;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Search index over event titles and descriptions.
+ * Text is normalised once when an event is added (lower case, accents stripped,
+ * whitespace collapsed) and indexed two ways: by word, in a sorted map for prefix
+ * lookups, and by trigram, for substring lookups. A query only touches the events
+ * that share its rarest trigram (or start a word with it), so typing in the search
+ * box costs nothing per cached event.
+ * <p>
+ * Queries of three or more characters match any substring of the title or description;
+ * shorter queries match the start of a word. Results are ranked title-first, then by
+ * the order the events were added.
+ */
+public class EventSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * An indexed event with its normalised text
+     */
+    private static class Entry {
+        final EventSummary event;
+        final String title;
+        final String description;
+        final long order;
+        final Set<String> words = new HashSet<>();
+        final Set<String> grams = new HashSet<>();
+
+        Entry(EventSummary event, long order) {
+            this.event = event;
+            this.title = normalize(event.getTitle());
+            this.description = normalize(event.getDescription());
+            this.order = order;
+            for (String text : new String[]{title, description}) {
+                if (!text.isEmpty()) {
+                    Collections.addAll(words, text.split(" "));
+                }
+                for (int i = 0; i + GRAM <= text.length(); i++) {
+                    grams.add(text.substring(i, i + GRAM));
+                }
+            }
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Set<String>> wordIndex = new TreeMap<>();
+    private final Map<String, Set<String>> gramIndex = new HashMap<>();
+    private long nextOrder;
+
+    /**
+     * Add an event, or re-index it if an event with the same ID is already present.
+     * A re-indexed event keeps its place in the ranking order.
+     *
+     * @param event event to index
+     */
+    public void put(EventSummary event) {
+        Entry previous = entries.get(event.getEventId());
+        long order = previous != null ? previous.order : nextOrder++;
+        if (previous != null) {
+            unindex(previous);
+        }
+        Entry entry = new Entry(event, order);
+        entries.put(event.getEventId(), entry);
+        for (String word : entry.words) {
+            wordIndex.computeIfAbsent(word, k -> new HashSet<>()).add(event.getEventId());
+        }
+        for (String gram : entry.grams) {
+            gramIndex.computeIfAbsent(gram, k -> new HashSet<>()).add(event.getEventId());
+        }
+    }
+
+    /**
+     * Add or re-index several events, in order
+     *
+     * @param events events to index
+     */
+    public void putAll(Collection<EventSummary> events) {
+        for (EventSummary event : events) {
+            put(event);
+        }
+    }
+
+    /**
+     * Remove an event from the index
+     *
+     * @param eventId ID of the event
+     * @return true if the event was indexed
+     */
+    public boolean remove(String eventId) {
+        Entry entry = entries.remove(eventId);
+        if (entry == null) {
+            return false;
+        }
+        unindex(entry);
+        return true;
+    }
+
+    /**
+     * Remove every event
+     */
+    public void clear() {
+        entries.clear();
+        wordIndex.clear();
+        gramIndex.clear();
+        nextOrder = 0;
+    }
+
+    /**
+     * @return number of indexed events
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Find events whose title or description match the query.
+     *
+     * @param query text typed by the user
+     * @return matching events, best match first; empty for a blank query
+     */
+    public List<EventSummary> search(String query) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> candidates = q.length() < GRAM ? wordPrefixMatches(q) : gramMatches(q);
+        List<Entry> matches = new ArrayList<>(candidates.size());
+        for (String eventId : candidates) {
+            Entry entry = entries.get(eventId);
+            // Trigrams can all be present without the query being contiguous
+            if (q.length() < GRAM || entry.title.contains(q) || entry.description.contains(q)) {
+                matches.add(entry);
+            }
+        }
+
+        Map<Entry, Integer> scores = new HashMap<>();
+        for (Entry entry : matches) {
+            scores.put(entry, score(entry, q));
+        }
+        matches.sort((a, b) -> {
+            int byScore = Integer.compare(scores.get(b), scores.get(a));
+            return byScore != 0 ? byScore : Long.compare(a.order, b.order);
+        });
+
+        List<EventSummary> results = new ArrayList<>(matches.size());
+        for (Entry entry : matches) {
+            results.add(entry.event);
+        }
+        return results;
+    }
+
+    private Set<String> wordPrefixMatches(String prefix) {
+        Set<String> ids = new HashSet<>();
+        for (Set<String> posting : wordIndex.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            ids.addAll(posting);
+        }
+        return ids;
+    }
+
+    /**
+     * Events containing every trigram of the query, intersected from the rarest one up
+     */
+    private Set<String> gramMatches(String q) {
+        List<Set<String>> postings = new ArrayList<>();
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            Set<String> posting = gramIndex.get(q.substring(i, i + GRAM));
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            postings.add(posting);
+        }
+        postings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<String> ids = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !ids.isEmpty(); i++) {
+            ids.retainAll(postings.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Title beats description; within a field, the start of the field beats the
+     * start of a word, which beats the middle of a word.
+     */
+    private static int score(Entry entry, String q) {
+        int titleScore = fieldScore(entry.title, q);
+        if (titleScore > 0) {
+            return 3 + titleScore;
+        }
+        return fieldScore(entry.description, q);
+    }
+
+    private static int fieldScore(String text, String q) {
+        if (text.startsWith(q)) {
+            return 3;
+        }
+        if (text.contains(" " + q)) {
+            return 2;
+        }
+        return text.contains(q) ? 1 : 0;
+    }
+
+    private void unindex(Entry entry) {
+        String eventId = entry.event.getEventId();
+        for (String word : entry.words) {
+            removePosting(wordIndex, word, eventId);
+        }
+        for (String gram : entry.grams) {
+            removePosting(gramIndex, gram, eventId);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<String>> index, String key, String eventId) {
+        Set<String> posting = index.get(key);
+        if (posting != null) {
+            posting.remove(eventId);
+            if (posting.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Lower case, accents stripped and runs of whitespace collapsed to one space
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.cmpuzz_events.utils;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Insertion-ordered list of unique items with a hash index on each item's key.
+ * Membership checks, lookups by key and removals are O(1); positional reads use an
+ * array snapshot that is rebuilt once after a change, so iterating or sampling an
+ * unchanged list stays O(1) per element.
+ * <p>
+ * Items are unique by key: adding an item whose key is already present leaves the
+ * list unchanged and returns false. Serialises like any other {@link List}.
+ *
+ * @param <K> key type (the item itself for ID lists)
+ * @param <E> item type
+ */
+public class IndexedList<K, E> extends AbstractList<E> {
+
+    private final LinkedHashMap<K, E> entries;
+    private final Function<? super E, ? extends K> keyOf;
+    private Object[] snapshot;   // positional view, null after a change
+
+    /**
+     * Create an empty list keyed by the given function
+     *
+     * @param keyOf extracts an item's key
+     */
+    public IndexedList(Function<? super E, ? extends K> keyOf) {
+        this.keyOf = keyOf;
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Create a list holding the given items, dropping repeated keys
+     *
+     * @param keyOf extracts an item's key
+     * @param items initial items, in order
+     */
+    public IndexedList(Function<? super E, ? extends K> keyOf, Collection<? extends E> items) {
+        this.keyOf = keyOf;
+        // Sized up front so copying a large array never rehashes
+        this.entries = items != null && !items.isEmpty()
+                ? new LinkedHashMap<>(items.size() * 4 / 3 + 1)
+                : new LinkedHashMap<>();
+        if (items != null) {
+            for (E item : items) {
+                add(item);
+            }
+        }
+    }
+
+    /**
+     * Create an indexed list of IDs (each ID is its own key)
+     *
+     * @param ids initial IDs, or null for an empty list
+     * @return indexed ID list
+     */
+    public static IndexedList<String, String> ofIds(Collection<String> ids) {
+        return new IndexedList<>(id -> id, ids);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (snapshot == null) {
+            snapshot = entries.values().toArray();
+        }
+        if (index < 0 || index >= snapshot.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + snapshot.length);
+        }
+        return (E) snapshot[index];
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        K key = keyOfObject(o);
+        return key != null && entries.containsKey(key) && Objects.equals(entries.get(key), o);
+    }
+
+    /**
+     * @return true if an item with this key is in the list
+     */
+    public boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * @return the item with this key, or null
+     */
+    public E getByKey(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Remove the item with this key
+     *
+     * @return the removed item, or null if there was none
+     */
+    public E removeByKey(K key) {
+        E removed = entries.remove(key);
+        if (removed != null) {
+            changed();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean add(E item) {
+        K key = keyOf.apply(item);
+        if (entries.containsKey(key)) {
+            return false;
+        }
+        entries.put(key, item);
+        changed();
+        return true;
+    }
+
+    @Override
+    public void add(int index, E item) {
+        if (index == size()) {
+            add(item);
+            return;
+        }
+        if (entries.containsKey(keyOf.apply(item))) {
+            return;
+        }
+        List<E> items = new ArrayList<>(entries.values());
+        items.add(index, item);
+        rebuild(items);
+    }
+
+    @Override
+    public E set(int index, E item) {
+        E previous = get(index);
+        K key = keyOf.apply(item);
+        if (Objects.equals(key, keyOf.apply(previous))) {
+            entries.put(key, item); // keeps its position
+            changed();
+            return previous;
+        }
+        if (entries.containsKey(key)) {
+            throw new IllegalArgumentException("Duplicate key: " + key);
+        }
+        List<E> items = new ArrayList<>(entries.values());
+        items.set(index, item);
+        rebuild(items);
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        entries.remove(keyOfObject(o));
+        changed();
+        return true;
+    }
+
+    @Override
+    public E remove(int index) {
+        E item = get(index);
+        entries.remove(keyOf.apply(item));
+        changed();
+        return item;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        changed();
+    }
+
+    /**
+     * Iterates in insertion order; removing through the iterator is O(1),
+     * so removeIf over the whole list is a single O(n) pass.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> values = entries.values().iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return values.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return values.next();
+            }
+
+            @Override
+            public void remove() {
+                values.remove();
+                changed();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private K keyOfObject(Object o) {
+        if (o == null) {
+            return null;
+        }
+        try {
+            return keyOf.apply((E) o);
+        } catch (ClassCastException e) {
+            return null;
+        }
+    }
+
+    private void rebuild(List<E> items) {
+        entries.clear();
+        for (E item : items) {
+            entries.put(keyOf.apply(item), item);
+        }
+        changed();
+    }
+
+    private void changed() {
+        snapshot = null;
+        modCount++;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.cmpuzz_events.utils;
+
+import com.example.cmpuzz_events.models.event.DrawPolicy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Uniform lottery draw used to pick invitees from a waitlist.
+ * Picks k winners with a sparse partial Fisher-Yates shuffle, so the pool is
+ * never copied or fully shuffled, and splits winners from losers with a hash set.
+ * Passing a seed makes a draw reproducible.
+ */
+public class LotteryEngine {
+
+    private final Random random;
+
+    /**
+     * Create an engine with a random seed
+     */
+    public LotteryEngine() {
+        this(new Random());
+    }
+
+    /**
+     * Create an engine whose draws are reproducible for the same seed and pool
+     *
+     * @param seed seed for the random generator
+     */
+    public LotteryEngine(long seed) {
+        this(new Random(seed));
+    }
+
+    /**
+     * Create an engine using the given random generator
+     *
+     * @param random source of randomness
+     */
+    public LotteryEngine(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Result of a draw: winners in the order they were picked and everyone else in pool order.
+     */
+    public static class DrawResult {
+        private final List<String> winners;
+        private final Set<String> winnerSet;
+        private final List<String> losers;
+
+        DrawResult(List<String> winners, Set<String> winnerSet, List<String> losers) {
+            this.winners = winners;
+            this.winnerSet = winnerSet;
+            this.losers = losers;
+        }
+
+        public List<String> getWinners() {
+            return winners;
+        }
+
+        public Set<String> getWinnerSet() {
+            return winnerSet;
+        }
+
+        public List<String> getLosers() {
+            return losers;
+        }
+    }
+
+    /**
+     * Pick k distinct positions out of n in O(k) time and memory.
+     * Runs a Fisher-Yates shuffle over the first k slots only, remembering
+     * swapped slots in a map instead of materialising the whole array.
+     *
+     * @param n pool size
+     * @param k number of positions to pick (capped at n)
+     * @return picked positions in draw order
+     */
+    public int[] sampleIndices(int n, int k) {
+        k = Math.max(0, Math.min(k, n));
+        int[] picked = new int[k];
+        Map<Integer, Integer> swapped = new HashMap<>(k * 2);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            Integer atJ = swapped.get(j);
+            Integer atI = swapped.get(i);
+            picked[i] = atJ != null ? atJ : j;
+            swapped.put(j, atI != null ? atI : i);
+        }
+        return picked;
+    }
+
+    /**
+     * Pick up to k winners from the pool; everyone else is a loser.
+     * Sampling is O(k); building the loser list is a single O(n) pass.
+     *
+     * @param pool candidate user IDs (not modified)
+     * @param k    number of winners wanted
+     * @return winners and losers
+     */
+    public DrawResult draw(List<String> pool, int k) {
+        if (pool == null || pool.isEmpty() || k <= 0) {
+            List<String> everyone = pool != null ? new ArrayList<>(pool) : new ArrayList<>();
+            return new DrawResult(new ArrayList<>(), Collections.emptySet(), everyone);
+        }
+
+        int[] indices = sampleIndices(pool.size(), k);
+        List<String> winners = new ArrayList<>(indices.length);
+        Set<String> winnerSet = new HashSet<>(indices.length * 2);
+        for (int index : indices) {
+            String userId = pool.get(index);
+            winners.add(userId);
+            winnerSet.add(userId);
+        }
+
+        List<String> losers = new ArrayList<>(Math.max(0, pool.size() - winners.size()));
+        for (String userId : pool) {
+            if (!winnerSet.contains(userId)) {
+                losers.add(userId);
+            }
+        }
+        return new DrawResult(winners, winnerSet, losers);
+    }
+
+    /**
+     * Pick up to k winners following a draw policy.
+     * Seats reserved by each stratum are filled first from entrants whose location
+     * is inside its region, then the remaining seats are drawn from everyone left.
+     * Every pick is weighted by the policy, sampled without replacement through a
+     * {@link WeightedSampler} in O(log n) per pick. Entrants with zero weight are never picked.
+     *
+     * @param pool      candidate user IDs (not modified)
+     * @param k         number of winners wanted
+     * @param policy    weights and strata (null means uniform)
+     * @param locations entrant locations keyed by user ID, used by strata
+     * @return winners and losers
+     */
+    public DrawResult draw(List<String> pool, int k, DrawPolicy policy,
+                           Map<String, List<Double>> locations) {
+        if (policy == null || (!policy.isWeighted() && policy.getStrata().isEmpty())) {
+            return draw(pool, k);
+        }
+        if (pool == null || pool.isEmpty() || k <= 0) {
+            return draw(pool, 0);
+        }
+
+        int n = pool.size();
+        k = Math.min(k, n);
+        double[] poolWeights = new double[n];
+        for (int i = 0; i < n; i++) {
+            poolWeights[i] = policy.getWeight(pool.get(i));
+        }
+        WeightedSampler everyone = new WeightedSampler(poolWeights);
+
+        List<String> winners = new ArrayList<>(k);
+        Set<String> winnerSet = new HashSet<>(k * 2);
+
+        // Reserved seats first
+        for (DrawPolicy.Stratum stratum : policy.getStrata()) {
+            int seats = Math.min(stratum.getSeats(), k - winners.size());
+            if (seats <= 0 || locations == null) {
+                continue;
+            }
+            List<Integer> eligible = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                String userId = pool.get(i);
+                if (!winnerSet.contains(userId) && stratum.getRegion().contains(locations.get(userId))) {
+                    eligible.add(i);
+                }
+            }
+            double[] eligibleWeights = new double[eligible.size()];
+            for (int i = 0; i < eligibleWeights.length; i++) {
+                eligibleWeights[i] = poolWeights[eligible.get(i)];
+            }
+            for (int picked : new WeightedSampler(eligibleWeights).sampleWithoutReplacement(seats, random)) {
+                int index = eligible.get(picked);
+                winners.add(pool.get(index));
+                winnerSet.add(pool.get(index));
+                everyone.setWeight(index, 0);
+            }
+        }
+
+        // Open seats from everyone left
+        for (int index : everyone.sampleWithoutReplacement(k - winners.size(), random)) {
+            winners.add(pool.get(index));
+            winnerSet.add(pool.get(index));
+        }
+
+        List<String> losers = new ArrayList<>(n - winners.size());
+        for (String userId : pool) {
+            if (!winnerSet.contains(userId)) {
+                losers.add(userId);
+            }
+        }
+        return new DrawResult(winners, winnerSet, losers);
+    }
+
+    /**
+     * Pick a single winner from the pool
+     *
+     * @param pool candidate user IDs
+     * @return the winner, or null if the pool is empty
+     */
+    public String drawOne(List<String> pool) {
+        if (pool == null || pool.isEmpty()) {
+            return null;
+        }
+        return pool.get(random.nextInt(pool.size()));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.cmpuzz_events.utils;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads.
+ * While a load for a key (usually a document path) is in flight, further requests
+ * for the same key get the same Task instead of starting another round trip; once
+ * it completes, the next request starts a fresh load. Counts of requests and of
+ * round trips saved are kept for logging.
+ *
+ * @param <T> result type of the load
+ */
+public class SingleFlight<T> {
+
+    private final Map<String, Task<T>> inFlight = new HashMap<>();
+    private long requests;
+    private long coalesced;
+
+    /**
+     * Join the in-flight load for this key, or start one
+     *
+     * @param key    identifies the resource, e.g. "events/{id}"
+     * @param loader starts the load; only called when nothing is in flight for the key
+     * @return Task shared by every caller that joined this load
+     */
+    public synchronized Task<T> run(String key, Supplier<Task<T>> loader) {
+        requests++;
+        Task<T> running = inFlight.get(key);
+        if (running != null) {
+            coalesced++;
+            return running;
+        }
+
+        // Starting a load only queues the request, so it is cheap to do under the lock
+        Task<T> task = loader.get();
+        if (task.isComplete()) {
+            return task; // nothing left to share
+        }
+        inFlight.put(key, task);
+        // Runs on the completing thread so the key is freed before any callbacks are posted
+        task.addOnCompleteListener(Runnable::run, done -> {
+            synchronized (this) {
+                if (inFlight.get(key) == done) {
+                    inFlight.remove(key);
+                }
+            }
+        });
+        return task;
+    }
+
+    /**
+     * @return requests made through {@link #run}
+     */
+    public synchronized long getRequestCount() {
+        return requests;
+    }
+
+    /**
+     * @return requests that joined a load already in flight (round trips saved)
+     */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * @return number of loads currently in flight
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "requests=" + requests + ", saved=" + coalesced;
+    }
+}
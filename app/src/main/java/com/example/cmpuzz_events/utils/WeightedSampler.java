@@ -0,0 +1,142 @@
+package com.example.cmpuzz_events.utils;
+
+import java.util.Random;
+
+/**
+ * Weighted sampling without replacement backed by a Fenwick (binary indexed) tree.
+ * Building the tree is O(n); each pick finds the item by prefix sum and zeroes
+ * its weight in O(log n), so drawing k items costs O(n + k log n) instead of
+ * rebuilding the weights after every pick.
+ */
+public class WeightedSampler {
+
+    private final double[] tree;     // 1-based Fenwick tree of weights
+    private final double[] weights;  // current weight of each item
+    private final int size;
+    private double total;
+
+    /**
+     * Create a sampler over the given weights. Negative or NaN weights count as zero.
+     *
+     * @param initialWeights weight of each item, by index
+     */
+    public WeightedSampler(double[] initialWeights) {
+        size = initialWeights.length;
+        weights = new double[size];
+        tree = new double[size + 1];
+        for (int i = 0; i < size; i++) {
+            double w = initialWeights[i];
+            weights[i] = (w > 0) ? w : 0;
+            tree[i + 1] += weights[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent <= size) {
+                tree[parent] += tree[i + 1];
+            }
+            total += weights[i];
+        }
+    }
+
+    /**
+     * @return number of items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return sum of the weights still in the sampler
+     */
+    public double getTotalWeight() {
+        return total;
+    }
+
+    /**
+     * Change an item's weight in O(log n)
+     *
+     * @param index  item index
+     * @param weight new weight (non-positive removes the item)
+     */
+    public void setWeight(int index, double weight) {
+        double w = (weight > 0) ? weight : 0;
+        double delta = w - weights[index];
+        if (delta == 0) {
+            return;
+        }
+        weights[index] = w;
+        total += delta;
+        for (int i = index + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Pick one item with probability proportional to its weight and remove it.
+     *
+     * @param random source of randomness
+     * @return picked index, or -1 if no weight remains
+     */
+    public int sampleAndRemove(Random random) {
+        if (total <= 0) {
+            return -1;
+        }
+        double target = random.nextDouble() * total;
+        int index = findByPrefix(target);
+        // Guard against rounding landing on an already-removed slot
+        while (index < size && weights[index] <= 0) {
+            index++;
+        }
+        if (index >= size) {
+            index = size - 1;
+            while (index >= 0 && weights[index] <= 0) {
+                index--;
+            }
+            if (index < 0) {
+                total = 0;
+                return -1;
+            }
+        }
+        setWeight(index, 0);
+        return index;
+    }
+
+    /**
+     * Pick up to k distinct items, each pick proportional to the remaining weights.
+     *
+     * @param k      number of items wanted
+     * @param random source of randomness
+     * @return picked indices in draw order (fewer than k if weight runs out)
+     */
+    public int[] sampleWithoutReplacement(int k, Random random) {
+        int[] picked = new int[Math.max(0, Math.min(k, size))];
+        int count = 0;
+        while (count < picked.length) {
+            int index = sampleAndRemove(random);
+            if (index < 0) {
+                break;
+            }
+            picked[count++] = index;
+        }
+        if (count == picked.length) {
+            return picked;
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(picked, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Find the smallest index whose inclusive prefix sum exceeds target
+     */
+    private int findByPrefix(double target) {
+        int position = 0;
+        int step = Integer.highestOneBit(Math.max(1, size));
+        for (; step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= size && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return position; // 0-based index of the item
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.cmpuzz_events;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.example.cmpuzz_events.service.AccountPurge;
+import com.google.firebase.firestore.FieldValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the event updates {@link AccountPurge} builds when removing a user.
+ */
+public class AccountPurgeTest {
+
+    private static final String UID = "gone";
+
+    private Map<String, Object> invitation(String userId, String status) {
+        Map<String, Object> inv = new HashMap<>();
+        inv.put("userId", userId);
+        inv.put("status", status);
+        return inv;
+    }
+
+    private Map<String, Object> inlineEvent() {
+        List<Map<String, Object>> invitations = new ArrayList<>();
+        invitations.add(invitation(UID, "PENDING"));
+        invitations.add(invitation("dave", "PENDING"));
+        invitations.add(invitation("erin", "ACCEPTED"));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("waitlist", Arrays.asList(UID, "amy", "bob"));
+        data.put("attendees", Collections.singletonList("erin"));
+        data.put("declined", new ArrayList<>());
+        data.put("invitations", invitations);
+        data.put("participants", Arrays.asList(UID, "amy", "bob", "dave", "erin"));
+        data.put("entrantLocations", Collections.singletonMap(UID, Arrays.asList(53.5, -113.5)));
+        data.put("capacity", 4L);
+        return data;
+    }
+
+    @Test
+    public void testListRemovalTouchesOnlyListsHoldingTheUser() {
+        Map<String, Object> updates = AccountPurge.listRemoval(inlineEvent(), UID);
+
+        assertNotNull(updates);
+        assertTrue(updates.containsKey("waitlist"));
+        assertTrue(updates.containsKey("participants"));
+        assertTrue(updates.containsKey("invitations"));
+        assertFalse(updates.containsKey("attendees"));
+        assertFalse(updates.containsKey("declined"));
+    }
+
+    @Test
+    public void testListRemovalDeletesOnlyTheUsersLocation() {
+        Map<String, Object> updates = AccountPurge.listRemoval(inlineEvent(), UID);
+
+        Map<?, ?> locations = (Map<?, ?>) updates.get("entrantLocations");
+        assertEquals(Collections.singleton(UID), locations.keySet());
+        assertEquals(FieldValue.delete(), locations.get(UID));
+        assertFalse(updates.containsKey("entrantLocations." + UID));
+    }
+
+    @Test
+    public void testListRemovalDecrementsOnlyTheUsersCounts() {
+        Map<String, Object> updates = AccountPurge.listRemoval(inlineEvent(), UID);
+
+        assertTrue(updates.get("waitlistCount") instanceof FieldValue);
+        assertTrue(updates.get("invitedCount") instanceof FieldValue);
+        assertTrue(updates.get("entrantCount") instanceof FieldValue);
+        assertFalse(updates.containsKey("attendeeCount"));
+        // Left for the refresh after the commit; the stored document may have moved on
+        assertFalse(updates.containsKey("isFull"));
+    }
+
+    @Test
+    public void testListRemovalSkipsEventsWithoutTheUser() {
+        assertNull(AccountPurge.listRemoval(inlineEvent(), "stranger"));
+    }
+
+    @Test
+    public void testEntrantRemovalDecrementsMatchingCount() {
+        Map<String, Object> waitlisted = new HashMap<>();
+        waitlisted.put("status", "WAITLIST");
+        Map<String, Object> updates = AccountPurge.entrantRemoval(waitlisted);
+        assertTrue(updates.get("waitlistCount") instanceof FieldValue);
+        assertTrue(updates.get("entrantCount") instanceof FieldValue);
+        assertFalse(updates.containsKey("invitedCount"));
+        assertFalse(updates.containsKey("attendeeCount"));
+
+        Map<String, Object> invited = new HashMap<>();
+        invited.put("status", "INVITED");
+        invited.put("invitation", invitation(UID, "PENDING"));
+        updates = AccountPurge.entrantRemoval(invited);
+        assertTrue(updates.get("invitedCount") instanceof FieldValue);
+        assertFalse(updates.containsKey("waitlistCount"));
+        assertFalse(updates.containsKey("isFull"));
+    }
+
+    @Test
+    public void testEntrantRemovalOfAnsweredInvitationLeavesCounts() {
+        Map<String, Object> declined = new HashMap<>();
+        declined.put("status", "INVITED");
+        declined.put("invitation", invitation(UID, "DECLINED"));
+        Map<String, Object> updates = AccountPurge.entrantRemoval(declined);
+
+        assertEquals(Collections.singleton("updatedAt"), updates.keySet());
+    }
+}
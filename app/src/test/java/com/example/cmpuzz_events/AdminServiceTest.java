@@ -44,7 +44,7 @@ public class AdminServiceTest {
     }
 
     /**
-     * Direct copy of the removal logic from AdminService's removeUserFromAllEvents method.
+     * Plain-list version of the removal AccountPurge applies with arrayRemove.
      * Removes a user from a simple list of UIDs.
      */
     private List<String> removeUserFromList(List<String> list, String uidToRemove) {
@@ -57,7 +57,7 @@ public class AdminServiceTest {
     }
 
     /**
-     * Direct copy of the invitation removal logic from AdminService's removeUserFromAllEvents method.
+     * Plain-list version of the invitation removal AccountPurge applies with arrayRemove.
      * Removes a user from a list of invitation maps.
      */
     private List<Map<String, Object>> removeUserFromInvitations(List<Map<String, Object>> invitations, String uidToRemove) {
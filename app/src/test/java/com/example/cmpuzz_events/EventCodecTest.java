@@ -0,0 +1,140 @@
+package com.example.cmpuzz_events;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.example.cmpuzz_events.models.event.EventCodec;
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.Invitation;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests decoding stored event data with {@link EventCodec}.
+ */
+public class EventCodecTest {
+
+    private static final Date CREATED = new Date(1_700_000_000_000L);
+    private static final Date UPDATED = new Date(1_700_000_500_000L);
+
+    private EventEntity sampleEvent(int entrants) {
+        EventEntity event = new EventEntity("evt1", "Swim Lessons", "Beginner class", 20,
+                new Date(1_700_100_000_000L), new Date(1_700_200_000_000L),
+                "org1", "Pool Staff", true, 500);
+        for (int i = 0; i < entrants; i++) {
+            event.getWaitlist().add("user" + i);
+        }
+        event.addInvitation(new Invitation("user0", "Alice"));
+        event.getAttendees().add("user1");
+        event.addLocation("user0", 53.5, -113.5);
+        event.setPosterUrl("https://example.com/poster.png");
+        event.setPrice(12.5);
+        event.setSelectionsFinalized(true);
+        event.setDrawStatus(EventEntity.DrawStatus.DRAWN);
+        event.setCreatedAt(CREATED);
+        event.setUpdatedAt(UPDATED);
+        return event;
+    }
+
+    @Test
+    public void testDecodeRoundTripsStoredFields() {
+        EventEntity decoded = EventCodec.decode(sampleEvent(3).toMap());
+
+        assertEquals("evt1", decoded.getEventId());
+        assertEquals("Swim Lessons", decoded.getTitle());
+        assertEquals(20, decoded.getCapacity());
+        assertEquals(500, decoded.getMaxEntrants());
+        assertTrue(decoded.isGeolocationRequired());
+        assertEquals(3, decoded.getWaitlist().size());
+        assertEquals(1, decoded.getAttendees().size());
+        assertEquals("Alice", decoded.getInvitations().get(0).getUsername());
+        assertTrue(decoded.getInvitations().get(0).isPending());
+        assertEquals(53.5, decoded.getEntrantLocations().get("user0").get(0), 0.0001);
+        assertEquals("https://example.com/poster.png", decoded.getPosterUrl());
+        assertEquals(12.5, decoded.getPrice(), 0.0001);
+        assertTrue(decoded.isSelectionsFinalized());
+        assertEquals(EventEntity.DrawStatus.DRAWN, decoded.getDrawStatus());
+    }
+
+    @Test
+    public void testDecodeKeepsStoredUpdatedAtAndStartsClean() {
+        EventEntity decoded = EventCodec.decode(sampleEvent(3).toMap());
+
+        assertEquals(CREATED, decoded.getCreatedAt());
+        assertEquals(UPDATED, decoded.getUpdatedAt());
+        assertTrue(decoded.isTracked());
+        assertTrue(decoded.getDirtyFields().isEmpty());
+    }
+
+    @Test
+    public void testMissingFieldsUseDefaults() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", "evt2");
+
+        EventEntity decoded = EventCodec.decode(data);
+
+        assertEquals(0, decoded.getCapacity());
+        assertTrue(decoded.getWaitlist().isEmpty());
+        assertTrue(decoded.getInvitations().isEmpty());
+        assertTrue(decoded.getEntrants().isEmpty());
+        assertNull(decoded.getPrice());
+        assertEquals(EventEntity.EntrantStorage.INLINE, decoded.getEntrantStorage());
+        assertEquals(EventEntity.DrawStatus.PENDING, decoded.getDrawStatus());
+
+        // Decoded lists still accept changes
+        decoded.getWaitlist().add("user9");
+        assertTrue(decoded.getDirtyFields().contains("waitlist"));
+        decoded.getEntrants().add("user9");
+        assertEquals(1, decoded.getEntrants().size());
+    }
+
+    @Test
+    public void testDecodeLargeArrays() {
+        int entrants = 5000;
+        Map<String, Object> stored = plainCopy(sampleEvent(entrants).toMap());
+
+        EventEntity decoded = EventCodec.decode(stored);
+
+        assertEquals(entrants, decoded.getWaitlist().size());
+        assertTrue(decoded.getWaitlist().contains("user" + (entrants - 1)));
+        assertTrue(decoded.getDirtyFields().isEmpty());
+    }
+
+    @Test
+    public void testDecodeSummaryKeepsSummaryCounts() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("eventId", "evt1");
+        summary.put("title", "Swim Lessons");
+        summary.put("capacity", 20L);
+        summary.put("waitlistCount", 40L);
+        summary.put("invitedCount", 5L);
+        summary.put("attendeeCount", 12L);
+
+        EventEntity decoded = EventCodec.decodeSummary(summary);
+        decoded.getAttendees().add("user1");
+
+        assertEquals("Swim Lessons", decoded.getTitle());
+        assertEquals(40, decoded.getWaitlistCount());
+        assertEquals(12, decoded.getAttendeeCount());
+        assertEquals(57, decoded.getEntrantCount());
+        assertTrue(decoded.isFull());
+    }
+
+    /**
+     * Firestore hands back plain lists, not the entity's indexed ones
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> plainCopy(Map<String, Object> map) {
+        Map<String, Object> copy = new HashMap<>(map);
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            if (entry.getValue() instanceof List) {
+                entry.setValue(new ArrayList<>((List<Object>) entry.getValue()));
+            }
+        }
+        return copy;
+    }
+}
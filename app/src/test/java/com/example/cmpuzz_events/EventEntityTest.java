@@ -210,4 +210,146 @@ public class EventEntityTest {
         assertEquals(url, map.get("posterUrl"));
     }
 
+    @Test
+    public void testDirtyFieldsAfterMarkClean() {
+        event.addToWaitlist("user1");
+        event.markClean();
+
+        assertTrue(event.isTracked());
+        assertTrue(event.getDirtyFields().isEmpty());
+
+        event.setTitle("Renamed BBQ");
+        assertEquals(1, event.getDirtyFields().size());
+        assertTrue(event.getDirtyFields().contains("title"));
+    }
+
+    @Test
+    public void testUntrackedEntityReportsAllFieldsDirty() {
+        assertFalse(event.isTracked());
+        assertEquals(event.toMap().keySet(), event.getDirtyFields());
+    }
+
+    @Test
+    public void testListDeltasSinceMarkClean() {
+        event.addToWaitlist("user1");
+        event.addToWaitlist("user2");
+        event.markClean();
+
+        event.addToWaitlist("user3");
+        event.removeFromWaitlist("user1");
+        event.getAttendees().add("user4");
+
+        assertTrue(event.getDirtyFields().contains("waitlist"));
+        assertTrue(event.getDirtyFields().contains("attendees"));
+        assertFalse(event.getDirtyFields().contains("declined"));
+        assertEquals(java.util.Collections.singletonList("user3"), event.getAddedIds("waitlist"));
+        assertEquals(java.util.Collections.singletonList("user1"), event.getRemovedIds("waitlist"));
+        assertEquals(java.util.Collections.singletonList("user4"), event.getAddedIds("attendees"));
+    }
+
+    @Test
+    public void testInvitationAndLocationChangesAreDirty() {
+        event.addInvitation(new Invitation("user1", "Alice"));
+        event.addLocation("user1", 53.5, -113.5);
+        event.markClean();
+
+        event.getInvitationByUserId("user1").accept();
+        event.addLocation("user2", 51.0, -114.0);
+
+        assertTrue(event.getDirtyFields().contains("invitations"));
+        assertTrue(event.getDirtyFields().contains("entrantLocations"));
+        assertEquals(java.util.Collections.singleton("user2"), event.getChangedLocationKeys());
+    }
+
+    @Test
+    public void testDrawStatusDefaultsToPendingAndIsPersisted() {
+        assertEquals(EventEntity.DrawStatus.PENDING, event.getDrawStatus());
+        assertEquals("PENDING", event.toMap().get("drawStatus"));
+
+        event.markClean();
+        event.setDrawStatus(EventEntity.DrawStatus.DRAWN);
+        assertTrue(event.getDirtyFields().contains("drawStatus"));
+        assertEquals("DRAWN", event.toMap().get("drawStatus"));
+
+        assertEquals(EventEntity.DrawStatus.SKIPPED, EventEntity.DrawStatus.fromString("skipped"));
+        assertEquals(EventEntity.DrawStatus.PENDING, EventEntity.DrawStatus.fromString(null));
+    }
+
+    @Test
+    public void testParticipantsCoverEveryStatus() {
+        event.addToWaitlist("waiting");
+        event.addInvitation(new Invitation("invited", "Alice"));
+        event.getAttendees().add("attending");
+        event.getDeclined().add("declined");
+
+        assertEquals(java.util.Arrays.asList("waiting", "invited", "attending", "declined"),
+                event.toMap().get("participants"));
+    }
+
+    @Test
+    public void testParticipantsDeltaIgnoresStatusMoves() {
+        event.addToWaitlist("user1");
+        event.addToWaitlist("user2");
+        event.markClean();
+
+        // Winning the lottery moves user1 from waitlist to invitations
+        event.removeFromWaitlist("user1");
+        event.addInvitation(new Invitation("user1", null));
+        assertFalse(event.getDirtyFields().contains("participants"));
+
+        event.removeFromWaitlist("user2");
+        assertTrue(event.getDirtyFields().contains("participants"));
+        assertEquals(java.util.Collections.singletonList("user2"), event.getRemovedIds("participants"));
+    }
+
+    @Test
+    public void testAvailabilityCountsPendingEntrantsAgainstCapacity() {
+        event.setCapacity(3);
+        event.addToWaitlist("waiting");
+        event.addInvitation(new Invitation("invited", "Alice"));
+        event.getAttendees().add("attending");
+        event.getDeclined().add("declined");
+
+        Map<String, Object> map = event.toMap();
+        assertEquals(1L, map.get("waitlistCount"));
+        assertEquals(1L, map.get("invitedCount"));
+        assertEquals(1L, map.get("attendeeCount"));
+        assertEquals(3L, map.get("entrantCount"));
+        assertEquals(true, map.get("isFull"));
+
+        // No capacity means never full
+        assertEquals(false, EventEntity.availability(10, 0, 0, 0).get("isFull"));
+    }
+
+    @Test
+    public void testAvailabilityIsDirtyOnlyWhenCountsChange() {
+        event.setCapacity(2);
+        event.addToWaitlist("user1");
+        event.markClean();
+
+        event.removeFromWaitlist("user1");
+        event.addToWaitlist("user1");
+        assertFalse(event.getDirtyFields().contains("waitlistCount"));
+
+        event.addToWaitlist("user2");
+        assertTrue(event.getDirtyFields().contains("waitlistCount"));
+        assertTrue(event.getDirtyFields().contains("isFull"));
+        assertFalse(event.getDirtyFields().contains("attendeeCount"));
+    }
+
+    @Test
+    public void testCountChangeIsRelativeToCleanState() {
+        assertEquals(0, event.getCountChange("waitlistCount")); // untracked
+
+        event.addToWaitlist("user1");
+        event.addToWaitlist("user2");
+        event.markClean();
+
+        event.removeFromWaitlist("user1");
+        event.getAttendees().add("user1");
+        assertEquals(-1, event.getCountChange("waitlistCount"));
+        assertEquals(1, event.getCountChange("attendeeCount"));
+        assertEquals(0, event.getCountChange("entrantCount"));
+    }
+
 }
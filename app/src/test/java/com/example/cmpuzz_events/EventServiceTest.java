@@ -5,10 +5,16 @@ import com.example.cmpuzz_events.service.EventService;
 import com.example.cmpuzz_events.service.IEventService;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.SuccessContinuation;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -27,6 +33,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -40,7 +47,11 @@ public class EventServiceTest {
     @Mock private FirebaseFirestore mockDb;
     @Mock private CollectionReference mockCollectionRef;
     @Mock private DocumentReference mockDocRef;
-    @Mock private Task<Void> mockDeleteTask;
+    @Mock private Task<DocumentSnapshot> mockGetTask;
+    @Mock private DocumentSnapshot mockSnapshot;
+    @Mock private CollectionReference mockSummaryCollectionRef;
+    @Mock private DocumentReference mockSummaryDocRef;
+    @Mock private Task<Void> mockSummaryDeleteTask;
     @Mock private IEventService.VoidCallback mockCallback;
 
     private MockedStatic<FirebaseFirestore> firestoreStaticMock;
@@ -66,7 +77,6 @@ public class EventServiceTest {
 
         when(mockDb.collection("events")).thenReturn(mockCollectionRef);
         when(mockCollectionRef.document(anyString())).thenReturn(mockDocRef);
-        when(mockDocRef.delete()).thenReturn(mockDeleteTask);
     }
 
     @After
@@ -83,32 +93,113 @@ public class EventServiceTest {
     }
 
     @Test
-    public void deleteEvent_onSuccess_triggersCallback() {
-        simulateSuccess(mockDeleteTask);
+    public void deleteEvent_alreadyDeleted_removesSummaryAndSucceeds() {
+        // An earlier, interrupted delete already removed the event document
+        when(mockDocRef.get()).thenReturn(mockGetTask);
+        when(mockSnapshot.exists()).thenReturn(false);
+        simulateSuccess(mockGetTask, mockSnapshot);
+        when(mockDb.collection("event_summaries")).thenReturn(mockSummaryCollectionRef);
+        when(mockSummaryCollectionRef.document("test_event_id")).thenReturn(mockSummaryDocRef);
+        when(mockSummaryDocRef.delete()).thenReturn(mockSummaryDeleteTask);
+        simulateSuccess(mockSummaryDeleteTask, null);
+
         eventService.deleteEvent("test_event_id", mockCallback);
-        verify(mockDocRef).delete();
+
+        verify(mockSummaryDocRef).delete();
+        verify(mockDocRef, never()).delete();
         verify(mockCallback).onSuccess();
     }
 
+    @Test
+    public void deleteEvent_existingEvent_deletesEventDocAndSucceeds() {
+        try (MockedStatic<Tasks> tasksStaticMock = Mockito.mockStatic(Tasks.class)) {
+            // Completed tasks run their continuations inline, as they would on the main thread
+            tasksStaticMock.when(() -> Tasks.forResult(any())).thenAnswer(invocation ->
+                    completedTask(invocation.getArgument(0)));
+            tasksStaticMock.when(() -> Tasks.whenAll(anyCollection())).thenAnswer(invocation ->
+                    completedTask(null));
+
+            when(mockDocRef.get()).thenReturn(mockGetTask);
+            when(mockDocRef.getId()).thenReturn("test_event_id");
+            when(mockSnapshot.exists()).thenReturn(true);
+            when(mockSnapshot.getReference()).thenReturn(mockDocRef);
+            when(mockSnapshot.getId()).thenReturn("test_event_id");
+            simulateSuccess(mockGetTask, mockSnapshot);
+            when(mockDb.collection("event_summaries")).thenReturn(mockSummaryCollectionRef);
+            when(mockSummaryCollectionRef.document("test_event_id")).thenReturn(mockSummaryDocRef);
+
+            WriteBatch mockBatch = mock(WriteBatch.class);
+            Task<Void> commitTask = completedTask(null);
+            when(mockDb.batch()).thenReturn(mockBatch);
+            when(mockBatch.commit()).thenReturn(commitTask);
+
+            // No notifications, entrants or counters left to delete
+            QuerySnapshot emptySnapshot = mock(QuerySnapshot.class);
+            when(emptySnapshot.getDocuments()).thenReturn(new ArrayList<>());
+            Task<QuerySnapshot> emptyGetTask = completedTask(emptySnapshot);
+            Query notificationsQuery = mock(Query.class);
+            when(mockDb.collectionGroup("notifications")).thenReturn(notificationsQuery);
+            when(notificationsQuery.whereEqualTo("eventId", "test_event_id")).thenReturn(notificationsQuery);
+            when(notificationsQuery.limit(anyLong())).thenReturn(notificationsQuery);
+            when(notificationsQuery.get()).thenReturn(emptyGetTask);
+            CollectionReference subcollectionRef = mock(CollectionReference.class);
+            when(mockDocRef.collection(anyString())).thenReturn(subcollectionRef);
+            when(subcollectionRef.limit(anyLong())).thenReturn(notificationsQuery);
+            CollectionReference tombstonesRef = mock(CollectionReference.class);
+            DocumentReference tombstoneRef = mock(DocumentReference.class);
+            when(mockDb.collection("deleted_events")).thenReturn(tombstonesRef);
+            when(tombstonesRef.document("test_event_id")).thenReturn(tombstoneRef);
+
+            eventService.deleteEvent("test_event_id", mockCallback);
+
+            verify(mockBatch).update(eq(mockDocRef), eq("deleting"), eq(true), eq("updatedAt"), any());
+            verify(mockBatch).delete(mockDocRef);
+            verify(mockBatch, times(2)).delete(mockSummaryDocRef);
+            // Other devices drop the event from their local store through the tombstone
+            verify(mockBatch).set(eq(tombstoneRef), anyMap());
+            verify(mockCallback).onSuccess();
+            verify(mockCallback, never()).onError(anyString());
+        }
+    }
+
     @Test
     public void deleteEvent_onFailure_triggersCallback() {
         Exception fakeException = new Exception("Permission denied");
-        simulateFailure(mockDeleteTask, fakeException);
+        when(mockDocRef.get()).thenReturn(mockGetTask);
+        simulateFailure(mockGetTask, fakeException);
+
         eventService.deleteEvent("test_event_id", mockCallback);
-        verify(mockDocRef).delete();
+
+        verify(mockDocRef, never()).delete();
         verify(mockCallback).onError("Permission denied");
     }
 
-    private void simulateSuccess(Task<Void> task) {
+    private <T> void simulateSuccess(Task<T> task, T result) {
         when(task.addOnSuccessListener(any())).thenAnswer(invocation -> {
-            OnSuccessListener<Void> listener = invocation.getArgument(0);
-            listener.onSuccess(null);
+            OnSuccessListener<T> listener = invocation.getArgument(0);
+            listener.onSuccess(result);
             return task;
         });
         when(task.addOnFailureListener(any())).thenReturn(task);
     }
 
-    private void simulateFailure(Task<Void> task, Exception exception) {
+    @SuppressWarnings("unchecked")
+    private <T> Task<T> completedTask(T result) {
+        Task<T> task = mock(Task.class);
+        lenient().when(task.onSuccessTask(any())).thenAnswer(invocation -> {
+            SuccessContinuation<T, ?> continuation = invocation.getArgument(0);
+            return continuation.then(result);
+        });
+        lenient().when(task.addOnSuccessListener(any())).thenAnswer(invocation -> {
+            OnSuccessListener<T> listener = invocation.getArgument(0);
+            listener.onSuccess(result);
+            return task;
+        });
+        lenient().when(task.addOnFailureListener(any())).thenReturn(task);
+        return task;
+    }
+
+    private <T> void simulateFailure(Task<T> task, Exception exception) {
         when(task.addOnFailureListener(any())).thenAnswer(invocation -> {
             OnFailureListener listener = invocation.getArgument(0);
             listener.onFailure(exception);
@@ -139,13 +230,11 @@ public class EventServiceTest {
             IEventService.EventCallback callback = invocation.getArgument(1);
             callback.onSuccess(event);
             return null;
-        }).when(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
 
-        doAnswer(invocation -> {
-            IEventService.VoidCallback callback = invocation.getArgument(1);
-            callback.onSuccess();
-            return null;
-        }).when(spyEventService).updateEvent(any(EventEntity.class), any(IEventService.VoidCallback.class));
+        // The event is unchanged since it was read, so the draw saves
+        doReturn(completedTask(Collections.singleton(eventId)))
+                .when(spyEventService).saveDraws(anyList(), eq(false));
 
         spyEventService.drawAttendees(eventId, 2, mockCallback);
 
@@ -192,13 +281,11 @@ public class EventServiceTest {
             IEventService.EventCallback callback = invocation.getArgument(1);
             callback.onSuccess(event);
             return null;
-        }).when(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
 
-        doAnswer(invocation -> {
-            IEventService.VoidCallback callback = invocation.getArgument(1);
-            callback.onSuccess();
-            return null;
-        }).when(spyEventService).updateEvent(any(EventEntity.class), any(IEventService.VoidCallback.class));
+        // The event is unchanged since it was read, so the draw saves
+        doReturn(completedTask(Collections.singleton(eventId)))
+                .when(spyEventService).saveDraws(anyList(), eq(false));
 
         spyEventService.drawAttendees(eventId, 2, mockCallback);
 
@@ -214,6 +301,38 @@ public class EventServiceTest {
         verify(mockCallback, timeout(1000)).onSuccess();
     }
 
+    /**
+     * A draw that lost a race with another draw or a join is not saved, and says so
+     */
+    @Test
+    public void drawAttendees_failsWhenEventChangedSinceRead() {
+        String eventId = "test_event_stale";
+        EventEntity event = createTestEvent(eventId, "Stale Event");
+        List<String> waitlist = new ArrayList<>();
+        waitlist.add("user1");
+        waitlist.add("user2");
+        waitlist.add("user3");
+        event.setWaitlist(waitlist);
+        event.setCapacity(2);
+
+        EventService spyEventService = spy(eventService);
+        doAnswer(invocation -> {
+            IEventService.EventCallback callback = invocation.getArgument(1);
+            callback.onSuccess(event);
+            return null;
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
+        doReturn(completedTask(Collections.<String>emptySet()))
+                .when(spyEventService).saveDraws(anyList(), eq(false));
+
+        spyEventService.drawAttendees(eventId, 2, mockCallback);
+
+        verify(mockCallback).onError(contains("changed"));
+        verify(mockCallback, never()).onSuccess();
+        verify(mockNotificationService, never()).sendNotificationsToUsers(
+                anyList(), anyString(), anyString(), any(), any()
+        );
+    }
+
     /**
      * US 01.05.01: Test that a replacement attendee can be drawn from waitlist
      * when someone declines their invitation.
@@ -241,7 +360,7 @@ public class EventServiceTest {
             IEventService.EventCallback callback = invocation.getArgument(1);
             callback.onSuccess(event);
             return null;
-        }).when(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
 
         doAnswer(invocation -> {
             IEventService.VoidCallback callback = invocation.getArgument(1);
@@ -258,7 +377,7 @@ public class EventServiceTest {
         }
 
         verify(mockCallback, timeout(1000)).onSuccess();
-        verify(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        verify(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
         verify(spyEventService).updateEvent(any(EventEntity.class), any(IEventService.VoidCallback.class));
     }
 
@@ -278,7 +397,7 @@ public class EventServiceTest {
             IEventService.EventCallback callback = invocation.getArgument(1);
             callback.onSuccess(event);
             return null;
-        }).when(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
 
         spyEventService.drawReplacementAttendee(eventId, mockCallback);
 
@@ -311,7 +430,7 @@ public class EventServiceTest {
             IEventService.EventCallback callback = invocation.getArgument(1);
             callback.onSuccess(event);
             return null;
-        }).when(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
 
         spyEventService.drawReplacementAttendee(eventId, mockCallback);
 
@@ -356,7 +475,7 @@ public class EventServiceTest {
             IEventService.EventCallback callback = invocation.getArgument(1);
             callback.onSuccess(event);
             return null;
-        }).when(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
 
         spyEventService.drawReplacementAttendee(eventId, mockCallback);
 
@@ -424,7 +543,7 @@ public class EventServiceTest {
             IEventService.EventCallback callback = invocation.getArgument(1);
             callback.onSuccess(event2);
             return null;
-        }).when(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
 
         doAnswer(invocation -> {
             IEventService.VoidCallback callback = invocation.getArgument(1);
@@ -442,7 +561,7 @@ public class EventServiceTest {
         }
 
         verify(mockCallback, timeout(1000)).onSuccess();
-        verify(spyEventService, times(1)).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        verify(spyEventService, times(1)).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
         
         // Reset callback for second draw
         reset(mockCallback);
@@ -457,7 +576,7 @@ public class EventServiceTest {
         }
 
         verify(mockCallback, timeout(1000)).onSuccess();
-        verify(spyEventService, times(2)).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        verify(spyEventService, times(2)).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
         verify(spyEventService, times(2)).updateEvent(any(EventEntity.class), any(IEventService.VoidCallback.class));
     }
 
@@ -488,7 +607,7 @@ public class EventServiceTest {
             IEventService.EventCallback callback = invocation.getArgument(1);
             callback.onSuccess(event);
             return null;
-        }).when(spyEventService).getEvent(eq(eventId), any(IEventService.EventCallback.class));
+        }).when(spyEventService).getEventWithEntrants(eq(eventId), any(IEventService.EventCallback.class));
 
         doAnswer(invocation -> {
             IEventService.VoidCallback callback = invocation.getArgument(1);
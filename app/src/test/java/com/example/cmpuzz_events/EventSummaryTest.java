@@ -0,0 +1,95 @@
+package com.example.cmpuzz_events;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.example.cmpuzz_events.models.event.EventSummary;
+import com.example.cmpuzz_events.models.event.Invitation;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests building {@link EventSummary} rows from events, partial updates and stored maps.
+ */
+public class EventSummaryTest {
+
+    private static final Date CREATED = new Date(1_700_000_000_000L);
+
+    private EventEntity sampleEvent(int waitlisted) {
+        EventEntity event = new EventEntity("evt1", "Swim Lessons", "Beginner class", 4,
+                new Date(1_700_100_000_000L), new Date(1_700_200_000_000L),
+                "org1", "Pool Staff", false, 500);
+        for (int i = 0; i < waitlisted; i++) {
+            event.getWaitlist().add("user" + i);
+        }
+        event.addInvitation(new Invitation("invitee", "Alice"));
+        event.getAttendees().add("attendee");
+        event.setPosterUrl("https://example.com/poster.png");
+        event.setPrice(12.5);
+        event.setCreatedAt(CREATED);
+        return event;
+    }
+
+    @Test
+    public void testSummaryCarriesCountsNotLists() {
+        EventSummary summary = EventSummary.of(sampleEvent(3000));
+
+        assertEquals("evt1", summary.getEventId());
+        assertEquals("Swim Lessons", summary.getTitle());
+        assertEquals("Pool Staff", summary.getOrganizerName());
+        assertEquals(4, summary.getCapacity());
+        assertEquals(3000, summary.getWaitlistCount());
+        assertEquals(1, summary.getInvitedCount());
+        assertEquals(1, summary.getAttendeeCount());
+        assertEquals(3002, summary.getEntrantCount());
+        assertTrue(summary.isFull());
+        assertEquals(12.5, summary.getPrice(), 0.0001);
+        assertEquals(CREATED, summary.getCreatedAt());
+
+        Map<String, Object> stored = summary.toMap();
+        assertFalse(stored.containsKey("waitlist"));
+        assertFalse(stored.containsKey("invitations"));
+        assertFalse(stored.containsKey("attendees"));
+    }
+
+    @Test
+    public void testProjectKeepsOnlySummaryFields() {
+        Map<String, Object> update = new HashMap<>();
+        update.put("title", "Advanced Swim");
+        update.put("waitlist", Arrays.asList("a", "b"));
+        update.put("waitlistCount", 2L);
+        update.put("drawStatus", "DRAWN");
+
+        Map<String, Object> projected = EventSummary.project(update);
+
+        assertEquals(2, projected.size());
+        assertEquals("Advanced Swim", projected.get("title"));
+        assertEquals(2L, projected.get("waitlistCount"));
+    }
+
+    @Test
+    public void testStoredMapRoundTrips() {
+        EventSummary summary = EventSummary.of(sampleEvent(2));
+
+        EventSummary copy = EventSummary.fromMap(summary.toMap());
+
+        assertEquals(summary.toMap(), copy.toMap());
+    }
+
+    @Test
+    public void testMissingFieldsUseDefaults() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", "evt2");
+
+        EventSummary summary = EventSummary.fromMap(data);
+
+        assertEquals(0, summary.getWaitlistCount());
+        assertFalse(summary.isFull());
+        assertNull(summary.getPrice());
+        assertNull(summary.getCreatedAt());
+    }
+}
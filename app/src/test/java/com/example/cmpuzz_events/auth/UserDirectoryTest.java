@@ -0,0 +1,212 @@
+package com.example.cmpuzz_events.auth;
+
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.user.User;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests request order, de-duplication and shared queries in the user directory.
+ */
+public class UserDirectoryTest {
+
+    private MockedStatic<Log> logStaticMock;
+    private FirebaseFirestore mockDb;
+    private CollectionReference mockUsersRef;
+    private Query mockQuery;
+    private Task<QuerySnapshot> mockReadTask;
+    private final List<OnSuccessListener<QuerySnapshot>> readListeners = new ArrayList<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        logStaticMock = Mockito.mockStatic(Log.class);
+        mockDb = mock(FirebaseFirestore.class);
+        mockUsersRef = mock(CollectionReference.class);
+        mockQuery = mock(Query.class);
+        mockReadTask = mock(Task.class);
+
+        when(mockDb.collection("users")).thenReturn(mockUsersRef);
+        when(mockUsersRef.whereIn(any(FieldPath.class), anyList())).thenReturn(mockQuery);
+        when(mockQuery.get()).thenReturn(mockReadTask);
+        // The read stays in flight until the test delivers its result
+        when(mockReadTask.addOnSuccessListener(any(OnSuccessListener.class))).thenAnswer(invocation -> {
+            readListeners.add(invocation.getArgument(0));
+            return mockReadTask;
+        });
+        when(mockReadTask.addOnFailureListener(any(OnFailureListener.class))).thenReturn(mockReadTask);
+    }
+
+    @After
+    public void tearDown() {
+        logStaticMock.close();
+    }
+
+    private static User user(String uid) {
+        User user = new User();
+        user.setUid(uid);
+        return user;
+    }
+
+    private static QuerySnapshot usersSnapshot(String... uids) {
+        List<DocumentSnapshot> docs = new ArrayList<>();
+        for (String uid : uids) {
+            DocumentSnapshot doc = mock(DocumentSnapshot.class);
+            when(doc.getId()).thenReturn(uid);
+            when(doc.getString("uid")).thenReturn(uid);
+            docs.add(doc);
+        }
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(snapshot.getDocuments()).thenReturn(docs);
+        return snapshot;
+    }
+
+    private void deliver(QuerySnapshot snapshot) {
+        for (OnSuccessListener<QuerySnapshot> listener : new ArrayList<>(readListeners)) {
+            listener.onSuccess(snapshot);
+        }
+    }
+
+    private static List<String> uids(List<User> users) {
+        List<String> uids = new ArrayList<>();
+        for (User user : users) {
+            uids.add(user.getUid());
+        }
+        return uids;
+    }
+
+    /**
+     * Keeps the last result a callback was given
+     */
+    private static class Result implements AuthManager.UsersCallback {
+        List<User> users;
+        int calls;
+
+        @Override
+        public void onSuccess(List<User> users) {
+            this.users = users;
+            calls++;
+        }
+
+        @Override
+        public void onError(String error) {
+            throw new AssertionError(error);
+        }
+    }
+
+    @Test
+    public void testCachedUsersComeBackInRequestOrderOnce() {
+        UserDirectory directory = new UserDirectory(mockDb);
+        directory.put(user("carol"));
+        directory.put(user("amy"));
+        directory.put(user("bob"));
+
+        Result result = new Result();
+        directory.getUsers(Arrays.asList("bob", "amy", null, "bob", "carol"), result);
+
+        assertEquals(1, result.calls);
+        assertEquals(Arrays.asList("bob", "amy", "carol"), uids(result.users));
+        verify(mockDb, never()).collection("users");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLoadedUsersAreMergedInRequestOrder() {
+        UserDirectory directory = new UserDirectory(mockDb);
+        directory.put(user("amy"));
+
+        Result result = new Result();
+        directory.getUsers(Arrays.asList("carol", "amy", "bob", "carol"), result);
+
+        // Only the users missing from the cache are queried, each once
+        ArgumentCaptor<List<Object>> ids = ArgumentCaptor.forClass(List.class);
+        verify(mockUsersRef).whereIn(any(FieldPath.class), ids.capture());
+        assertEquals(Arrays.asList("carol", "bob"), ids.getValue());
+
+        // Firestore returns documents in ID order, not request order
+        deliver(usersSnapshot("bob", "carol"));
+        assertEquals(1, result.calls);
+        assertEquals(Arrays.asList("carol", "amy", "bob"), uids(result.users));
+    }
+
+    @Test
+    public void testMissingUsersAreLeftOut() {
+        UserDirectory directory = new UserDirectory(mockDb);
+
+        Result result = new Result();
+        directory.getUsers(Arrays.asList("amy", "ghost", "bob"), result);
+        deliver(usersSnapshot("amy", "bob"));
+
+        assertEquals(Arrays.asList("amy", "bob"), uids(result.users));
+    }
+
+    @Test
+    public void testLargeRequestsAreChunked() {
+        UserDirectory directory = new UserDirectory(mockDb);
+        List<String> requested = new ArrayList<>();
+        for (int i = 0; i < UserDirectory.MAX_IDS_PER_QUERY + 1; i++) {
+            requested.add("user" + i);
+        }
+
+        directory.getUsers(requested, new Result());
+
+        verify(mockUsersRef, times(2)).whereIn(any(FieldPath.class), anyList());
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneQuery() {
+        UserDirectory directory = new UserDirectory(mockDb);
+        Result first = new Result();
+        Result second = new Result();
+
+        directory.getUsers(Arrays.asList("amy", "bob"), first);
+        directory.getUsers(Arrays.asList("amy", "bob"), second);
+        deliver(usersSnapshot("amy", "bob"));
+
+        verify(mockQuery, times(1)).get();
+        assertEquals(Arrays.asList("amy", "bob"), uids(first.users));
+        assertEquals(Arrays.asList("amy", "bob"), uids(second.users));
+    }
+
+    @Test
+    public void testInvalidatedUserIsLoadedAgain() {
+        UserDirectory directory = new UserDirectory(mockDb);
+        directory.put(user("amy"));
+        directory.invalidate("amy");
+
+        Result result = new Result();
+        directory.getUsers(Arrays.asList("amy"), result);
+        deliver(usersSnapshot("amy"));
+
+        verify(mockQuery, times(1)).get();
+        assertEquals(Arrays.asList("amy"), uids(result.users));
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.cmpuzz_events.service;
+
+import android.util.Log;
+
+import com.example.cmpuzz_events.models.event.EventEntity;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the due-event query, paging and result accounting of the draw scheduler.
+ */
+public class DrawSchedulerTest {
+
+    private MockedStatic<Log> logStaticMock;
+    private FirebaseFirestore mockDb;
+    private CollectionReference mockEventsRef;
+    private Query mockQuery;
+    private DrawScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        logStaticMock = Mockito.mockStatic(Log.class);
+        mockDb = mock(FirebaseFirestore.class);
+        mockEventsRef = mock(CollectionReference.class);
+        mockQuery = mock(Query.class);
+
+        when(mockDb.collection("events")).thenReturn(mockEventsRef);
+        when(mockEventsRef.whereEqualTo(anyString(), any())).thenReturn(mockQuery);
+        when(mockQuery.whereEqualTo(anyString(), any())).thenReturn(mockQuery);
+        when(mockQuery.whereLessThanOrEqualTo(anyString(), any())).thenReturn(mockQuery);
+        when(mockQuery.orderBy(anyString())).thenReturn(mockQuery);
+        when(mockQuery.limit(anyLong())).thenReturn(mockQuery);
+        when(mockQuery.startAfter(any(DocumentSnapshot.class))).thenReturn(mockQuery);
+
+        scheduler = new DrawScheduler(mockDb, null);
+    }
+
+    @After
+    public void tearDown() {
+        logStaticMock.close();
+    }
+
+    private static DrawScheduler.DrawJob job(String eventId, EventService.DrawOutcome outcome) {
+        DrawScheduler.DrawJob job = new DrawScheduler.DrawJob(mock(DocumentSnapshot.class));
+        if (outcome != null) {
+            EventEntity event = new EventEntity();
+            event.setEventId(eventId);
+            event.setDrawStatus(outcome.getError() == null
+                    ? EventEntity.DrawStatus.DRAWN : EventEntity.DrawStatus.PENDING);
+            job.event = event;
+            job.outcome = outcome;
+        }
+        return job;
+    }
+
+    private static EventService.DrawOutcome drawn() {
+        return EventService.DrawOutcome.drawn(1, Arrays.asList("loser"));
+    }
+
+    private static List<DocumentSnapshot> docs(int count) {
+        List<DocumentSnapshot> docs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            docs.add(mock(DocumentSnapshot.class));
+        }
+        return docs;
+    }
+
+    @Test
+    public void testDueEventsOnlyMatchesPendingEventsThatHaveClosed() {
+        Date now = new Date();
+
+        scheduler.dueEvents("org1", now);
+
+        verify(mockEventsRef).whereEqualTo("drawStatus", "PENDING");
+        verify(mockQuery).whereEqualTo("organizerId", "org1");
+        verify(mockQuery).whereLessThanOrEqualTo("registrationEnd", now);
+        verify(mockQuery).orderBy("registrationEnd");
+    }
+
+    @Test
+    public void testDueEventsForAllOrganizersHasNoOrganizerFilter() {
+        scheduler.dueEvents(null, new Date());
+
+        verify(mockQuery, never()).whereEqualTo(Mockito.eq("organizerId"), any());
+    }
+
+    @Test
+    public void testPagesAreLimitedAndStartAfterTheCursor() {
+        DocumentSnapshot cursor = mock(DocumentSnapshot.class);
+
+        scheduler.duePage("org1", new Date(), null);
+        verify(mockQuery, never()).startAfter(any(DocumentSnapshot.class));
+
+        scheduler.duePage("org1", new Date(), cursor);
+        verify(mockQuery, Mockito.times(2)).limit(DrawScheduler.PAGE_SIZE);
+        verify(mockQuery).startAfter(cursor);
+    }
+
+    @Test
+    public void testFullPageOfFailedEventsPagesPastThem() {
+        // Failed events stay PENDING, so the next page must start after them
+        List<DocumentSnapshot> page = docs(DrawScheduler.PAGE_SIZE);
+        assertSame(page.get(page.size() - 1), DrawScheduler.nextCursor(page));
+
+        assertNull(DrawScheduler.nextCursor(docs(DrawScheduler.PAGE_SIZE - 1)));
+        assertNull(DrawScheduler.nextCursor(docs(0)));
+    }
+
+    @Test
+    public void testEventsThatFailedToLoadAreCountedAndNotSaved() {
+        DrawScheduler.Progress progress = new DrawScheduler.Progress();
+        List<DrawScheduler.DrawJob> jobs = Arrays.asList(job("a", drawn()), job("b", null));
+
+        List<List<DrawScheduler.DrawJob>> chunks = DrawScheduler.prepareCommits(jobs, progress);
+
+        assertEquals(1, progress.getFailed());
+        assertEquals(1, chunks.size());
+        assertEquals("a", chunks.get(0).get(0).event.getEventId());
+    }
+
+    @Test
+    public void testEventsWithNothingToDrawAreMarkedSkipped() {
+        DrawScheduler.Progress progress = new DrawScheduler.Progress();
+        DrawScheduler.DrawJob empty = job("empty", EventService.DrawOutcome.failed("Waitlist is empty"));
+        DrawScheduler.DrawJob full = job("full", drawn());
+
+        DrawScheduler.prepareCommits(Arrays.asList(empty, full), progress);
+
+        assertEquals(EventEntity.DrawStatus.SKIPPED, empty.event.getDrawStatus());
+        assertEquals(EventEntity.DrawStatus.DRAWN, full.event.getDrawStatus());
+        assertEquals(0, progress.getFailed());
+    }
+
+    @Test
+    public void testChunksLeaveRoomForEachEventsSummaryWrite() {
+        DrawScheduler.Progress progress = new DrawScheduler.Progress();
+        List<DrawScheduler.DrawJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 2 * EventService.MAX_DRAWS_PER_SAVE + 1; i++) {
+            jobs.add(job("e" + i, drawn()));
+        }
+
+        List<List<DrawScheduler.DrawJob>> chunks = DrawScheduler.prepareCommits(jobs, progress);
+
+        assertEquals(3, chunks.size());
+        for (List<DrawScheduler.DrawJob> chunk : chunks) {
+            // Every event writes its doc and its summary
+            assertTrue(2 * chunk.size() <= EntrantStore.MAX_BATCH_WRITES);
+        }
+        assertEquals(1, chunks.get(2).size());
+    }
+
+    @Test
+    public void testSavedResultsAreCountedAndOnlyDrawnEventsNotified() {
+        DrawScheduler.Progress progress = new DrawScheduler.Progress();
+        DrawScheduler.DrawJob drawnJob = job("drawn", drawn());
+        DrawScheduler.DrawJob skippedJob = job("skipped", EventService.DrawOutcome.failed("Capacity already met"));
+        DrawScheduler.DrawJob changedJob = job("changed", drawn());
+
+        List<DrawScheduler.DrawJob> notify = DrawScheduler.recordSaved(
+                Arrays.asList(drawnJob, skippedJob, changedJob),
+                new HashSet<>(Arrays.asList("drawn", "skipped")), progress);
+
+        assertEquals(Collections.singletonList(drawnJob), notify);
+        assertEquals(1, progress.getDrawn());
+        assertEquals(1, progress.getSkipped());
+        // Changed since it was read: left out of the save and retried if still PENDING
+        assertEquals(1, progress.getFailed());
+    }
+}
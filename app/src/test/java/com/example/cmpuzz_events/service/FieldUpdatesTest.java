@@ -0,0 +1,73 @@
+package com.example.cmpuzz_events.service;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests how event update maps are turned into Firestore updates.
+ */
+public class FieldUpdatesTest {
+
+    @Test
+    public void testUpdatesWithoutArrayChangesAreWrittenOnce() {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("title", "Swim Lessons");
+        updates.put("waitlist", FieldValue.arrayUnion("user1"));
+
+        List<Map<String, Object>> parts = FieldUpdates.split(updates);
+
+        assertEquals(1, parts.size());
+        assertSame(updates, parts.get(0));
+    }
+
+    @Test
+    public void testArrayChangeIsSplitIntoUnionThenRemove() {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("title", "Swim Lessons");
+        updates.put("waitlist", new FieldUpdates.ArrayChange(
+                Arrays.asList("joined"), Collections.singletonList("left")));
+
+        List<Map<String, Object>> parts = FieldUpdates.split(updates);
+
+        assertEquals(2, parts.size());
+        // The first update carries every other field and the additions
+        assertEquals("Swim Lessons", parts.get(0).get("title"));
+        assertTrue(parts.get(0).get("waitlist") instanceof FieldValue);
+        // The second only removes, so a concurrent arrayUnion join is never overwritten
+        assertEquals(Collections.singleton("waitlist"), parts.get(1).keySet());
+        assertTrue(parts.get(1).get("waitlist") instanceof FieldValue);
+        assertFalse(parts.get(0).get("waitlist") instanceof FieldUpdates.ArrayChange);
+    }
+
+    @Test
+    public void testArrayChangeUpdatesTheDocumentTwiceInOneBatch() {
+        WriteBatch batch = mock(WriteBatch.class);
+        DocumentReference ref = mock(DocumentReference.class);
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("waitlist", new FieldUpdates.ArrayChange(
+                Arrays.asList("joined"), Collections.singletonList("left")));
+
+        FieldUpdates.update(batch, ref, updates);
+
+        verify(batch, times(2)).update(eq(ref), eq("waitlist"), any(), any(Object[].class));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.cmpuzz_events.service;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the read watermark and how notification documents are counted against it.
+ */
+public class InboxCountsTest {
+
+    private static DocumentSnapshot counter(Object readUpTo) {
+        DocumentSnapshot doc = mock(DocumentSnapshot.class);
+        when(doc.exists()).thenReturn(true);
+        when(doc.get(InboxCounts.FIELD_READ_UP_TO)).thenReturn(readUpTo);
+        return doc;
+    }
+
+    private static DocumentSnapshot notification(Boolean isRead, Timestamp sentAt) {
+        DocumentSnapshot doc = mock(DocumentSnapshot.class);
+        when(doc.getBoolean("isRead")).thenReturn(isRead);
+        when(doc.getTimestamp("sentAt")).thenReturn(sentAt);
+        when(doc.contains("sentAt")).thenReturn(true);
+        return doc;
+    }
+
+    @Test
+    public void testMicrosKeepsSubMillisecondPrecision() {
+        assertEquals(1_000_000_123L, InboxCounts.micros(new Timestamp(1000, 123_999)));
+    }
+
+    @Test
+    public void testReadUpToFromServerTimestamp() {
+        assertEquals(5_000_042L, InboxCounts.readUpTo(counter(new Timestamp(5, 42_000))));
+    }
+
+    @Test
+    public void testReadUpToFromLegacyMillis() {
+        assertEquals(7_000_000L, InboxCounts.readUpTo(counter(7000L)));
+    }
+
+    @Test
+    public void testMissingWatermarkReadsAsZero() {
+        assertEquals(0, InboxCounts.readUpTo(counter(null)));
+        assertEquals(0, InboxCounts.readUpTo(null));
+
+        DocumentSnapshot missing = mock(DocumentSnapshot.class);
+        when(missing.exists()).thenReturn(false);
+        assertEquals(0, InboxCounts.readUpTo(missing));
+    }
+
+    @Test
+    public void testReadFlagCountsAsReadWhateverTheWatermark() {
+        assertTrue(InboxCounts.isRead(notification(true, new Timestamp(100, 0)), 0));
+    }
+
+    @Test
+    public void testNotificationSentByTheWatermarkIsRead() {
+        Timestamp watermark = new Timestamp(100, 5_000);
+        long readUpTo = InboxCounts.micros(watermark);
+
+        assertTrue(InboxCounts.isRead(notification(false, watermark), readUpTo));
+        assertTrue(InboxCounts.isRead(notification(null, new Timestamp(99, 0)), readUpTo));
+        // One microsecond later is after the watermark
+        assertFalse(InboxCounts.isRead(notification(false, new Timestamp(100, 6_000)), readUpTo));
+    }
+
+    @Test
+    public void testNanosWithinTheWatermarksMicrosecondAreRead() {
+        long readUpTo = InboxCounts.micros(new Timestamp(100, 5_000));
+
+        assertTrue(InboxCounts.isRead(notification(false, new Timestamp(100, 5_999)), readUpTo));
+    }
+
+    @Test
+    public void testNotificationWithoutSentAtFallsBackToTimestamp() {
+        DocumentSnapshot legacy = mock(DocumentSnapshot.class);
+        when(legacy.contains("sentAt")).thenReturn(false);
+        when(legacy.getLong("timestamp")).thenReturn(2000L);
+
+        assertTrue(InboxCounts.isRead(legacy, 2_000_000L));
+        assertFalse(InboxCounts.isRead(legacy, 1_999_999L));
+    }
+
+    @Test
+    public void testPendingSentAtIsNeverCoveredByTheWatermark() {
+        // sentAt is present but its server timestamp hasn't resolved yet
+        DocumentSnapshot pending = notification(false, null);
+        when(pending.getLong("timestamp")).thenReturn(1L);
+
+        assertFalse(InboxCounts.isRead(pending, Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testRemovalDeltas() {
+        DocumentSnapshot unreadImportant = notification(false, new Timestamp(200, 0));
+        when(unreadImportant.getBoolean("isImportant")).thenReturn(true);
+        DocumentSnapshot read = notification(true, new Timestamp(200, 0));
+        DocumentSnapshot coveredByWatermark = notification(false, new Timestamp(50, 0));
+        long readUpTo = InboxCounts.micros(new Timestamp(100, 0));
+
+        assertArrayEquals(new long[]{-1, -1}, InboxCounts.removalDeltas(unreadImportant, readUpTo));
+        assertArrayEquals(new long[]{0, 0}, InboxCounts.removalDeltas(read, readUpTo));
+        assertArrayEquals(new long[]{0, 0}, InboxCounts.removalDeltas(coveredByWatermark, readUpTo));
+    }
+}
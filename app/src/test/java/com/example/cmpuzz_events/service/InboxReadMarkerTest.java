@@ -0,0 +1,130 @@
+package com.example.cmpuzz_events.service;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the chunking, counter updates and result accounting of marking an inbox read.
+ */
+public class InboxReadMarkerTest {
+
+    private static final long READ_UP_TO = InboxCounts.micros(new Timestamp(100, 0));
+
+    private static DocumentSnapshot stored(Transaction transaction, String id, boolean exists,
+                                           boolean isRead, Timestamp sentAt) throws Exception {
+        DocumentReference ref = mock(DocumentReference.class);
+        DocumentSnapshot doc = mock(DocumentSnapshot.class);
+        when(doc.getReference()).thenReturn(ref);
+        when(doc.getId()).thenReturn(id);
+        when(doc.exists()).thenReturn(exists);
+        when(doc.getBoolean("isRead")).thenReturn(isRead);
+        when(doc.getTimestamp("sentAt")).thenReturn(sentAt);
+        when(doc.contains("sentAt")).thenReturn(true);
+        when(transaction.get(ref)).thenReturn(doc);
+        return doc;
+    }
+
+    private static List<DocumentReference> refs(DocumentSnapshot... docs) {
+        List<DocumentReference> refs = new ArrayList<>();
+        for (DocumentSnapshot doc : docs) {
+            refs.add(doc.getReference());
+        }
+        return refs;
+    }
+
+    @Test
+    public void testChunksHoldAtMostSizeReferences() {
+        List<DocumentSnapshot> docs = new ArrayList<>();
+        for (int i = 0; i < 2 * InboxReadMarker.DOCS_PER_TRANSACTION + 1; i++) {
+            DocumentSnapshot doc = mock(DocumentSnapshot.class);
+            when(doc.getReference()).thenReturn(mock(DocumentReference.class));
+            docs.add(doc);
+        }
+
+        List<List<DocumentReference>> chunks =
+                InboxReadMarker.chunk(docs, InboxReadMarker.DOCS_PER_TRANSACTION);
+
+        assertEquals(3, chunks.size());
+        assertEquals(InboxReadMarker.DOCS_PER_TRANSACTION, chunks.get(0).size());
+        assertEquals(1, chunks.get(2).size());
+        assertSame(docs.get(0).getReference(), chunks.get(0).get(0));
+        assertEquals(0, InboxReadMarker.chunk(Collections.emptyList(), 10).size());
+    }
+
+    @Test
+    public void testMarkChunkSkipsReadAndDeletedNotifications() throws Exception {
+        Transaction transaction = mock(Transaction.class);
+        DocumentReference countsRef = mock(DocumentReference.class);
+        DocumentSnapshot unread = stored(transaction, "unread", true, false, new Timestamp(200, 0));
+        DocumentSnapshot read = stored(transaction, "read", true, true, new Timestamp(200, 0));
+        DocumentSnapshot deleted = stored(transaction, "deleted", false, false, null);
+
+        List<String> marked = InboxReadMarker.markChunk(
+                transaction, refs(unread, read, deleted), countsRef, READ_UP_TO);
+
+        assertEquals(Collections.singletonList("unread"), marked);
+        verify(transaction).update(unread.getReference(), "isRead", true);
+        verify(transaction, never()).update(read.getReference(), "isRead", true);
+        verify(transaction, never()).update(deleted.getReference(), "isRead", true);
+    }
+
+    @Test
+    public void testMarkChunkOnlyCountsNotificationsAfterTheWatermark() throws Exception {
+        Transaction transaction = mock(Transaction.class);
+        DocumentReference countsRef = mock(DocumentReference.class);
+        DocumentSnapshot counted = stored(transaction, "new", true, false, new Timestamp(200, 0));
+        // Already counted as read by the watermark, so it must not lower the count again
+        DocumentSnapshot covered = stored(transaction, "old", true, false, new Timestamp(50, 0));
+
+        List<String> marked = InboxReadMarker.markChunk(
+                transaction, refs(counted, covered), countsRef, READ_UP_TO);
+
+        assertEquals(Arrays.asList("new", "old"), marked);
+        verify(transaction).set(eq(countsRef), anyMap(), any(SetOptions.class));
+    }
+
+    @Test
+    public void testMarkChunkLeavesTheCounterAloneWhenNothingWasUnread() throws Exception {
+        Transaction transaction = mock(Transaction.class);
+        DocumentReference countsRef = mock(DocumentReference.class);
+        DocumentSnapshot covered = stored(transaction, "old", true, false, new Timestamp(50, 0));
+
+        InboxReadMarker.markChunk(transaction, refs(covered), countsRef, READ_UP_TO);
+
+        verify(transaction).update(covered.getReference(), "isRead", true);
+        verify(transaction, never()).set(eq(countsRef), anyMap(), any(SetOptions.class));
+    }
+
+    @Test
+    public void testRecordCountsMarkedSkippedAndFailed() {
+        InboxReadMarker.Result result = new InboxReadMarker.Result();
+
+        InboxReadMarker.record(result, 3, Arrays.asList("a", "b"));
+        InboxReadMarker.record(result, 4, null);
+
+        assertEquals(2, result.getMarked());
+        assertEquals(1, result.getSkipped());
+        assertEquals(4, result.getFailed());
+        assertEquals(Arrays.asList("a", "b"), result.getMarkedIds());
+    }
+}
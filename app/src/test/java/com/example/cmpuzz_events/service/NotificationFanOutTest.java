@@ -0,0 +1,54 @@
+package com.example.cmpuzz_events.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests how a fan-out is split into batches and how finished batches are counted.
+ */
+public class NotificationFanOutTest {
+
+    private static List<String> userIds(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("user" + i);
+        }
+        return ids;
+    }
+
+    @Test
+    public void testRecipientsAreSplitIntoBatchesThatFitTheWriteLimit() {
+        List<List<String>> chunks = NotificationFanOut.chunk(userIds(2 * NotificationFanOut.USERS_PER_BATCH + 1));
+
+        assertEquals(3, chunks.size());
+        for (List<String> chunk : chunks) {
+            // Every recipient writes a notification and a counter increment
+            assertTrue(2 * chunk.size() <= NotificationFanOut.MAX_BATCH_WRITES);
+        }
+        assertEquals("user0", chunks.get(0).get(0));
+        assertEquals("user" + 2 * NotificationFanOut.USERS_PER_BATCH, chunks.get(2).get(0));
+    }
+
+    @Test
+    public void testNoRecipientsMeansNoBatches() {
+        assertEquals(0, NotificationFanOut.chunk(Collections.emptyList()).size());
+    }
+
+    @Test
+    public void testFailedBatchCountsEveryRecipientAsFailed() {
+        NotificationFanOut.Result result = new NotificationFanOut.Result();
+
+        NotificationFanOut.record(result, NotificationFanOut.USERS_PER_BATCH, true);
+        NotificationFanOut.record(result, 7, false);
+        NotificationFanOut.record(result, 3, true);
+
+        assertEquals(NotificationFanOut.USERS_PER_BATCH + 3, result.getSent());
+        assertEquals(7, result.getFailed());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.cmpuzz_events.utils;
+
+import com.example.cmpuzz_events.models.event.EventSummary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the title/description search index used by the event lists.
+ */
+public class EventSearchIndexTest {
+
+    private EventSearchIndex index;
+
+    private static EventSummary event(String id, String title, String description) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", id);
+        data.put("title", title);
+        data.put("description", description);
+        data.put("capacity", 10);
+        return EventSummary.fromMap(data);
+    }
+
+    private static List<String> ids(List<EventSummary> events) {
+        List<String> ids = new ArrayList<>();
+        for (EventSummary event : events) {
+            ids.add(event.getEventId());
+        }
+        return ids;
+    }
+
+    @Before
+    public void setUp() {
+        index = new EventSearchIndex();
+        index.put(event("bbq", "Community BBQ", "Burgers and games in the park"));
+        index.put(event("swim", "Swimming Lessons", "Beginner lessons at the community pool"));
+        index.put(event("cafe", "Caf\u00e9 Meetup", "Coffee with neighbours"));
+    }
+
+    @Test
+    public void testSubstringMatchesTitleBeforeDescription() {
+        assertEquals(Arrays.asList("bbq", "swim"), ids(index.search("commun")));
+        assertEquals(Arrays.asList("swim"), ids(index.search("lesson")));
+        assertEquals(Arrays.asList("bbq"), ids(index.search("games in the")));
+        assertEquals(1, index.search("unity bbq").size());
+        assertTrue(index.search("xyz").isEmpty());
+    }
+
+    @Test
+    public void testTrigramsMustBeContiguous() {
+        // "the park" and "parks" share trigrams but "the parks" is not in the text
+        assertTrue(index.search("the parks").isEmpty());
+    }
+
+    @Test
+    public void testShortQueriesMatchWordPrefixes() {
+        assertEquals(Arrays.asList("swim"), ids(index.search("sw")));
+        assertEquals(Arrays.asList("bbq", "cafe", "swim"), ids(index.search("C")));
+        assertTrue(index.search("  ").isEmpty());
+    }
+
+    @Test
+    public void testNormalisesCaseAndAccents() {
+        assertEquals(Arrays.asList("cafe"), ids(index.search("CAFE meet")));
+        assertEquals(Arrays.asList("cafe"), ids(index.search("caf\u00e9")));
+    }
+
+    @Test
+    public void testUpdatesAndRemovalsAreIncremental() {
+        index.put(event("bbq", "Winter Potluck", "Soup and bread"));
+        assertTrue(index.search("bbq").isEmpty());
+        assertEquals(Arrays.asList("bbq"), ids(index.search("potluck")));
+        // Re-indexing keeps the original position among equal matches
+        index.put(event("swim", "Winter Swim", "Lessons at the pool"));
+        index.put(event("bbq", "Winter Potluck", "Soup and bread"));
+        assertEquals(Arrays.asList("bbq", "swim"), ids(index.search("winter")));
+
+        assertTrue(index.remove("swim"));
+        assertFalse(index.remove("swim"));
+        assertTrue(index.search("pool").isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testLargeIndexStaysFast() {
+        index.clear();
+        for (int i = 0; i < 50_000; i++) {
+            index.put(event("e" + i, "Event number " + i, "Description for event " + i));
+        }
+        index.put(event("target", "Pottery workshop", "Hands-on clay session"));
+
+        long start = System.nanoTime();
+        List<EventSummary> results = null;
+        for (int i = 0; i < 100; i++) {
+            results = index.search("clay sess");
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Arrays.asList("target"), ids(results));
+        assertTrue("100 searches took " + elapsedMs + "ms", elapsedMs < 1000);
+    }
+}
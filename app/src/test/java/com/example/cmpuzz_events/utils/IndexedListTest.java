@@ -0,0 +1,78 @@
+package com.example.cmpuzz_events.utils;
+
+import com.example.cmpuzz_events.models.event.Invitation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the hash-indexed list used for EventEntity's entrant lists.
+ */
+public class IndexedListTest {
+
+    @Test
+    public void testKeepsInsertionOrderAndDropsDuplicates() {
+        IndexedList<String, String> ids = IndexedList.ofIds(Arrays.asList("a", "b", "a", "c"));
+
+        assertEquals(Arrays.asList("a", "b", "c"), ids);
+        assertFalse(ids.add("b"));
+        assertTrue(ids.add("d"));
+        assertEquals("d", ids.get(3));
+    }
+
+    @Test
+    public void testRemoveKeepsOrderAndRefreshesPositions() {
+        IndexedList<String, String> ids = IndexedList.ofIds(Arrays.asList("a", "b", "c", "d"));
+        assertEquals("b", ids.get(1));
+
+        assertTrue(ids.remove("b"));
+        assertFalse(ids.contains("b"));
+        assertEquals("c", ids.get(1));
+        assertEquals("d", ids.remove(2));
+        assertEquals(Arrays.asList("a", "c"), ids);
+    }
+
+    @Test
+    public void testRemoveIfIsSinglePass() {
+        List<String> source = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            source.add("user" + i);
+        }
+        IndexedList<String, String> ids = IndexedList.ofIds(source);
+        HashSet<String> drop = new HashSet<>(source.subList(0, 25_000));
+
+        long start = System.nanoTime();
+        ids.removeIf(drop::contains);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(25_000, ids.size());
+        assertEquals("user25000", ids.get(0));
+        assertTrue("removeIf took " + elapsedMs + "ms", elapsedMs < 1000);
+    }
+
+    @Test
+    public void testKeyedLookupForInvitations() {
+        IndexedList<String, Invitation> invitations = new IndexedList<>(Invitation::getUserId);
+        Invitation first = new Invitation("user1", "Alice");
+        invitations.add(first);
+        invitations.add(new Invitation("user2", "Bob"));
+
+        assertSame(first, invitations.getByKey("user1"));
+        assertTrue(invitations.containsKey("user2"));
+        assertFalse(invitations.add(new Invitation("user1", "Alice again")));
+
+        assertSame(first, invitations.removeByKey("user1"));
+        assertNull(invitations.getByKey("user1"));
+        assertEquals(1, invitations.size());
+    }
+}
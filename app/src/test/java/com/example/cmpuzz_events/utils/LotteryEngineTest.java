@@ -0,0 +1,105 @@
+package com.example.cmpuzz_events.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the O(k) lottery draw used by EventService.drawAttendees.
+ */
+public class LotteryEngineTest {
+
+    private List<String> makePool(int size) {
+        List<String> pool = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            pool.add("user" + i);
+        }
+        return pool;
+    }
+
+    @Test
+    public void testDrawSplitsPoolIntoWinnersAndLosers() {
+        List<String> pool = makePool(10);
+        LotteryEngine.DrawResult result = new LotteryEngine(42L).draw(pool, 3);
+
+        assertEquals(3, result.getWinners().size());
+        assertEquals(7, result.getLosers().size());
+
+        Set<String> everyone = new HashSet<>(result.getWinners());
+        everyone.addAll(result.getLosers());
+        assertEquals(new HashSet<>(pool), everyone);
+
+        for (String loser : result.getLosers()) {
+            assertFalse(result.getWinnerSet().contains(loser));
+        }
+    }
+
+    @Test
+    public void testWinnersAreDistinct() {
+        LotteryEngine.DrawResult result = new LotteryEngine(7L).draw(makePool(50), 50);
+
+        assertEquals(50, new HashSet<>(result.getWinners()).size());
+        assertTrue(result.getLosers().isEmpty());
+    }
+
+    @Test
+    public void testSameSeedGivesSameDraw() {
+        List<String> pool = makePool(1000);
+
+        List<String> first = new LotteryEngine(123L).draw(pool, 25).getWinners();
+        List<String> second = new LotteryEngine(123L).draw(pool, 25).getWinners();
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testSampleSizeCappedAtPoolSize() {
+        LotteryEngine.DrawResult result = new LotteryEngine(1L).draw(makePool(4), 10);
+
+        assertEquals(4, result.getWinners().size());
+        assertTrue(result.getLosers().isEmpty());
+    }
+
+    @Test
+    public void testEmptyPoolAndZeroSample() {
+        LotteryEngine engine = new LotteryEngine(1L);
+
+        assertTrue(engine.draw(new ArrayList<>(), 3).getWinners().isEmpty());
+        assertEquals(5, engine.draw(makePool(5), 0).getLosers().size());
+        assertNull(engine.drawOne(new ArrayList<>()));
+    }
+
+    @Test
+    public void testLosersKeepPoolOrder() {
+        List<String> pool = makePool(20);
+        List<String> losers = new LotteryEngine(99L).draw(pool, 5).getLosers();
+
+        int last = -1;
+        for (String loser : losers) {
+            int index = pool.indexOf(loser);
+            assertTrue(index > last);
+            last = index;
+        }
+    }
+
+    @Test
+    public void testLargePoolDrawIsFast() {
+        List<String> pool = makePool(100_000);
+
+        long start = System.nanoTime();
+        LotteryEngine.DrawResult result = new LotteryEngine(5L).draw(pool, 500);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(500, result.getWinners().size());
+        assertEquals(99_500, result.getLosers().size());
+        assertTrue("Draw took " + elapsedMs + "ms", elapsedMs < 1000);
+    }
+}
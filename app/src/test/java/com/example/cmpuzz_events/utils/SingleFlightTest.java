@@ -0,0 +1,64 @@
+package com.example.cmpuzz_events.utils;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests request coalescing for concurrent identical reads.
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentRequestsShareOneLoad() {
+        SingleFlight<String> flight = new SingleFlight<>();
+        TaskCompletionSource<String> source = new TaskCompletionSource<>();
+        int[] loads = {0};
+
+        Task<String> first = flight.run("events/e1", () -> {
+            loads[0]++;
+            return source.getTask();
+        });
+        Task<String> second = flight.run("events/e1", () -> {
+            loads[0]++;
+            return source.getTask();
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads[0]);
+        assertEquals(2, flight.getRequestCount());
+        assertEquals(1, flight.getCoalescedCount());
+        assertEquals(1, flight.getInFlightCount());
+    }
+
+    @Test
+    public void testCompletedLoadIsNotReused() {
+        SingleFlight<String> flight = new SingleFlight<>();
+        TaskCompletionSource<String> source = new TaskCompletionSource<>();
+
+        Task<String> first = flight.run("users/u1", source::getTask);
+        source.setResult("Alice");
+        assertEquals(0, flight.getInFlightCount());
+
+        Task<String> second = flight.run("users/u1", () -> Tasks.forResult("Alice again"));
+        assertNotSame(first, second);
+        assertEquals(0, flight.getCoalescedCount());
+    }
+
+    @Test
+    public void testDifferentKeysLoadSeparately() {
+        SingleFlight<String> flight = new SingleFlight<>();
+
+        flight.run("users/u1", () -> new TaskCompletionSource<String>().getTask());
+        flight.run("users/u2", () -> new TaskCompletionSource<String>().getTask());
+
+        assertEquals(2, flight.getInFlightCount());
+        assertEquals(0, flight.getCoalescedCount());
+    }
+}
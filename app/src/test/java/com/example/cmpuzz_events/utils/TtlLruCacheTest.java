@@ -0,0 +1,52 @@
+package com.example.cmpuzz_events.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests eviction and expiry in the bounded user cache.
+ */
+public class TtlLruCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(2, 1000, () -> 0L);
+        cache.put("a", "Alice");
+        cache.put("b", "Bob");
+        cache.get("a"); // a is now more recent than b
+        cache.put("c", "Carol");
+
+        assertEquals(2, cache.size());
+        assertEquals("Alice", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("Carol", cache.get("c"));
+    }
+
+    @Test
+    public void testExpiredEntriesAreMissing() {
+        long[] now = {0};
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, 1000, () -> now[0]);
+        cache.put("a", "Alice");
+
+        now[0] = 999;
+        assertEquals("Alice", cache.get("a"));
+
+        now[0] = 1000;
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testPutRefreshesEntry() {
+        long[] now = {0};
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, 1000, () -> now[0]);
+        cache.put("a", "Alice");
+        now[0] = 800;
+        cache.put("a", "Alicia");
+        now[0] = 1500;
+
+        assertEquals("Alicia", cache.get("a"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.cmpuzz_events.utils;
+
+import com.example.cmpuzz_events.models.event.DrawPolicy;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the weighted sampler and the weighted / stratified lottery draw.
+ */
+public class WeightedSamplerTest {
+
+    @Test
+    public void testSampleWithoutReplacementReturnsDistinctIndices() {
+        double[] weights = new double[50];
+        Arrays.fill(weights, 1.0);
+        WeightedSampler sampler = new WeightedSampler(weights);
+
+        int[] picked = sampler.sampleWithoutReplacement(50, new Random(1L));
+
+        Set<Integer> distinct = new HashSet<>();
+        for (int index : picked) {
+            distinct.add(index);
+        }
+        assertEquals(50, distinct.size());
+        assertEquals(0.0, sampler.getTotalWeight(), 1e-9);
+    }
+
+    @Test
+    public void testZeroWeightItemsAreNeverPicked() {
+        WeightedSampler sampler = new WeightedSampler(new double[]{0, 2, 0, 3, 0});
+
+        int[] picked = sampler.sampleWithoutReplacement(5, new Random(7L));
+
+        assertEquals(2, picked.length);
+        Set<Integer> distinct = new HashSet<>();
+        for (int index : picked) {
+            distinct.add(index);
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 3)), distinct);
+    }
+
+    @Test
+    public void testHeavierItemIsPickedMoreOften() {
+        Random random = new Random(3L);
+        int heavyFirst = 0;
+        for (int trial = 0; trial < 2000; trial++) {
+            WeightedSampler sampler = new WeightedSampler(new double[]{1, 9});
+            if (sampler.sampleAndRemove(random) == 1) {
+                heavyFirst++;
+            }
+        }
+        // Expected 90%
+        assertTrue("Heavy item first " + heavyFirst + " times", heavyFirst > 1700 && heavyFirst < 1900);
+    }
+
+    @Test
+    public void testStratumSeatsGoToEntrantsInsideRegion() {
+        List<String> pool = new ArrayList<>();
+        Map<String, List<Double>> locations = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            String userId = "user" + i;
+            pool.add(userId);
+            // First five joined from Edmonton, the rest from Calgary
+            locations.put(userId, i < 5 ? Arrays.asList(53.5461, -113.4938) : Arrays.asList(51.0447, -114.0719));
+        }
+
+        DrawPolicy policy = new DrawPolicy();
+        policy.addStratum(new DrawPolicy.Stratum("local", 3,
+                new DrawPolicy.Region(53.5461, -113.4938, 25)));
+
+        LotteryEngine.DrawResult result = new LotteryEngine(11L).draw(pool, 4, policy, locations);
+
+        assertEquals(4, result.getWinners().size());
+        assertEquals(16, result.getLosers().size());
+        int local = 0;
+        for (String winner : result.getWinners().subList(0, 3)) {
+            if (pool.indexOf(winner) < 5) {
+                local++;
+            }
+        }
+        assertEquals(3, local);
+    }
+
+    @Test
+    public void testWeightedDrawIsReproducibleAndSkipsZeroWeights() {
+        List<String> pool = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            pool.add("user" + i);
+        }
+        DrawPolicy policy = new DrawPolicy();
+        policy.setWeight("user0", 0);
+        policy.prioritize(Arrays.asList("user1", "user2"), 5.0);
+
+        LotteryEngine.DrawResult first = new LotteryEngine(21L).draw(pool, 9, policy, null);
+        LotteryEngine.DrawResult second = new LotteryEngine(21L).draw(pool, 9, policy, null);
+
+        assertEquals(first.getWinners(), second.getWinners());
+        assertFalse(first.getWinnerSet().contains("user0"));
+        assertEquals(Arrays.asList("user0"), first.getLosers());
+    }
+}